@@ -263,6 +263,8 @@ project(":core-ai-cli") {
 project(":core-ai-benchmark") {
     version = ProjectVersions.CORE_AI_BENCHMARK_VERSION
     apply(plugin = "app")
+    // JMH micro-benchmarks live in their own source set, run with ./gradlew :core-ai-benchmark:jmh then :core-ai-benchmark:jmhCheck
+    val jmh = the<SourceSetContainer>().create("jmh")
     dependencies {
         implementation(project(":core-ai"))
         implementation(project(":core-ai-api"))
@@ -270,8 +272,49 @@ project(":core-ai-benchmark") {
         compileOnly("com.github.spotbugs:spotbugs-annotations:4.9.8")
         testCompileOnly("com.github.spotbugs:spotbugs-annotations:4.9.8")
         testImplementation("core.framework:core-ng-test:${Versions.CORE_FRAMEWORK_VERSION}")
+        "jmhImplementation"(project(":core-ai"))
+        "jmhImplementation"(project(":core-ai-api"))
+        "jmhImplementation"(project(":core-ai-server"))
+        "jmhImplementation"("core.framework:core-ng:${Versions.CORE_FRAMEWORK_VERSION}")
+        "jmhImplementation"("com.fasterxml.jackson.core:jackson-databind:${Versions.JACKSON_VERSION}")
+        "jmhImplementation"("org.openjdk.jmh:jmh-core:${Versions.JMH_VERSION}")
+        "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${Versions.JMH_VERSION}")
     }
     tasks.withType<Test> {
         setProperty("failOnNoDiscoveredTests", false)
     }
+    tasks.named<JavaCompile>("compileJmhJava") {
+        // the JMH annotation processor generates the harness classes, its output stays under -Xlint:all -Werror
+        options.compilerArgs.remove("-proc:none")
+    }
+    tasks.matching { it.name == "spotbugsJmh" }.configureEach {
+        enabled = false
+    }
+    val jmhResult = layout.buildDirectory.file("reports/jmh/result.json")
+    tasks.register<JavaExec>("jmh") {
+        group = "benchmark"
+        description = "Runs JMH benchmarks with the GC profiler, -Pjmh.include=<regex> selects benchmarks."
+        classpath = jmh.runtimeClasspath
+        mainClass = "org.openjdk.jmh.Main"
+        args(findProperty("jmh.include") ?: ".*", "-prof", "gc", "-rf", "json", "-rff", jmhResult.get().asFile.absolutePath)
+        doFirst {
+            jmhResult.get().asFile.parentFile.mkdirs()
+        }
+        outputs.upToDateWhen { false }
+    }
+    tasks.register<JavaExec>("jmhCheck") {
+        group = "benchmark"
+        description = "Compares the last jmh result with jmh/baseline.json, -Pjmh.tolerance=0.15, -Pjmh.updateBaseline=true records it as the baseline on this JDK."
+        classpath = jmh.runtimeClasspath
+        mainClass = "ai.core.benchmark.jmh.BaselineCheck"
+        args(jmhResult.get().asFile.absolutePath, file("jmh/baseline.json").absolutePath, findProperty("jmh.tolerance") ?: "0.15", findProperty("jmh.updateBaseline") ?: "false")
+    }
+    tasks.register<JavaExec>("loadTest") {
+        group = "benchmark"
+        description = "Drives concurrent agent sessions against the replay provider, -Pload.args=\"--sessions=1000 --turns=5\" passes options."
+        classpath = the<SourceSetContainer>()["main"].runtimeClasspath
+        mainClass = "ai.core.benchmark.load.AgentLoadDriver"
+        args((findProperty("load.args") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: listOf<String>())
+        outputs.upToDateWhen { false }
+    }
 }
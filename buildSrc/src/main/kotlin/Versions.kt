@@ -22,6 +22,7 @@ object Versions {
     const val OPENTELEMETRY_PROTO_VERSION = "1.7.0-alpha"
     const val JEDIS_VERSION = "5.2.0"
     const val GOOGLE_AUTH_VERSION = "1.30.0"
+    const val JMH_VERSION = "1.37"
 }
 
 object ProjectVersions {
@@ -0,0 +1,128 @@
+package ai.core.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH json result with the checked-in baseline. A benchmark regresses when its allocation per op
+ * (gc.alloc.rate.norm) grows by more than the tolerance, or its time per op does and the two error intervals do not
+ * overlap. Allocation is deterministic on one JDK release but changes between releases, so a baseline of another
+ * feature release is not compared at all; time is only comparable on the same hardware and exact jdkVersion, so it is
+ * also skipped when the baseline run is marked provisional. Benchmarks missing on either side are reported and
+ * ignored. Exits 1 on regression so CI fails. The baseline is recorded with update=true on the build toolchain JDK,
+ * the machine specific jvm path of each run is dropped.
+ *
+ * usage: BaselineCheck result.json baseline.json [tolerance=0.15] [update=false]
+ *
+ * @author stephen
+ */
+public final class BaselineCheck {
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+    private static final double MIN_ALLOC_DELTA_BYTES = 64;
+
+    @SuppressWarnings("PMD.SystemPrintln")
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) throw new IllegalArgumentException("usage: BaselineCheck result.json baseline.json [tolerance] [update]");
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.15;
+        boolean update = args.length > 3 && Boolean.parseBoolean(args[3]);
+        if (!Files.exists(result)) throw new IllegalStateException("jmh result not found, run the jmh task first, result=" + result);
+
+        if (update) {
+            record(result, baseline);
+            System.out.println("baseline updated, baseline=" + baseline);
+            return;
+        }
+        int regressions = compare(scores(result), Files.exists(baseline) ? scores(baseline) : Map.of(), tolerance);
+        if (regressions > 0) {
+            System.out.printf(Locale.ROOT, "%d benchmark(s) regressed by more than %.0f%%%n", regressions, tolerance * 100);
+            System.exit(1);
+        }
+    }
+
+    @SuppressWarnings("PMD.SystemPrintln")
+    static int compare(Map<String, Score> current, Map<String, Score> baseline, double tolerance) {
+        int regressions = 0;
+        for (var entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "NEW   %s %.3f %s, %.0f B/op%n", entry.getKey(), now.score, now.unit, now.allocBytes);
+                continue;
+            }
+            if (!Objects.equals(release(now.jdk), release(before.jdk))) {
+                System.out.printf(Locale.ROOT, "SKIP  %s baseline recorded on JDK %s, this run on JDK %s%n", entry.getKey(), before.jdk, now.jdk);
+                continue;
+            }
+            boolean timeComparable = !before.provisional && Objects.equals(now.jdk, before.jdk);
+            boolean slower = timeComparable && now.score > before.score * (1 + tolerance) && now.score - now.error > before.score + before.error;
+            boolean allocates = now.allocBytes > before.allocBytes * (1 + tolerance) && now.allocBytes - before.allocBytes > MIN_ALLOC_DELTA_BYTES;
+            String status = slower || allocates ? "WORSE" : "OK";
+            if (slower || allocates) regressions++;
+            System.out.printf(Locale.ROOT, "%-5s %s %.3f -> %.3f %s (%+.1f%%%s), %.0f -> %.0f B/op%n", status, entry.getKey(),
+                    before.score, now.score, now.unit, change(before.score, now.score), timeComparable ? "" : ", time not compared", before.allocBytes, now.allocBytes);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) System.out.printf(Locale.ROOT, "SKIP  %s not in this run%n", key);
+        }
+        return regressions;
+    }
+
+    static void record(Path result, Path baseline) throws IOException {
+        var mapper = new ObjectMapper();
+        JsonNode runs = mapper.readTree(result.toFile());
+        for (JsonNode run : runs) {
+            if (run instanceof ObjectNode node) node.remove("jvm");
+        }
+        Files.createDirectories(baseline.toAbsolutePath().getParent());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(baseline.toFile(), runs);
+    }
+
+    // feature release of a jdkVersion, e.g. 25 of 25.0.1
+    static String release(String jdkVersion) {
+        int end = 0;
+        while (end < jdkVersion.length() && Character.isDigit(jdkVersion.charAt(end))) end++;
+        return jdkVersion.substring(0, end);
+    }
+
+    static Map<String, Score> scores(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        JsonNode runs = new ObjectMapper().readTree(file.toFile());
+        for (JsonNode run : runs) {
+            var primary = run.path("primaryMetric");
+            var alloc = run.path("secondaryMetrics").path(ALLOC_METRIC);
+            scores.put(key(run), new Score(primary.path("score").asDouble(), primary.path("scoreError").asDouble(0), primary.path("scoreUnit").asText(),
+                    alloc.path("score").asDouble(0), run.path("jdkVersion").asText(), run.hasNonNull("provisional")));
+        }
+        return scores;
+    }
+
+    // benchmark name plus sorted params, e.g. ai.core.benchmark.jmh.PlannerBenchmark.planInitial{layers=20,width=50}
+    private static String key(JsonNode run) {
+        Map<String, String> params = new TreeMap<>();
+        run.path("params").properties().forEach(param -> params.put(param.getKey(), param.getValue().asText()));
+        return params.isEmpty() ? run.path("benchmark").asText() : run.path("benchmark").asText() + params.toString().replace(", ", ",");
+    }
+
+    private static double change(double before, double now) {
+        return before == 0 ? 0 : (now - before) / before * 100;
+    }
+
+    // provisional marks a baseline recorded off the CI hardware, only its allocation is trusted
+    record Score(double score, double error, String unit, double allocBytes, String jdk, boolean provisional) {
+    }
+
+    private BaselineCheck() {
+    }
+}
@@ -0,0 +1,92 @@
+package ai.core.benchmark.jmh;
+
+import ai.core.api.jsonschema.JsonSchema;
+import ai.core.llm.domain.CompletionRequest;
+import ai.core.llm.domain.Function;
+import ai.core.llm.domain.Tool;
+import ai.core.llm.domain.ToolType;
+import ai.core.utils.JsonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the request body sent on every LLM call, and parsing it back as the server-side proxy does.
+ *
+ * @author stephen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompletionRequestJsonBenchmark {
+    private static Tool tool(int index) {
+        var query = new JsonSchema();
+        query.type = JsonSchema.PropertyType.STRING;
+        query.description = "query text";
+        var limit = new JsonSchema();
+        limit.type = JsonSchema.PropertyType.INTEGER;
+        limit.description = "max results";
+        var parameters = new JsonSchema();
+        parameters.type = JsonSchema.PropertyType.OBJECT;
+        parameters.properties = new LinkedHashMap<>();
+        parameters.properties.put("query", query);
+        parameters.properties.put("limit", limit);
+        parameters.required = List.of("query");
+        var function = new Function();
+        function.name = "tool_" + index;
+        function.description = Fixtures.text(30, index);
+        function.parameters = parameters;
+        var tool = new Tool();
+        tool.type = ToolType.FUNCTION;
+        tool.function = function;
+        return tool;
+    }
+
+    @Param({"20", "200"})
+    public int turns;
+
+    private CompletionRequest request;
+    private String json;
+
+    @Setup
+    public void setup() {
+        var tools = new ArrayList<Tool>();
+        for (int i = 0; i < 30; i++) {
+            tools.add(tool(i));
+        }
+        request = CompletionRequest.of(Fixtures.conversation(turns, 80), tools, 0.7, "gpt-4o", "benchmark");
+        request.stream = Boolean.TRUE;
+        json = JsonUtil.toJson(request);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonUtil.toJson(request);
+    }
+
+    @Benchmark
+    public CompletionRequest fromJson() {
+        return JsonUtil.fromJson(CompletionRequest.class, json);
+    }
+
+    @Benchmark
+    public CompletionRequest roundTrip() {
+        return JsonUtil.fromJson(CompletionRequest.class, JsonUtil.toJson(request));
+    }
+}
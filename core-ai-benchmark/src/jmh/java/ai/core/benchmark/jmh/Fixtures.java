@@ -0,0 +1,58 @@
+package ai.core.benchmark.jmh;
+
+import ai.core.llm.domain.FunctionCall;
+import ai.core.llm.domain.Message;
+import ai.core.llm.domain.RoleType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic inputs shared by the benchmarks, seeded so every run and every fork sees the same data.
+ *
+ * @author stephen
+ */
+public final class Fixtures {
+    private static final String[] WORDS = {
+        "agent", "tool", "context", "token", "stream", "session", "workflow", "planner", "vector", "memory",
+        "compression", "the", "a", "of", "and", "to", "in", "is", "that", "for", "with", "on", "result", "request",
+        "function", "argument", "response", "provider", "message", "history", "search", "document", "index"
+    };
+
+    public static String text(int words, long seed) {
+        var random = new Random(seed);
+        var builder = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) builder.append(i % 17 == 0 ? ".\n" : " ");
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    // user -> assistant tool call -> tool result -> assistant answer, repeated, after one system message
+    public static List<Message> conversation(int turns, int wordsPerMessage) {
+        var messages = new ArrayList<Message>(turns * 4 + 1);
+        messages.add(Message.of(RoleType.SYSTEM, text(wordsPerMessage, 0)));
+        for (int turn = 0; turn < turns; turn++) {
+            var callId = "call_" + turn;
+            var call = FunctionCall.of(callId, "function", "search_documents", "{\"query\":\"" + text(8, turn) + "\",\"top_k\":5}");
+            messages.add(Message.of(RoleType.USER, text(wordsPerMessage / 4, turn * 4L + 1)));
+            messages.add(Message.of(RoleType.ASSISTANT, null, null, null, List.of(call)));
+            messages.add(Message.of(RoleType.TOOL, text(wordsPerMessage * 2, turn * 4L + 2), "search_documents", callId, null));
+            messages.add(Message.of(RoleType.ASSISTANT, text(wordsPerMessage, turn * 4L + 3)));
+        }
+        return messages;
+    }
+
+    public static float[] vector(Random random, int dimension) {
+        var vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    private Fixtures() {
+    }
+}
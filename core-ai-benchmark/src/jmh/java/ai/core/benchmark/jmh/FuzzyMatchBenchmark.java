@@ -0,0 +1,81 @@
+package ai.core.benchmark.jmh;
+
+import ai.core.tool.tools.FuzzyMatchReplacer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edit-file matching on a large source file: an exact hit, a block whose indentation the model got wrong (falls
+ * through the strict strategies), and a block that is not in the file at all (runs every strategy).
+ *
+ * @author stephen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FuzzyMatchBenchmark {
+    @Param({"2000", "20000"})
+    public int lines;
+
+    private String content;
+    private String exact;
+    private String reindented;
+    private String missing;
+
+    @Setup
+    public void setup() {
+        var builder = new StringBuilder(lines * 40);
+        int methods = lines / 8;
+        for (int i = 0; i < methods; i++) {
+            builder.append("    public int method").append(i).append("(int value) {\n")
+                    .append("        int result = value * ").append(i).append(";\n")
+                    .append("        if (result > ").append(i * 3).append(") {\n")
+                    .append("            result -= ").append(i % 7).append(";\n")
+                    .append("        }\n")
+                    .append("        return result;\n")
+                    .append("    }\n")
+                    .append('\n');
+        }
+        content = builder.toString();
+        int target = methods * 3 / 4;
+        exact = "        int result = value * " + target + ";\n"
+                + "        if (result > " + target * 3 + ") {\n"
+                + "            result -= " + target % 7 + ";\n"
+                + "        }";
+        reindented = exact.lines().map(String::strip).reduce((left, right) -> left + "\n  " + right).orElseThrow();
+        missing = "        int result = compute(value);\n"
+                + "        if (result < 0) {\n"
+                + "            throw new IllegalStateException();\n"
+                + "        }";
+    }
+
+    @Benchmark
+    public List<FuzzyMatchReplacer.MatchResult> exactMatch() {
+        return FuzzyMatchReplacer.findMatches(content, exact);
+    }
+
+    @Benchmark
+    public List<FuzzyMatchReplacer.MatchResult> reindentedMatch() {
+        return FuzzyMatchReplacer.findMatches(content, reindented);
+    }
+
+    @Benchmark
+    public List<FuzzyMatchReplacer.MatchResult> noMatch() {
+        return FuzzyMatchReplacer.findMatches(content, missing);
+    }
+}
@@ -0,0 +1,83 @@
+package ai.core.benchmark.jmh;
+
+import ai.core.document.Document;
+import ai.core.document.Embedding;
+import ai.core.rag.DistanceMetricType;
+import ai.core.rag.SimilaritySearchRequest;
+import ai.core.vectorstore.vectorstores.hnswlib.HnswConfig;
+import ai.core.vectorstore.vectorstores.hnswlib.HnswLibVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-k search against an index built once per fork in a temp file, cycling through a fixed set of query vectors.
+ *
+ * @author stephen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HnswSearchBenchmark {
+    private static final int DIMENSION = 384;
+    private static final int QUERIES = 64;
+
+    @Param({"10000"})
+    public int documents;
+
+    private Path indexFile;
+    private HnswLibVectorStore store;
+    private List<SimilaritySearchRequest> requests;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        var random = new Random(42);
+        var docs = new ArrayList<Document>(documents);
+        for (int i = 0; i < documents; i++) {
+            docs.add(new Document("doc-" + i, Embedding.of(Fixtures.vector(random, DIMENSION)), Fixtures.text(40, i), Map.of("source", "benchmark")));
+        }
+        indexFile = Files.createTempFile("hnsw-benchmark-", ".index");
+        var config = new HnswConfig(indexFile.toString(), DIMENSION, documents, 40, 200, 16, DistanceMetricType.COSINE);
+        HnswLibVectorStore.build(config, docs);
+        store = new HnswLibVectorStore(config);
+        store.init();
+        requests = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            requests.add(SimilaritySearchRequest.builder().embedding(Embedding.of(Fixtures.vector(random, DIMENSION))).topK(10).threshold(2d).build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(indexFile);
+    }
+
+    @Benchmark
+    public List<Document> search() {
+        var request = requests.get(next);
+        next = (next + 1) % QUERIES;
+        return store.similaritySearch(request);
+    }
+}
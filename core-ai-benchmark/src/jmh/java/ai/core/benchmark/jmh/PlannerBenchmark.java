@@ -0,0 +1,100 @@
+package ai.core.benchmark.jmh;
+
+import ai.core.server.workflow.engine.Frontier;
+import ai.core.server.workflow.engine.NodeFact;
+import ai.core.server.workflow.engine.Planner;
+import ai.core.server.workflow.engine.RunState;
+import ai.core.server.workflow.engine.WorkflowEdge;
+import ai.core.server.workflow.engine.WorkflowGraph;
+import ai.core.server.workflow.engine.WorkflowNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full planner fold over a layered fan-out/join graph ({@code layers} x {@code width} nodes, every node wired to
+ * two nodes of the next layer), at the start of a run and halfway through it with one branch taken.
+ *
+ * @author stephen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlannerBenchmark {
+    private static String nodeId(int layer, int index) {
+        return "n" + layer + "_" + index;
+    }
+
+    @Param({"20", "100"})
+    public int layers;
+
+    @Param({"50"})
+    public int width;
+
+    private WorkflowGraph graph;
+    private RunState initial;
+    private RunState halfway;
+
+    @Setup
+    public void setup() {
+        var nodes = new ArrayList<WorkflowNode>();
+        var edges = new ArrayList<WorkflowEdge>();
+        nodes.add(new WorkflowNode("start", "START"));
+        for (int layer = 0; layer < layers; layer++) {
+            for (int index = 0; index < width; index++) {
+                nodes.add(new WorkflowNode(nodeId(layer, index), layer == 0 ? "IF" : "LLM"));
+            }
+        }
+        nodes.add(new WorkflowNode("end", "END"));
+        for (int index = 0; index < width; index++) {
+            edges.add(new WorkflowEdge("start-" + index, "start", nodeId(0, index)));
+            edges.add(new WorkflowEdge("end-" + index, nodeId(layers - 1, index), "end"));
+        }
+        for (int layer = 0; layer < layers - 1; layer++) {
+            for (int index = 0; index < width; index++) {
+                edges.add(new WorkflowEdge(nodeId(layer, index) + "-a", nodeId(layer, index), nodeId(layer + 1, index)));
+                edges.add(new WorkflowEdge(nodeId(layer, index) + "-b", nodeId(layer, index), nodeId(layer + 1, (index + 1) % width)));
+            }
+        }
+        graph = new WorkflowGraph(nodes, edges);
+        initial = RunState.empty();
+
+        Map<String, NodeFact> facts = new HashMap<>();
+        facts.put("start", NodeFact.completedNormal("start"));
+        for (int layer = 0; layer < layers / 2; layer++) {
+            for (int index = 0; index < width; index++) {
+                String id = nodeId(layer, index);
+                // layer 0 nodes are branches that only take their "a" edge
+                facts.put(id, layer == 0 ? NodeFact.completedBranch(id, Set.of(id + "-a")) : NodeFact.completedNormal(id));
+            }
+        }
+        halfway = new RunState(facts);
+    }
+
+    @Benchmark
+    public Frontier planInitial() {
+        return Planner.plan(graph, initial);
+    }
+
+    @Benchmark
+    public Frontier planHalfway() {
+        return Planner.plan(graph, halfway);
+    }
+}
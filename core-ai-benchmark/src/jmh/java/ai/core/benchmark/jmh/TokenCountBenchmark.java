@@ -0,0 +1,57 @@
+package ai.core.benchmark.jmh;
+
+import ai.core.document.Tokenizer;
+import ai.core.llm.domain.Message;
+import ai.core.utils.MessageTokenCounterUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw BPE counting of one document, and history counting where every message token count is already cached, so
+ * the latter measures the fingerprint path taken on each agent turn.
+ *
+ * @author stephen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenCountBenchmark {
+    @Param({"1000", "20000"})
+    public int words;
+
+    private String text;
+    private List<Message> history;
+
+    @Setup
+    public void setup() {
+        Tokenizer.warmup();
+        text = Fixtures.text(words, 42);
+        history = Fixtures.conversation(words / 400, 100);
+        MessageTokenCounterUtil.count(history);
+    }
+
+    @Benchmark
+    public int tokenCount() {
+        return Tokenizer.tokenCount(text);
+    }
+
+    @Benchmark
+    public int historyCount() {
+        return MessageTokenCounterUtil.count(history);
+    }
+}
@@ -0,0 +1,54 @@
+package ai.core.context;
+
+import ai.core.benchmark.jmh.Fixtures;
+import ai.core.llm.domain.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep-index computation of a compression pass over a long conversation, without the summary LLM call. The ledger
+ * is warm after the first invocation, which is the steady state of an agent loop.
+ *
+ * @author stephen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionKeepIndexBenchmark {
+    @Param({"50", "500"})
+    public int turns;
+
+    private Compression compression;
+    private List<Message> conversation;
+
+    @Setup
+    public void setup() {
+        compression = new Compression(null, null);
+        conversation = Fixtures.conversation(turns, 120).subList(1, turns * 4 + 1);
+    }
+
+    @Benchmark
+    public int keepFromIndex() {
+        return compression.keepFromIndex(conversation, false);
+    }
+
+    @Benchmark
+    public int forceKeepFromIndex() {
+        return compression.keepFromIndex(conversation, true);
+    }
+}
@@ -0,0 +1,86 @@
+package ai.core.llm.providers;
+
+import ai.core.benchmark.jmh.Fixtures;
+import ai.core.llm.LLMProviderConfig;
+import ai.core.llm.domain.CompletionResponse;
+import ai.core.llm.streaming.StreamingCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One chat/completions stream replayed from memory: chunk decoding alone, and decoding plus the merge into the
+ * final response that consumeSSEStream does per event. Lives in the provider package to reach the package-private
+ * decoder and accumulateChunk.
+ *
+ * @author stephen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LiteLLMStreamBenchmark {
+    private static String escape(String text) {
+        return text.replace("\n", "\\n");
+    }
+
+    @Param({"200", "2000"})
+    public int chunks;
+
+    private List<String> events;
+    private LiteLLMProvider provider;
+    private StreamingCallback callback;
+
+    @Setup
+    public void setup() {
+        provider = new LiteLLMProvider(new LLMProviderConfig("gpt-4o", 0.7, null), "http://localhost:4000", "token");
+        callback = chunk -> { };
+        events = new ArrayList<>(chunks + 2);
+        events.add("{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",\"created\":1760000000,\"model\":\"gpt-4o\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"\"},\"finish_reason\":null}]}");
+        int toolChunks = chunks / 10;
+        for (int i = 0; i < chunks - toolChunks; i++) {
+            var field = i % 5 == 0 ? "reasoning_content" : "content";
+            events.add("{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",\"created\":1760000000,\"model\":\"gpt-4o\",\"choices\":[{\"index\":0,\"delta\":{\""
+                    + field + "\":\"" + escape(Fixtures.text(4, i)) + " \"},\"finish_reason\":null}]}");
+        }
+        events.add("{\"id\":\"chatcmpl-1\",\"choices\":[{\"index\":0,\"delta\":{\"tool_calls\":[{\"index\":0,\"id\":\"call_1\",\"type\":\"function\",\"function\":{\"name\":\"search_documents\",\"arguments\":\"\"}}]},\"finish_reason\":null}]}");
+        for (int i = 1; i < toolChunks; i++) {
+            events.add("{\"id\":\"chatcmpl-1\",\"choices\":[{\"index\":0,\"delta\":{\"tool_calls\":[{\"index\":0,\"function\":{\"arguments\":\"" + escape(Fixtures.text(2, i)) + " \"}}]},\"finish_reason\":null}]}");
+        }
+        events.add("{\"id\":\"chatcmpl-1\",\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"tool_calls\"}],\"usage\":{\"prompt_tokens\":1200,\"completion_tokens\":" + chunks + ",\"total_tokens\":" + (1200 + chunks) + "}}");
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        var decoder = new LiteLLMChatChunkDecoder();
+        for (String event : events) {
+            blackhole.consume(decoder.decode(event));
+        }
+    }
+
+    @Benchmark
+    public CompletionResponse decodeAndMerge() {
+        var decoder = new LiteLLMChatChunkDecoder();
+        CompletionResponse response = null;
+        for (String event : events) {
+            response = provider.accumulateChunk(decoder, response, event, callback);
+        }
+        response.choices.getFirst().message.finalizeStreamingFields();
+        return response;
+    }
+}
@@ -0,0 +1,255 @@
+package ai.core.benchmark.load;
+
+import ai.core.agent.Agent;
+import ai.core.api.server.session.AgentEventListener;
+import ai.core.api.server.session.ErrorEvent;
+import ai.core.api.server.session.ReasoningChunkEvent;
+import ai.core.api.server.session.TextChunkEvent;
+import ai.core.api.server.session.TurnCompleteEvent;
+import ai.core.document.Tokenizer;
+import ai.core.llm.LLMProviderConfig;
+import ai.core.llm.providers.ReplayLLMProvider;
+import ai.core.llm.providers.ReplayScript;
+import ai.core.llm.providers.ReplayTranscript;
+import ai.core.persistence.PersistenceProvider;
+import ai.core.persistence.providers.FilePersistenceProvider;
+import ai.core.session.InMemoryToolPermissionStore;
+import ai.core.session.InProcessAgentSession;
+import ai.core.tool.function.Functions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives many concurrent {@link InProcessAgentSession}s against a {@link ReplayLLMProvider}, so the agent loop, tool
+ * orchestration, compression, session persistence and the event bridge run at production concurrency without a model.
+ * Each session runs on a virtual thread and sends its turns back to back (plus think time); options are --key=value,
+ * see {@link Options}.
+ *
+ * @author stephen
+ */
+public final class AgentLoadDriver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AgentLoadDriver.class);
+
+    public static void main(String[] args) throws InterruptedException {
+        var options = Options.parse(args);
+        var report = new AgentLoadDriver(options).run();
+        report.print(System.out);
+    }
+
+    private static List<ReplayTranscript> syntheticTranscripts() {
+        var answer = "The request was processed against the session context and the retrieved passages. "
+                + "The main points are summarised below with the relevant details for each item, followed by the next steps. ";
+        return List.of(
+                ReplayTranscript.answer("answer-short", answer.repeat(2).strip(), 3),
+                ReplayTranscript.answer("answer-long", answer.repeat(8).strip(), 3),
+                ReplayTranscript.toolCall("search", "search_documents", "{\"query\":\"quarterly usage report by region\"}", 4),
+                ReplayTranscript.toolCall("read", "read_file", "{\"path\":\"docs/architecture/session-lifecycle.md\"}", 4));
+    }
+
+    private final Options options;
+    private final ReplayLLMProvider provider;
+    private final PersistenceProvider persistence;
+    private final LoadTools tools;
+    private final LoadReport report = new LoadReport();
+
+    AgentLoadDriver(Options options) {
+        this.options = options;
+        var script = ReplayScript.builder()
+                .transcripts(options.transcripts == null ? syntheticTranscripts() : ReplayTranscript.loadAll(Path.of(options.transcripts)))
+                .toolRoundsPerTurn(options.toolRounds)
+                .timeToFirstToken(Duration.ofMillis(options.ttftMs))
+                .tokensPerSecond(options.tokensPerSecond)
+                .failureRate(options.failureRate)
+                .midStreamFailureRate(options.midStreamFailureRate)
+                .build();
+        provider = new ReplayLLMProvider(new LLMProviderConfig(options.model, 0.7d, null), script);
+        persistence = options.persistenceDir == null ? new MemoryPersistence() : new FilePersistenceProvider(options.persistenceDir);
+        tools = new LoadTools(options.toolResultWords);
+    }
+
+    LoadReport run() throws InterruptedException {
+        LOGGER.info("starting load, sessions={}, turns={}, ttftMs={}, tokensPerSecond={}", options.sessions, options.turns, options.ttftMs, options.tokensPerSecond);
+        var sampler = Thread.ofPlatform().daemon().name("load-sampler").start(this::sample);
+        long rampNanosPerSession = TimeUnit.SECONDS.toNanos(options.rampUpSeconds) / Math.max(1, options.sessions);
+        report.start();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.sessions; i++) {
+                String sessionId = "load-" + i;
+                executor.submit(() -> runSession(sessionId));
+                if (rampNanosPerSession > 0) LockSupport.parkNanos(rampNanosPerSession);
+            }
+        }
+        report.finish();
+        sampler.interrupt();
+        sampler.join();
+        report.sample();
+        return report;
+    }
+
+    private void runSession(String sessionId) {
+        var agent = Agent.builder()
+                .llmProvider(provider)
+                .model(options.model)
+                .systemPrompt("You are a helpful assistant. Use the tools to look up documents before answering.")
+                .toolCalls(Functions.from(tools))
+                .compression(options.compressionThreshold, 2, 2000)
+                .persistenceProvider(persistence)
+                .maxTurn(options.toolRounds + 3)
+                .build();
+        var session = new InProcessAgentSession(sessionId, agent, true, new InMemoryToolPermissionStore());
+        var listener = new TurnListener(report);
+        session.onEvent(listener);
+        try {
+            for (int turn = 0; turn < options.turns; turn++) {
+                listener.begin();
+                session.sendMessage("question " + turn + " from " + sessionId + ": summarise the latest usage report and list the open issues");
+                if (!listener.await(options.turnTimeoutSeconds)) {
+                    report.timeouts.increment();
+                    break;
+                }
+                if (options.thinkMs > 0) Thread.sleep(options.thinkMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            session.close();
+            persistence.delete(List.of(sessionId));
+        }
+    }
+
+    private void sample() {
+        while (!Thread.currentThread().isInterrupted()) {
+            report.sample();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    static final class TurnListener implements AgentEventListener {
+        private final LoadReport report;
+        private volatile long startNanos;
+        private volatile boolean awaitingFirstChunk;
+        private volatile CountDownLatch done = new CountDownLatch(1);
+
+        TurnListener(LoadReport report) {
+            this.report = report;
+        }
+
+        void begin() {
+            done = new CountDownLatch(1);
+            awaitingFirstChunk = true;
+            startNanos = System.nanoTime();
+        }
+
+        boolean await(int timeoutSeconds) throws InterruptedException {
+            return done.await(timeoutSeconds, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onTextChunk(TextChunkEvent event) {
+            delivered(event.chunk);
+        }
+
+        @Override
+        public void onReasoningChunk(ReasoningChunkEvent event) {
+            delivered(event.chunk);
+        }
+
+        @Override
+        public void onTurnComplete(TurnCompleteEvent event) {
+            report.turn(System.nanoTime() - startNanos);
+            done.countDown();
+        }
+
+        @Override
+        public void onError(ErrorEvent event) {
+            report.errors.increment();
+            done.countDown();
+        }
+
+        private void delivered(String chunk) {
+            if (chunk == null || chunk.isEmpty()) return;
+            if (awaitingFirstChunk) {
+                awaitingFirstChunk = false;
+                report.firstToken(System.nanoTime() - startNanos);
+            }
+            report.chunks.increment();
+            report.tokens.add(Tokenizer.tokenCount(chunk));
+        }
+    }
+
+    // sessions only need to survive their own run, keeps file io out of the numbers unless --persistenceDir is set
+    static final class MemoryPersistence implements PersistenceProvider {
+        private final Map<String, String> sessions = new ConcurrentHashMap<>();
+
+        @Override
+        public void save(String id, String context) {
+            sessions.put(id, context);
+        }
+
+        @Override
+        public void clear() {
+            sessions.clear();
+        }
+
+        @Override
+        public void delete(List<String> ids) {
+            ids.forEach(sessions::remove);
+        }
+
+        @Override
+        public Optional<String> load(String id) {
+            return Optional.ofNullable(sessions.get(id));
+        }
+    }
+
+    record Options(int sessions, int turns, String transcripts, long ttftMs, double tokensPerSecond, int toolRounds,
+                   double failureRate, double midStreamFailureRate, long thinkMs, long rampUpSeconds, double compressionThreshold,
+                   String persistenceDir, int toolResultWords, int turnTimeoutSeconds, String model) {
+        private static final Set<String> KEYS = Set.of("sessions", "turns", "transcripts", "ttftMs", "tokensPerSecond", "toolRounds",
+                "failureRate", "midStreamFailureRate", "thinkMs", "rampUpSeconds", "compressionThreshold", "persistenceDir",
+                "toolResultWords", "turnTimeoutSeconds", "model");
+
+        static Options parse(String... args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("expected --key=value, arg=" + arg);
+                var key = arg.substring(2, arg.indexOf('='));
+                if (!KEYS.contains(key)) throw new IllegalArgumentException("unknown option, key=" + key + ", options=" + KEYS);
+                values.put(key, arg.substring(arg.indexOf('=') + 1));
+            }
+            return new Options(
+                    Integer.parseInt(values.getOrDefault("sessions", "100")),
+                    Integer.parseInt(values.getOrDefault("turns", "3")),
+                    values.get("transcripts"),
+                    Long.parseLong(values.getOrDefault("ttftMs", "300")),
+                    Double.parseDouble(values.getOrDefault("tokensPerSecond", "60")),
+                    Integer.parseInt(values.getOrDefault("toolRounds", "1")),
+                    Double.parseDouble(values.getOrDefault("failureRate", "0")),
+                    Double.parseDouble(values.getOrDefault("midStreamFailureRate", "0")),
+                    Long.parseLong(values.getOrDefault("thinkMs", "0")),
+                    Long.parseLong(values.getOrDefault("rampUpSeconds", "0")),
+                    Double.parseDouble(values.getOrDefault("compressionThreshold", "0.8")),
+                    values.get("persistenceDir"),
+                    Integer.parseInt(values.getOrDefault("toolResultWords", "400")),
+                    Integer.parseInt(values.getOrDefault("turnTimeoutSeconds", "120")),
+                    values.getOrDefault("model", "gpt-4o"));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ai.core.benchmark.load;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Numbers of one load run: turn and first-token latency percentiles, tokens delivered to session listeners, and peak
+ * heap and platform thread counts sampled while the run is active.
+ *
+ * @author stephen
+ */
+public class LoadReport {
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+    final LongAdder turns = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder timeouts = new LongAdder();
+    final LongAdder tokens = new LongAdder();
+    final LongAdder chunks = new LongAdder();
+    private final ConcurrentLinkedQueue<Long> turnLatencies = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> firstTokenLatencies = new ConcurrentLinkedQueue<>();
+    private final AtomicLong peakHeapBytes = new AtomicLong();
+    private final AtomicLong peakThreads = new AtomicLong();
+    private long startNanos;
+    private long endNanos;
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    void turn(long latencyNanos) {
+        turns.increment();
+        turnLatencies.add(latencyNanos);
+    }
+
+    void firstToken(long latencyNanos) {
+        firstTokenLatencies.add(latencyNanos);
+    }
+
+    void sample() {
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        peakHeapBytes.accumulateAndGet(heap, Math::max);
+        peakThreads.accumulateAndGet(threads, Math::max);
+    }
+
+    public void print(PrintStream out) {
+        long[] turn = turnLatencies.stream().mapToLong(Long::longValue).toArray();
+        long[] firstToken = firstTokenLatencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(turn);
+        Arrays.sort(firstToken);
+        double seconds = Math.max(1, endNanos - startNanos) / 1_000_000_000d;
+        out.printf(Locale.ROOT, "duration           %.1f s%n", seconds);
+        out.printf(Locale.ROOT, "turns              %d completed, %d errors, %d timed out%n", turns.sum(), errors.sum(), timeouts.sum());
+        out.printf(Locale.ROOT, "turn latency       p50=%.1f ms p90=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                millis(percentile(turn, 50)), millis(percentile(turn, 90)), millis(percentile(turn, 99)), millis(percentile(turn, 100)));
+        out.printf(Locale.ROOT, "first token        p50=%.1f ms p99=%.1f ms%n", millis(percentile(firstToken, 50)), millis(percentile(firstToken, 99)));
+        out.printf(Locale.ROOT, "delivered          %.0f tokens/s, %.0f chunks/s%n", tokens.sum() / seconds, chunks.sum() / seconds);
+        out.printf(Locale.ROOT, "peak heap used     %.1f MB%n", peakHeapBytes.get() / (1024d * 1024d));
+        out.printf(Locale.ROOT, "peak live threads  %d%n", peakThreads.get());
+    }
+}
@@ -0,0 +1,40 @@
+package ai.core.benchmark.load;
+
+import ai.core.api.tool.function.CoreAiMethod;
+import ai.core.api.tool.function.CoreAiParameter;
+
+/**
+ * Tools the replayed tool-call transcripts invoke; results are sized like typical retrieval and file reads so tool
+ * output grows the context the way a real session does.
+ *
+ * @author stephen
+ */
+public class LoadTools {
+    private static final String[] WORDS = {"session", "agent", "token", "stream", "context", "compression", "tool", "result",
+        "latency", "workflow", "vector", "message", "request", "response", "cache", "index"};
+
+    private static String text(int words, int seed) {
+        var builder = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) builder.append(i % 12 == 0 ? ".\n" : " ");
+            builder.append(WORDS[Math.floorMod(seed * 31 + i * 7, WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private final int resultWords;
+
+    public LoadTools(int resultWords) {
+        this.resultWords = resultWords;
+    }
+
+    @CoreAiMethod(name = "search_documents", description = "search the knowledge base and return the matching passages.")
+    public String searchDocuments(@CoreAiParameter(name = "query", description = "the search query", required = true) String query) {
+        return text(resultWords, query.hashCode());
+    }
+
+    @CoreAiMethod(name = "read_file", description = "read a file from the workspace.")
+    public String readFile(@CoreAiParameter(name = "path", description = "the file path", required = true) String path) {
+        return text(resultWords, path.hashCode());
+    }
+}
@@ -0,0 +1,129 @@
+package ai.core.llm.providers;
+
+import ai.core.document.Embedding;
+import ai.core.llm.LLMProviderConfig;
+import ai.core.llm.domain.CompletionRequest;
+import ai.core.llm.domain.CompletionResponse;
+import ai.core.llm.domain.EmbeddingRequest;
+import ai.core.llm.domain.EmbeddingResponse;
+import ai.core.llm.domain.Usage;
+import ai.core.llm.streaming.StreamingCallback;
+import core.framework.http.HTTPRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Offline stand-in for load tests: replays recorded chat/completions streams instead of calling an endpoint, paced
+ * by the script's time-to-first-token and token rate. Only the transport is replaced, so request serialization,
+ * retries, cancellation and the streaming callbacks run the same code as against a real model.
+ * <p>
+ * Ships with core-ai-benchmark only, in the provider package so it reuses the package-private chunk decoding; the load
+ * driver creates it directly instead of registering it as a provider type.
+ *
+ * @author stephen
+ */
+public class ReplayLLMProvider extends LiteLLMProvider {
+    private static final long MAX_PARK_NANOS = Duration.ofMillis(50).toNanos();
+    private static final int EMBEDDING_DIMENSION = 256;
+
+    private final ReplayScript script;
+    private final AtomicLong toolCallIds = new AtomicLong();
+
+    public ReplayLLMProvider(LLMProviderConfig config, ReplayScript script) {
+        super(config, "replay://local", null);
+        this.script = script;
+    }
+
+    @Override
+    protected CompletionResponse doCompletionStream(CompletionRequest dto, StreamingCallback callback) {
+        // transcripts are chat/completions streams, responses-api models replay through the same path
+        return chatCompletionStream(dto, callback);
+    }
+
+    @Override
+    protected CompletionResponse consumeSSEStream(CompletionRequest request, HTTPRequest httpRequest, StreamingCallback callback) {
+        var turn = script.next(request);
+        var transcript = turn.transcript();
+        double nanosPerToken = script.tokensPerSecond > 0 ? 1_000_000_000d / script.tokensPerSecond : 0;
+        long deadline = System.nanoTime() + script.timeToFirstToken.toNanos();
+        CompletionResponse response = null;
+        var decoder = new LiteLLMChatChunkDecoder();
+        try {
+            for (int i = 0; i < transcript.events.size(); i++) {
+                if (!awaitUntil(deadline, callback)) break;
+                if (i == turn.failAt()) throw new IllegalStateException(failure(transcript, i));
+                var data = transcript.events.get(i);
+                callback.onRawData(data);
+                response = accumulateChunk(decoder, response, data, callback);
+                deadline += (long) (transcript.eventTokens[i] * nanosPerToken);
+            }
+            if (response != null && response.usage == null) {
+                response.usage = new Usage(0, transcript.totalTokens, transcript.totalTokens);
+            }
+            assignToolCallIds(response);
+            return response;
+        } finally {
+            finishStream(response);
+        }
+    }
+
+    @Override
+    public EmbeddingResponse embeddings(EmbeddingRequest dto) {
+        var embeddings = new ArrayList<EmbeddingResponse.EmbeddingData>(dto.query().size());
+        for (String text : dto.query()) {
+            embeddings.add(EmbeddingResponse.EmbeddingData.of(text, Embedding.of(vector(text))));
+        }
+        return EmbeddingResponse.of(embeddings, new Usage(0, 0, 0));
+    }
+
+    @Override
+    public String name() {
+        return "replay";
+    }
+
+    private String failure(ReplayTranscript transcript, int event) {
+        return event == 0
+                ? "replay injected failure before first token, statusCode=503, transcript=" + transcript.name
+                : "replay injected stream reset, statusCode=502, transcript=" + transcript.name + ", event=" + event;
+    }
+
+    private boolean awaitUntil(long deadline, StreamingCallback callback) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > 0) {
+            if (callback.isCancelled() || Thread.currentThread().isInterrupted()) return false;
+            LockSupport.parkNanos(Math.min(remaining, MAX_PARK_NANOS));
+            remaining = deadline - System.nanoTime();
+        }
+        return !callback.isCancelled();
+    }
+
+    // recorded ids repeat across replays, tool results must still pair with exactly one call
+    private void assignToolCallIds(CompletionResponse response) {
+        if (response == null || response.choices == null || response.choices.isEmpty()) return;
+        var message = response.choices.getFirst().message;
+        if (message == null || message.toolCalls == null) return;
+        for (var toolCall : message.toolCalls) {
+            if (toolCall != null) toolCall.id = "call_replay_" + toolCallIds.incrementAndGet();
+        }
+    }
+
+    // deterministic unit vector per text, so retrieval paths get stable neighbours
+    private float[] vector(String text) {
+        var random = new SplittableRandom(text.hashCode());
+        var vector = new float[EMBEDDING_DIMENSION];
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,143 @@
+package ai.core.llm.providers;
+
+import ai.core.llm.domain.CompletionRequest;
+import ai.core.llm.domain.Message;
+import ai.core.llm.domain.RoleType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What a {@link ReplayLLMProvider} answers and how fast. Each call gets a tool-call transcript while the current user
+ * turn has had fewer than toolRoundsPerTurn tool rounds and the request offers tools, otherwise an answer transcript.
+ * The transcript is picked from the request content so identical conversations replay identically; failures are
+ * rolled per attempt so a retried call can succeed.
+ *
+ * @author stephen
+ */
+public final class ReplayScript {
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static int toolRoundsSinceLastUser(List<Message> messages) {
+        int rounds = 0;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            var message = messages.get(i);
+            if (message.role == RoleType.USER) break;
+            if (message.role == RoleType.ASSISTANT && message.toolCalls != null && !message.toolCalls.isEmpty()) rounds++;
+        }
+        return rounds;
+    }
+
+    private static long requestKey(CompletionRequest request) {
+        if (request.messages == null || request.messages.isEmpty()) return 0;
+        var last = request.messages.getLast();
+        return request.messages.size() * 31L + Objects.hashCode(last.getTextContent());
+    }
+
+    final Duration timeToFirstToken;
+    final double tokensPerSecond;
+    private final List<ReplayTranscript> answers;
+    private final List<ReplayTranscript> toolCalls;
+    private final int toolRoundsPerTurn;
+    private final double failureRate;
+    private final double midStreamFailureRate;
+    private final long seed;
+    private final AtomicLong attempts = new AtomicLong();
+
+    private ReplayScript(Builder builder) {
+        this.answers = List.copyOf(builder.answers);
+        this.toolCalls = List.copyOf(builder.toolCalls);
+        this.toolRoundsPerTurn = builder.toolRoundsPerTurn;
+        this.timeToFirstToken = builder.timeToFirstToken;
+        this.tokensPerSecond = builder.tokensPerSecond;
+        this.failureRate = builder.failureRate;
+        this.midStreamFailureRate = builder.midStreamFailureRate;
+        this.seed = builder.seed;
+    }
+
+    Turn next(CompletionRequest request) {
+        boolean offersTools = request.tools != null && !request.tools.isEmpty();
+        boolean toolRound = offersTools && !toolCalls.isEmpty() && request.messages != null
+                && toolRoundsSinceLastUser(request.messages) < toolRoundsPerTurn;
+        var pool = toolRound ? toolCalls : answers;
+        var transcript = pool.get(new SplittableRandom(seed ^ requestKey(request)).nextInt(pool.size()));
+
+        var roll = new SplittableRandom(seed + attempts.incrementAndGet() * 0x9E3779B97F4A7C15L).nextDouble();
+        int failAt = -1;
+        if (roll < failureRate) {
+            failAt = 0;
+        } else if (roll < failureRate + midStreamFailureRate) {
+            failAt = Math.max(1, transcript.events.size() / 2);
+        }
+        return new Turn(transcript, failAt);
+    }
+
+    // failAt is the event index the attempt fails before, 0 = before the first token, -1 = no failure
+    record Turn(ReplayTranscript transcript, int failAt) {
+    }
+
+    public static class Builder {
+        private final List<ReplayTranscript> answers = new ArrayList<>();
+        private final List<ReplayTranscript> toolCalls = new ArrayList<>();
+        private int toolRoundsPerTurn = 1;
+        private Duration timeToFirstToken = Duration.ZERO;
+        private double tokensPerSecond;
+        private double failureRate;
+        private double midStreamFailureRate;
+        private long seed = 42;
+
+        // sorted into answers and tool calls by whether the stream carries tool call deltas
+        public Builder transcripts(List<ReplayTranscript> transcripts) {
+            for (var transcript : transcripts) {
+                if (transcript.hasToolCalls()) toolCalls.add(transcript);
+                else answers.add(transcript);
+            }
+            return this;
+        }
+
+        public Builder toolRoundsPerTurn(int toolRoundsPerTurn) {
+            this.toolRoundsPerTurn = toolRoundsPerTurn;
+            return this;
+        }
+
+        public Builder timeToFirstToken(Duration timeToFirstToken) {
+            this.timeToFirstToken = timeToFirstToken;
+            return this;
+        }
+
+        // 0 streams as fast as the listeners take it
+        public Builder tokensPerSecond(double tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+            return this;
+        }
+
+        // share of attempts failing with a 503 before the first token
+        public Builder failureRate(double failureRate) {
+            this.failureRate = failureRate;
+            return this;
+        }
+
+        // share of attempts failing with a 502 halfway through the stream
+        public Builder midStreamFailureRate(double midStreamFailureRate) {
+            this.midStreamFailureRate = midStreamFailureRate;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public ReplayScript build() {
+            if (answers.isEmpty()) throw new IllegalArgumentException("replay script requires at least one answer transcript");
+            if (failureRate + midStreamFailureRate > 1) throw new IllegalArgumentException("failure rates must not add up to more than 1");
+            return new ReplayScript(this);
+        }
+    }
+}
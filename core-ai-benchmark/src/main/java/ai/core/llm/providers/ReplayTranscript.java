@@ -0,0 +1,137 @@
+package ai.core.llm.providers;
+
+import ai.core.document.Tokenizer;
+import ai.core.utils.JsonUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * One recorded chat/completions stream: the data payloads of an SSE response as a model sent them. Parsed once at
+ * load so replay only paces and feeds events; each event carries the tokens it delivers, which drives the token rate.
+ *
+ * @author stephen
+ */
+public final class ReplayTranscript {
+    public static ReplayTranscript parse(String name, String sse) {
+        var events = new ArrayList<String>();
+        for (String line : sse.split("\r?\n")) {
+            if (!line.startsWith("data:")) continue;
+            var data = line.substring(5).strip();
+            if (data.isEmpty() || "[DONE]".equals(data)) continue;
+            events.add(data);
+        }
+        if (events.isEmpty()) throw new IllegalArgumentException("transcript has no data events, name=" + name);
+        return new ReplayTranscript(name, events);
+    }
+
+    public static ReplayTranscript load(Path file) {
+        try {
+            return parse(file.getFileName().toString(), Files.readString(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // every *.sse file in the directory, in name order so runs are reproducible
+    public static List<ReplayTranscript> loadAll(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            var transcripts = files.filter(file -> file.getFileName().toString().endsWith(".sse")).sorted().map(ReplayTranscript::load).toList();
+            if (transcripts.isEmpty()) throw new IllegalArgumentException("no *.sse transcripts found, directory=" + directory);
+            return transcripts;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // synthetic answer streamed a few words per event
+    public static ReplayTranscript answer(String name, String text, int wordsPerEvent) {
+        var events = new ArrayList<String>();
+        var words = text.split(" ");
+        for (int i = 0; i < words.length; i += wordsPerEvent) {
+            var piece = String.join(" ", List.of(words).subList(i, Math.min(words.length, i + wordsPerEvent)));
+            events.add(chunk(Map.of("content", i == 0 ? piece : " " + piece), null));
+        }
+        events.add(chunk(Map.of(), "stop"));
+        return new ReplayTranscript(name, events);
+    }
+
+    // synthetic single tool call with its arguments streamed in pieces
+    public static ReplayTranscript toolCall(String name, String toolName, String arguments, int argumentEvents) {
+        var events = new ArrayList<String>();
+        int step = Math.max(1, (arguments.length() + argumentEvents - 1) / argumentEvents);
+        for (int i = 0; i < arguments.length(); i += step) {
+            Map<String, Object> function = new LinkedHashMap<>();
+            if (i == 0) function.put("name", toolName);
+            function.put("arguments", arguments.substring(i, Math.min(arguments.length(), i + step)));
+            Map<String, Object> call = new LinkedHashMap<>();
+            call.put("index", 0);
+            if (i == 0) {
+                call.put("id", "call_" + name);
+                call.put("type", "function");
+            }
+            call.put("function", function);
+            events.add(chunk(Map.of("tool_calls", List.of(call)), null));
+        }
+        events.add(chunk(Map.of(), "tool_calls"));
+        return new ReplayTranscript(name, events);
+    }
+
+    private static String chunk(Map<String, Object> delta, String finishReason) {
+        Map<String, Object> choice = new LinkedHashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        return JsonUtil.toJson(Map.of("object", "chat.completion.chunk", "choices", List.of(choice)));
+    }
+
+    private static int tokens(String text) {
+        return text == null || text.isEmpty() ? 0 : Tokenizer.tokenCount(text);
+    }
+
+    public final String name;
+    final List<String> events;
+    final int[] eventTokens;
+    final boolean toolCalls;
+    final int totalTokens;
+
+    private ReplayTranscript(String name, List<String> events) {
+        this.name = name;
+        this.events = List.copyOf(events);
+        this.eventTokens = new int[events.size()];
+        var decoder = new LiteLLMChatChunkDecoder();
+        boolean hasToolCalls = false;
+        int total = 0;
+        for (int i = 0; i < events.size(); i++) {
+            var chunk = decoder.decode(events.get(i));
+            if (chunk.choices == null || chunk.choices.isEmpty() || chunk.choices.getFirst().delta == null) continue;
+            var delta = chunk.choices.getFirst().delta;
+            int count = tokens(delta.content) + tokens(delta.reasoningContent);
+            if (delta.toolCalls != null) {
+                hasToolCalls = true;
+                for (var call : delta.toolCalls) {
+                    if (call.function != null) count += tokens(call.function.arguments);
+                }
+            }
+            eventTokens[i] = count;
+            total += count;
+        }
+        this.toolCalls = hasToolCalls;
+        this.totalTokens = total;
+    }
+
+    public boolean hasToolCalls() {
+        return toolCalls;
+    }
+
+    public int totalTokens() {
+        return totalTokens;
+    }
+}
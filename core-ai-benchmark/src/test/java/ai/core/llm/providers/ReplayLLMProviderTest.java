@@ -0,0 +1,128 @@
+package ai.core.llm.providers;
+
+import ai.core.llm.LLMProviderConfig;
+import ai.core.llm.domain.CompletionRequest;
+import ai.core.llm.domain.FinishReason;
+import ai.core.llm.domain.Function;
+import ai.core.llm.domain.FunctionCall;
+import ai.core.llm.domain.Message;
+import ai.core.llm.domain.RoleType;
+import ai.core.llm.domain.Tool;
+import ai.core.llm.domain.ToolType;
+import ai.core.llm.streaming.DefaultStreamingCallback;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author stephen
+ */
+class ReplayLLMProviderTest {
+    private static final String ANSWER_SSE = """
+            data: {"choices":[{"index":0,"delta":{"role":"assistant","content":"Hello"},"finish_reason":null}]}
+
+            data: {"choices":[{"index":0,"delta":{"content":" world"},"finish_reason":null}]}
+
+            data: {"choices":[{"index":0,"delta":{},"finish_reason":"stop"}],"usage":{"prompt_tokens":12,"completion_tokens":2,"total_tokens":14}}
+
+            data: [DONE]
+            """;
+
+    private static CompletionRequest request(List<Message> messages, boolean withTools) {
+        List<Tool> tools = null;
+        if (withTools) {
+            var function = new Function();
+            function.name = "search_documents";
+            var tool = new Tool();
+            tool.type = ToolType.FUNCTION;
+            tool.function = function;
+            tools = List.of(tool);
+        }
+        return CompletionRequest.of(messages, tools, 0.7, "gpt-4o", "replay-test");
+    }
+
+    private static ReplayScript.Builder script() {
+        return ReplayScript.builder().transcripts(List.of(
+                ReplayTranscript.parse("answer", ANSWER_SSE),
+                ReplayTranscript.toolCall("search", "search_documents", "{\"query\":\"usage report\"}", 3)));
+    }
+
+    @Test
+    void parsesDataEventsAndCountsTokens() {
+        var transcript = ReplayTranscript.parse("answer", ANSWER_SSE);
+
+        assertEquals(3, transcript.events.size());
+        assertFalse(transcript.hasToolCalls());
+        assertEquals(2, transcript.totalTokens());
+        assertTrue(ReplayTranscript.toolCall("search", "search_documents", "{\"query\":\"x\"}", 2).hasToolCalls());
+    }
+
+    @Test
+    void replaysAnswerThroughStreamingCallback() {
+        var provider = new ReplayLLMProvider(new LLMProviderConfig("gpt-4o", 0.7, null), script().build());
+        var chunks = new ArrayList<String>();
+        var callback = new DefaultStreamingCallback() {
+            @Override
+            public void onChunk(String chunk) {
+                chunks.add(chunk);
+            }
+        };
+
+        var response = provider.delegateCompletionStream(request(List.of(Message.of(RoleType.USER, "hi")), false), callback);
+
+        assertEquals(List.of("Hello", " world"), chunks);
+        assertEquals("Hello world", response.choices.getFirst().message.content);
+        assertEquals(FinishReason.STOP, response.choices.getFirst().finishReason);
+        assertEquals(14, response.usage.getTotalTokens());
+    }
+
+    @Test
+    void callsToolsUntilRoundsAreUsedThenAnswers() {
+        var provider = new ReplayLLMProvider(new LLMProviderConfig("gpt-4o", 0.7, null), script().toolRoundsPerTurn(1).build());
+        var messages = new ArrayList<Message>();
+        messages.add(Message.of(RoleType.USER, "find the report"));
+
+        var first = provider.delegateCompletionStream(request(messages, true), new DefaultStreamingCallback());
+        var toolCalls = first.choices.getFirst().message.toolCalls;
+        assertEquals(1, toolCalls.size());
+        assertEquals("search_documents", toolCalls.getFirst().function.name);
+        assertEquals("{\"query\":\"usage report\"}", toolCalls.getFirst().function.arguments);
+        assertTrue(toolCalls.getFirst().id.startsWith("call_replay_"));
+
+        messages.add(Message.of(RoleType.ASSISTANT, "", null, null, List.<FunctionCall>of(toolCalls.getFirst())));
+        messages.add(Message.of(RoleType.TOOL, "result", "search_documents", toolCalls.getFirst().id, null));
+        var second = provider.delegateCompletionStream(request(messages, true), new DefaultStreamingCallback());
+        assertEquals("Hello world", second.choices.getFirst().message.content);
+
+        var again = provider.delegateCompletionStream(request(List.of(Message.of(RoleType.USER, "find the report")), true), new DefaultStreamingCallback());
+        assertNotEquals(toolCalls.getFirst().id, again.choices.getFirst().message.toolCalls.getFirst().id);
+    }
+
+    @Test
+    void waitsForTimeToFirstToken() {
+        var provider = new ReplayLLMProvider(new LLMProviderConfig("gpt-4o", 0.7, null), script().timeToFirstToken(Duration.ofMillis(50)).build());
+        long start = System.nanoTime();
+
+        provider.delegateCompletionStream(request(List.of(Message.of(RoleType.USER, "hi")), false), new DefaultStreamingCallback());
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(50).toNanos());
+    }
+
+    @Test
+    void injectedFailuresGoThroughRetryPolicy() {
+        var provider = new ReplayLLMProvider(new LLMProviderConfig("gpt-4o", 0.7, null), script().failureRate(1).build());
+        provider.retryPolicy(new ExponentialBackoffRetryPolicy(2, Duration.ZERO, Duration.ZERO));
+
+        var error = assertThrows(IllegalStateException.class,
+                () -> provider.delegateCompletionStream(request(List.of(Message.of(RoleType.USER, "hi")), false), new DefaultStreamingCallback()));
+        assertTrue(error.getMessage().contains("statusCode=503"));
+    }
+}
@@ -3,6 +3,7 @@ package main
 import (
 	"archive/zip"
 	"bytes"
+	"compress/zlib"
 	"context"
 	"encoding/json"
 	"fmt"
@@ -18,6 +19,7 @@ import (
 	"sync"
 	"sync/atomic"
 	"time"
+	"unicode/utf8"
 )
 
 const maxOutputSize = 30 * 1024       // 30KB
@@ -47,6 +49,135 @@ type FileUploadResponse struct {
 	Error  string `json:"error,omitempty"`
 }
 
+// StreamEvent is one NDJSON line of /execute/stream.
+type StreamEvent struct {
+	Type       string `json:"type"`             // output, heartbeat, result
+	Stream     string `json:"stream,omitempty"` // stdout, stderr
+	Data       string `json:"data,omitempty"`
+	Status     string `json:"status,omitempty"` // result only, same values as ExecuteResponse
+	Result     string `json:"result,omitempty"`
+	DurationMs int64  `json:"duration_ms,omitempty"`
+}
+
+// ---- Streaming output ----
+
+const (
+	streamFlushInterval     = 100 * time.Millisecond
+	streamHeartbeatInterval = 15 * time.Second
+	maxStreamChunkSize      = 16 * 1024  // coalesced output per event
+	maxStreamPending        = 256 * 1024 // unsent output, beyond it live output is dropped until the caller catches up
+	streamTailSize          = 8 * 1024   // build and test failures are at the end, the result keeps the tail
+)
+
+type streamingToolExecutor func(ctx context.Context, args string, out *outputStream) (string, string)
+
+var streamingToolMap = map[string]streamingToolExecutor{
+	"run_bash_command":  runBash,
+	"run_python_script": runPython,
+}
+
+// outputStream buffers command output for the stream and keeps the bounded head and tail for the result, so
+// neither grows with the output of a long build.
+type outputStream struct {
+	mu           sync.Mutex
+	pending      []StreamEvent
+	pendingBytes int
+	dropped      int64
+	head         []byte
+	tail         []byte
+	total        int64
+}
+
+func (o *outputStream) append(stream string, p []byte) {
+	if len(p) == 0 {
+		return
+	}
+	o.mu.Lock()
+	defer o.mu.Unlock()
+	o.total += int64(len(p))
+	o.keep(p)
+	if o.pendingBytes+len(p) > maxStreamPending {
+		o.dropped += int64(len(p))
+		return
+	}
+	o.pendingBytes += len(p)
+	if last := len(o.pending) - 1; last >= 0 && o.pending[last].Stream == stream && len(o.pending[last].Data)+len(p) <= maxStreamChunkSize {
+		o.pending[last].Data += string(p)
+		return
+	}
+	o.pending = append(o.pending, StreamEvent{Type: "output", Stream: stream, Data: string(p)})
+}
+
+func (o *outputStream) keep(p []byte) {
+	if room := maxOutputSize - streamTailSize - len(o.head); room > 0 {
+		n := min(room, len(p))
+		o.head = append(o.head, p[:n]...)
+		p = p[n:]
+	}
+	if len(p) == 0 {
+		return
+	}
+	o.tail = append(o.tail, p...)
+	if len(o.tail) > streamTailSize {
+		o.tail = append(o.tail[:0], o.tail[len(o.tail)-streamTailSize:]...)
+	}
+}
+
+func (o *outputStream) take() []StreamEvent {
+	o.mu.Lock()
+	defer o.mu.Unlock()
+	events := o.pending
+	if o.dropped > 0 {
+		events = append(events, StreamEvent{Type: "output", Data: fmt.Sprintf("\n... [%d bytes of live output dropped]\n", o.dropped)})
+		o.dropped = 0
+	}
+	o.pending = nil
+	o.pendingBytes = 0
+	return events
+}
+
+func (o *outputStream) result() string {
+	o.mu.Lock()
+	defer o.mu.Unlock()
+	omitted := o.total - int64(len(o.head)) - int64(len(o.tail))
+	if omitted <= 0 {
+		return string(o.head) + string(o.tail)
+	}
+	return fmt.Sprintf("%s\n... [%d bytes of output truncated] ...\n%s", o.head, omitted, o.tail)
+}
+
+// streamWriter holds back an incomplete trailing UTF-8 sequence, so a chunk never splits a character.
+type streamWriter struct {
+	out    *outputStream
+	stream string
+	carry  []byte
+}
+
+func (w *streamWriter) Write(p []byte) (int, error) {
+	data := append(w.carry, p...)
+	n := completeUTF8(data)
+	w.out.append(w.stream, data[:n])
+	w.carry = append([]byte(nil), data[n:]...)
+	return len(p), nil
+}
+
+func (w *streamWriter) close() {
+	w.out.append(w.stream, w.carry)
+	w.carry = nil
+}
+
+func completeUTF8(p []byte) int {
+	for i := len(p) - 1; i >= 0 && i >= len(p)-utf8.UTFMax; i-- {
+		if utf8.RuneStart(p[i]) {
+			if utf8.FullRune(p[i:]) {
+				return len(p)
+			}
+			return i
+		}
+	}
+	return len(p)
+}
+
 // ---- Async task registry ----
 
 type AsyncTask struct {
@@ -180,6 +311,7 @@ func main() {
 	http.HandleFunc("/health", handleHealth)
 	http.HandleFunc("/ocg/callback/", handleOcgCallbackProxy)
 	http.HandleFunc("/execute", handleExecute)
+	http.HandleFunc("/execute/stream", handleExecuteStream)
 	http.HandleFunc("/tasks/", handleTaskPoll)
 	http.HandleFunc("/files/content", handleFileContent)
 	http.HandleFunc("/files/upload", handleFileUpload)
@@ -249,9 +381,13 @@ func loggingMiddleware(next http.Handler) http.Handler {
 
 // ---- Handlers ----
 
+// runtimeFeatures lists request encodings older runtimes silently mishandle, the server only uses what is advertised.
+// deflate-upload: /files/upload decodes a Content-Encoding: deflate body, older runtimes store the compressed bytes.
+var runtimeFeatures = []string{"deflate-upload"}
+
 func handleHealth(w http.ResponseWriter, _ *http.Request) {
 	w.Header().Set("Content-Type", "application/json")
-	json.NewEncoder(w).Encode(map[string]string{"status": "ok", "version": runtimeVersion})
+	json.NewEncoder(w).Encode(map[string]any{"status": "ok", "version": runtimeVersion, "features": runtimeFeatures})
 }
 
 func handleOcgCallbackProxy(w http.ResponseWriter, r *http.Request) {
@@ -340,6 +476,85 @@ func handleExecute(w http.ResponseWriter, r *http.Request) {
 	})
 }
 
+// handleExecuteStream handles POST /execute/stream for the command tools. The response is NDJSON: output events
+// while the command runs, heartbeats while it is silent, and a final result event, so the caller shows progress
+// live and is pushed the completion instead of polling /tasks. Async calls return 404 like the other tools, the
+// caller sends them to /execute for a pending task. Closing the connection cancels the command.
+func handleExecuteStream(w http.ResponseWriter, r *http.Request) {
+	if r.Method != http.MethodPost {
+		http.Error(w, "method not allowed", http.StatusMethodNotAllowed)
+		return
+	}
+
+	var req ExecuteRequest
+	if err := json.NewDecoder(r.Body).Decode(&req); err != nil {
+		http.Error(w, "invalid request: "+err.Error(), http.StatusBadRequest)
+		return
+	}
+	executor, ok := streamingToolMap[req.Tool]
+	if !ok {
+		// the caller falls back to /execute
+		http.Error(w, "streaming not supported for tool: "+req.Tool, http.StatusNotFound)
+		return
+	}
+	if isAsync(req.Arguments) {
+		http.Error(w, "streaming not supported for async calls", http.StatusNotFound)
+		return
+	}
+
+	w.Header().Set("Content-Type", "application/x-ndjson")
+	w.WriteHeader(http.StatusOK)
+
+	out := &outputStream{}
+	done := make(chan struct{})
+	var result, status string
+	start := time.Now()
+	go func() {
+		defer close(done)
+		result, status = executor(r.Context(), req.Arguments, out)
+	}()
+
+	encoder := json.NewEncoder(w)
+	ticker := time.NewTicker(streamFlushInterval)
+	defer ticker.Stop()
+	lastWrite := time.Now()
+	for {
+		select {
+		case <-done:
+			events := append(out.take(), StreamEvent{
+				Type:       "result",
+				Status:     status,
+				Result:     result, // already bounded by outputStream
+				DurationMs: time.Since(start).Milliseconds(),
+			})
+			writeStreamEvents(w, encoder, events)
+			return
+		case <-ticker.C:
+			events := out.take()
+			if len(events) == 0 {
+				if time.Since(lastWrite) < streamHeartbeatInterval {
+					continue
+				}
+				events = []StreamEvent{{Type: "heartbeat"}}
+			}
+			// a failed write means the caller is gone, the request context then cancels the command
+			writeStreamEvents(w, encoder, events)
+			lastWrite = time.Now()
+		}
+	}
+}
+
+func writeStreamEvents(w http.ResponseWriter, encoder *json.Encoder, events []StreamEvent) {
+	for _, event := range events {
+		if err := encoder.Encode(event); err != nil {
+			return
+		}
+	}
+	if f, ok := w.(http.Flusher); ok {
+		f.Flush()
+	}
+}
+
 // handleTaskPoll handles GET /tasks/{taskId}
 func handleTaskPoll(w http.ResponseWriter, r *http.Request) {
 	if r.Method != http.MethodGet {
@@ -418,22 +633,48 @@ func handleFileContent(w http.ResponseWriter, r *http.Request) {
 
 	contentType := mimeType(safePath, file)
 	w.Header().Set("Content-Type", contentType)
-	w.Header().Set("Content-Length", strconv.FormatInt(info.Size(), 10))
 	w.Header().Set("X-File-Name", filepath.Base(safePath))
-	if r.Method == http.MethodHead {
-		return
-	}
+	w.Header().Set("X-File-Size", strconv.FormatInt(info.Size(), 10))
 	if _, err := file.Seek(0, io.SeekStart); err != nil {
 		http.Error(w, "failed to read file: "+err.Error(), http.StatusInternalServerError)
 		return
 	}
-	if _, err := io.Copy(w, file); err != nil {
-		log.Printf("failed to stream file %s: %v", safePath, err)
+	// Compressed responses cannot be resumed, so a Range request always gets the raw bytes.
+	if r.Method == http.MethodGet && r.Header.Get("Range") == "" && acceptsDeflate(r) && compressibleType(contentType) {
+		w.Header().Set("Content-Encoding", "deflate")
+		zw := zlib.NewWriter(w)
+		if _, err := io.Copy(zw, file); err != nil {
+			log.Printf("failed to stream file %s: %v", safePath, err)
+		}
+		if err := zw.Close(); err != nil {
+			log.Printf("failed to stream file %s: %v", safePath, err)
+		}
+		return
+	}
+	// ServeContent handles HEAD, Range (206) and Content-Length.
+	http.ServeContent(w, r, "", info.ModTime(), file)
+}
+
+func acceptsDeflate(r *http.Request) bool {
+	for _, encoding := range strings.Split(r.Header.Get("Accept-Encoding"), ",") {
+		if strings.EqualFold(strings.TrimSpace(strings.SplitN(encoding, ";", 2)[0]), "deflate") {
+			return true
+		}
 	}
+	return false
+}
+
+func compressibleType(contentType string) bool {
+	return strings.HasPrefix(contentType, "text/") ||
+		strings.HasPrefix(contentType, "application/json") ||
+		strings.HasPrefix(contentType, "application/xml") ||
+		strings.HasPrefix(contentType, "application/javascript")
 }
 
-// handleFileUpload handles POST /files/upload?path=/workspace/data.csv.
-// Accepts raw bytes in the request body and writes them to the specified path.
+// handleFileUpload handles POST /files/upload?path=/workspace/data.csv[&offset=N].
+// Streams the (optionally deflate-encoded) body into path.partial and renames it to path once the body is complete.
+// An interrupted upload keeps the partial file; it is resumed with offset set to its size, a mismatching offset
+// returns 409 with the size of the partial file.
 func handleFileUpload(w http.ResponseWriter, r *http.Request) {
 	if r.Method != http.MethodPost {
 		http.Error(w, "method not allowed", http.StatusMethodNotAllowed)
@@ -452,38 +693,100 @@ func handleFileUpload(w http.ResponseWriter, r *http.Request) {
 		return
 	}
 
-	body, err := io.ReadAll(io.LimitReader(r.Body, maxUploadFileSize+1))
+	offset := int64(0)
+	if value := r.URL.Query().Get("offset"); value != "" {
+		offset, err = strconv.ParseInt(value, 10, 64)
+		if err != nil || offset < 0 || offset > maxUploadFileSize {
+			writeFileUploadError(w, http.StatusBadRequest, "invalid offset")
+			return
+		}
+	}
+
+	if err := os.MkdirAll(filepath.Dir(safePath), 0755); err != nil {
+		writeFileUploadError(w, http.StatusInternalServerError,
+			"failed to create directory: "+err.Error())
+		return
+	}
+
+	partialPath := safePath + ".partial"
+	file, status, err := openPartialUpload(partialPath, offset)
+	if status == http.StatusConflict {
+		w.Header().Set("Content-Type", "application/json")
+		w.WriteHeader(http.StatusConflict)
+		json.NewEncoder(w).Encode(FileUploadResponse{Status: "conflict", Path: safePath, Size: partialSize(partialPath)})
+		return
+	}
 	if err != nil {
-		writeFileUploadError(w, http.StatusBadRequest, "failed to read body: "+err.Error())
+		writeFileUploadError(w, status, "failed to open file: "+err.Error())
+		return
+	}
+
+	var body io.Reader = r.Body
+	if strings.EqualFold(r.Header.Get("Content-Encoding"), "deflate") {
+		zr, err := zlib.NewReader(r.Body)
+		if err != nil {
+			file.Close()
+			writeFileUploadError(w, http.StatusBadRequest, "invalid deflate body: "+err.Error())
+			return
+		}
+		defer zr.Close()
+		body = zr
+	}
+
+	written, copyErr := io.Copy(file, io.LimitReader(body, maxUploadFileSize-offset+1))
+	closeErr := file.Close()
+	if copyErr != nil {
+		// keep the partial file, the client resumes from its size
+		writeFileUploadError(w, http.StatusBadRequest, "failed to read body: "+copyErr.Error())
 		return
 	}
-	if int64(len(body)) > maxUploadFileSize {
+	size := offset + written
+	if size > maxUploadFileSize {
+		os.Remove(partialPath)
 		writeFileUploadError(w, http.StatusRequestEntityTooLarge,
 			fmt.Sprintf("file exceeds max size (%d bytes)", maxUploadFileSize))
 		return
 	}
-
-	if err := os.MkdirAll(filepath.Dir(safePath), 0755); err != nil {
-		writeFileUploadError(w, http.StatusInternalServerError,
-			"failed to create directory: "+err.Error())
+	if closeErr != nil {
+		writeFileUploadError(w, http.StatusInternalServerError, "failed to write file: "+closeErr.Error())
 		return
 	}
-
-	if err := os.WriteFile(safePath, body, 0644); err != nil {
+	if err := os.Rename(partialPath, safePath); err != nil {
 		writeFileUploadError(w, http.StatusInternalServerError,
 			"failed to write file: "+err.Error())
 		return
 	}
 
-	log.Printf("file uploaded: path=%s, size=%d", safePath, len(body))
+	log.Printf("file uploaded: path=%s, size=%d, offset=%d", safePath, size, offset)
 	w.Header().Set("Content-Type", "application/json")
 	json.NewEncoder(w).Encode(FileUploadResponse{
 		Status: "ok",
 		Path:   safePath,
-		Size:   int64(len(body)),
+		Size:   size,
 	})
 }
 
+// openPartialUpload truncates the partial file for a new upload, or appends to it when offset matches its size.
+func openPartialUpload(partialPath string, offset int64) (*os.File, int, error) {
+	if offset == 0 {
+		file, err := os.OpenFile(partialPath, os.O_CREATE|os.O_WRONLY|os.O_TRUNC, 0644)
+		return file, http.StatusInternalServerError, err
+	}
+	if partialSize(partialPath) != offset {
+		return nil, http.StatusConflict, nil
+	}
+	file, err := os.OpenFile(partialPath, os.O_WRONLY|os.O_APPEND, 0644)
+	return file, http.StatusInternalServerError, err
+}
+
+func partialSize(partialPath string) int64 {
+	info, err := os.Stat(partialPath)
+	if err != nil {
+		return 0
+	}
+	return info.Size()
+}
+
 // resolveUploadPath resolves and validates the target upload path.
 // Allowed roots are /workspace and /tmp (same as download).
 func resolveUploadPath(requested string) (string, error) {
@@ -521,6 +824,10 @@ const (
 )
 
 func executeBash(args string) (string, string) {
+	return runBash(context.Background(), args, nil)
+}
+
+func runBash(parent context.Context, args string, out *outputStream) (string, string) {
 	var parsed struct {
 		Command      string `json:"command"`
 		WorkspaceDir string `json:"workspace"`
@@ -538,15 +845,14 @@ func executeBash(args string) (string, string) {
 		timeout = time.Duration(min(parsed.Timeout, maxBashTimeoutMs)) * time.Millisecond
 	}
 
-	ctx, cancel := context.WithTimeout(context.Background(), timeout)
+	ctx, cancel := context.WithTimeout(parent, timeout)
 	defer cancel()
 
 	cmd := exec.CommandContext(ctx, "bash", "-c", parsed.Command)
 	cmd.Dir = sanitizePath(parsed.WorkspaceDir, workspaceDir)
 	cmd.Env = minimalEnv()
 
-	output, err := cmd.CombinedOutput()
-	result := string(output)
+	result, err := runCommand(cmd, out)
 
 	if ctx.Err() == context.DeadlineExceeded {
 		return result + "\n... command timed out", "timeout"
@@ -558,6 +864,10 @@ func executeBash(args string) (string, string) {
 }
 
 func executePython(args string) (string, string) {
+	return runPython(context.Background(), args, nil)
+}
+
+func runPython(parent context.Context, args string, out *outputStream) (string, string) {
 	var parsed struct {
 		Code         string `json:"code"`
 		Script       string `json:"script"`
@@ -581,15 +891,14 @@ func executePython(args string) (string, string) {
 		timeout = time.Duration(parsed.Timeout) * time.Second
 	}
 
-	ctx, cancel := context.WithTimeout(context.Background(), timeout)
+	ctx, cancel := context.WithTimeout(parent, timeout)
 	defer cancel()
 
 	cmd := exec.CommandContext(ctx, findPython(), "-u", "-c", code)
 	cmd.Dir = sanitizePath(parsed.WorkspaceDir, workspaceDir)
 	cmd.Env = minimalEnv()
 
-	output, err := cmd.CombinedOutput()
-	result := string(output)
+	result, err := runCommand(cmd, out)
 
 	if ctx.Err() == context.DeadlineExceeded {
 		return result + "\n... script timed out", "timeout"
@@ -600,6 +909,23 @@ func executePython(args string) (string, string) {
 	return result, "completed"
 }
 
+// runCommand returns the combined stdout and stderr of cmd. With out set, the output is streamed while the
+// command runs and only its bounded head and tail are kept for the result.
+func runCommand(cmd *exec.Cmd, out *outputStream) (string, error) {
+	if out == nil {
+		output, err := cmd.CombinedOutput()
+		return string(output), err
+	}
+	stdout := &streamWriter{out: out, stream: "stdout"}
+	stderr := &streamWriter{out: out, stream: "stderr"}
+	cmd.Stdout = stdout
+	cmd.Stderr = stderr
+	err := cmd.Run()
+	stdout.close()
+	stderr.close()
+	return out.result(), err
+}
+
 // ---- File operation tools ----
 
 func executeReadFile(args string) (string, string) {
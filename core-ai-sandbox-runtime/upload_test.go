@@ -0,0 +1,102 @@
+package main
+
+import (
+	"bytes"
+	"compress/zlib"
+	"encoding/json"
+	"net/http"
+	"net/http/httptest"
+	"net/url"
+	"os"
+	"path/filepath"
+	"strconv"
+	"testing"
+)
+
+func TestOpenPartialUpload(t *testing.T) {
+	partial := filepath.Join(t.TempDir(), "data.csv.partial")
+	writeFile(t, partial, "stale", 0644)
+
+	file, _, err := openPartialUpload(partial, 0)
+	if err != nil {
+		t.Fatalf("open failed: %v", err)
+	}
+	file.WriteString("abc")
+	file.Close()
+	if size := partialSize(partial); size != 3 {
+		t.Fatalf("offset 0 must truncate the partial file, size=%d", size)
+	}
+
+	file, _, err = openPartialUpload(partial, 3)
+	if err != nil {
+		t.Fatalf("open failed: %v", err)
+	}
+	file.WriteString("def")
+	file.Close()
+	got, _ := os.ReadFile(partial)
+	if string(got) != "abcdef" {
+		t.Fatalf("matching offset must append, got %q", got)
+	}
+
+	file, status, err := openPartialUpload(partial, 4)
+	if file != nil || err != nil || status != http.StatusConflict {
+		t.Fatalf("mismatching offset must conflict, status=%d err=%v", status, err)
+	}
+	if _, status, _ := openPartialUpload(filepath.Join(t.TempDir(), "missing.partial"), 3); status != http.StatusConflict {
+		t.Fatalf("offset without partial file must conflict, status=%d", status)
+	}
+}
+
+func TestFileUploadResumesPartial(t *testing.T) {
+	previous := workspaceDir
+	t.Cleanup(func() { workspaceDir = previous })
+	// uploads are confined to the resolved workspace, macOS temp dirs sit behind a symlink
+	workspaceDir, _ = filepath.EvalSymlinks(t.TempDir())
+	target := filepath.Join(workspaceDir, "out", "data.csv")
+
+	// the first part lands in data.csv.partial, the target only appears once the upload completes
+	writeFile(t, target+".partial", "hello ", 0644)
+	rec := postUpload(t, target, 3, []byte("ignored"), false)
+	if rec.Code != http.StatusConflict {
+		t.Fatalf("expected 409, got %d", rec.Code)
+	}
+	var conflict FileUploadResponse
+	json.Unmarshal(rec.Body.Bytes(), &conflict)
+	if conflict.Status != "conflict" || conflict.Size != 6 {
+		t.Fatalf("conflict must report the partial size, got %+v", conflict)
+	}
+	if _, err := os.Stat(target); !os.IsNotExist(err) {
+		t.Fatalf("target must not exist before the upload completes")
+	}
+
+	rec = postUpload(t, target, conflict.Size, []byte("world"), true)
+	if rec.Code != http.StatusOK {
+		t.Fatalf("expected 200, got %d: %s", rec.Code, rec.Body.String())
+	}
+	got, err := os.ReadFile(target)
+	if err != nil || string(got) != "hello world" {
+		t.Fatalf("expected resumed content, got %q err=%v", got, err)
+	}
+	if _, err := os.Stat(target + ".partial"); !os.IsNotExist(err) {
+		t.Fatalf("partial file must be renamed to the target")
+	}
+}
+
+func postUpload(t *testing.T, path string, offset int64, body []byte, deflate bool) *httptest.ResponseRecorder {
+	t.Helper()
+	if deflate {
+		var buf bytes.Buffer
+		zw := zlib.NewWriter(&buf)
+		zw.Write(body)
+		zw.Close()
+		body = buf.Bytes()
+	}
+	query := url.Values{"path": {path}, "offset": {strconv.FormatInt(offset, 10)}}
+	req := httptest.NewRequest(http.MethodPost, "/files/upload?"+query.Encode(), bytes.NewReader(body))
+	if deflate {
+		req.Header.Set("Content-Encoding", "deflate")
+	}
+	rec := httptest.NewRecorder()
+	handleFileUpload(rec, req)
+	return rec
+}
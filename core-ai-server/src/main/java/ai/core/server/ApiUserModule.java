@@ -4,6 +4,7 @@ import ai.core.api.server.apiuser.AdminApiUserWebService;
 import ai.core.api.server.apiuser.ApiUserWebService;
 import ai.core.server.apiuser.AdminApiUserWebServiceImpl;
 import ai.core.server.apiuser.ApiUserKeyService;
+import ai.core.server.apiuser.ApiUserQuotaFlushJob;
 import ai.core.server.apiuser.ApiUserQuotaService;
 import ai.core.server.apiuser.ApiUserService;
 import ai.core.server.apiuser.ApiUserUsageService;
@@ -13,6 +14,8 @@ import ai.core.server.tool.CallerHeaderConfigResolver;
 import ai.core.tool.CallerHeaderProvider;
 import core.framework.module.Module;
 
+import java.time.Duration;
+
 /**
  * @author stephen
  */
@@ -23,7 +26,12 @@ public class ApiUserModule extends Module {
         var keyService = bind(ApiUserKeyService.class);
         keyService.defaultTtlSeconds = property("sys.api-user.key.default.ttl").map(Integer::parseInt).orElse(3600);
         keyService.maxTtlSeconds = property("sys.api-user.key.max.ttl").map(Integer::parseInt).orElse(604800);
-        bind(ApiUserQuotaService.class);
+        var quotaService = bind(ApiUserQuotaService.class);
+        property("sys.api-user.quota.lease.ttl").map(Integer::parseInt).ifPresent(seconds -> quotaService.leaseTtl = Duration.ofSeconds(seconds));
+        property("sys.api-user.quota.overshoot.tolerance").map(Long::parseLong).ifPresent(tokens -> quotaService.overshootTolerance = tokens);
+        var flushInterval = property("sys.api-user.quota.flush.interval").map(Integer::parseInt).orElse(2);
+        schedule().fixedRate("api-user-quota-flush", bind(ApiUserQuotaFlushJob.class), Duration.ofSeconds(flushInterval));
+        onShutdown(quotaService::flush);
         bind(ApiUserUsageService.class);
         bind(ai.core.server.rbac.RoleRegistry.class);
         bind(PermissionService.class);
@@ -10,6 +10,8 @@ import ai.core.server.messaging.TurnStateRegistry;
 import core.framework.module.Module;
 import redis.clients.jedis.JedisPool;
 
+import java.time.Duration;
+
 /**
  * @author stephen
  */
@@ -23,7 +25,11 @@ class MessagingInfrastructureModule extends Module {
         var turnStateRegistry = bind(new TurnStateRegistry(jedisPool));
         onStartup(turnStateRegistry::start);
         onShutdown(turnStateRegistry::stop);
-        bind(new EventPublisher(jedisPool));
+        var eventPublisher = bind(new EventPublisher(jedisPool,
+                Duration.ofMillis(Long.parseLong(property("sys.sse.publish.windowMs").orElse("20"))),
+                Integer.parseInt(property("sys.sse.publish.maxPendingBytes").orElse(String.valueOf(EventPublisher.DEFAULT_MAX_PENDING_BYTES)))));
+        onStartup(eventPublisher::start);
+        onShutdown(eventPublisher::stop);
         bind(new A2ATaskRegistry(jedisPool, ownershipRegistry));
         bind(new A2AEventRelay(jedisPool));
         bind(new RpcClient(jedisPool, ownershipRegistry));
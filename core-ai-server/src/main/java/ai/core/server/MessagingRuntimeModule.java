@@ -26,7 +26,10 @@ import ai.core.server.web.AgentSessionWebServiceImpl;
 import ai.core.server.web.PodLocalExecutor;
 import ai.core.server.web.sse.AgentMessageStreamChannelListener;
 import ai.core.server.web.sse.SessionChannelService;
+import ai.core.server.web.sse.SseChunkCoalescer;
 import ai.core.api.server.session.sse.SseBaseEvent;
+import ai.core.sse.PatchedServerSentEventConfig;
+import ai.core.sse.SlowConsumerPolicy;
 import core.framework.http.HTTPMethod;
 import core.framework.module.Module;
 import org.slf4j.Logger;
@@ -51,7 +54,9 @@ class MessagingRuntimeModule extends Module {
         var rpcResponseSubscriber = new RpcResponseSubscriber(jedisPool, rpcClient);
         onStartup(rpcResponseSubscriber::start);
         onShutdown(rpcResponseSubscriber::stop);
-        var eventSubscriber = new EventSubscriber(jedisPool, bean(SessionChannelService.class));
+        var sessionChannelService = bean(SessionChannelService.class);
+        var eventSubscriber = new EventSubscriber(jedisPool, sessionChannelService);
+        sessionChannelService.subscriptionListener(eventSubscriber);
         onStartup(eventSubscriber::start);
         onShutdown(eventSubscriber::stop);
         var sandboxService = bean(SandboxService.class);
@@ -71,6 +76,9 @@ class MessagingRuntimeModule extends Module {
 
     private void registerSseEndpoints() {
         var registry = bean(SseEndpointRegistry.class);
+        // session streams replay from the event buffer, so a lagging client gets its text merged rather than cut off
+        long maxQueuedBytes = Long.parseLong(property("sys.sse.maxQueuedBytes").orElse(String.valueOf(PatchedServerSentEventConfig.DEFAULT_MAX_QUEUED_BYTES)));
+        registry.slowConsumer(SseBaseEvent.class, maxQueuedBytes, SlowConsumerPolicy.COALESCE, new SseChunkCoalescer());
         registry.register(HTTPMethod.POST, "/api/sessions/messages/stream", SseBaseEvent.class, bind(AgentMessageStreamChannelListener.class), false);
     }
 
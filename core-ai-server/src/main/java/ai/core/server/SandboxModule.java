@@ -7,6 +7,7 @@ import ai.core.server.file.FileService;
 import ai.core.server.domain.SessionAttachmentRefRepository;
 import ai.core.server.sandbox.SandboxService;
 import ai.core.server.sandbox.SandboxServiceDependencies;
+import ai.core.server.sandbox.SandboxWarmPoolConfig;
 import ai.core.server.sandbox.TokenResolver;
 import ai.core.server.sandbox.agentsandbox.AgentSandboxClient;
 import ai.core.server.sandbox.agentsandbox.AgentSandboxExtensionsClient;
@@ -23,6 +24,8 @@ import redis.clients.jedis.JedisPool;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
 
 /**
  * @author stephen
@@ -48,10 +51,13 @@ class SandboxModule extends Module {
 
         SandboxProvider provider;
         String serverUrlFromSandbox;
+        SandboxWarmPoolConfig warmPoolConfig = null;
         if ("kubernetes".equalsIgnoreCase(providerName)) {
             provider = createKubernetesSandboxProvider();
             serverUrlFromSandbox = resolveServerUrlFromSandbox(KUBERNETES_SERVER_HOST);
+            warmPoolConfig = resolveWarmPoolConfig();
         } else if ("agent-sandbox".equalsIgnoreCase(providerName)) {
+            // claims are served from the agent-sandbox WarmPool resource, no in-process pool on top
             provider = createAgentSandboxProvider();
             serverUrlFromSandbox = resolveServerUrlFromSandbox(KUBERNETES_SERVER_HOST);
         } else if ("docker".equalsIgnoreCase(providerName)) {
@@ -59,6 +65,7 @@ class SandboxModule extends Module {
             var workspaceBase = Path.of(property("sys.sandbox.docker.workspace.base").orElse("/tmp/workspaces"));
             provider = new DockerSandboxProvider(socketPath, workspaceBase, null);
             serverUrlFromSandbox = resolveServerUrlFromSandbox(DOCKER_SERVER_HOST);
+            warmPoolConfig = resolveWarmPoolConfig();
         } else {
             sandboxService = new SandboxService(bean(JedisPool.class), bean(SandboxSnapshotService.class),
                     bean(ObjectStorageServiceResolver.class), bean(FileService.class),
@@ -69,7 +76,7 @@ class SandboxModule extends Module {
         sandboxService = new SandboxService(provider, resolveDefaultConfig(), serverUrlFromSandbox,
                 new SandboxServiceDependencies(bean(JedisPool.class), bean(SandboxSnapshotService.class),
                         bean(ObjectStorageServiceResolver.class), bean(FileService.class),
-                        bean(SessionAttachmentRefRepository.class)));
+                        bean(SessionAttachmentRefRepository.class)), warmPoolConfig);
         bind(sandboxService);
 
         onShutdown(sandboxService::shutdown);
@@ -85,6 +92,19 @@ class SandboxModule extends Module {
         return config;
     }
 
+    // Warm pool is off unless sys.sandbox.warmPool.maxIdle > 0; minIdle (default 1) and idleTTL (seconds, default 600) tune it.
+    private SandboxWarmPoolConfig resolveWarmPoolConfig() {
+        var config = new SandboxWarmPoolConfig();
+        intProperty("sys.sandbox.warmPool.minIdle").ifPresent(v -> config.minIdle = v);
+        intProperty("sys.sandbox.warmPool.maxIdle").ifPresent(v -> config.maxIdle = v);
+        intProperty("sys.sandbox.warmPool.idleTTL").ifPresent(v -> config.idleTtl = Duration.ofSeconds(v));
+        return config;
+    }
+
+    private Optional<Integer> intProperty(String key) {
+        return property(key).map(String::trim).filter(v -> !v.isEmpty()).map(Integer::valueOf);
+    }
+
     private String resolveNamespace() {
         var configured = property("sys.sandbox.kubernetes.namespace").orElse(null);
         if (configured != null && !configured.isBlank()) return configured;
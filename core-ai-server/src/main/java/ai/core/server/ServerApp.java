@@ -56,11 +56,13 @@ import ai.core.server.domain.migration.SchemaVersion;
 import ai.core.server.sandbox.snapshot.SandboxEpochDoc;
 import ai.core.server.sandbox.snapshot.SandboxSnapshotDoc;
 import ai.core.server.trace.domain.AnalyticsDailyStats;
+import ai.core.server.trace.domain.ArchivedTraceSegment;
 import ai.core.server.trace.domain.PromptTemplate;
 import ai.core.server.trace.domain.Span;
 import ai.core.server.trace.domain.Trace;
 import ai.core.server.trace.domain.TraceDailyStats;
 import ai.core.server.trace.domain.TraceFacetRow;
+import ai.core.server.trace.domain.UsageRollup;
 import ai.core.server.trigger.domain.Trigger;
 import ai.core.server.rbac.RbacModule;
 import core.framework.module.App;
@@ -158,6 +160,7 @@ public class ServerApp extends App {
 
         mongo.collection(Trace.class);
         mongo.collection(Span.class);
+        mongo.collection(ArchivedTraceSegment.class);
         mongo.view(TraceFacetRow.class);
         mongo.view(ai.core.server.apiuser.ApiUserDailyUsageRow.class);
         mongo.collection(PromptTemplate.class);
@@ -192,6 +195,7 @@ public class ServerApp extends App {
         mongo.collection(BackgroundTask.class);
         mongo.collection(TraceDailyStats.class);
         mongo.collection(AnalyticsDailyStats.class);
+        mongo.collection(UsageRollup.class);
 
         mongo.collection(Notification.class);
         mongo.collection(CostAlertRule.class);
@@ -4,6 +4,7 @@ import ai.core.api.server.prompt.PromptWebService;
 import ai.core.api.server.trace.TraceWebService;
 import ai.core.server.blob.ObjectStorageServiceResolver;
 import ai.core.server.task.TaskRunner;
+import ai.core.server.trace.maintenance.TraceArchiveReader;
 import ai.core.server.trace.maintenance.TraceArchiveService;
 import ai.core.server.trace.maintenance.TraceArchivingJob;
 import ai.core.server.trace.maintenance.TraceArchivingTask;
@@ -15,6 +16,8 @@ import ai.core.server.trace.service.ModelPricingService;
 import ai.core.server.trace.service.OTLPIngestService;
 import ai.core.server.trace.service.PromptService;
 import ai.core.server.trace.service.TraceService;
+import ai.core.server.trace.service.UsageRollupJob;
+import ai.core.server.trace.service.UsageRollupService;
 import ai.core.server.trace.spi.LocalSpanProcessorRegistry;
 import ai.core.server.trace.web.ingest.IngestController;
 import ai.core.server.trace.web.otlp.OTLPController;
@@ -53,9 +56,13 @@ public class TraceModule extends Module {
     }
 
     private void registerTrace() {
+        bind(new TraceArchiveReader(bean(ObjectStorageServiceResolver.class)));
         bind(TraceService.class);
         bind(PromptService.class);
         bind(ModelPricingService.class);
+        var usageRollupService = bind(UsageRollupService.class);
+        schedule().fixedRate("usage-rollup", bind(UsageRollupJob.class), Duration.ofSeconds(5));
+        onShutdown(usageRollupService::flushAll);
         var otlpIngestService = bind(OTLPIngestService.class);
         bind(IngestService.class);
 
@@ -1,7 +1,7 @@
 package ai.core.server.analytics;
 
 import ai.core.server.trace.domain.AnalyticsDailyStats;
-import ai.core.server.trace.domain.Trace;
+import ai.core.server.trace.domain.UsageRollup;
 import com.mongodb.client.model.Accumulators;
 import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
@@ -27,7 +27,9 @@ import static ai.core.server.analytics.AdminAnalyticsService.Dimension.USER;
 /**
  * Admin analytics query service.
  * History mode queries pre-aggregated {@code analytics_daily_stats},
- * realtime mode queries raw {@code traces} (today only, before archive).
+ * realtime mode queries the {@code usage_rollups} maintained at ingest (today only): day buckets for totals and
+ * rankings, minute buckets for hourly trends. Rollups keep no per-trace values, so realtime max is per LLM call
+ * and p90 is not available.
  */
 public class AdminAnalyticsService {
 
@@ -56,7 +58,7 @@ public class AdminAnalyticsService {
     @Inject
     MongoCollection<AnalyticsDailyStats> analyticsStatsCollection;
     @Inject
-    MongoCollection<Trace> traceCollection;
+    MongoCollection<UsageRollup> usageRollupCollection;
     @Inject
     AnalyticsMappingService mappingService;
 
@@ -65,7 +67,7 @@ public class AdminAnalyticsService {
     public AnalyticsModels.GlobalSummary globalSummary(String mode, String range, String from, String to) {
         var bounds = AnalyticsDateUtils.resolveDateRange(mode, range, from, to);
         if ("realtime".equals(mode)) {
-            return globalFromTraces(bounds);
+            return globalFromRollups(bounds);
         }
         return globalFromStats(bounds);
     }
@@ -89,10 +91,10 @@ public class AdminAnalyticsService {
         );
     }
 
-    private AnalyticsModels.GlobalSummary globalFromTraces(DateRange bounds) {
+    private AnalyticsModels.GlobalSummary globalFromRollups(DateRange bounds) {
         var modelToProvider = mappingService.loadModelToProviderMapping();
         var providerIdToName = mappingService.loadProviderIdToNameMapping();
-        var rows = aggregateRealtimeTraces(bounds, null, modelToProvider, providerIdToName);
+        var rows = aggregateRealtimeRollups(bounds, null, modelToProvider, providerIdToName);
         return buildGlobalSummary(rows);
     }
 
@@ -101,7 +103,7 @@ public class AdminAnalyticsService {
     public List<AnalyticsModels.TrendPoint> trend(String mode, String range, String from, String to) {
         var bounds = AnalyticsDateUtils.resolveDateRange(mode, range, from, to);
         if ("realtime".equals(mode)) {
-            return trendFromTraces(bounds);
+            return trendFromRollups(bounds);
         }
         return trendFromStats(bounds);
     }
@@ -112,10 +114,10 @@ public class AdminAnalyticsService {
         return buildTrendPoints(rows);
     }
 
-    private List<AnalyticsModels.TrendPoint> trendFromTraces(DateRange bounds) {
+    private List<AnalyticsModels.TrendPoint> trendFromRollups(DateRange bounds) {
         var modelToProvider = mappingService.loadModelToProviderMapping();
         var providerIdToName = mappingService.loadProviderIdToNameMapping();
-        var rows = aggregateRealtimeTracesTrend(bounds, modelToProvider, providerIdToName);
+        var rows = aggregateRealtimeRollupsTrend(bounds, modelToProvider, providerIdToName);
         return buildTrendPoints(rows);
     }
 
@@ -147,7 +149,7 @@ public class AdminAnalyticsService {
         if ("realtime".equals(mode)) {
             var modelToProvider = mappingService.loadModelToProviderMapping();
             var providerIdToName = mappingService.loadProviderIdToNameMapping();
-            rows = aggregateRealtimeTraces(bounds, dim, modelToProvider, providerIdToName);
+            rows = aggregateRealtimeRollups(bounds, dim, modelToProvider, providerIdToName);
         } else {
             rows = aggregateStats(bounds, dim);
         }
@@ -163,7 +165,7 @@ public class AdminAnalyticsService {
         var dim = Dimension.valueOf(dimension.toUpperCase(Locale.ENGLISH));
         var bounds = AnalyticsDateUtils.resolveDateRange(mode, range, from, to);
         if ("realtime".equals(mode)) {
-            return dimensionTrendFromTraces(dim, bounds, keys);
+            return dimensionTrendFromRollups(dim, bounds, keys);
         }
         return dimensionTrendFromStats(dim, bounds, keys);
     }
@@ -195,11 +197,8 @@ public class AdminAnalyticsService {
         return analyticsStatsCollection.aggregate(aggregate);
     }
 
-    private List<Document> aggregateRealtimeTraces(DateRange bounds, Dimension dim, Map<String, String> modelToProvider, Map<String, String> providerIdToName) {
-        var match = Aggregates.match(Filters.and(
-            Filters.gte("started_at", bounds.from()),
-            Filters.lt("started_at", bounds.to())
-        ));
+    private List<Document> aggregateRealtimeRollups(DateRange bounds, Dimension dim, Map<String, String> modelToProvider, Map<String, String> providerIdToName) {
+        var match = rollupMatch(UsageRollup.DAY, bounds);
         var addFields = AnalyticsMappingService.buildProviderAddFields(modelToProvider);
         var addProviderName = AnalyticsMappingService.buildProviderNameAddFields(providerIdToName);
         String groupField = dim != null ? "$" + dim.field : null;
@@ -212,17 +211,14 @@ public class AdminAnalyticsService {
         var aggregate = new Aggregate<Document>();
         aggregate.resultClass = Document.class;
         aggregate.pipeline = list;
-        return traceCollection.aggregate(aggregate);
+        return usageRollupCollection.aggregate(aggregate);
     }
 
-    private List<Document> aggregateRealtimeTracesTrend(DateRange bounds, Map<String, String> modelToProvider, Map<String, String> providerIdToName) {
-        var match = Aggregates.match(Filters.and(
-            Filters.gte("started_at", bounds.from()),
-            Filters.lt("started_at", bounds.to())
-        ));
+    private List<Document> aggregateRealtimeRollupsTrend(DateRange bounds, Map<String, String> modelToProvider, Map<String, String> providerIdToName) {
+        var match = rollupMatch(UsageRollup.MINUTE, bounds);
         var addFields = AnalyticsMappingService.buildProviderAddFields(modelToProvider);
         var addProviderName = AnalyticsMappingService.buildProviderNameAddFields(providerIdToName);
-        var pipeline = buildTrendPipeline(match, "started_at");
+        var pipeline = buildTrendPipeline(match, "bucket");
         var list = new ArrayList<Bson>();
         list.add(match);
         list.add(addFields);
@@ -231,7 +227,15 @@ public class AdminAnalyticsService {
         var aggregate = new Aggregate<Document>();
         aggregate.resultClass = Document.class;
         aggregate.pipeline = list;
-        return traceCollection.aggregate(aggregate);
+        return usageRollupCollection.aggregate(aggregate);
+    }
+
+    private Bson rollupMatch(String granularity, DateRange bounds) {
+        return Aggregates.match(Filters.and(
+            Filters.eq("granularity", granularity),
+            Filters.gte("bucket", bounds.from()),
+            Filters.lt("bucket", bounds.to())
+        ));
     }
 
     private List<Bson> buildStatsPipeline(Bson match, String groupField, boolean realtime) {
@@ -240,25 +244,38 @@ public class AdminAnalyticsService {
         Object groupId = groupField != null ? groupField : null;
         var group = Aggregates.group(
             groupId,
-            Accumulators.sum("input_tokens", realtime ? "$input_tokens" : "$input_tokens"),
-            Accumulators.sum("output_tokens", realtime ? "$output_tokens" : "$output_tokens"),
-            Accumulators.sum("total_tokens", realtime ? "$total_tokens" : "$total_tokens"),
-            Accumulators.sum("cached_tokens", realtime ? "$cached_tokens" : "$cached_tokens"),
-            Accumulators.sum("cost_usd", realtime ? "$cost_usd" : "$cost_usd"),
-            Accumulators.sum("call_count", realtime ? 1L : "$call_count"),
-            Accumulators.avg("avg_total_tokens", realtime ? "$total_tokens" : "$avg_total_tokens"),
-            Accumulators.avg("avg_cost_usd", realtime ? "$cost_usd" : "$avg_cost_usd"),
-            Accumulators.max("max_total_tokens", realtime ? "$total_tokens" : "$max_total_tokens"),
-            Accumulators.max("max_cost_usd", realtime ? "$cost_usd" : "$max_cost_usd"),
-            Accumulators.max("p90_total_tokens", realtime ? "$total_tokens" : "$p90_total_tokens"),
+            Accumulators.sum("input_tokens", "$input_tokens"),
+            Accumulators.sum("output_tokens", "$output_tokens"),
+            Accumulators.sum("total_tokens", "$total_tokens"),
+            Accumulators.sum("cached_tokens", "$cached_tokens"),
+            Accumulators.sum("cost_usd", "$cost_usd"),
+            Accumulators.sum("call_count", "$call_count"),
+            Accumulators.avg("avg_total_tokens", "$avg_total_tokens"),
+            Accumulators.avg("avg_cost_usd", "$avg_cost_usd"),
+            Accumulators.max("max_total_tokens", "$max_total_tokens"),
+            Accumulators.max("max_cost_usd", "$max_cost_usd"),
+            Accumulators.max("p90_total_tokens", "$p90_total_tokens"),
             Accumulators.first("agent_name", "$agent_name"),
             Accumulators.first("provider_name", "$provider_name")
         );
         pipeline.add(group);
+        // rollups carry no averages, derive them from the summed totals
+        if (realtime) {
+            pipeline.add(new Document("$addFields", new Document()
+                .append("avg_total_tokens", perCall("$total_tokens"))
+                .append("avg_cost_usd", perCall("$cost_usd"))));
+        }
         pipeline.add(Aggregates.sort(Sorts.descending("total_tokens")));
         return pipeline;
     }
 
+    private Document perCall(String field) {
+        return new Document("$cond", List.of(
+            new Document("$gt", List.of("$call_count", 0)),
+            new Document("$divide", List.of(field, "$call_count")),
+            0));
+    }
+
     private List<Bson> buildTrendPipeline(Bson match, String dateField) {
         var pipeline = new ArrayList<Bson>();
         pipeline.add(match);
@@ -404,24 +421,21 @@ public class AdminAnalyticsService {
         return buildDimensionTrendPoints(rows);
     }
 
-    private List<AnalyticsModels.DimensionTrendPoint> dimensionTrendFromTraces(Dimension dim, DateRange bounds, List<String> keys) {
+    private List<AnalyticsModels.DimensionTrendPoint> dimensionTrendFromRollups(Dimension dim, DateRange bounds, List<String> keys) {
         var modelToProvider = mappingService.loadModelToProviderMapping();
         var providerIdToName = mappingService.loadProviderIdToNameMapping();
-        var match = Aggregates.match(Filters.and(
-            Filters.gte("started_at", bounds.from()),
-            Filters.lt("started_at", bounds.to())
-        ));
+        var match = rollupMatch(UsageRollup.MINUTE, bounds);
         var addFields = AnalyticsMappingService.buildProviderAddFields(modelToProvider);
         var addProviderName = AnalyticsMappingService.buildProviderNameAddFields(providerIdToName);
         var group = Aggregates.group(
             new Document("dim", "$" + dim.field).append("hour",
                 new Document("$dateTrunc",
-                    new Document("date", "$started_at").append("unit", "hour"))),
+                    new Document("date", "$bucket").append("unit", "hour"))),
             Accumulators.sum("input_tokens", "$input_tokens"),
             Accumulators.sum("output_tokens", "$output_tokens"),
             Accumulators.sum("cached_tokens", "$cached_tokens"),
             Accumulators.sum("cost_usd", "$cost_usd"),
-            Accumulators.sum("call_count", 1L)
+            Accumulators.sum("call_count", "$call_count")
         );
         var keyMatch = Aggregates.match(Filters.in("_id.dim", keys));
         var pipeline = List.<Bson>of(match, addFields, addProviderName, group, keyMatch,
@@ -429,7 +443,7 @@ public class AdminAnalyticsService {
         var aggregate = new Aggregate<Document>();
         aggregate.resultClass = Document.class;
         aggregate.pipeline = pipeline;
-        var rows = traceCollection.aggregate(aggregate);
+        var rows = usageRollupCollection.aggregate(aggregate);
         return buildDimensionTrendPoints(rows);
     }
 
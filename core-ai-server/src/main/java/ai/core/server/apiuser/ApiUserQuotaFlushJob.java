@@ -0,0 +1,20 @@
+package ai.core.server.apiuser;
+
+import core.framework.inject.Inject;
+import core.framework.scheduler.Job;
+import core.framework.scheduler.JobContext;
+
+/**
+ * Writes the token usage aggregated by {@link ApiUserQuotaService} to mongo.
+ *
+ * @author stephen
+ */
+public class ApiUserQuotaFlushJob implements Job {
+    @Inject
+    ApiUserQuotaService apiUserQuotaService;
+
+    @Override
+    public void execute(JobContext context) {
+        apiUserQuotaService.flush();
+    }
+}
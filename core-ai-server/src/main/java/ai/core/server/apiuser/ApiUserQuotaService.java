@@ -5,45 +5,57 @@ import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Updates;
 import core.framework.inject.Inject;
 import core.framework.mongo.MongoCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Daily token quota for all users. UTC day window, lazy reset.
  * Unconfigured users (no quota) are unrestricted; only configured users are checked and metered.
+ * <p>
+ * Checks read a per-user lease (limits and consumed counters loaded from mongo) that is reloaded after
+ * {@link #leaseTtl}, or on every check once the remaining quota drops below {@link #overshootTolerance}.
+ * Usage is aggregated in memory and flushed as $inc by {@link ApiUserQuotaFlushJob}, so other pods see it
+ * after one flush interval; far from the limit a user can overshoot by what all pods consume within one lease.
  *
  * @author stephen
  */
 public class ApiUserQuotaService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApiUserQuotaService.class);
+
+    private static boolean configured(Long quota) {
+        return quota != null && quota > 0;
+    }
+
+    private static long value(Long value) {
+        return value != null ? value : 0L;
+    }
+
     @Inject
     MongoCollection<User> userCollection;
 
-    public void checkQuota(String userId) {
-        var user = userCollection.get(userId).orElse(null);
-        if (user == null) return;
+    public Duration leaseTtl = Duration.ofSeconds(10);
+    public long overshootTolerance = 10_000;
+
+    private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PendingUsage> pending = new ConcurrentHashMap<>();
 
+    public void checkQuota(String userId) {
         var now = ZonedDateTime.now();
-        if (windowResetDue(user, now)) {
-            // targeted $set so concurrent quota $inc is not overwritten by a full replace
-            userCollection.update(Filters.eq("_id", userId), Updates.combine(
-                    Updates.set("quota_consumed_input_tokens", 0L),
-                    Updates.set("quota_consumed_output_tokens", 0L),
-                    Updates.set("quota_window_start", now)));
-            user.quotaConsumedInputTokens = 0L;
-            user.quotaConsumedOutputTokens = 0L;
-            user.quotaWindowStart = now;
+        var lease = leases.get(userId);
+        if (lease == null || reloadDue(lease, now)) {
+            lease = load(userId, now);
         }
-        if (user.quotaInputTokens != null && user.quotaInputTokens > 0) {
-            long consumed = user.quotaConsumedInputTokens != null ? user.quotaConsumedInputTokens : 0L;
-            if (consumed >= user.quotaInputTokens) {
-                throw new QuotaExceededException("input quota exceeded");
-            }
+        if (lease.inputLimit > 0 && lease.consumedInput() >= lease.inputLimit) {
+            throw new QuotaExceededException("input quota exceeded");
         }
-        if (user.quotaOutputTokens != null && user.quotaOutputTokens > 0) {
-            long consumed = user.quotaConsumedOutputTokens != null ? user.quotaConsumedOutputTokens : 0L;
-            if (consumed >= user.quotaOutputTokens) {
-                throw new QuotaExceededException("output quota exceeded");
-            }
+        if (lease.outputLimit > 0 && lease.consumedOutput() >= lease.outputLimit) {
+            throw new QuotaExceededException("output quota exceeded");
         }
     }
 
@@ -52,33 +64,141 @@ public class ApiUserQuotaService {
      * tokenCostCallback (wired in SessionContextBuilder / AgentRunBuilder) and from the direct
      * LLM_CALL paths (AgentRunService / AgentRunTracer), so usage is attributed to the user whose
      * quota was checked — independent of trace span attribution.
-     * Conditionally $inc only for users with a configured quota, so unconfigured users are untouched.
+     * Only aggregates in memory; {@link #flush} later does a conditional $inc only for users with a
+     * configured quota, so unconfigured users are untouched.
      * The window counter is lazily reset by {@link #checkQuota} on the next day boundary.
      */
     public void recordUsage(String userId, long inputTokens, long outputTokens) {
         if (userId == null) return;
-        if (inputTokens > 0) {
-            userCollection.update(
-                Filters.and(
-                    Filters.eq("_id", userId),
-                    Filters.ne("quota_input_tokens", null),
-                    Filters.gt("quota_input_tokens", 0)),
-                Updates.inc("quota_consumed_input_tokens", inputTokens)
-            );
+        long input = Math.max(0, inputTokens);
+        long output = Math.max(0, outputTokens);
+        if (input == 0 && output == 0) return;
+        var lease = leases.get(userId);
+        if (lease != null && lease.inputLimit == 0 && lease.outputLimit == 0) return;
+        pending.merge(userId, new PendingUsage(input, output), PendingUsage::plus);
+        if (lease != null) {
+            lease.localInput.addAndGet(input);
+            lease.localOutput.addAndGet(output);
+        }
+    }
+
+    /**
+     * Writes the aggregated usage of all users to mongo and drops expired leases.
+     * Runs from {@link ApiUserQuotaFlushJob} and on shutdown.
+     */
+    public void flush() {
+        for (var userId : pending.keySet()) {
+            flush(userId);
         }
-        if (outputTokens > 0) {
-            userCollection.update(
-                Filters.and(
-                    Filters.eq("_id", userId),
-                    Filters.ne("quota_output_tokens", null),
-                    Filters.gt("quota_output_tokens", 0)),
-                Updates.inc("quota_consumed_output_tokens", outputTokens)
-            );
+        long now = System.nanoTime();
+        leases.values().removeIf(lease -> now - lease.loadedAt > 2 * leaseTtl.toNanos());
+    }
+
+    private void flush(String userId) {
+        var usage = pending.remove(userId);
+        if (usage == null) return;
+        long input = usage.input;
+        try {
+            if (input > 0) {
+                userCollection.update(
+                    Filters.and(
+                        Filters.eq("_id", userId),
+                        Filters.ne("quota_input_tokens", null),
+                        Filters.gt("quota_input_tokens", 0)),
+                    Updates.inc("quota_consumed_input_tokens", input)
+                );
+                input = 0;
+            }
+            if (usage.output > 0) {
+                userCollection.update(
+                    Filters.and(
+                        Filters.eq("_id", userId),
+                        Filters.ne("quota_output_tokens", null),
+                        Filters.gt("quota_output_tokens", 0)),
+                    Updates.inc("quota_consumed_output_tokens", usage.output)
+                );
+            }
+        } catch (RuntimeException e) {
+            // keep what was not applied for the next flush, an input $inc that already succeeded is not repeated
+            pending.merge(userId, new PendingUsage(input, usage.output), PendingUsage::plus);
+            LOGGER.warn("failed to flush quota usage, userId={}", userId, e);
         }
     }
 
+    private boolean reloadDue(Lease lease, ZonedDateTime now) {
+        if (System.nanoTime() - lease.loadedAt >= leaseTtl.toNanos()) return true;
+        if (lease.window != null && !lease.window.equals(now.toLocalDate())) return true;
+        // near the limit every check reads mongo, so pods together stay within the tolerance
+        return lease.inputLimit > 0 && lease.inputLimit - lease.consumedInput() < overshootTolerance
+            || lease.outputLimit > 0 && lease.outputLimit - lease.consumedOutput() < overshootTolerance;
+    }
+
+    private Lease load(String userId, ZonedDateTime now) {
+        // this pod's own usage goes to mongo first, so the reloaded counters include it
+        flush(userId);
+        var user = userCollection.get(userId).orElse(null);
+        if (user == null) {
+            var lease = new Lease(0, 0, 0, 0, null);
+            leases.put(userId, lease);
+            return lease;
+        }
+
+        if (windowResetDue(user, now)) {
+            // targeted $set so concurrent quota $inc is not overwritten by a full replace
+            userCollection.update(Filters.eq("_id", userId), Updates.combine(
+                    Updates.set("quota_consumed_input_tokens", 0L),
+                    Updates.set("quota_consumed_output_tokens", 0L),
+                    Updates.set("quota_window_start", now)));
+            user.quotaConsumedInputTokens = 0L;
+            user.quotaConsumedOutputTokens = 0L;
+            user.quotaWindowStart = now;
+        }
+        var lease = new Lease(
+            configured(user.quotaInputTokens) ? user.quotaInputTokens : 0,
+            configured(user.quotaOutputTokens) ? user.quotaOutputTokens : 0,
+            value(user.quotaConsumedInputTokens),
+            value(user.quotaConsumedOutputTokens),
+            user.quotaWindowStart.toLocalDate());
+        leases.put(userId, lease);
+        return lease;
+    }
+
     private boolean windowResetDue(User user, ZonedDateTime now) {
         if (user.quotaWindowStart == null) return true;
         return !user.quotaWindowStart.toLocalDate().equals(now.toLocalDate());
     }
+
+    // limit 0 means not configured
+    private static final class Lease {
+        final long inputLimit;
+        final long outputLimit;
+        final long loadedInput;
+        final long loadedOutput;
+        final LocalDate window;
+        final long loadedAt = System.nanoTime();
+        final AtomicLong localInput = new AtomicLong();
+        final AtomicLong localOutput = new AtomicLong();
+
+        Lease(long inputLimit, long outputLimit, long loadedInput, long loadedOutput, LocalDate window) {
+            this.inputLimit = inputLimit;
+            this.outputLimit = outputLimit;
+            this.loadedInput = loadedInput;
+            this.loadedOutput = loadedOutput;
+            this.window = window;
+        }
+
+        long consumedInput() {
+            return loadedInput + localInput.get();
+        }
+
+        long consumedOutput() {
+            return loadedOutput + localOutput.get();
+        }
+    }
+
+    private record PendingUsage(long input, long output) {
+        PendingUsage plus(PendingUsage other) {
+            return new PendingUsage(input + other.input, output + other.output);
+        }
+    }
 }
@@ -11,6 +11,7 @@ import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
 
 /**
  * Azure Blob Storage implementation of {@link ObjectStorageService}.
@@ -87,6 +88,33 @@ public class AzureObjectStorageService implements ObjectStorageService {
         }
     }
 
+    @Override
+    public byte[] downloadObjectRange(String container, String blobName, long offset, long length) {
+        var readSas = sasService.generateReadBlobSas(container, blobName, 5);
+        try {
+            var request = HttpRequest.newBuilder()
+                    .uri(URI.create(readSas.uploadUrl()))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Range", "bytes=" + offset + "-" + (offset + length - 1))
+                    .GET()
+                    .build();
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 200) {   // range ignored, whole object returned
+                var body = response.body();
+                return Arrays.copyOfRange(body, (int) offset, (int) Math.min(body.length, offset + length));
+            }
+            if (response.statusCode() != 206) {
+                throw new RuntimeException("range download failed: status=" + response.statusCode() + ", container=" + container + ", blob=" + blobName);
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new RuntimeException("failed to download blob range: container=" + container + ", blob=" + blobName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while downloading blob range", e);
+        }
+    }
+
     @Override
     public void uploadObject(String container, String blobName, Path file) {
         uploadObject(container, blobName, file, null);
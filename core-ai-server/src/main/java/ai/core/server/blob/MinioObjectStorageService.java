@@ -11,6 +11,7 @@ import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
 
 /**
  * MinIO / S3-compatible implementation of {@link ObjectStorageService}.
@@ -88,6 +89,33 @@ public class MinioObjectStorageService implements ObjectStorageService {
         }
     }
 
+    @Override
+    public byte[] downloadObjectRange(String container, String blobName, long offset, long length) {
+        var result = presigner.presignedGetUrl(container, blobName, 300); // 5 min
+        try {
+            var request = HttpRequest.newBuilder()
+                    .uri(URI.create(result.presignedUrl()))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Range", "bytes=" + offset + "-" + (offset + length - 1))
+                    .GET()
+                    .build();
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 200) {   // range ignored, whole object returned
+                var body = response.body();
+                return Arrays.copyOfRange(body, (int) offset, (int) Math.min(body.length, offset + length));
+            }
+            if (response.statusCode() != 206) {
+                throw new RuntimeException("range download failed: status=" + response.statusCode() + ", bucket=" + container + ", key=" + blobName);
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new RuntimeException("failed to download object range: bucket=" + container + ", key=" + blobName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while downloading object range", e);
+        }
+    }
+
     @Override
     public void uploadObject(String container, String blobName, Path file) {
         uploadObject(container, blobName, file, null);
@@ -1,5 +1,7 @@
 package ai.core.server.blob;
 
+import java.util.Arrays;
+
 /**
  * Provider-agnostic object storage abstraction for generating pre-signed upload credentials
  * and downloading stored objects.
@@ -19,6 +21,12 @@ public interface ObjectStorageService {
 
     byte[] downloadObject(String container, String blobName);
 
+    /** Bytes [offset, offset + length) of an object; providers override with a Range request. */
+    default byte[] downloadObjectRange(String container, String blobName, long offset, long length) {
+        var bytes = downloadObject(container, blobName);
+        return Arrays.copyOfRange(bytes, (int) offset, (int) Math.min(bytes.length, offset + length));
+    }
+
     /** Server-side streaming upload from a local file (snapshot capture path). */
     void uploadObject(String container, String blobName, java.nio.file.Path file);
 
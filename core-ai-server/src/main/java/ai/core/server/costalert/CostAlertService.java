@@ -6,17 +6,13 @@ import ai.core.server.channel.ChannelRegistry;
 import ai.core.server.domain.NotificationCategory;
 import ai.core.server.domain.NotificationType;
 import ai.core.server.notification.NotificationService;
-import ai.core.server.trace.domain.Trace;
+import ai.core.server.trace.domain.UsageRollup;
 import com.mongodb.DuplicateKeyException;
-import com.mongodb.client.model.Accumulators;
-import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
 import core.framework.inject.Inject;
 import core.framework.json.JSON;
-import core.framework.mongo.Aggregate;
 import core.framework.mongo.MongoCollection;
 import core.framework.mongo.Query;
-import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,12 +20,12 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Evaluates cost alert rules against daily trace aggregates and delivers
+ * Evaluates cost alert rules against the daily usage rollups and delivers
  * notifications to in-app users and configured channels.
  *
  * @author stephen
@@ -44,14 +40,8 @@ public class CostAlertService {
         return String.valueOf(tokens);
     }
 
-    private static double doubleValue(Document row, String key) {
-        var value = row.get(key);
-        return value instanceof Number n ? n.doubleValue() : 0.0;
-    }
-
-    private static long longValue(Document row, String key) {
-        var value = row.get(key);
-        return value instanceof Number n ? n.longValue() : 0L;
+    private static long longValue(Long value) {
+        return value != null ? value : 0L;
     }
 
     @Inject
@@ -59,7 +49,7 @@ public class CostAlertService {
     @Inject
     MongoCollection<CostAlertEvent> eventCollection;
     @Inject
-    MongoCollection<Trace> traceCollection;
+    MongoCollection<UsageRollup> usageRollupCollection;
     @Inject
     ChannelConfigStore channelConfigStore;
     @Inject
@@ -69,20 +59,22 @@ public class CostAlertService {
 
     /**
      * Check both the previous full day (final value) and today so far (progress value).
+     * Each day's rollups are loaded once and summed per scope for all rules.
      */
     public void check(LocalDate today) {
         var yesterday = today.minusDays(1);
         List<CostAlertRule> rules = ruleCollection.find(new Query());
+        var yesterdayUsage = dailyUsage(yesterday);
+        var todayUsage = dailyUsage(today);
         for (var rule : rules) {
             if (!Boolean.TRUE.equals(rule.enabled)) continue;
-            checkWindow(rule, yesterday, yesterday.atStartOfDay(UTC), today.atStartOfDay(UTC));
-            checkWindow(rule, today, today.atStartOfDay(UTC), ZonedDateTime.now(UTC));
+            checkWindow(rule, yesterday, yesterdayUsage.of(rule));
+            checkWindow(rule, today, todayUsage.of(rule));
         }
         LOGGER.info("cost alert check finished, date={}, rules={}", today, rules.size());
     }
 
-    private void checkWindow(CostAlertRule rule, LocalDate date, ZonedDateTime start, ZonedDateTime end) {
-        var usage = aggregate(rule, start, end);
+    private void checkWindow(CostAlertRule rule, LocalDate date, UsageAgg usage) {
         if (usage == null) return;
         double actual = switch (rule.metric) {
             case COST_USD -> usage.costUsd;
@@ -95,35 +87,18 @@ public class CostAlertService {
         }
     }
 
-    private UsageAgg aggregate(CostAlertRule rule, ZonedDateTime start, ZonedDateTime end) {
-        var filters = new ArrayList<org.bson.conversions.Bson>();
-        filters.add(Filters.gte("started_at", start));
-        filters.add(Filters.lt("started_at", end));
-        if (rule.scope == CostAlertScope.USER) {
-            filters.add(Filters.eq("user_id", rule.scopeValue));
-        } else if (rule.scope == CostAlertScope.AGENT) {
-            filters.add(Filters.eq("agent_id", rule.scopeValue));
+    private DailyUsage dailyUsage(LocalDate date) {
+        var usage = new DailyUsage();
+        var rollups = usageRollupCollection.find(Filters.and(
+            Filters.eq("granularity", UsageRollup.DAY),
+            Filters.eq("bucket", date.atStartOfDay(UTC))));
+        for (var rollup : rollups) {
+            usage.global = usage.global.plus(rollup);
+            if (rollup.userId != null) usage.byUser.merge(rollup.userId, UsageAgg.of(rollup), UsageAgg::plus);
+            if (rollup.agentId != null) usage.byAgent.merge(rollup.agentId, UsageAgg.of(rollup), UsageAgg::plus);
         }
-        var aggregate = new Aggregate<Document>();
-        aggregate.resultClass = Document.class;
-        aggregate.pipeline = List.of(
-            Aggregates.match(Filters.and(filters)),
-            Aggregates.group(null,
-                Accumulators.sum("cost_usd", "$cost_usd"),
-                Accumulators.sum("total_tokens", "$total_tokens"),
-                Accumulators.sum("input_tokens", "$input_tokens"),
-                Accumulators.sum("output_tokens", "$output_tokens"),
-                Accumulators.sum("call_count", 1L))
-        );
-        var rows = traceCollection.aggregate(aggregate);
-        if (rows.isEmpty()) return null;
-        var row = rows.get(0);
-        return new UsageAgg(
-            doubleValue(row, "cost_usd"),
-            longValue(row, "total_tokens"),
-            longValue(row, "input_tokens"),
-            longValue(row, "output_tokens"),
-            longValue(row, "call_count"));
+        usage.empty = rollups.isEmpty();
+        return usage;
     }
 
     private boolean tryInsertEvent(CostAlertRule rule, LocalDate date, double actual, UsageAgg usage) {
@@ -225,5 +200,34 @@ public class CostAlertService {
     }
 
     record UsageAgg(double costUsd, long totalTokens, long inputTokens, long outputTokens, long callCount) {
+        static final UsageAgg EMPTY = new UsageAgg(0.0, 0L, 0L, 0L, 0L);
+
+        static UsageAgg of(UsageRollup rollup) {
+            return new UsageAgg(rollup.costUsd != null ? rollup.costUsd : 0.0, longValue(rollup.totalTokens),
+                longValue(rollup.inputTokens), longValue(rollup.outputTokens), longValue(rollup.callCount));
+        }
+
+        UsageAgg plus(UsageRollup rollup) {
+            return plus(of(rollup));
+        }
+
+        UsageAgg plus(UsageAgg other) {
+            return new UsageAgg(costUsd + other.costUsd, totalTokens + other.totalTokens,
+                inputTokens + other.inputTokens, outputTokens + other.outputTokens, callCount + other.callCount);
+        }
+    }
+
+    // usage of one UTC day per rule scope, a scope without rollups has no usage
+    private static final class DailyUsage {
+        final Map<String, UsageAgg> byUser = new HashMap<>();
+        final Map<String, UsageAgg> byAgent = new HashMap<>();
+        UsageAgg global = UsageAgg.EMPTY;
+        boolean empty;
+
+        UsageAgg of(CostAlertRule rule) {
+            if (rule.scope == CostAlertScope.USER) return byUser.get(rule.scopeValue);
+            if (rule.scope == CostAlertScope.AGENT) return byAgent.get(rule.scopeValue);
+            return empty ? null : global;
+        }
     }
 }
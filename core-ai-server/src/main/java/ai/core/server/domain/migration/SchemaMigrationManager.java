@@ -128,7 +128,10 @@ public class SchemaMigrationManager {
             new SchemaMigrationVProjectEvents(),
             new SchemaMigrationVProjectReportRenderer(),
             new SchemaMigrationVProjectReportAgent(),
-            new SchemaMigrationVSessionSchedules()
+            new SchemaMigrationVSessionSchedules(),
+            new SchemaMigrationVTraceArchiveKeyset(),
+            new SchemaMigrationVUsageRollups(),
+            new SchemaMigrationVUsageRollupsBackfill()
         );
     }
 }
@@ -0,0 +1,28 @@
+package ai.core.server.domain.migration;
+
+import com.mongodb.client.model.Indexes;
+import core.framework.mongo.Mongo;
+
+/**
+ * Supports keyset paging of traces by (started_at, _id) during archiving, and archived trace lookups by trace_id.
+ *
+ * @author stephen
+ */
+public class SchemaMigrationVTraceArchiveKeyset implements SchemaMigration {
+    @Override
+    public String version() {
+        return "20260822001";
+    }
+
+    @Override
+    public String description() {
+        return "create traces started_at/_id keyset index and archived_trace_segments indexes";
+    }
+
+    @Override
+    public void migrate(Mongo mongo) {
+        mongo.createIndex("traces", Indexes.compoundIndex(Indexes.ascending("started_at"), Indexes.ascending("_id")));
+        mongo.createIndex("archived_trace_segments", Indexes.ascending("trace_id"));
+        mongo.createIndex("archived_trace_segments", Indexes.ascending("archive"));
+    }
+}
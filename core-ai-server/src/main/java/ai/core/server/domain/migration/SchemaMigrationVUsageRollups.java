@@ -0,0 +1,31 @@
+package ai.core.server.domain.migration;
+
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import core.framework.mongo.Mongo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexes usage_rollups for cost alert and realtime analytics reads by (granularity, bucket), and expires buckets
+ * at their expires_at.
+ *
+ * @author stephen
+ */
+public class SchemaMigrationVUsageRollups implements SchemaMigration {
+    @Override
+    public String version() {
+        return "20260823001";
+    }
+
+    @Override
+    public String description() {
+        return "create usage_rollups granularity/bucket index and expires_at TTL index";
+    }
+
+    @Override
+    public void migrate(Mongo mongo) {
+        mongo.createIndex("usage_rollups", Indexes.compoundIndex(Indexes.ascending("granularity"), Indexes.ascending("bucket")));
+        mongo.createIndex("usage_rollups", Indexes.ascending("expires_at"), new IndexOptions().expireAfter(0L, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,103 @@
+package ai.core.server.domain.migration;
+
+import core.framework.mongo.Mongo;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Backfills the usage_rollups of yesterday and today from traces, so cost alerts and realtime analytics do not read
+ * an empty or partial day right after ingest starts rolling up usage.
+ * <p>
+ * Traces carry no per span model or usage, so a backfilled bucket attributes the whole trace to its model and
+ * max_total_tokens/max_cost_usd are per trace. Buckets ingest already created are kept as they are.
+ *
+ * @author stephen
+ */
+public class SchemaMigrationVUsageRollupsBackfill implements SchemaMigration {
+    // same as UsageRollupService
+    private static final Duration MINUTE_RETENTION = Duration.ofDays(3);
+    private static final Duration DAY_RETENTION = Duration.ofDays(45);
+
+    @Override
+    public String version() {
+        return "20260823002";
+    }
+
+    @Override
+    public String description() {
+        return "backfill usage_rollups day and minute buckets of yesterday and today from traces";
+    }
+
+    @Override
+    public void migrate(Mongo mongo) {
+        var now = ZonedDateTime.now(ZoneId.of("UTC"));
+        var from = Date.from(now.truncatedTo(ChronoUnit.DAYS).minusDays(1).toInstant());
+        var to = Date.from(now.toInstant());
+        // the id format matches UsageRollupService.id, bucket instants print as yyyy-MM-ddTHH:mm:ssZ
+        mongo.runCommand(backfill("day", "%Y-%m-%dT00:00:00Z", DAY_RETENTION, from, to));
+        mongo.runCommand(backfill("minute", "%Y-%m-%dT%H:%M:00Z", MINUTE_RETENTION, from, to));
+    }
+
+    private Document backfill(String granularity, String bucketFormat, Duration retention, Date from, Date to) {
+        var match = new Document("$match", new Document("started_at", new Document("$gte", from).append("$lt", to)));
+        var group = new Document("$group", new Document("_id", new Document()
+                .append("bucket", new Document("$dateToString", new Document("format", bucketFormat).append("date", "$started_at")))
+                .append("user_id", "$user_id")
+                .append("agent_id", "$agent_id")
+                .append("source", "$source")
+                .append("model", "$model"))
+            .append("agent_name", new Document("$last", "$agent_name"))
+            .append("input_tokens", sum("$input_tokens", 0L))
+            .append("output_tokens", sum("$output_tokens", 0L))
+            .append("cached_tokens", sum("$cached_tokens", 0L))
+            .append("cost_usd", sum("$cost_usd", 0.0))
+            .append("call_count", new Document("$sum", 1L))
+            .append("max_total_tokens", new Document("$max", ifNull("$total_tokens", 0L)))
+            .append("max_cost_usd", new Document("$max", ifNull("$cost_usd", 0.0))));
+        var bucket = new Document("$dateFromString", new Document("dateString", "$_id.bucket"));
+        var project = new Document("$project", new Document("_id", new Document("$concat", List.of(granularity, "::", "$_id.bucket",
+                "::", ifEmpty("$_id.user_id"), "::", ifEmpty("$_id.agent_id"), "::", ifEmpty("$_id.source"), "::", ifEmpty("$_id.model"))))
+            .append("granularity", new Document("$literal", granularity))
+            .append("bucket", bucket)
+            .append("user_id", "$_id.user_id")
+            .append("agent_id", "$_id.agent_id")
+            .append("agent_name", "$agent_name")
+            .append("source", "$_id.source")
+            .append("model", "$_id.model")
+            .append("input_tokens", "$input_tokens")
+            .append("output_tokens", "$output_tokens")
+            .append("total_tokens", new Document("$add", List.of("$input_tokens", "$output_tokens")))
+            .append("cached_tokens", "$cached_tokens")
+            .append("cost_usd", "$cost_usd")
+            .append("call_count", "$call_count")
+            .append("max_total_tokens", "$max_total_tokens")
+            .append("max_cost_usd", "$max_cost_usd")
+            .append("updated_at", to)
+            .append("expires_at", new Document("$add", List.of(bucket, retention.toMillis()))));
+        // keepExisting makes a rerun a no-op and leaves buckets ingest already writes to alone
+        var merge = new Document("$merge", new Document("into", "usage_rollups").append("on", "_id")
+            .append("whenMatched", "keepExisting").append("whenNotMatched", "insert"));
+        return new Document("aggregate", "traces")
+            .append("pipeline", List.of(match, group, project, merge))
+            .append("cursor", new Document());
+    }
+
+    // the rollup codec reads tokens as Long and cost as Double, so the defaults keep those BSON types
+    private Document sum(String field, Object defaultValue) {
+        return new Document("$sum", ifNull(field, defaultValue));
+    }
+
+    private Document ifNull(String field, Object defaultValue) {
+        return new Document("$ifNull", List.of(field, defaultValue));
+    }
+
+    private Document ifEmpty(String field) {
+        return new Document("$ifNull", List.of(field, ""));
+    }
+}
@@ -229,6 +229,25 @@ public class FileService {
         return Base64.getDecoder().decode(record.data);
     }
 
+    /**
+     * Write the decoded file content to target, streaming from object storage when the record was migrated.
+     */
+    public void downloadToFile(FileRecord record, Path target) {
+        if (record.storagePath != null) {
+            var storage = storageResolver.resolve();
+            if (storage == null) {
+                throw new NotFoundException("object storage is not configured, id=" + record.id);
+            }
+            storage.downloadObjectToFile(containerOf(record.storagePath), blobOf(record.storagePath), target);
+            return;
+        }
+        try {
+            Files.write(target, getBytes(record));
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to write file, id=" + record.id, e);
+        }
+    }
+
     /**
      * Pre-signed download URL for direct browser access, or null when content is still in Mongo.
      */
@@ -131,16 +131,16 @@ public class GatewayProxyService {
     void streamToChannel(byte[] body, GatewayEndpointType endpoint, RawSseChannel<?> channel, String userId, String sessionId) {
         var call = prepare(body, endpoint);
         var span = startSpan(call, endpoint, userId, body, sessionId);
-        try {
+        try (var routeCall = routingEngine.routeStats.start(call.provider(), call.upstreamModel())) {
             if (!call.stream()) {
-                var upstream = execute(call.request(), call.provider());
+                var upstream = execute(call.request(), call.provider(), routeCall);
                 recordUsage(span, upstream.body);
                 span.setAttribute(LANGFUSE_OUTPUT, new String(upstream.body == null ? new byte[0] : upstream.body, StandardCharsets.UTF_8));
                 markUpstreamStatus(span, upstream.statusCode);
                 channel.sendRawData(new String(upstream.body == null ? new byte[0] : upstream.body, StandardCharsets.UTF_8));
                 return;
             }
-            streamEvents(call, channel, span);
+            streamEvents(call, channel, span, routeCall);
             span.setStatus(StatusCode.OK);
         } catch (RuntimeException e) {
             span.setStatus(StatusCode.ERROR, e.getMessage());
@@ -151,9 +151,9 @@ public class GatewayProxyService {
         }
     }
 
-    private void streamEvents(GatewayUpstreamCall call, RawSseChannel<?> channel, Span span) {
+    private void streamEvents(GatewayUpstreamCall call, RawSseChannel<?> channel, Span span, GatewayRouteStats.Call routeCall) {
         var output = new StringBuilder();
-        try (var source = sse(call.request(), call.provider())) {
+        try (var source = sse(call.request(), call.provider(), routeCall)) {
             for (var event : source) {
                 channel.sendRawEvent(event.type(), event.data());
                 recordStreamUsage(span, event.data());
@@ -170,13 +170,13 @@ public class GatewayProxyService {
             throw new BadRequestException("streaming video generation is not supported by the gateway");
         }
         var span = startSpan(call, endpoint, userId, body, sessionId);
-        try {
+        try (var routeCall = routingEngine.routeStats.start(call.provider(), call.upstreamModel())) {
             if (call.stream()) {
-                var response = bufferedStream(call, span);
+                var response = bufferedStream(call, span, routeCall);
                 span.setStatus(StatusCode.OK);
                 return response;
             }
-            var upstream = execute(call.request(), call.provider());
+            var upstream = execute(call.request(), call.provider(), routeCall);
             recordUsage(span, upstream.body);
             span.setAttribute(LANGFUSE_OUTPUT, new String(upstream.body == null ? new byte[0] : upstream.body, StandardCharsets.UTF_8));
             markUpstreamStatus(span, upstream.statusCode);
@@ -295,10 +295,10 @@ public class GatewayProxyService {
         request.timeout = Duration.ofSeconds(valueOrDefault(provider.timeoutSeconds, DEFAULT_TIMEOUT_SECONDS));
     }
 
-    private Response bufferedStream(GatewayUpstreamCall call, Span span) {
+    private Response bufferedStream(GatewayUpstreamCall call, Span span, GatewayRouteStats.Call routeCall) {
         var builder = new StringBuilder();
         var output = new StringBuilder();
-        try (var source = sse(call.request(), call.provider())) {
+        try (var source = sse(call.request(), call.provider(), routeCall)) {
             for (var event : source) {
                 appendEvent(builder, event);
                 recordStreamUsage(span, event.data());
@@ -355,6 +355,28 @@ public class GatewayProxyService {
         return CLIENT.sse(request);
     }
 
+    private HTTPResponse execute(HTTPRequest request, GatewayProviderConfig provider, GatewayRouteStats.Call routeCall) {
+        try {
+            var response = execute(request, provider);
+            routeCall.responded(response.statusCode);
+            return response;
+        } catch (RuntimeException e) {
+            routeCall.failed(e);
+            throw e;
+        }
+    }
+
+    private EventSource sse(HTTPRequest request, GatewayProviderConfig provider, GatewayRouteStats.Call routeCall) {
+        try {
+            var source = sse(request, provider);
+            routeCall.responded(source.statusCode);
+            return source;
+        } catch (RuntimeException e) {
+            routeCall.failed(e);
+            throw e;
+        }
+    }
+
     private void updateVideoJobStatus(MediaJob job, HTTPResponse upstream) {
         var body = parseBody(upstream.body == null ? new byte[0] : upstream.body);
         mediaJobService.updateVideoStatus(job, new VideoStatusResponse(
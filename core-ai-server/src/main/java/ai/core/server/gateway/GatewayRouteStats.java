@@ -0,0 +1,133 @@
+package ai.core.server.gateway;
+
+import ai.core.server.domain.GatewayProviderConfig;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Live per-upstream counters recorded by the proxy, used to spread duplicate routes of one model.
+ *
+ * @author stephen
+ */
+final class GatewayRouteStats {
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final double ERROR_PENALTY = 4;
+    private static final int COOLDOWN_AFTER_CONSECUTIVE_FAILURES = 3;
+    private static final long THROTTLE_COOLDOWN_NANOS = Duration.ofSeconds(5).toNanos();
+    private static final long FAILURE_COOLDOWN_NANOS = Duration.ofSeconds(10).toNanos();
+    private static final Pattern STATUS_CODE = Pattern.compile("statusCode=(\\d{3})");
+
+    static String key(GatewayProviderConfig provider, String upstreamModel) {
+        return provider.id + '/' + upstreamModel;
+    }
+
+    static int statusCode(Throwable error) {
+        for (var current = error; current != null; current = current.getCause()) {
+            if (current.getMessage() == null) continue;
+            var matcher = STATUS_CODE.matcher(current.getMessage());
+            if (matcher.find()) return Integer.parseInt(matcher.group(1));
+        }
+        return 0;
+    }
+
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+
+    GatewayRouteStats() {
+        this(System::nanoTime);
+    }
+
+    GatewayRouteStats(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    Call start(GatewayProviderConfig provider, String upstreamModel) {
+        var upstream = upstreams.computeIfAbsent(key(provider, upstreamModel), key -> new Upstream(nanoClock.getAsLong()));
+        synchronized (upstream) {
+            upstream.outstanding++;
+        }
+        return new Call(upstream, nanoClock.getAsLong());
+    }
+
+    boolean available(String key) {
+        var upstream = upstreams.get(key);
+        if (upstream == null) return true;
+        synchronized (upstream) {
+            return upstream.cooldownUntil - nanoClock.getAsLong() <= 0;
+        }
+    }
+
+    // least outstanding requests weighted by observed latency and error rate; unseen upstreams cost the least
+    double cost(String key) {
+        var upstream = upstreams.get(key);
+        if (upstream == null) return 1;
+        synchronized (upstream) {
+            return (upstream.outstanding + 1) * Math.max(1, upstream.latencyMillis) * (1 + ERROR_PENALTY * upstream.errorRate);
+        }
+    }
+
+    final class Call implements AutoCloseable {
+        private final Upstream upstream;
+        private final long startedAt;
+        private boolean responded;
+        private boolean closed;
+
+        private Call(Upstream upstream, long startedAt) {
+            this.upstream = upstream;
+            this.startedAt = startedAt;
+        }
+
+        // status once response headers arrive; for streams this is time to first byte rather than stream duration
+        void responded(int statusCode) {
+            if (responded) return;
+            responded = true;
+            long now = nanoClock.getAsLong();
+            boolean error = statusCode == 429 || statusCode >= 500;
+            synchronized (upstream) {
+                upstream.latencyMillis = upstream.samples == 0 ? (now - startedAt) / 1_000_000.0
+                        : upstream.latencyMillis * (1 - EWMA_WEIGHT) + (now - startedAt) / 1_000_000.0 * EWMA_WEIGHT;
+                upstream.errorRate = upstream.errorRate * (1 - EWMA_WEIGHT) + (error ? EWMA_WEIGHT : 0);
+                upstream.samples++;
+                if (statusCode == 429) {
+                    upstream.cooldownUntil = now + THROTTLE_COOLDOWN_NANOS;
+                }
+                upstream.consecutiveFailures = error ? upstream.consecutiveFailures + 1 : 0;
+                if (upstream.consecutiveFailures >= COOLDOWN_AFTER_CONSECUTIVE_FAILURES) {
+                    upstream.cooldownUntil = Math.max(upstream.cooldownUntil - now, FAILURE_COOLDOWN_NANOS) + now;
+                    upstream.consecutiveFailures = 0;
+                }
+            }
+        }
+
+        void failed(Throwable error) {
+            int statusCode = statusCode(error);
+            responded(statusCode == 0 ? 599 : statusCode);
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            synchronized (upstream) {
+                upstream.outstanding--;
+            }
+        }
+    }
+
+    private static final class Upstream {
+        int outstanding;
+        int samples;
+        int consecutiveFailures;
+        double latencyMillis;
+        double errorRate;
+        long cooldownUntil;
+
+        Upstream(long now) {
+            cooldownUntil = now;
+        }
+    }
+}
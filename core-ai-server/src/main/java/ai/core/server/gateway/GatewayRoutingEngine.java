@@ -15,6 +15,8 @@ import core.framework.web.exception.BadRequestException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -32,6 +34,8 @@ public class GatewayRoutingEngine {
     @Inject
     MongoCollection<GatewayModelConfig> gatewayModelCollection;
 
+    final GatewayRouteStats routeStats = new GatewayRouteStats();
+
     private volatile Snapshot cache;
 
     public List<GatewayPublishedModel> models() {
@@ -78,31 +82,24 @@ public class GatewayRoutingEngine {
     public GatewayRoute route(String requestedModel, GatewayEndpointType endpoint) {
         var snapshot = snapshot();
         if (snapshot.providers.isEmpty()) throw new BadRequestException("no enabled gateway providers configured");
-        var registeredModels = registeredModels(snapshot, null);
-        var endpointModels = registeredModels.stream()
-                .filter(route -> supportsEndpoint(route.model, endpoint))
-                .toList();
 
         if (hasText(requestedModel)) {
-            var modelRoute = endpointModels.stream()
-                    .filter(route -> requestedModel.equals(route.model.modelId))
-                    .findFirst();
-            if (modelRoute.isPresent()) {
-                var route = modelRoute.get();
+            var routes = snapshot.routes.get(new RouteKey(requestedModel, endpoint));
+            if (routes != null) {
+                var route = select(routes);
                 return new GatewayRoute(route.provider, route.model.upstreamModel);
             }
-            var modelExists = !registeredModels.isEmpty()
-                    && registeredModels.stream().anyMatch(route -> requestedModel.equals(route.model.modelId));
-            if (modelExists) throw new BadRequestException("gateway model does not support endpoint: " + requestedModel);
-            if (!registeredModels.isEmpty()) throw new BadRequestException("no enabled gateway model matches model: " + requestedModel);
+            if (snapshot.routableModelIds.contains(requestedModel)) throw new BadRequestException("gateway model does not support endpoint: " + requestedModel);
+            if (!snapshot.registered.isEmpty()) throw new BadRequestException("no enabled gateway model matches model: " + requestedModel);
             return legacyRoute(requestedModel, endpoint, snapshot.providers);
         }
 
+        var endpointModels = registeredModels(snapshot, endpoint);
         if (!endpointModels.isEmpty()) {
-            var route = endpointModels.get(0);
+            var route = select(snapshot.routes.get(new RouteKey(endpointModels.getFirst().model.modelId, endpoint)));
             return new GatewayRoute(route.provider, route.model.upstreamModel);
         }
-        if (!registeredModels.isEmpty()) throw new BadRequestException("no enabled gateway model configured for endpoint: " + endpoint.id);
+        if (!snapshot.registered.isEmpty()) throw new BadRequestException("no enabled gateway model configured for endpoint: " + endpoint.id);
         return legacyRoute(null, endpoint, snapshot.providers);
     }
 
@@ -145,14 +142,14 @@ public class GatewayRoutingEngine {
      */
     public boolean knowsModel(String modelId) {
         if (!hasText(modelId)) return false;
-        return snapshot().models.stream().anyMatch(model -> modelId.equals(model.modelId));
+        return snapshot().modelsById.containsKey(modelId);
     }
 
     /**
      * Whether this modelId currently resolves to an enabled model on an enabled provider.
      */
     public GatewayModelConfig modelConfig(String modelId) {
-        return snapshot().models.stream().filter(model -> modelId.equals(model.modelId)).findFirst().orElse(null);
+        return snapshot().modelsById.get(modelId);
     }
 
     /**
@@ -172,30 +169,78 @@ public class GatewayRoutingEngine {
 
     public boolean isRoutable(String modelId) {
         if (!hasText(modelId)) return false;
-        return registeredModels(snapshot(), null).stream().anyMatch(route -> modelId.equals(route.model.modelId));
+        return snapshot().routableModelIds.contains(modelId);
     }
 
     private Snapshot snapshot() {
         var current = cache;
         if (current != null && System.nanoTime() - current.createdAt < CACHE_TTL_NANOS) return current;
-        var refreshed = new Snapshot(enabledProviders(), allModels(), System.nanoTime());
+        var refreshed = snapshot(enabledProviders(), allModels(), System.nanoTime());
         cache = refreshed;
         return refreshed;
     }
 
-    private List<RegisteredGatewayModel> registeredModels(Snapshot snapshot, GatewayEndpointType endpoint) {
-        var providersById = providersById(snapshot.providers);
-        return snapshot.models.stream()
-                .filter(model -> !Boolean.FALSE.equals(model.enabled) && hasText(model.modelId) && hasText(model.upstreamModel)
-                        && (endpoint == null || supportsEndpoint(model, endpoint)))
+    // routes, endpoint lists and model lookups are indexed once per refresh instead of per proxied request
+    private Snapshot snapshot(List<GatewayProviderConfig> providers, List<GatewayModelConfig> models, long createdAt) {
+        var providersById = providersById(providers);
+        var registered = models.stream()
+                .filter(model -> !Boolean.FALSE.equals(model.enabled) && hasText(model.modelId) && hasText(model.upstreamModel))
                 .map(model -> new RegisteredGatewayModel(model, providersById.get(model.providerId)))
                 .filter(route -> route.provider != null)
                 .sorted(Comparator
-                        .comparingLong((RegisteredGatewayModel route) -> route.model.priority == null ? 100L : route.model.priority)
+                        .comparingLong(GatewayRoutingEngine::priority)
                         .thenComparing(route -> route.model.modelId)
                         .thenComparing(route -> route.provider.name == null ? "" : route.provider.name)
                         .thenComparing(route -> route.model.id == null ? "" : route.model.id))
                 .toList();
+        var endpointRoutes = new EnumMap<GatewayEndpointType, List<RegisteredGatewayModel>>(GatewayEndpointType.class);
+        var routes = new HashMap<RouteKey, List<RegisteredGatewayModel>>();
+        var routableModelIds = new HashSet<String>();
+        for (var route : registered) {
+            routableModelIds.add(route.model.modelId);
+            for (var endpoint : GatewayEndpointType.values()) {
+                if (!supportsEndpoint(route.model, endpoint)) continue;
+                endpointRoutes.computeIfAbsent(endpoint, key -> new ArrayList<>()).add(route);
+                routes.computeIfAbsent(new RouteKey(route.model.modelId, endpoint), key -> new ArrayList<>()).add(route);
+            }
+        }
+        var modelsById = new HashMap<String, GatewayModelConfig>();
+        for (var model : models) {
+            if (model.modelId != null) modelsById.putIfAbsent(model.modelId, model);
+        }
+        return new Snapshot(providers, registered, endpointRoutes, routes, routableModelIds, modelsById, createdAt);
+    }
+
+    private List<RegisteredGatewayModel> registeredModels(Snapshot snapshot, GatewayEndpointType endpoint) {
+        if (endpoint == null) return snapshot.registered;
+        return snapshot.endpointRoutes.getOrDefault(endpoint, List.of());
+    }
+
+    // duplicate modelIds fail over across priority tiers and are balanced within the best available tier
+    private RegisteredGatewayModel select(List<RegisteredGatewayModel> routes) {
+        var first = routes.getFirst();
+        if (routes.size() == 1) return first;
+        RegisteredGatewayModel selected = null;
+        double selectedCost = 0;
+        long tier = priority(first);
+        for (var route : routes) {
+            if (priority(route) != tier) {
+                if (selected != null) break;
+                tier = priority(route);
+            }
+            var key = GatewayRouteStats.key(route.provider, route.model.upstreamModel);
+            if (!routeStats.available(key)) continue;
+            double cost = routeStats.cost(key);
+            if (selected == null || cost < selectedCost) {
+                selected = route;
+                selectedCost = cost;
+            }
+        }
+        return selected != null ? selected : first;
+    }
+
+    private static long priority(RegisteredGatewayModel route) {
+        return route.model.priority == null ? 100L : route.model.priority;
     }
 
     private Map<String, GatewayProviderConfig> providersById(List<GatewayProviderConfig> providers) {
@@ -319,6 +364,12 @@ public class GatewayRoutingEngine {
     private record RegisteredGatewayModel(GatewayModelConfig model, GatewayProviderConfig provider) {
     }
 
-    private record Snapshot(List<GatewayProviderConfig> providers, List<GatewayModelConfig> models, long createdAt) {
+    private record RouteKey(String modelId, GatewayEndpointType endpoint) {
+    }
+
+    private record Snapshot(List<GatewayProviderConfig> providers, List<RegisteredGatewayModel> registered,
+                            Map<GatewayEndpointType, List<RegisteredGatewayModel>> endpointRoutes,
+                            Map<RouteKey, List<RegisteredGatewayModel>> routes, Set<String> routableModelIds,
+                            Map<String, GatewayModelConfig> modelsById, long createdAt) {
     }
 }
@@ -32,6 +32,8 @@ public class AgentMemoryService {
     @Inject
     MongoCollection<AgentMemoryExtractionCursor> cursorCollection;
 
+    final MemorySearchIndex searchIndex = new MemorySearchIndex(this::findSearchable, MemorySearchIndex.DEFAULT_MAX_AGENTS);
+
     public List<AgentMemory> findByAgentId(String agentId) {
         var query = new Query();
         query.filter = Filters.eq("agent_id", agentId);
@@ -106,6 +108,7 @@ public class AgentMemoryService {
             }
             memory.agentId = agentId;
             memoryCollection.insert(memory);
+            searchIndex.add(agentId, memory);
             if (memory.layer == MemoryLayer.METHODS) {
                 hasLayer2 = true;
             }
@@ -128,29 +131,39 @@ public class AgentMemoryService {
             int toRemove = all.size() - LAYER2_MAX_SIZE;
             for (int i = 0; i < toRemove; i++) {
                 memoryCollection.delete(all.get(i).id);
+                searchIndex.remove(agentId, all.get(i).id);
             }
         }
     }
 
     /**
-     * Searches memories by keyword matching on content.
+     * Searches memories by BM25 relevance on content through the {@link MemorySearchIndex}.
      * Only searches Layer 2 (methods) and/or Layer 3 (trajectories) — never Layer 1.
-     * Returns up to {@code limit} results sorted by recency.
+     * Returns up to {@code limit} results, equal scores sorted by recency.
      */
     public List<AgentMemory> searchMemories(String agentId, String query, String layer, int limit) {
+        var terms = MemorySearchIndex.tokenize(query);
+        if (terms.isEmpty()) return scanMemories(agentId, query, layer, limit);
+        return searchIndex.search(agentId, terms, searchLayer(layer), limit);
+    }
+
+    // null means "all": both Layer 2 and Layer 3
+    private MemoryLayer searchLayer(String layer) {
+        if ("methods".equals(layer)) return MemoryLayer.METHODS;
+        if ("trajectories".equals(layer)) return MemoryLayer.TRAJECTORIES;
+        return null;
+    }
+
+    // substring scan for queries without any word, e.g. only punctuation or symbols
+    private List<AgentMemory> scanMemories(String agentId, String query, String layer, int limit) {
         var filters = new ArrayList<Bson>();
         filters.add(Filters.eq("agent_id", agentId));
 
-        if ("methods".equals(layer)) {
-            filters.add(Filters.eq("layer", MemoryLayer.METHODS.mongoValue()));
-        } else if ("trajectories".equals(layer)) {
-            filters.add(Filters.eq("layer", MemoryLayer.TRAJECTORIES.mongoValue()));
+        var searchLayer = searchLayer(layer);
+        if (searchLayer != null) {
+            filters.add(Filters.eq("layer", searchLayer.mongoValue()));
         } else {
-            // "all": search both Layer 2 and Layer 3
-            filters.add(Filters.or(
-                    Filters.eq("layer", MemoryLayer.METHODS.mongoValue()),
-                    Filters.eq("layer", MemoryLayer.TRAJECTORIES.mongoValue())
-            ));
+            filters.add(searchableLayers());
         }
 
         // keyword filter on content
@@ -164,6 +177,20 @@ public class AgentMemoryService {
         return memoryCollection.find(mongoQuery);
     }
 
+    private List<AgentMemory> findSearchable(String agentId) {
+        var query = new Query();
+        query.filter = Filters.and(Filters.eq("agent_id", agentId), searchableLayers());
+        query.sort = Sorts.descending("created_at");
+        return memoryCollection.find(query);
+    }
+
+    private Bson searchableLayers() {
+        return Filters.or(
+                Filters.eq("layer", MemoryLayer.METHODS.mongoValue()),
+                Filters.eq("layer", MemoryLayer.TRAJECTORIES.mongoValue())
+        );
+    }
+
     /**
      * Removes all Layer 3 trajectories older than retentionDays.
      */
@@ -177,6 +204,7 @@ public class AgentMemoryService {
         var count = memoryCollection.count(filter);
         if (count > 0) {
             memoryCollection.delete(filter);
+            searchIndex.invalidate(agentId);
         }
         return (int) count;
     }
@@ -191,14 +219,19 @@ public class AgentMemoryService {
             }
             memoryCollection.insert(memory);
         }
+        searchIndex.invalidate(agentId);
     }
 
     public boolean deleteMemory(String id) {
-        return memoryCollection.delete(id);
+        boolean deleted = memoryCollection.delete(id);
+        searchIndex.remove(id);
+        return deleted;
     }
 
     public long deleteAllByAgentId(String agentId) {
-        return memoryCollection.delete(Filters.eq("agent_id", agentId));
+        long deleted = memoryCollection.delete(Filters.eq("agent_id", agentId));
+        searchIndex.invalidate(agentId);
+        return deleted;
     }
 
     public AgentMemoryExtractionCursor getCursor(String agentId) {
@@ -0,0 +1,207 @@
+package ai.core.server.memory;
+
+import ai.core.server.memory.experiment.MemoryLayer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-process BM25 index over the searchable memories (Layer 2 methods, Layer 3 trajectories) of each agent.
+ * An agent's index is built from mongo on its first search, then kept current by the writes of this instance and
+ * rebuilt after {@link #REBUILD_AFTER} to pick up writes of other instances. Only the most recently searched agents
+ * stay indexed.
+ *
+ * @author stephen
+ */
+public final class MemorySearchIndex {
+    static final Duration REBUILD_AFTER = Duration.ofMinutes(5);
+    static final int DEFAULT_MAX_AGENTS = 500;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // latin words as lowercase tokens, CJK runs as character bigrams since they are written without spaces
+    static List<String> tokenize(String text) {
+        var tokens = new ArrayList<String>();
+        if (text == null) return tokens;
+        var lower = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lower.length()) {
+            int codePoint = lower.codePointAt(i);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+                continue;
+            }
+            boolean cjk = isCJK(codePoint);
+            int start = i;
+            while (i < lower.length()) {
+                int next = lower.codePointAt(i);
+                if (!Character.isLetterOrDigit(next) || isCJK(next) != cjk) break;
+                i += Character.charCount(next);
+            }
+            var word = lower.substring(start, i);
+            if (cjk) {
+                addBigrams(tokens, word);
+            } else {
+                tokens.add(word);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isCJK(int codePoint) {
+        var script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void addBigrams(List<String> tokens, String run) {
+        int[] codePoints = run.codePoints().toArray();
+        if (codePoints.length == 1) {
+            tokens.add(run);
+            return;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            tokens.add(new String(codePoints, i, 2));
+        }
+    }
+
+    private final Function<String, List<AgentMemory>> loader;
+    private final int maxAgents;
+    private final Map<String, AgentIndex> agents;
+
+    public MemorySearchIndex(Function<String, List<AgentMemory>> loader, int maxAgents) {
+        this.loader = loader;
+        this.maxAgents = maxAgents;
+        this.agents = new LinkedHashMap<>(64, 0.75f, true);
+    }
+
+    public List<AgentMemory> search(String agentId, List<String> terms, MemoryLayer layer, int limit) {
+        return index(agentId).search(terms, layer, limit);
+    }
+
+    // writes to agents that are not indexed are skipped, their index is built from mongo when searched
+    public void add(String agentId, AgentMemory memory) {
+        if (!searchable(memory)) return;
+        var index = indexed(agentId);
+        if (index != null) index.add(memory);
+    }
+
+    public void remove(String agentId, String memoryId) {
+        var index = indexed(agentId);
+        if (index != null) index.remove(memoryId);
+    }
+
+    public void remove(String memoryId) {
+        List<AgentIndex> indexes;
+        synchronized (agents) {
+            indexes = List.copyOf(agents.values());
+        }
+        for (var index : indexes) index.remove(memoryId);
+    }
+
+    public void invalidate(String agentId) {
+        synchronized (agents) {
+            agents.remove(agentId);
+        }
+    }
+
+    int indexedAgents() {
+        synchronized (agents) {
+            return agents.size();
+        }
+    }
+
+    private boolean searchable(AgentMemory memory) {
+        return memory.layer == MemoryLayer.METHODS || memory.layer == MemoryLayer.TRAJECTORIES;
+    }
+
+    private AgentIndex indexed(String agentId) {
+        synchronized (agents) {
+            return agents.get(agentId);
+        }
+    }
+
+    private AgentIndex index(String agentId) {
+        var index = indexed(agentId);
+        if (index != null && System.nanoTime() - index.builtAt < REBUILD_AFTER.toNanos()) return index;
+        // built outside the lock, concurrent first searches of one agent may both load, the last one wins
+        var rebuilt = new AgentIndex();
+        for (var memory : loader.apply(agentId)) {
+            if (searchable(memory)) rebuilt.add(memory);
+        }
+        synchronized (agents) {
+            agents.put(agentId, rebuilt);
+            var iterator = agents.values().iterator();
+            while (agents.size() > maxAgents && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        return rebuilt;
+    }
+
+    private static final class AgentIndex {
+        final long builtAt = System.nanoTime();
+        final Map<String, Entry> entries = new HashMap<>();
+        final Map<String, Map<String, Integer>> postings = new HashMap<>();
+        long totalLength;
+
+        synchronized void add(AgentMemory memory) {
+            remove(memory.id);
+            var tokens = tokenize(memory.content);
+            var frequencies = new HashMap<String, Integer>();
+            for (var token : tokens) frequencies.merge(token, 1, Integer::sum);
+            entries.put(memory.id, new Entry(memory, frequencies, tokens.size()));
+            for (var frequency : frequencies.entrySet()) {
+                postings.computeIfAbsent(frequency.getKey(), key -> new HashMap<>()).put(memory.id, frequency.getValue());
+            }
+            totalLength += tokens.size();
+        }
+
+        synchronized void remove(String memoryId) {
+            var entry = entries.remove(memoryId);
+            if (entry == null) return;
+            for (var term : entry.frequencies.keySet()) {
+                var posting = postings.get(term);
+                posting.remove(memoryId);
+                if (posting.isEmpty()) postings.remove(term);
+            }
+            totalLength -= entry.length;
+        }
+
+        synchronized List<AgentMemory> search(List<String> terms, MemoryLayer layer, int limit) {
+            if (entries.isEmpty() || limit <= 0) return List.of();
+            double averageLength = Math.max(1d, (double) totalLength / entries.size());
+            Map<String, Double> scores = new HashMap<>();
+            for (var term : terms.stream().distinct().toList()) {
+                var posting = postings.get(term);
+                if (posting == null) continue;
+                double idf = Math.log(1 + (entries.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (var document : posting.entrySet()) {
+                    var entry = entries.get(document.getKey());
+                    if (layer != null && entry.memory.layer != layer) continue;
+                    int frequency = document.getValue();
+                    double score = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * entry.length / averageLength));
+                    scores.merge(document.getKey(), score, Double::sum);
+                }
+            }
+            // equal scores keep the previous recency order
+            return scores.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<String, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                            .thenComparing(score -> entries.get(score.getKey()).memory.createdAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                    .limit(limit)
+                    .map(score -> entries.get(score.getKey()).memory)
+                    .toList();
+        }
+    }
+
+    private record Entry(AgentMemory memory, Map<String, Integer> frequencies, int length) {
+    }
+}
@@ -1,31 +1,337 @@
 package ai.core.server.messaging;
 
 import ai.core.api.server.session.sse.SseBaseEvent;
+import ai.core.api.server.session.sse.SseReasoningChunkEvent;
+import ai.core.api.server.session.sse.SseTextChunkEvent;
 import core.framework.json.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Protocol;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Publishes session events to "coreai:sse:{sessionId}". Streaming text/reasoning chunks are coalesced per session:
+ * consecutive chunks of the same kind are merged for up to {@code window} or {@code maxPendingBytes}, and any other
+ * event flushes the session immediately behind its pending chunks, so per-session order is kept. A single flusher
+ * thread pipelines due sessions over a connection it keeps borrowed; events redis did not acknowledge are put back
+ * ahead of newer ones and retried, up to {@code MAX_SEND_ATTEMPTS} flushes.
+ *
  * @author stephen
  */
 public class EventPublisher {
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(20);
+    public static final int DEFAULT_MAX_PENDING_BYTES = 8192;
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventPublisher.class);
     private static final String CHANNEL_PREFIX = "coreai:sse:";
+    private static final int MAX_SEND_ATTEMPTS = 10;
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(1);
+
+    static String message(SseBaseEvent event) {
+        return event.getClass().getSimpleName() + "\n" + JSON.toJSON(event);
+    }
+
+    private static boolean mergeable(SseBaseEvent event) {
+        return event instanceof SseTextChunkEvent text && !Boolean.TRUE.equals(text.isFinalChunk)
+                || event instanceof SseReasoningChunkEvent reasoning && !Boolean.TRUE.equals(reasoning.isFinalChunk);
+    }
+
+    private static String concat(String left, String right) {
+        if (left == null) return right;
+        return right == null ? left : left + right;
+    }
+
+    private static int size(SseBaseEvent event) {
+        if (event instanceof SseTextChunkEvent text) return utf8Length(text.content);
+        if (event instanceof SseReasoningChunkEvent reasoning) return utf8Length(reasoning.content);
+        return 0;
+    }
+
+    static int utf8Length(String value) {
+        if (value == null) return 0;
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
 
     private final JedisPool jedisPool;
+    private final long windowNanos;
+    private final int maxPendingBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition due = lock.newCondition();
+    private final Map<String, SessionBuffer> pending = new LinkedHashMap<>();
+    private volatile boolean running;
+    private Thread flusherThread;
+    private Jedis connection;
 
     public EventPublisher(JedisPool jedisPool) {
+        this(jedisPool, DEFAULT_WINDOW, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    public EventPublisher(JedisPool jedisPool, Duration window, int maxPendingBytes) {
         this.jedisPool = jedisPool;
+        this.windowNanos = window.toNanos();
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    public void start() {
+        running = true;
+        flusherThread = Thread.ofVirtual()
+                .name("event-publisher")
+                .start(this::flushLoop);
+        LOGGER.info("EventPublisher started, window={}ms, maxPendingBytes={}", TimeUnit.NANOSECONDS.toMillis(windowNanos), maxPendingBytes);
+    }
+
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            due.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusherThread != null) {
+            try {
+                flusherThread.join(Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        var undelivered = send(drain(true));   // whatever arrived after the flusher exited
+        if (!undelivered.isEmpty()) LOGGER.error("failed to publish session events on stop, sessions={}", undelivered.size());
+        closeConnection();
     }
 
     public void publish(String sessionId, SseBaseEvent event) {
         SseEventHelper.initEvent(event, sessionId);
+        lock.lock();
+        try {
+            var buffer = pending.get(sessionId);
+            if (buffer == null) {
+                buffer = new SessionBuffer(sessionId, System.nanoTime());
+                pending.put(sessionId, buffer);
+            }
+            buffer.add(event);
+            if (!mergeable(event) || buffer.bytes >= maxPendingBytes) {
+                buffer.urgent = true;
+            }
+            if (buffer.urgent || buffer.events.size() == 1) {
+                due.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!running) {
+            // not started (or stopped): keep the old synchronous behavior, undelivered events go out with the next publish
+            var undelivered = send(drain(true));
+            if (!undelivered.isEmpty()) {
+                requeue(undelivered);
+                throw new IllegalStateException("failed to publish session events, sessionId=" + sessionId);
+            }
+        }
+    }
 
-        var className = event.getClass().getSimpleName();
-        var json = JSON.toJSON(event);
-        var message = className + "\n" + json;
+    private void flushLoop() {
+        while (running) {
+            try {
+                var undelivered = send(awaitDue());
+                if (!undelivered.isEmpty()) {
+                    requeue(undelivered);
+                    Thread.sleep(RETRY_BACKOFF);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.warn("failed to flush session events", e);
+            }
+        }
+    }
+
+    private List<SessionBuffer> awaitDue() throws InterruptedException {
+        lock.lock();
+        try {
+            while (running) {
+                long waitNanos = nextDueNanos();
+                if (waitNanos <= 0) return drain(false);
+                if (waitNanos == Long.MAX_VALUE) {
+                    due.await();
+                } else {
+                    due.awaitNanos(waitNanos);
+                }
+            }
+            return List.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // nanos until the earliest pending session is due; 0 if one is due now, Long.MAX_VALUE if nothing is pending
+    private long nextDueNanos() {
+        long now = System.nanoTime();
+        long next = Long.MAX_VALUE;
+        for (var buffer : pending.values()) {
+            if (buffer.urgent) return 0;
+            next = Math.min(next, Math.max(0, buffer.firstAt + windowNanos - now));
+        }
+        return next;
+    }
+
+    private List<SessionBuffer> drain(boolean all) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            var drained = new ArrayList<SessionBuffer>();
+            Iterator<SessionBuffer> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                var buffer = iterator.next();
+                if (all || buffer.urgent || now - buffer.firstAt >= windowNanos) {
+                    drained.add(buffer);
+                    iterator.remove();
+                }
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // synchronized: the flusher and a not-started publish() share the borrowed connection; returns the buffers left
+    // with events redis did not acknowledge
+    private synchronized List<SessionBuffer> send(List<SessionBuffer> buffers) {
+        if (buffers.isEmpty()) return buffers;
+        try {
+            pipeline(buffers);
+            return List.of();
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to publish session events, retrying unacknowledged events with a new connection", e);
+            closeConnection();
+        }
+        var unacknowledged = unacknowledged(buffers);
+        try {
+            pipeline(unacknowledged);
+            return List.of();
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to publish session events, sessions={}", unacknowledged.size(), e);
+            closeConnection();
+            return unacknowledged(unacknowledged);
+        }
+    }
+
+    // replies are read one by one instead of Pipeline.sync(), which sets no response when the connection breaks
+    // midway, so every acknowledged event leaves its buffer and only the rest is retried
+    private void pipeline(List<SessionBuffer> buffers) {
+        if (connection == null) connection = jedisPool.getResource();
+        var client = connection.getConnection();
+        for (var buffer : buffers) {
+            var channel = CHANNEL_PREFIX + buffer.sessionId;
+            for (var event : buffer.events) {
+                client.sendCommand(Protocol.Command.PUBLISH, channel, message(event));
+            }
+        }
+        for (var buffer : buffers) {
+            while (!buffer.events.isEmpty()) {
+                client.getOne();
+                buffer.events.removeFirst();
+            }
+        }
+    }
+
+    private List<SessionBuffer> unacknowledged(List<SessionBuffer> buffers) {
+        return buffers.stream().filter(buffer -> !buffer.events.isEmpty()).toList();
+    }
+
+    // puts undelivered buffers back ahead of events published meanwhile, so per-session order is kept
+    private void requeue(List<SessionBuffer> buffers) {
+        lock.lock();
+        try {
+            var requeued = new LinkedHashMap<String, SessionBuffer>();
+            for (var buffer : buffers) {
+                buffer.attempts++;
+                if (buffer.attempts >= MAX_SEND_ATTEMPTS) {
+                    LOGGER.error("drop session events after {} failed attempts, sessionId={}, events={}", buffer.attempts, buffer.sessionId, buffer.events.size());
+                    continue;
+                }
+                var newer = pending.remove(buffer.sessionId);
+                if (newer != null) {
+                    for (var event : newer.events) buffer.add(event);
+                }
+                buffer.urgent = true;
+                requeued.put(buffer.sessionId, buffer);
+            }
+            requeued.putAll(pending);
+            pending.clear();
+            pending.putAll(requeued);
+            if (!requeued.isEmpty()) due.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private synchronized void closeConnection() {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (RuntimeException e) {
+            LOGGER.debug("failed to close event publisher connection", e);
+        }
+        connection = null;
+    }
+
+    private static final class SessionBuffer {
+        final String sessionId;
+        final long firstAt;
+        final List<SseBaseEvent> events = new ArrayList<>();
+        int bytes;
+        int attempts;
+        boolean urgent;
+
+        SessionBuffer(String sessionId, long firstAt) {
+            this.sessionId = sessionId;
+            this.firstAt = firstAt;
+        }
+
+        void add(SseBaseEvent event) {
+            bytes += size(event);
+            if (!events.isEmpty() && merge(events.getLast(), event)) return;
+            events.add(event);
+        }
 
-        try (var jedis = jedisPool.getResource()) {
-            var channel = CHANNEL_PREFIX + sessionId;
-            jedis.publish(channel, message);
+        private boolean merge(SseBaseEvent last, SseBaseEvent incoming) {
+            if (!mergeable(last) || !mergeable(incoming)) return false;
+            if (last instanceof SseTextChunkEvent lastText && incoming instanceof SseTextChunkEvent incomingText) {
+                lastText.content = concat(lastText.content, incomingText.content);
+                lastText.timestamp = incomingText.timestamp;
+                return true;
+            }
+            if (last instanceof SseReasoningChunkEvent lastReasoning && incoming instanceof SseReasoningChunkEvent incomingReasoning) {
+                lastReasoning.content = concat(lastReasoning.content, incomingReasoning.content);
+                lastReasoning.timestamp = incomingReasoning.timestamp;
+                return true;
+            }
+            return false;
         }
     }
 }
@@ -2,6 +2,7 @@ package ai.core.server.messaging;
 
 import ai.core.api.server.session.sse.SseBaseEvent;
 import ai.core.server.web.sse.SessionChannelService;
+import ai.core.server.web.sse.SessionSubscriptionListener;
 import core.framework.json.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,13 +11,19 @@ import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPubSub;
 
 import java.util.Map;
+import java.util.UUID;
 
 /**
+ * Delivers session events published by other pods to local SSE channels. Subscribes per session, only while
+ * {@link SessionChannelService} holds state for it, so a pod never receives or parses events of sessions it
+ * does not serve. A pod-private control channel keeps the subscription open while no session is local.
+ *
  * @author stephen
  */
-public class EventSubscriber {
+public class EventSubscriber implements SessionSubscriptionListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(EventSubscriber.class);
-    private static final String CHANNEL_PATTERN = "coreai:sse:*";
+    private static final String CHANNEL_PREFIX = "coreai:sse:";
+    private static final String CONTROL_CHANNEL_PREFIX = "coreai:sse-subscriber:";
     private static final Map<String, Class<? extends SseBaseEvent>> EVENT_CLASSES = Map.ofEntries(
             Map.entry("SseTextChunkEvent", ai.core.api.server.session.sse.SseTextChunkEvent.class),
             Map.entry("SseReasoningChunkEvent", ai.core.api.server.session.sse.SseReasoningChunkEvent.class),
@@ -35,6 +42,10 @@ public class EventSubscriber {
 
     private final JedisPool jedisPool;
     private final SessionChannelService sessionChannelService;
+    private final String controlChannel = CONTROL_CHANNEL_PREFIX + UUID.randomUUID();
+    // JedisPubSub writes SUBSCRIBE/UNSUBSCRIBE to the shared connection without locking
+    private final Object subscriptionLock = new Object();
+    private volatile JedisPubSub pubSub;
     private volatile boolean running = true;
     private Thread subscriberThread;
 
@@ -47,11 +58,30 @@ public class EventSubscriber {
         subscriberThread = Thread.ofVirtual()
                 .name("event-subscriber")
                 .start(this::subscribeLoop);
-        LOGGER.info("EventSubscriber started, subscribing to {}", CHANNEL_PATTERN);
+        LOGGER.info("EventSubscriber started, controlChannel={}", controlChannel);
+    }
+
+    @Override
+    public void opened(String sessionId) {
+        // while reconnecting pubSub is null; the resync on the next subscribe picks the session up
+        var current = pubSub;
+        if (current != null) sync(current, sessionId);
+    }
+
+    @Override
+    public void closed(String sessionId) {
+        var current = pubSub;
+        if (current != null) sync(current, sessionId);
     }
 
     public void stop() {
         running = false;
+        var current = pubSub;
+        if (current != null) {
+            synchronized (subscriptionLock) {
+                current.unsubscribe();
+            }
+        }
         if (subscriberThread != null) {
             subscriberThread.interrupt();
         }
@@ -60,23 +90,56 @@ public class EventSubscriber {
     private void subscribeLoop() {
         while (running) {
             try (Jedis jedis = jedisPool.getResource()) {
-                var pubSub = new JedisPubSub() {
+                var subscription = new JedisPubSub() {
+                    @Override
+                    public void onSubscribe(String channel, int subscribedChannels) {
+                        if (controlChannel.equals(channel)) resubscribe(this);
+                    }
+
                     @Override
-                    public void onPMessage(String pattern, String channel, String message) {
-                        handleEvent(channel, message);
+                    public void onMessage(String channel, String message) {
+                        handleEvent(this, channel, message);
                     }
                 };
                 // Subscribe blocks until unsubscribe or connection loss
-                jedis.psubscribe(pubSub, CHANNEL_PATTERN);
+                jedis.subscribe(subscription, controlChannel);
             } catch (Exception e) {
                 if (running) {
                     LOGGER.warn("EventSubscriber connection lost, reconnecting in 3s...", e);
                     sleepBeforeReconnect();
                 }
+            } finally {
+                pubSub = null;
             }
         }
     }
 
+    // A close and a reconnect of the same session can notify out of order, so the command sent follows whether the
+    // session is local now, not which notification arrived. The state changes before its notification takes the lock,
+    // so the last command sent for a channel always matches the final state. Re-subscribing is a no-op in Redis.
+    void sync(JedisPubSub subscription, String sessionId) {
+        synchronized (subscriptionLock) {
+            if (sessionChannelService.hasSession(sessionId)) {
+                subscription.subscribe(CHANNEL_PREFIX + sessionId);
+            } else {
+                subscription.unsubscribe(CHANNEL_PREFIX + sessionId);
+            }
+        }
+    }
+
+    // Publish the live subscription before snapshotting local sessions: a session opened concurrently either sees
+    // pubSub and syncs itself, or is already in the snapshot; one closed concurrently is unsubscribed by its own sync.
+    private void resubscribe(JedisPubSub subscription) {
+        pubSub = subscription;
+        String[] channels;
+        synchronized (subscriptionLock) {
+            channels = sessionChannelService.sessionIds().stream().map(sessionId -> CHANNEL_PREFIX + sessionId).toArray(String[]::new);
+            if (channels.length == 0) return;
+            subscription.subscribe(channels);
+        }
+        LOGGER.info("EventSubscriber subscribed to {} local sessions", channels.length);
+    }
+
     private void sleepBeforeReconnect() {
         try {
             Thread.sleep(3000);
@@ -85,11 +148,17 @@ public class EventSubscriber {
         }
     }
 
-    private void handleEvent(String channel, String message) {
+    private void handleEvent(JedisPubSub subscription, String channel, String message) {
         try {
             // Extract sessionId from channel name: "coreai:sse:{sessionId}"
-            var sessionId = channel.substring("coreai:sse:".length());
+            if (!channel.startsWith(CHANNEL_PREFIX)) return;
+            var sessionId = channel.substring(CHANNEL_PREFIX.length());
             if (sessionId.isEmpty()) return;
+            if (!sessionChannelService.hasSession(sessionId)) {
+                // a resync raced a close; drop the stale subscription without parsing the event, unless it reconnected since
+                sync(subscription, sessionId);
+                return;
+            }
 
             // Message format: "SseTextChunkEvent\n{...json...}"
             var newlineIdx = message.indexOf('\n');
@@ -13,6 +13,7 @@ import ai.core.tool.ToolCallResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -92,6 +93,12 @@ public class LazySandbox implements Sandbox {
         delegate.materializeSkill(name, version, tarBytes);
     }
 
+    @Override
+    public void materializeSkill(String name, String version, Path archive) {
+        ensureReady();
+        delegate.materializeSkill(name, version, archive);
+    }
+
     @Override
     public SandboxFile downloadFile(String path) {
         ensureReady();
@@ -105,6 +112,13 @@ public class LazySandbox implements Sandbox {
         delegate.uploadFile(path, content);
     }
 
+    @Override
+    public void uploadFile(String path, Path source) {
+        ensureReady();
+        snapshotDirty = true;
+        delegate.uploadFile(path, source);
+    }
+
     @Override
     public String hostname() {
         var current = delegate;
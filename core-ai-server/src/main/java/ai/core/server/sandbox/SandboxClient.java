@@ -16,11 +16,10 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +34,9 @@ public class SandboxClient {
     private final String ip;
     private final int port;
     private final HTTPClient httpClient;
+    private final HttpClient streamClient;
+    private final SandboxFileTransfer fileTransfer;
+    private final SandboxExecutionStream executionStream;
 
     public SandboxClient(String ip, int port, int timeoutSeconds) {
         this.ip = ip;
@@ -45,6 +47,13 @@ public class SandboxClient {
                 .connectTimeout(Duration.ofSeconds(3))
                 .timeout(Duration.ofMillis(timeoutMs))
                 .build();
+        // the JDK client streams request and response bodies, core-ng HTTPClient buffers them
+        this.streamClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(3))
+                .build();
+        this.fileTransfer = new SandboxFileTransfer(baseUrl, Duration.ofMillis(timeoutMs), streamClient);
+        this.executionStream = new SandboxExecutionStream(baseUrl, Duration.ofMillis(timeoutMs), streamClient);
     }
 
     public void waitForReady(int maxWaitMs) {
@@ -112,6 +121,11 @@ public class SandboxClient {
             request.arguments = arguments;
             var requestJson = JSON.toJSON(request);
 
+            // command tools stream their output and push the result, the others answer in one response;
+            // async calls go to /execute, which answers with a pending task for the async task manager
+            var streamed = SandboxExecutionStream.async(arguments) ? null : executionStream.execute(toolName, requestJson, context);
+            if (streamed != null) return toResult(streamed, System.currentTimeMillis() - startTime);
+
             var url = baseUrl + "/execute";
             var req = new HTTPRequest(HTTPMethod.POST, url);
             req.body(requestJson, ContentType.APPLICATION_JSON);
@@ -147,6 +161,11 @@ public class SandboxClient {
         LOGGER.info("materialized skill to sandbox: name={}, version={}, size={}bytes", name, version, archiveBytes.length);
     }
 
+    public void materializeSkill(String name, String version, Path archive) {
+        fileTransfer.uploadArchive(baseUrl + "/skills/" + name, version, archive);
+        LOGGER.info("materialized skill to sandbox: name={}, version={}, archive={}", name, version, archive);
+    }
+
     public ToolCallResult pollTask(String taskId) {
         var startTime = System.currentTimeMillis();
         try {
@@ -161,31 +180,9 @@ public class SandboxClient {
         }
     }
 
+    // streamed into a temp file, resumed with a Range request when interrupted
     public SandboxFile downloadFile(String path) {
-        try {
-            var url = baseUrl + "/files/content?path=" + URLEncoder.encode(path, StandardCharsets.UTF_8);
-            var req = new HTTPRequest(HTTPMethod.GET, url);
-            var response = httpClient.execute(req);
-            if (response.statusCode != 200) {
-                throw new RuntimeException("sandbox file download failed: status=" + response.statusCode
-                        + ", body=" + response.text());
-            }
-
-            var tempFile = Files.createTempFile("sandbox-artifact-", ".bin");
-            Files.write(tempFile, response.body);
-            var fileName = header(response, "X-File-Name");
-            if (fileName == null || fileName.isBlank()) {
-                var f = java.nio.file.Path.of(path).getFileName();
-                fileName = f != null ? f.toString() : "unknown";
-            }
-            var contentType = response.contentType != null ? response.contentType.toString() : header(response, "Content-Type");
-            if (contentType == null || contentType.isBlank()) {
-                contentType = "application/octet-stream";
-            }
-            return new SandboxFile(tempFile, fileName, contentType, response.body.length);
-        } catch (IOException e) {
-            throw new UncheckedIOException("failed to write sandbox file to temp file", e);
-        }
+        return fileTransfer.download(path);
     }
 
     public void uploadFile(String path, byte[] content) {
@@ -200,6 +197,10 @@ public class SandboxClient {
         LOGGER.info("uploaded file to sandbox: path={}, size={}bytes", path, content.length);
     }
 
+    public void uploadFile(String path, Path source) {
+        fileTransfer.upload(path, source);
+    }
+
     private String header(HTTPResponse response, String name) {
         return response.headers.get(name);
     }
@@ -207,31 +208,35 @@ public class SandboxClient {
     @SuppressFBWarnings("REC_CATCH_EXCEPTION")
     private ToolCallResult parseResponse(String responseBody, long durationMs) {
         try {
-            var response = JSON.fromJSON(ExecuteResponse.class, responseBody);
-            return switch (response.status) {
-                case "completed" -> ToolCallResult.completed(response.result)
-                        .withDuration(durationMs)
-                        .withStats("sandboxStatus", "completed");
-                case "failed" -> ToolCallResult.failed(response.result)
-                        .withDuration(durationMs)
-                        .withStats("sandboxStatus", "failed");
-                case "timeout" -> ToolCallResult.failed("Sandbox execution timeout: " + response.result)
-                        .withDuration(durationMs)
-                        .withStats("sandboxStatus", "timeout");
-                case "pending" -> ToolCallResult.pending(response.taskId, "Async task submitted: " + response.taskId)
-                        .withDuration(durationMs)
-                        .withStats("sandboxStatus", "pending")
-                        .withStats("taskId", response.taskId);
-                default -> ToolCallResult.failed("Unknown sandbox response: " + response.status)
-                        .withDuration(durationMs);
-            };
+            return toResult(JSON.fromJSON(ExecuteResponse.class, responseBody), durationMs);
         } catch (Exception e) {
             return ToolCallResult.failed("Failed to parse sandbox response: " + e.getMessage())
                     .withDuration(durationMs);
         }
     }
 
+    private ToolCallResult toResult(ExecuteResponse response, long durationMs) {
+        return switch (response.status) {
+            case "completed" -> ToolCallResult.completed(response.result)
+                    .withDuration(durationMs)
+                    .withStats("sandboxStatus", "completed");
+            case "failed" -> ToolCallResult.failed(response.result)
+                    .withDuration(durationMs)
+                    .withStats("sandboxStatus", "failed");
+            case "timeout" -> ToolCallResult.failed("Sandbox execution timeout: " + response.result)
+                    .withDuration(durationMs)
+                    .withStats("sandboxStatus", "timeout");
+            case "pending" -> ToolCallResult.pending(response.taskId, "Async task submitted: " + response.taskId)
+                    .withDuration(durationMs)
+                    .withStats("sandboxStatus", "pending")
+                    .withStats("taskId", response.taskId);
+            case null, default -> ToolCallResult.failed("Unknown sandbox response: " + response.status)
+                    .withDuration(durationMs);
+        };
+    }
+
     public void close() {
+        streamClient.close();
         if (httpClient instanceof CustomHTTPClientImpl) {
             ((CustomHTTPClientImpl) httpClient).close();
         }
@@ -0,0 +1,207 @@
+package ai.core.server.sandbox;
+
+import ai.core.agent.ExecutionContext;
+import ai.core.tool.tools.PythonScriptTool;
+import ai.core.tool.tools.ShellCommandTool;
+import ai.core.utils.JsonUtil;
+import core.framework.api.json.Property;
+import core.framework.json.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Runs the command tools through the runtime's /execute/stream, which answers with NDJSON output events while the
+ * command runs and pushes the result when it ends. Output is forwarded to the streaming callback of the
+ * execution context as it arrives, so nothing is buffered here; the runtime coalesces it and bounds the result.
+ * The runtime sends a heartbeat every 15s while the command is silent, so a stream quiet for the idle timeout comes
+ * from a stalled runtime or network and is cut as a timeout.
+ * <p>
+ * The JDK client is used because the core-ng HTTPClient buffers the whole response body.
+ *
+ * @author stephen
+ */
+public final class SandboxExecutionStream {
+    // tool -> output source of the environment output chunk, same as the local tools
+    static final Map<String, String> SOURCES = Map.of(
+            ShellCommandTool.TOOL_NAME, "bash",
+            PythonScriptTool.TOOL_NAME, "python");
+    private static final Logger LOGGER = LoggerFactory.getLogger(SandboxExecutionStream.class);
+    private static final int MAX_ERROR_BODY = 1024;
+    // the runtime enforces the tool timeout and pushes a timeout result, the deadline only backs it up
+    private static final Duration DEADLINE_GRACE = Duration.ofSeconds(30);
+    private static final Duration IDLE_TIMEOUT = Duration.ofSeconds(45);
+
+    // same check as the runtime, "async": true must be a boolean
+    static boolean async(String arguments) {
+        if (arguments == null || arguments.isBlank()) return false;
+        try {
+            return Boolean.TRUE.equals(JsonUtil.toMap(arguments).get("async"));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private final String baseUrl;
+    private final Duration timeout;
+    private final Duration idleTimeout;
+    private final HttpClient httpClient;
+
+    SandboxExecutionStream(String baseUrl, Duration timeout, HttpClient httpClient) {
+        this(baseUrl, timeout, IDLE_TIMEOUT, httpClient);
+    }
+
+    SandboxExecutionStream(String baseUrl, Duration timeout, Duration idleTimeout, HttpClient httpClient) {
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.idleTimeout = idleTimeout;
+        this.httpClient = httpClient;
+    }
+
+    // returns null when the tool is not streamed or the runtime predates /execute/stream, the caller uses /execute
+    SandboxClient.ExecuteResponse execute(String toolName, String requestJson, ExecutionContext context) {
+        var source = SOURCES.get(toolName);
+        if (source == null) return null;
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + "/execute/stream"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(requestJson))
+                .build();
+        var output = new Output(source, context);
+        try {
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (var body = response.body()) {
+                if (response.statusCode() == 404) return null;
+                if (response.statusCode() != 200) {
+                    throw new RuntimeException("sandbox execute stream failed: status=" + response.statusCode() + ", body=" + errorBody(body));
+                }
+                return read(body, output, context);
+            }
+        } catch (IOException e) {
+            if (cancelled(context)) return failed("failed", "Sandbox execution cancelled");
+            throw new UncheckedIOException("sandbox execute stream failed: tool=" + toolName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed("failed", "Sandbox execution interrupted");
+        }
+    }
+
+    private SandboxClient.ExecuteResponse read(InputStream body, Output output, ExecutionContext context) throws IOException {
+        // closing the body on cancel aborts the read and the runtime kills the command when the connection drops
+        var token = context != null ? context.getCancellationToken() : null;
+        var unbind = token != null ? token.bindResource(body) : null;
+        try (var watch = new SandboxIdleWatch(body, idleTimeout)) {
+            try {
+                return readEvents(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), output, watch);
+            } catch (IOException e) {
+                if (watch.expired) return idleTimedOut();
+                throw e;
+            }
+        } finally {
+            if (unbind != null) unbind.run();
+        }
+    }
+
+    private SandboxClient.ExecuteResponse readEvents(BufferedReader reader, Output output, SandboxIdleWatch watch) throws IOException {
+        var deadline = System.nanoTime() + timeout.plus(DEADLINE_GRACE).toNanos();
+        String line = reader.readLine();
+        while (line != null) {
+            watch.progress();
+            if (!line.isBlank()) {
+                var event = JSON.fromJSON(StreamEvent.class, line);
+                if ("result".equals(event.type)) return result(event);
+                if ("output".equals(event.type)) output.accept(event.data);
+            }
+            // heartbeats arrive while the command is silent, so the deadline is checked even without output
+            if (System.nanoTime() - deadline > 0) {
+                return failed("timeout", "no result within " + timeout.toSeconds() + "s");
+            }
+            line = reader.readLine();
+        }
+        // the body closed by the watch may also read as a clean end of stream
+        if (watch.expired) return idleTimedOut();
+        throw new IOException("sandbox execute stream ended before the result");
+    }
+
+    private SandboxClient.ExecuteResponse idleTimedOut() {
+        return failed("timeout", "no data from sandbox for " + idleTimeout.toMillis() + "ms");
+    }
+
+    private boolean cancelled(ExecutionContext context) {
+        return context != null && context.isCancelled();
+    }
+
+    private SandboxClient.ExecuteResponse result(StreamEvent event) {
+        var response = new SandboxClient.ExecuteResponse();
+        response.status = event.status;
+        response.result = event.result;
+        response.durationMs = event.durationMs;
+        return response;
+    }
+
+    private SandboxClient.ExecuteResponse failed(String status, String result) {
+        var response = new SandboxClient.ExecuteResponse();
+        response.status = status;
+        response.result = result;
+        return response;
+    }
+
+    private String errorBody(InputStream body) throws IOException {
+        return new String(body.readNBytes(MAX_ERROR_BODY), StandardCharsets.UTF_8);
+    }
+
+    private static final class Output {
+        private final String source;
+        private final String callId;
+        private final ExecutionContext context;
+        private boolean warned;
+
+        Output(String source, ExecutionContext context) {
+            this.source = source;
+            this.context = context;
+            // captured up front, the callback may run after the context moved on to another tool call
+            this.callId = context != null ? context.getCurrentToolCallId() : null;
+        }
+
+        void accept(String chunk) {
+            if (chunk == null || chunk.isEmpty() || context == null) return;
+            var callback = context.getStreamingCallback();
+            if (callback == null) return;
+            try {
+                callback.onOutput(source, callId, chunk);
+            } catch (RuntimeException e) {
+                // a failing listener must not abort the command, the result still carries the output
+                if (!warned) LOGGER.warn("failed to forward sandbox output, source={}, callId={}", source, callId, e);
+                warned = true;
+            }
+        }
+    }
+
+    public static class StreamEvent {
+        @Property(name = "type")
+        public String type;
+        @Property(name = "stream")
+        public String stream;
+        @Property(name = "data")
+        public String data;
+        @Property(name = "status")
+        public String status;
+        @Property(name = "result")
+        public String result;
+        @Property(name = "duration_ms")
+        public Long durationMs;
+    }
+}
@@ -5,6 +5,10 @@ import ai.core.server.domain.SessionAttachmentRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -13,6 +17,7 @@ import java.util.HashSet;
 import java.time.ZonedDateTime;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Manages sandbox file upload queue: staging blobs and workflow artifacts into sandboxes.
@@ -98,9 +103,8 @@ class SandboxFileService {
         var targetPath = SandboxAttachmentPath.targetPath(file.fileName());
         try {
             var metadata = storageService.headObject(file.container(), file.blobName());
-            var data = storageService.downloadObject(file.container(), file.blobName());
-            verifyDownloadedSize(metadata.sizeBytes(), data.length);
-            sandbox.uploadFile(targetPath, data);
+            var size = uploadThroughTempFile(sandbox, targetPath, metadata.sizeBytes(),
+                    temp -> storageService.downloadObjectToFile(file.container(), file.blobName(), temp));
 
             var reference = new SessionAttachmentRef();
             reference.id = "sandbox_" + UUID.randomUUID();
@@ -110,14 +114,14 @@ class SandboxFileService {
             reference.container = file.container();
             reference.blobName = file.blobName();
             reference.sourceETag = metadata.etag();
-            reference.sourceSizeBytes = metadata.sizeBytes() != null ? metadata.sizeBytes() : (long) data.length;
+            reference.sourceSizeBytes = metadata.sizeBytes() != null ? metadata.sizeBytes() : size;
             reference.contentType = effectiveContentType(metadata.contentType(), file.contentType());
             reference.fileName = file.fileName();
             reference.targetPath = targetPath;
             reference.createdAt = ZonedDateTime.now();
             repository.insert(reference);
             LOGGER.info("sandbox attachment uploaded and persisted: session={}, reference={}, target={}, size={}",
-                    sessionId, reference.id, targetPath, data.length);
+                    sessionId, reference.id, targetPath, size);
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
@@ -179,9 +183,8 @@ class SandboxFileService {
             try {
                 var metadata = storage.headObject(reference.container, reference.blobName);
                 verifySourceVersion(reference, metadata.etag(), metadata.sizeBytes());
-                var data = storage.downloadObject(reference.container, reference.blobName);
-                verifyDownloadedSize(reference.sourceSizeBytes, data.length);
-                sandbox.uploadFile(reference.targetPath, data);
+                uploadThroughTempFile(sandbox, reference.targetPath, reference.sourceSizeBytes,
+                        temp -> storage.downloadObjectToFile(reference.container, reference.blobName, temp));
                 restored++;
             } catch (Exception e) {
                 failed++;
@@ -211,12 +214,38 @@ class SandboxFileService {
         }
     }
 
-    private void verifyDownloadedSize(Long expectedSize, int actualSize) {
+    private void verifyDownloadedSize(Long expectedSize, long actualSize) {
         if (expectedSize != null && expectedSize != actualSize) {
             throw new IllegalStateException("sandbox attachment download size changed");
         }
     }
 
+    // storage -> temp file -> sandbox, both legs stream so the object is never held on heap
+    private long uploadThroughTempFile(Sandbox sandbox, String targetPath, Long expectedSize, Consumer<Path> download) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("sandbox-upload-", ".bin");
+            download.accept(temp);
+            var size = Files.size(temp);
+            verifyDownloadedSize(expectedSize, size);
+            sandbox.uploadFile(targetPath, temp);
+            return size;
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to stage sandbox upload: " + targetPath, e);
+        } finally {
+            deleteTempFile(temp);
+        }
+    }
+
+    private void deleteTempFile(Path temp) {
+        if (temp == null) return;
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            LOGGER.warn("failed to delete temp file, path={}", temp, e);
+        }
+    }
+
     private void uploadPendingFiles(String sessionId) {
         var files = pendingFiles.get(sessionId);
         LOGGER.info("[UPLOAD] uploadPendingFiles called, sessionId={}, filesExist={}, fileCount={}",
@@ -252,9 +281,9 @@ class SandboxFileService {
             throw new IllegalStateException("fileService not configured, cannot stage input file " + file.fileName());
         }
         try {
-            var data = fileService.getBytes(fileService.get(file.fileId()));
-            sandbox.uploadFile(file.targetPath(), data);
-            LOGGER.info("staged file uploaded: session={}, target={}, size={}", sessionId, file.targetPath(), data.length);
+            var record = fileService.get(file.fileId());
+            var size = uploadThroughTempFile(sandbox, file.targetPath(), record.size, temp -> fileService.downloadToFile(record, temp));
+            LOGGER.info("staged file uploaded: session={}, target={}, size={}", sessionId, file.targetPath(), size);
         } catch (RuntimeException e) {
             throw new IllegalStateException("failed to stage input file " + file.fileName() + " into sandbox: " + e.getMessage(), e);
         }
@@ -270,9 +299,9 @@ class SandboxFileService {
         }
         try {
             LOGGER.info("[UPLOAD] downloading blob: container={}, blobName={}", file.container(), file.blobName());
-            var data = storageService.downloadObject(file.container(), file.blobName());
-            LOGGER.info("[UPLOAD] blob downloaded: size={} bytes, uploading to /tmp/{}", data.length, file.fileName());
-            sandbox.uploadFile("/tmp/" + file.fileName(), data);
+            var size = uploadThroughTempFile(sandbox, "/tmp/" + file.fileName(), null,
+                    temp -> storageService.downloadObjectToFile(file.container(), file.blobName(), temp));
+            LOGGER.info("[UPLOAD] blob uploaded: size={} bytes, target=/tmp/{}", size, file.fileName());
             LOGGER.info("pending file uploaded: session={}, file={}", sessionId, file.fileName());
             return true;
         } catch (Exception e) {
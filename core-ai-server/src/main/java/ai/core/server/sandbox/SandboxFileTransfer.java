@@ -0,0 +1,349 @@
+package ai.core.server.sandbox;
+
+import ai.core.sandbox.SandboxFile;
+import core.framework.api.json.Property;
+import core.framework.json.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Streams files between the server and the sandbox runtime with bounded buffers, so a transfer never holds the
+ * whole file on heap. The core-ng HTTPClient buffers bodies, so this uses the JDK client.
+ * <p>
+ * Uploads are sent chunked, deflate-encoded when the file is worth compressing and the runtime advertises
+ * deflate-upload on /health, and resumed with ?offset= from the size of the partial file the runtime kept. Downloads
+ * accept deflate, are aborted when no byte arrives for the idle timeout, and are resumed with a Range request when
+ * the response was not compressed.
+ *
+ * @author stephen
+ */
+public final class SandboxFileTransfer {
+    static final int MAX_ATTEMPTS = 3;
+    static final long COMPRESS_MIN_SIZE = 64 * 1024;
+    static final String DEFLATE_UPLOAD_FEATURE = "deflate-upload";
+    // HttpRequest.timeout only covers the wait for the response headers, a stalled body is cut by the idle timeout
+    static final Duration IDLE_TIMEOUT = Duration.ofSeconds(30);
+    private static final Logger LOGGER = LoggerFactory.getLogger(SandboxFileTransfer.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ERROR_BODY = 1024;
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "7z", "rar", "jar", "whl",
+            "png", "jpg", "jpeg", "gif", "webp", "mp3", "mp4", "mov", "webm", "avi", "pdf", "docx", "xlsx", "pptx", "parquet");
+
+    // already compressed formats only cost CPU to deflate again
+    static boolean compressible(String path, long size) {
+        if (size < COMPRESS_MIN_SIZE) return false;
+        var name = Path.of(path).getFileName();
+        if (name == null) return false;
+        var fileName = name.toString();
+        var dot = fileName.lastIndexOf('.');
+        return dot < 0 || !COMPRESSED_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private final String baseUrl;
+    private final Duration timeout;
+    private final Duration idleTimeout;
+    private final HttpClient httpClient;
+    // null until /health was read, an older runtime ignores Content-Encoding and would store the deflated bytes
+    private volatile Boolean deflateUpload;
+
+    SandboxFileTransfer(String baseUrl, Duration timeout) {
+        this(baseUrl, timeout, HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(3))
+                .build());
+    }
+
+    SandboxFileTransfer(String baseUrl, Duration timeout, HttpClient httpClient) {
+        this(baseUrl, timeout, IDLE_TIMEOUT, httpClient);
+    }
+
+    SandboxFileTransfer(String baseUrl, Duration timeout, Duration idleTimeout, HttpClient httpClient) {
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.idleTimeout = idleTimeout;
+        this.httpClient = httpClient;
+    }
+
+    SandboxFile download(String path) {
+        Path target = null;
+        try {
+            target = Files.createTempFile("sandbox-artifact-", ".bin");
+            var state = new DownloadState();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    downloadOnce(path, target, state);
+                    break;
+                } catch (IOException e) {
+                    if (attempt >= MAX_ATTEMPTS) throw e;
+                    // a compressed response has no byte offsets to resume from, restart it
+                    if (!state.resumable) state.received = 0;
+                    LOGGER.warn("sandbox file download interrupted, retrying: path={}, received={}, attempt={}", path, state.received, attempt, e);
+                }
+            }
+            var fileName = state.fileName;
+            if (fileName == null || fileName.isBlank()) {
+                var f = Path.of(path).getFileName();
+                fileName = f != null ? f.toString() : "unknown";
+            }
+            var contentType = state.contentType != null && !state.contentType.isBlank() ? state.contentType : "application/octet-stream";
+            return new SandboxFile(target, fileName, contentType, state.received);
+        } catch (IOException e) {
+            deleteQuietly(target);
+            throw new UncheckedIOException("failed to download sandbox file: " + path, e);
+        } catch (InterruptedException e) {
+            deleteQuietly(target);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sandbox file download interrupted: " + path, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(target);
+            throw e;
+        }
+    }
+
+    void upload(String path, Path source) {
+        try {
+            var size = Files.size(source);
+            var compress = compressible(path, size) && deflateUploadSupported();
+            long offset = 0;
+            for (int attempt = 1; ; attempt++) {
+                var sent = new AtomicLong(offset);
+                try {
+                    var conflictSize = uploadOnce(path, source, offset, compress, sent);
+                    if (conflictSize < 0) {
+                        LOGGER.info("uploaded file to sandbox: path={}, size={}bytes, compressed={}, resumedAt={}", path, size, compress, offset);
+                        return;
+                    }
+                    if (attempt >= MAX_ATTEMPTS) throw new IllegalStateException("sandbox file upload could not be resumed: path=" + path);
+                    offset = conflictSize;
+                } catch (IOException e) {
+                    if (attempt >= MAX_ATTEMPTS) throw e;
+                    // bytes read from the source are an upper bound of what the runtime kept, it answers 409 with the actual size
+                    offset = sent.get();
+                    LOGGER.warn("sandbox file upload interrupted, resuming: path={}, sent={}, attempt={}", path, offset, attempt, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to upload file to sandbox: " + path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sandbox file upload interrupted: " + path, e);
+        }
+    }
+
+    void uploadArchive(String url, String version, Path archive) {
+        try {
+            var builder = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/zip")
+                    .POST(HttpRequest.BodyPublishers.ofFile(archive));
+            if (version != null) builder.header("X-Skill-Version", version);
+            var response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+            try (var body = response.body()) {
+                if (response.statusCode() != 200 && response.statusCode() != 204) {
+                    throw new RuntimeException("materialize skill failed: status=" + response.statusCode() + ", body=" + errorBody(body));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("materialize skill request failed: url=" + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("materialize skill request interrupted: url=" + url, e);
+        }
+    }
+
+    void close() {
+        httpClient.close();
+    }
+
+    private boolean deflateUploadSupported() throws InterruptedException {
+        var supported = deflateUpload;
+        if (supported != null) return supported;
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + "/health")).timeout(timeout).GET().build();
+        try {
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) return false;
+            var health = JSON.fromJSON(HealthResponse.class, response.body());
+            supported = health.features != null && health.features.contains(DEFLATE_UPLOAD_FEATURE);
+            deflateUpload = supported;
+            return supported;
+        } catch (IOException | RuntimeException e) {
+            // not cached, the next upload asks again
+            LOGGER.warn("failed to read sandbox runtime features, uploading uncompressed: url={}", baseUrl, e);
+            return false;
+        }
+    }
+
+    private void downloadOnce(String path, Path target, DownloadState state) throws IOException, InterruptedException {
+        var builder = HttpRequest.newBuilder(uri("/files/content", path, 0)).timeout(timeout).GET();
+        if (state.received > 0) {
+            builder.header("Range", "bytes=" + state.received + "-");
+        } else {
+            builder.header("Accept-Encoding", "deflate");
+        }
+        var response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (var body = response.body()) {
+            var status = response.statusCode();
+            if (status == 416 && state.received > 0 && state.received == state.size) return;
+            if (status != 200 && status != 206) {
+                throw new RuntimeException("sandbox file download failed: status=" + status + ", body=" + errorBody(body));
+            }
+            var append = status == 206;
+            if (!append) state.received = 0;   // the runtime ignored the range and sent the whole file
+            state.accept(response);
+            var compressed = "deflate".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(null));
+            state.resumable = !compressed;
+            try (var watch = new SandboxIdleWatch(body, idleTimeout)) {
+                copy(compressed ? new InflaterInputStream(body) : body, target, append, state, watch);
+            }
+        }
+        if (state.size >= 0 && state.received != state.size) {
+            throw new IOException("incomplete sandbox file download, received=" + state.received + ", expected=" + state.size);
+        }
+    }
+
+    private void copy(InputStream input, Path target, boolean append, DownloadState state, SandboxIdleWatch watch) throws IOException {
+        try (input; var output = Files.newOutputStream(target, StandardOpenOption.WRITE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = new byte[BUFFER_SIZE];
+            int read = input.read(buffer);
+            while (read >= 0) {
+                watch.progress();
+                output.write(buffer, 0, read);
+                state.received += read;
+                read = input.read(buffer);
+            }
+        } catch (IOException e) {
+            if (watch.expired) throw new IOException("no data from sandbox for " + idleTimeout.toMillis() + "ms", e);
+            throw e;
+        }
+        // the closed body may also read as a clean end of stream
+        if (watch.expired) throw new IOException("no data from sandbox for " + idleTimeout.toMillis() + "ms");
+    }
+
+    // returns -1 when stored, otherwise the size of the partial file the runtime kept
+    private long uploadOnce(String path, Path source, long offset, boolean compress, AtomicLong sent) throws IOException, InterruptedException {
+        var builder = HttpRequest.newBuilder(uri("/files/upload", path, offset))
+                .timeout(timeout)
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> open(source, offset, compress, sent)));
+        if (compress) builder.header("Content-Encoding", "deflate");
+        var response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (var body = response.body()) {
+            if (response.statusCode() == 200) return -1;
+            if (response.statusCode() == 409) {
+                var conflict = JSON.fromJSON(UploadResponse.class, new String(body.readNBytes(MAX_ERROR_BODY), StandardCharsets.UTF_8));
+                return conflict.size != null ? conflict.size : 0;
+            }
+            throw new RuntimeException("sandbox file upload failed: status=" + response.statusCode() + ", body=" + errorBody(body));
+        }
+    }
+
+    private InputStream open(Path source, long offset, boolean compress, AtomicLong sent) {
+        try {
+            var input = Files.newInputStream(source);
+            input.skipNBytes(offset);
+            var counted = new CountingInputStream(input, sent);
+            return compress ? new DeflaterInputStream(counted) : counted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read upload source: " + source, e);
+        }
+    }
+
+    private URI uri(String endpoint, String path, long offset) {
+        var url = baseUrl + endpoint + "?path=" + URLEncoder.encode(path, StandardCharsets.UTF_8);
+        return URI.create(offset > 0 ? url + "&offset=" + offset : url);
+    }
+
+    private String errorBody(InputStream body) throws IOException {
+        return new String(body.readNBytes(MAX_ERROR_BODY), StandardCharsets.UTF_8);
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("failed to delete temp file, path={}", file, e);
+        }
+    }
+
+    private static final class DownloadState {
+        long received;
+        long size = -1;
+        boolean resumable;
+        String fileName;
+        String contentType;
+
+        void accept(HttpResponse<?> response) {
+            var headers = response.headers();
+            if (fileName == null) fileName = headers.firstValue("X-File-Name").orElse(null);
+            if (contentType == null) contentType = headers.firstValue("Content-Type").orElse(null);
+            var fileSize = headers.firstValue("X-File-Size").orElse(null);
+            if (fileSize != null) size = Long.parseLong(fileSize.trim());
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var value = super.read();
+            if (value >= 0) count.incrementAndGet();
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            var read = super.read(b, off, len);
+            if (read > 0) count.addAndGet(read);
+            return read;
+        }
+    }
+
+    public static class HealthResponse {
+        @Property(name = "status")
+        public String status;
+        @Property(name = "version")
+        public String version;
+        @Property(name = "features")
+        public List<String> features;
+    }
+
+    public static class UploadResponse {
+        @Property(name = "status")
+        public String status;
+        @Property(name = "path")
+        public String path;
+        @Property(name = "size")
+        public Long size;
+        @Property(name = "error")
+        public String error;
+    }
+}
@@ -0,0 +1,57 @@
+package ai.core.server.sandbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes a response body when nothing arrived for the idle timeout, which unblocks a read stuck on a stalled
+ * runtime. HttpRequest.timeout only covers the wait for the response headers.
+ *
+ * @author stephen
+ */
+final class SandboxIdleWatch implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SandboxIdleWatch.class);
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        var thread = new Thread(r, "sandbox-idle-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long idleNanos;
+    private final ScheduledFuture<?> check;
+    private volatile long lastProgress = System.nanoTime();
+    volatile boolean expired;
+
+    SandboxIdleWatch(Closeable body, Duration idleTimeout) {
+        this.idleNanos = idleTimeout.toNanos();
+        var period = Math.max(idleTimeout.toMillis() / 4, 10);
+        this.check = WATCHDOG.scheduleAtFixedRate(() -> check(body), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    void progress() {
+        lastProgress = System.nanoTime();
+    }
+
+    private void check(Closeable body) {
+        if (expired || System.nanoTime() - lastProgress < idleNanos) return;
+        expired = true;
+        try {
+            body.close();
+        } catch (IOException e) {
+            LOGGER.debug("failed to close stalled sandbox response", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        check.cancel(false);
+    }
+}
@@ -24,17 +24,24 @@ public class SandboxManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(SandboxManager.class);
 
     private final SandboxProvider provider;
+    private final SandboxWarmPool warmPool;
     private final Map<String, SandboxEntry> activeSandboxes = new ConcurrentHashMap<>();
     private final AtomicInteger acquireCount = new AtomicInteger(0);
     private final AtomicInteger releaseCount = new AtomicInteger(0);
     private final AtomicInteger untrackedReleaseCount = new AtomicInteger(0);
 
     public SandboxManager(SandboxProvider provider) {
+        this(provider, null);
+    }
+
+    public SandboxManager(SandboxProvider provider, SandboxWarmPool warmPool) {
         this.provider = provider;
+        this.warmPool = warmPool;
     }
 
     public Sandbox acquire(SandboxConfig config, String sessionId, String userId) {
-        var sandbox = provider.acquire(config, sessionId, userId);
+        // a leased warm sandbox is tracked from here on like one provisioned for the session
+        var sandbox = warmPool != null ? warmPool.acquire(config, sessionId, userId) : provider.acquire(config, sessionId, userId);
         var entry = new SandboxEntry(sandbox, sessionId, userId, config, Instant.now());
 
         activeSandboxes.put(sandbox.getId(), entry);
@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 
 import redis.clients.jedis.JedisPool;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -53,6 +54,7 @@ public class SandboxService {
     }
 
     private final SandboxManager sandboxManager;
+    private final SandboxWarmPool warmPool;
     private final SandboxConfig defaultConfig;
     private final ScheduledExecutorService cleanupScheduler;
     private final String serverUrlFromSandbox;
@@ -86,6 +88,7 @@ public class SandboxService {
                           ObjectStorageServiceResolver storageResolver, FileService fileService,
                           SessionAttachmentRefRepository attachmentRepository) {
         this.sandboxManager = null;
+        this.warmPool = null;
         this.defaultConfig = new SandboxConfig();
         this.defaultConfig.enabled = Boolean.FALSE;
         this.cleanupScheduler = null;
@@ -107,7 +110,12 @@ public class SandboxService {
     }
 
     public SandboxService(SandboxProvider provider, SandboxConfig defaultConfig, String serverUrlFromSandbox, SandboxServiceDependencies dependencies) {
-        this(provider, defaultConfig, serverUrlFromSandbox, dependencies, new ScheduledThreadPoolExecutor(1, r -> {
+        this(provider, defaultConfig, serverUrlFromSandbox, dependencies, (SandboxWarmPoolConfig) null);
+    }
+
+    public SandboxService(SandboxProvider provider, SandboxConfig defaultConfig, String serverUrlFromSandbox, SandboxServiceDependencies dependencies,
+                          SandboxWarmPoolConfig warmPoolConfig) {
+        this(provider, defaultConfig, serverUrlFromSandbox, dependencies, warmPoolConfig, new ScheduledThreadPoolExecutor(1, r -> {
             var t = new Thread(r, "sandbox-cleanup");
             t.setDaemon(true);
             return t;
@@ -116,8 +124,14 @@ public class SandboxService {
 
     SandboxService(SandboxProvider provider, SandboxConfig defaultConfig, String serverUrlFromSandbox,
                    SandboxServiceDependencies dependencies, ScheduledExecutorService cleanupScheduler) {
-        this.sandboxManager = new SandboxManager(provider);
+        this(provider, defaultConfig, serverUrlFromSandbox, dependencies, null, cleanupScheduler);
+    }
+
+    SandboxService(SandboxProvider provider, SandboxConfig defaultConfig, String serverUrlFromSandbox,
+                   SandboxServiceDependencies dependencies, SandboxWarmPoolConfig warmPoolConfig, ScheduledExecutorService cleanupScheduler) {
         this.defaultConfig = defaultConfig != null ? defaultConfig : createDefaultConfig();
+        this.warmPool = warmPoolConfig != null && warmPoolConfig.enabled() ? new SandboxWarmPool(provider, warmPoolConfig, this.defaultConfig) : null;
+        this.sandboxManager = new SandboxManager(provider, warmPool);
         this.serverUrlFromSandbox = serverUrlFromSandbox;
         this.enabled = true;
         this.storageResolver = dependencies.storageResolver();
@@ -127,6 +141,7 @@ public class SandboxService {
         this.redisStore = new SandboxRedisStore(dependencies.jedisPool());
         this.cleanupScheduler = cleanupScheduler;
         cleanupScheduler.scheduleAtFixedRate(new SandboxCleanupJob(sandboxManager, provider), 5, 5, TimeUnit.MINUTES);
+        if (warmPool != null) cleanupScheduler.scheduleAtFixedRate(warmPool::maintain, 1, 10, TimeUnit.SECONDS);
     }
 
     public Sandbox createSandbox(SandboxConfig config, String sessionId, String userId) {
@@ -150,6 +165,7 @@ public class SandboxService {
         }
         return sessionSandboxes.computeIfAbsent(sessionId, sid -> {
             LOGGER.info("sandbox created (shared) for session: {}, config={}", sid, effectiveConfig);
+            if (warmPool != null) warmPool.onSessionCreated(effectiveConfig);
             return new LazySandbox(effectiveConfig, sandboxManager, null, new LazySandbox.SessionIdentity(sid, userId),
                     () -> onSandboxReady(sid, userId, new SandboxSnapshotService.RestoreResult(
                             SandboxSnapshotService.RestoreOutcome.NONE, null)));
@@ -170,6 +186,7 @@ public class SandboxService {
         var lazySandbox = new LazySandbox(effectiveConfig, sandboxManager, eventDispatcher, new LazySandbox.SessionIdentity(sessionId, userId),
                 outcome -> onSandboxReady(sessionId, userId, outcome), snapshot);
         sessionSandboxes.put(sessionId, lazySandbox);
+        if (warmPool != null) warmPool.onSessionCreated(effectiveConfig);
         LOGGER.info("sandbox created for session: {}, config={}", sessionId, effectiveConfig);
         return lazySandbox;
     }
@@ -393,12 +410,13 @@ public class SandboxService {
     public Map<String, Object> getStats() {
         if (!enabled) return Map.of("enabled", Boolean.FALSE);
         var stats = sandboxManager.getStats();
-        return Map.of(
-                "activeSandboxes", stats.get("activeCount"),
-                "totalAcquired", stats.get("totalAcquired"),
-                "totalReleased", stats.get("totalReleased"),
-                "sessionsWithSandbox", sessionSandboxes.size()
-        );
+        var result = new LinkedHashMap<String, Object>();
+        result.put("activeSandboxes", stats.get("activeCount"));
+        result.put("totalAcquired", stats.get("totalAcquired"));
+        result.put("totalReleased", stats.get("totalReleased"));
+        result.put("sessionsWithSandbox", sessionSandboxes.size());
+        if (warmPool != null) result.put("warmPool", warmPool.getStats());
+        return result;
     }
 
     public void shutdown() {
@@ -435,6 +453,7 @@ public class SandboxService {
             discoverySandbox = null;
         }
 
+        if (warmPool != null) warmPool.shutdown();
         cleanupScheduler.shutdown();
         try {
             if (!cleanupScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
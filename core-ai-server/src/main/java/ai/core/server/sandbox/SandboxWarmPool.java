@@ -0,0 +1,386 @@
+package ai.core.server.sandbox;
+
+import ai.core.sandbox.Sandbox;
+import ai.core.sandbox.SandboxConfig;
+import ai.core.sandbox.SandboxConstants;
+import ai.core.sandbox.SandboxProvider;
+import ai.core.sandbox.SandboxStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-provisioned sandboxes per distinct {@link SandboxConfig}, so the first intercepted tool call of a session leases
+ * a running sandbox instead of waiting for a container/pod to schedule and boot.
+ * <p>
+ * Each config seen at session creation gets a pool whose target idle size follows its recent session-creation rate:
+ * the sessions expected to start while one sandbox boots, between {@link SandboxWarmPoolConfig#minIdle} (default
+ * config only) and {@link SandboxWarmPoolConfig#maxIdle}. {@link #maintain} recycles members idle longer than
+ * {@link SandboxWarmPoolConfig#idleTtl}, trims pools above target and drops pools of configs no longer in demand.
+ * <p>
+ * A pod's activeDeadlineSeconds counts from creation and cannot be extended, so members are provisioned with the
+ * config timeout plus idleTtl and a leased member still has a full session ahead; the session deadline itself is
+ * enforced by {@link SandboxManager#cleanupExpired} from the lease. On lease the provider relabels the sandbox for
+ * the session where it can: Kubernetes patches the pod labels, Docker cannot change labels of a running container,
+ * so a leased container keeps session-id=warm-pool and the session is only known to the {@link SandboxManager}.
+ *
+ * @author stephen
+ */
+public class SandboxWarmPool {
+    static final String WARM_SESSION_ID = "warm-pool";
+    static final String WARM_USER_ID = "system";
+    private static final Logger LOGGER = LoggerFactory.getLogger(SandboxWarmPool.class);
+    private static final Duration INITIAL_PROVISION_TIME = Duration.ofSeconds(15);
+    private static final Duration FAILURE_BACKOFF = Duration.ofSeconds(30);
+    private static final long PROVIDER_VALIDATION_IDLE_NANOS = Duration.ofSeconds(30).toNanos();
+    private static final int PROVISION_THREADS = 2;
+
+    // configs that provision identical sandboxes share a pool, env is sorted so map order does not matter
+    static String key(SandboxConfig config) {
+        var env = config.env != null ? new TreeMap<>(config.env) : Map.of();
+        return String.join("|", config.image, String.valueOf(config.memoryLimitMb), String.valueOf(config.cpuLimitMillicores),
+                String.valueOf(config.timeoutSeconds), String.valueOf(config.networkEnabled), config.gitRepoUrl, config.gitBranch,
+                config.tmpSizeLimit, String.valueOf(config.maxAsyncTasks), env.toString());
+    }
+
+    private static int timeoutSeconds(SandboxConfig config) {
+        return config.timeoutSeconds != null ? config.timeoutSeconds : SandboxConstants.DEFAULT_TIMEOUT_SECONDS;
+    }
+
+    // same sandbox with a provider deadline that also covers the idle wait in the pool
+    static SandboxConfig warmConfig(SandboxConfig config, Duration idleTtl) {
+        var warm = new SandboxConfig();
+        warm.enabled = config.enabled;
+        warm.image = config.image;
+        warm.memoryLimitMb = config.memoryLimitMb;
+        warm.cpuLimitMillicores = config.cpuLimitMillicores;
+        warm.timeoutSeconds = Math.min(timeoutSeconds(config) + (int) idleTtl.toSeconds(), SandboxConstants.MAX_TIMEOUT_SECONDS);
+        warm.networkEnabled = config.networkEnabled;
+        warm.gitRepoUrl = config.gitRepoUrl;
+        warm.gitBranch = config.gitBranch;
+        warm.tmpSizeLimit = config.tmpSizeLimit;
+        warm.maxAsyncTasks = config.maxAsyncTasks;
+        warm.env = config.env;
+        return warm;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private final SandboxProvider provider;
+    private final SandboxWarmPoolConfig config;
+    private final ExecutorService provisioner;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong hitNanos = new AtomicLong();
+    private final AtomicLong missNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    public SandboxWarmPool(SandboxProvider provider, SandboxWarmPoolConfig config, SandboxConfig defaultConfig) {
+        this(provider, config, defaultConfig, Executors.newFixedThreadPool(PROVISION_THREADS, r -> {
+            var t = new Thread(r, "sandbox-warm-pool");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    SandboxWarmPool(SandboxProvider provider, SandboxWarmPoolConfig config, SandboxConfig defaultConfig, ExecutorService provisioner) {
+        this.provider = provider;
+        this.config = config;
+        this.provisioner = provisioner;
+        var key = key(defaultConfig);
+        pools.put(key, new Pool(key, defaultConfig, warmConfig(defaultConfig, config.idleTtl), true));
+    }
+
+    /** Counts towards the demand of the config and starts warming a sandbox before the session's first tool call. */
+    public void onSessionCreated(SandboxConfig sandboxConfig) {
+        var pool = pool(sandboxConfig);
+        if (pool == null) return;
+        pool.recordDemand(System.nanoTime());
+        refill(pool);
+    }
+
+    public Sandbox acquire(SandboxConfig sandboxConfig, String sessionId, String userId) {
+        var pool = pools.get(key(sandboxConfig));
+        if (pool == null) return provider.acquire(sandboxConfig, sessionId, userId);
+
+        var start = System.nanoTime();
+        var sandbox = lease(pool, start);
+        if (sandbox != null && assign(sandbox, pool.config, sessionId, userId)) {
+            var elapsed = System.nanoTime() - start;
+            hits.incrementAndGet();
+            hitNanos.addAndGet(elapsed);
+            LOGGER.info("sandbox leased from warm pool: id={}, sessionId={}, duration={}ms", sandbox.getId(), sessionId, millis(elapsed));
+            refill(pool);
+            return sandbox;
+        }
+
+        // a member that cannot be handed to the session is discarded, the session gets a cold sandbox instead
+        if (sandbox != null) discard(sandbox);
+        // start the replacement before the cold acquire, so the next session of this config hits
+        refill(pool);
+        sandbox = provider.acquire(sandboxConfig, sessionId, userId);
+        var elapsed = System.nanoTime() - start;
+        pool.recordProvision(elapsed);
+        misses.incrementAndGet();
+        missNanos.addAndGet(elapsed);
+        LOGGER.info("warm pool miss, sandbox provisioned: id={}, sessionId={}, duration={}ms", sandbox.getId(), sessionId, millis(elapsed));
+        return sandbox;
+    }
+
+    public void maintain() {
+        if (closed) return;
+        var now = System.nanoTime();
+        for (var pool : pools.values()) {
+            try {
+                for (var member : pool.retire(now, config.idleTtl.toNanos(), target(pool, now))) {
+                    release(member.sandbox());
+                }
+                if (!pool.keepWarm && pool.idleCount() == 0 && pool.provisioning.get() == 0
+                        && pool.recentDemand(now, config.demandWindow.toNanos()) == 0) {
+                    pools.remove(pool.key, pool);
+                    continue;
+                }
+                refill(pool);
+            } catch (RuntimeException e) {
+                LOGGER.warn("failed to maintain warm sandbox pool, image={}", pool.config.image, e);
+            }
+        }
+    }
+
+    public void shutdown() {
+        closed = true;
+        provisioner.shutdownNow();
+        try {
+            if (!provisioner.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOGGER.warn("warm sandbox provisioning did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (var pool : pools.values()) {
+            Member member;
+            while ((member = pool.poll()) != null) {
+                release(member.sandbox());
+            }
+        }
+        pools.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        var hitCount = hits.get();
+        var missCount = misses.get();
+        int idle = 0;
+        int provisioning = 0;
+        for (var pool : pools.values()) {
+            idle += pool.idleCount();
+            provisioning += pool.provisioning.get();
+        }
+        var stats = new LinkedHashMap<String, Object>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("avgHitAcquireMs", hitCount == 0 ? 0 : millis(hitNanos.get() / hitCount));
+        stats.put("avgMissAcquireMs", missCount == 0 ? 0 : millis(missNanos.get() / missCount));
+        stats.put("idle", idle);
+        stats.put("provisioning", provisioning);
+        stats.put("pools", pools.size());
+        return stats;
+    }
+
+    int idleCount(SandboxConfig sandboxConfig) {
+        var pool = pools.get(key(sandboxConfig));
+        return pool == null ? 0 : pool.idleCount();
+    }
+
+    private Pool pool(SandboxConfig sandboxConfig) {
+        var key = key(sandboxConfig);
+        var pool = pools.get(key);
+        if (pool != null || closed || pools.size() >= config.maxPools) return pool;
+        return pools.computeIfAbsent(key, k -> new Pool(k, sandboxConfig, warmConfig(sandboxConfig, config.idleTtl), false));
+    }
+
+    // sessions expected to start while one sandbox boots (arrival rate x provision time)
+    private int target(Pool pool, long now) {
+        var window = config.demandWindow.toNanos();
+        var recent = pool.recentDemand(now, window);
+        var expected = (int) Math.ceil((double) recent * pool.provisionNanos / window);
+        var floor = pool.keepWarm ? config.minIdle : 0;
+        return Math.min(config.maxIdle, Math.max(floor, expected));
+    }
+
+    private void refill(Pool pool) {
+        if (closed) return;
+        var now = System.nanoTime();
+        var failedAt = pool.failedAt;
+        if (failedAt != 0 && now - failedAt < FAILURE_BACKOFF.toNanos()) return;
+        var deficit = target(pool, now) - pool.idleCount() - pool.provisioning.get();
+        for (int i = 0; i < deficit; i++) {
+            if (pool.provisioning.incrementAndGet() + pool.idleCount() > config.maxIdle) {
+                pool.provisioning.decrementAndGet();
+                return;
+            }
+            try {
+                provisioner.execute(() -> provision(pool));
+            } catch (RejectedExecutionException e) {
+                pool.provisioning.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void provision(Pool pool) {
+        try {
+            var start = System.nanoTime();
+            var sandbox = provider.acquire(pool.warmConfig, WARM_SESSION_ID, WARM_USER_ID);
+            var elapsed = System.nanoTime() - start;
+            pool.recordProvision(elapsed);
+            pool.failedAt = 0;
+            if (closed || pools.get(pool.key) != pool) {
+                release(sandbox);
+                return;
+            }
+            pool.offer(new Member(sandbox, System.nanoTime()));
+            LOGGER.info("warm sandbox ready: id={}, image={}, duration={}ms, idle={}", sandbox.getId(), pool.config.image, millis(elapsed), pool.idleCount());
+        } catch (RuntimeException e) {
+            pool.failedAt = System.nanoTime();
+            LOGGER.warn("failed to provision warm sandbox, image={}", pool.config.image, e);
+        } finally {
+            pool.provisioning.decrementAndGet();
+        }
+    }
+
+    private Sandbox lease(Pool pool, long now) {
+        Member member;
+        while ((member = pool.poll()) != null) {
+            if (now - member.warmedAt() < config.idleTtl.toNanos() && usable(member, now)) {
+                return member.sandbox();
+            }
+            discard(member.sandbox());
+        }
+        return null;
+    }
+
+    private void discard(Sandbox sandbox) {
+        try {
+            provisioner.execute(() -> release(sandbox));
+        } catch (RejectedExecutionException e) {
+            release(sandbox);
+        }
+    }
+
+    // a member idle for a while may have been evicted, one status call still beats a cold start
+    private boolean usable(Member member, long now) {
+        var sandbox = member.sandbox();
+        if (sandbox.getStatus() != SandboxStatus.READY) return false;
+        if (now - member.warmedAt() < PROVIDER_VALIDATION_IDLE_NANOS) return true;
+        try {
+            var status = provider.getStatus(sandbox);
+            return status != SandboxStatus.TERMINATED && status != SandboxStatus.ERROR;
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to validate warm sandbox, discarding it: id={}", sandbox.getId(), e);
+            return false;
+        }
+    }
+
+    // providers with an extendable deadline restart it for the session, Docker and Kubernetes rely on the warm deadline
+    private boolean assign(Sandbox sandbox, SandboxConfig sandboxConfig, String sessionId, String userId) {
+        try {
+            provider.renew(sandbox, timeoutSeconds(sandboxConfig));
+            provider.assign(sandbox, sessionId, userId);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to assign leased warm sandbox, releasing it: id={}, sessionId={}", sandbox.getId(), sessionId, e);
+            return false;
+        }
+    }
+
+    private void release(Sandbox sandbox) {
+        try {
+            provider.release(sandbox);
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to release warm sandbox: id={}", sandbox.getId(), e);
+        }
+    }
+
+    private static final class Pool {
+        final String key;
+        final SandboxConfig config;
+        final SandboxConfig warmConfig;
+        final boolean keepWarm;
+        final AtomicInteger provisioning = new AtomicInteger();
+        private final Deque<Member> idle = new ArrayDeque<>();
+        private final Deque<Long> demand = new ArrayDeque<>();
+        volatile long provisionNanos = INITIAL_PROVISION_TIME.toNanos();
+        volatile long failedAt;
+
+        Pool(String key, SandboxConfig config, SandboxConfig warmConfig, boolean keepWarm) {
+            this.key = key;
+            this.config = config;
+            this.warmConfig = warmConfig;
+            this.keepWarm = keepWarm;
+        }
+
+        // moving average, a single slow boot should not double the pool
+        void recordProvision(long nanos) {
+            provisionNanos = (provisionNanos * 3 + nanos) / 4;
+        }
+
+        synchronized void recordDemand(long now) {
+            demand.addLast(now);
+        }
+
+        synchronized int recentDemand(long now, long window) {
+            while (!demand.isEmpty() && now - demand.peekFirst() > window) {
+                demand.removeFirst();
+            }
+            return demand.size();
+        }
+
+        // oldest first, so members are used before they reach the idle TTL
+        synchronized Member poll() {
+            return idle.pollFirst();
+        }
+
+        synchronized void offer(Member member) {
+            idle.addLast(member);
+        }
+
+        synchronized int idleCount() {
+            return idle.size();
+        }
+
+        synchronized List<Member> retire(long now, long idleTtl, int target) {
+            var retired = new ArrayList<Member>();
+            idle.removeIf(member -> {
+                if (now - member.warmedAt() < idleTtl) return false;
+                retired.add(member);
+                return true;
+            });
+            while (idle.size() > target) {
+                retired.add(idle.pollFirst());
+            }
+            return retired;
+        }
+    }
+
+    private record Member(Sandbox sandbox, long warmedAt) {
+    }
+}
@@ -0,0 +1,22 @@
+package ai.core.server.sandbox;
+
+import java.time.Duration;
+
+/**
+ * Warm pool settings, read from sys.sandbox.warmPool.maxIdle, sys.sandbox.warmPool.minIdle and
+ * sys.sandbox.warmPool.idleTTL (seconds). The pool is opt-in: idle sandboxes hold cluster resources, so nothing is
+ * pre-provisioned until maxIdle is set above 0.
+ *
+ * @author stephen
+ */
+public class SandboxWarmPoolConfig {
+    public int minIdle = 1;                             // kept warm for the default config even without demand, once enabled
+    public int maxIdle = 0;                             // per config, 0 (default) disables the pool
+    public int maxPools = 8;                            // distinct configs warmed at the same time
+    public Duration idleTtl = Duration.ofMinutes(10);   // idle members are recycled after this, members are provisioned with timeout + idleTtl
+    public Duration demandWindow = Duration.ofMinutes(5);
+
+    public boolean enabled() {
+        return maxIdle > 0;
+    }
+}
@@ -10,6 +10,7 @@ import ai.core.tool.ToolCallResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -67,6 +68,11 @@ public class DockerSandbox implements Sandbox {
         runtimeClient.materializeSkill(name, version, tarBytes);
     }
 
+    @Override
+    public void materializeSkill(String name, String version, Path archive) {
+        runtimeClient.materializeSkill(name, version, archive);
+    }
+
     @Override
     public SandboxFile downloadFile(String path) {
         return runtimeClient.downloadFile(path);
@@ -77,6 +83,11 @@ public class DockerSandbox implements Sandbox {
         runtimeClient.uploadFile(path, content);
     }
 
+    @Override
+    public void uploadFile(String path, Path source) {
+        runtimeClient.uploadFile(path, source);
+    }
+
     @Override
     public SandboxStatus getStatus() {
         return status;
@@ -25,6 +25,7 @@ public class KubernetesClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(KubernetesClient.class);
     private static final String IN_CLUSTER_NAMESPACE_PATH = "/var/run/secrets/kubernetes.io/serviceaccount/namespace";
     private static final String IN_CLUSTER_API_SERVER = "https://kubernetes.default.svc";
+    private static final ContentType MERGE_PATCH = ContentType.parse("application/merge-patch+json");
 
     public static KubernetesClient createInCluster(String namespaceOverride, int timeoutSeconds) {
         var namespace = namespaceOverride;
@@ -113,6 +114,14 @@ public class KubernetesClient {
         throw new RuntimeException("Sandbox pod readiness timeout: selector=" + selector);
     }
 
+    public void patchPodLabels(String podName, Map<String, String> labels) {
+        var url = apiServer + "/api/v1/namespaces/" + namespace + "/pods/" + podName;
+        var response = patch(url, JSON.toJSON(Map.of("metadata", Map.of("labels", labels))));
+        if (response.statusCode != 200) {
+            throw new RuntimeException("Failed to patch pod labels: " + response.statusCode + " " + response.text());
+        }
+    }
+
     public void deletePod(String podName) {
         var url = apiServer + "/api/v1/namespaces/" + namespace + "/pods/" + podName + "?gracePeriodSeconds=5";
         var response = delete(url);
@@ -222,6 +231,17 @@ public class KubernetesClient {
         }
     }
 
+    private HTTPResponse patch(String url, String body) {
+        try {
+            var req = new HTTPRequest(HTTPMethod.PATCH, url);
+            req.headers.put("Authorization", "Bearer " + resolveToken());
+            req.body(body, MERGE_PATCH);
+            return httpClient.execute(req);
+        } catch (Exception e) {
+            throw new RuntimeException("Kubernetes API request failed: " + url, e);
+        }
+    }
+
     private HTTPResponse delete(String url) {
         try {
             var req = new HTTPRequest(HTTPMethod.DELETE, url);
@@ -257,6 +277,8 @@ public class KubernetesClient {
     public static class PodInfo {
         @Property(name = "metadata")
         public PodMetadata metadata;
+        @Property(name = "spec")
+        public PodSpec spec;
         @Property(name = "status")
         public PodStatus status;
 
@@ -293,6 +315,11 @@ public class KubernetesClient {
             public String creationTimestamp;
         }
 
+        public static class PodSpec {
+            @Property(name = "activeDeadlineSeconds")
+            public Long activeDeadlineSeconds;
+        }
+
         public static class PodStatus {
             @Property(name = "phase")
             public String phase;
@@ -58,7 +58,7 @@ public class KubernetesPodSpecBuilder {
         return metadata;
     }
 
-    private String sanitizeLabel(String value) {
+    static String sanitizeLabel(String value) {
         // K8s label values: alphanumeric, '-', '_', '.', max 63 chars
         var sanitized = value.replaceAll("[^A-Za-z0-9_.\\-]", "_");
         if (sanitized.length() > 63) sanitized = sanitized.substring(0, 63);
@@ -10,6 +10,7 @@ import ai.core.tool.ToolCallResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -94,6 +95,11 @@ public class KubernetesSandbox implements Sandbox {
         runtimeClient.materializeSkill(name, version, tarBytes);
     }
 
+    @Override
+    public void materializeSkill(String name, String version, Path archive) {
+        runtimeClient.materializeSkill(name, version, archive);
+    }
+
     @Override
     public SandboxFile downloadFile(String path) {
         return runtimeClient.downloadFile(path);
@@ -104,6 +110,11 @@ public class KubernetesSandbox implements Sandbox {
         runtimeClient.uploadFile(path, content);
     }
 
+    @Override
+    public void uploadFile(String path, Path source) {
+        runtimeClient.uploadFile(path, source);
+    }
+
     @Override
     public SandboxStatus getStatus() {
         return status;
@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Map;
 import java.util.Optional;
 import ai.core.server.sandbox.kubernetes.KubernetesClient.PodInfo;
 
@@ -57,7 +58,9 @@ public class KubernetesSandboxProvider implements SandboxProvider {
         try {
             var created = ZonedDateTime.parse(pod.metadata.creationTimestamp).toInstant();
             var age = Duration.between(created, now);
-            if (age.getSeconds() <= maxLifetimeSeconds) return;
+            // warm pool pods get a longer deadline to cover their idle time before the lease
+            var deadline = pod.spec != null && pod.spec.activeDeadlineSeconds != null ? Math.max(maxLifetimeSeconds, pod.spec.activeDeadlineSeconds) : maxLifetimeSeconds;
+            if (age.getSeconds() <= deadline) return;
 
             LOGGER.info("deleting expired sandbox pod: name={}, age={}s", pod.getName(), age.getSeconds());
             deleteSandboxResources(pod.getName());
@@ -189,6 +192,14 @@ public class KubernetesSandboxProvider implements SandboxProvider {
         }
     }
 
+    @Override
+    public void assign(Sandbox sandbox, String sessionId, String userId) {
+        kubernetesClient.patchPodLabels(sandbox.getId(), Map.of(
+                "session-id", KubernetesPodSpecBuilder.sanitizeLabel(sessionId != null ? sessionId : "unknown"),
+                "user-id", KubernetesPodSpecBuilder.sanitizeLabel(userId != null ? userId : "unknown")));
+        LOGGER.debug("sandbox pod assigned: name={}, sessionId={}", sandbox.getId(), sessionId);
+    }
+
     @Override
     public SandboxStatus getStatus(Sandbox sandbox) {
         if (sandbox == null) return SandboxStatus.TERMINATED;
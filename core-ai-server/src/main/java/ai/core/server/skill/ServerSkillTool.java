@@ -13,6 +13,9 @@ import core.framework.json.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -83,13 +86,23 @@ public class ServerSkillTool extends ToolCall {
             LOGGER.warn("no sandbox attached; skill content returned without materialization: {}", def.qualifiedName);
             return null;
         }
+        var archive = archiveBuilder.buildToFile(def);
         try {
-            var archive = archiveBuilder.build(def);
             sandbox.materializeSkill(def.name, def.version, archive);
             return SANDBOX_SKILL_BASE + "/" + def.name;
         } catch (UnsupportedOperationException e) {
             LOGGER.warn("sandbox does not support materialization: {}", sandbox.getId());
             return null;
+        } finally {
+            deleteArchive(archive);
+        }
+    }
+
+    private void deleteArchive(Path archive) {
+        try {
+            Files.deleteIfExists(archive);
+        } catch (IOException e) {
+            LOGGER.warn("failed to delete skill archive, path={}", archive, e);
         }
     }
 
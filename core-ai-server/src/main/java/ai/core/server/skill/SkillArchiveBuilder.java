@@ -1,10 +1,16 @@
 package ai.core.server.skill;
 
 import ai.core.server.domain.SkillDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -15,13 +21,37 @@ import java.util.zip.ZipOutputStream;
  * @author xander
  */
 public class SkillArchiveBuilder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkillArchiveBuilder.class);
 
     public byte[] build(SkillDefinition def) {
+        var baos = new ByteArrayOutputStream();
+        write(def, baos);
+        return baos.toByteArray();
+    }
+
+    // written straight to a temp zip, the caller streams it to the sandbox and deletes it
+    public Path buildToFile(SkillDefinition def) {
+        Path archive = null;
+        try {
+            archive = Files.createTempFile("skill-", ".zip");
+            try (var output = Files.newOutputStream(archive)) {
+                write(def, output);
+            }
+            return archive;
+        } catch (IOException e) {
+            deleteQuietly(archive);
+            throw new UncheckedIOException("failed to write skill archive: " + def.qualifiedName, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(archive);
+            throw e;
+        }
+    }
+
+    private void write(SkillDefinition def, OutputStream output) {
         if (def.content == null) {
             throw new IllegalStateException("skill content is null: " + def.qualifiedName);
         }
-        try (var baos = new ByteArrayOutputStream();
-             var zip = new ZipOutputStream(baos)) {
+        try (var zip = new ZipOutputStream(output)) {
             writeEntry(zip, "SKILL.md", def.content.getBytes(StandardCharsets.UTF_8));
             if (def.resources != null) {
                 for (var r : def.resources) {
@@ -31,12 +61,20 @@ public class SkillArchiveBuilder {
                 }
             }
             zip.finish();
-            return baos.toByteArray();
         } catch (IOException e) {
             throw new RuntimeException("failed to build skill archive: " + def.qualifiedName, e);
         }
     }
 
+    private void deleteQuietly(Path archive) {
+        if (archive == null) return;
+        try {
+            Files.deleteIfExists(archive);
+        } catch (IOException e) {
+            LOGGER.warn("failed to delete skill archive, path={}", archive, e);
+        }
+    }
+
     private void writeEntry(ZipOutputStream zip, String path, byte[] data) throws IOException {
         var entry = new ZipEntry(path);
         entry.setSize(data.length);
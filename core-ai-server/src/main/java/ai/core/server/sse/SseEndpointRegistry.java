@@ -1,6 +1,8 @@
 package ai.core.server.sse;
 
+import ai.core.sse.SlowConsumerPolicy;
 import ai.core.sse.SseChannelInterceptor;
+import ai.core.sse.SseEventCoalescer;
 import core.framework.http.HTTPMethod;
 import core.framework.web.sse.ChannelListener;
 
@@ -11,4 +13,6 @@ public interface SseEndpointRegistry {
     <T> void register(HTTPMethod method, String path, Class<T> eventClass, ChannelListener<T> listener, boolean requireEventStreamAccept);
 
     void addInterceptor(SseChannelInterceptor interceptor);
+
+    <T> void slowConsumer(Class<T> eventClass, long maxQueuedBytes, SlowConsumerPolicy policy, SseEventCoalescer<T> coalescer);
 }
@@ -1,7 +1,9 @@
 package ai.core.server.sse;
 
 import ai.core.sse.PatchedServerSentEventConfig;
+import ai.core.sse.SlowConsumerPolicy;
 import ai.core.sse.SseChannelInterceptor;
+import ai.core.sse.SseEventCoalescer;
 import core.framework.http.HTTPMethod;
 import core.framework.web.sse.ChannelListener;
 
@@ -33,4 +35,9 @@ public class SseEndpointRegistryImpl implements SseEndpointRegistry {
     public void addInterceptor(SseChannelInterceptor interceptor) {
         config.intercept(interceptor);
     }
+
+    @Override
+    public <T> void slowConsumer(Class<T> eventClass, long maxQueuedBytes, SlowConsumerPolicy policy, SseEventCoalescer<T> coalescer) {
+        config.slowConsumer(eventClass, maxQueuedBytes, policy, coalescer);
+    }
 }
@@ -0,0 +1,52 @@
+package ai.core.server.trace.domain;
+
+import core.framework.mongo.Collection;
+import core.framework.mongo.Field;
+import core.framework.mongo.Id;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Where one archived trace lives inside an archive part: a self-contained gzip member at
+ * [offset, offset + length) holding the trace line and its spans. Traces split across parts have one segment per part.
+ *
+ * @author stephen
+ */
+@Collection(name = "archived_trace_segments")
+public class ArchivedTraceSegment {
+    @Id
+    public String id;
+
+    @Field(name = "trace_id")
+    public String traceId;
+
+    @Field(name = "archive")
+    public String archive;
+
+    @Field(name = "container")
+    public String container;
+
+    @Field(name = "blob_name")
+    public String blobName;
+
+    @Field(name = "offset")
+    public Long offset;
+
+    @Field(name = "length")
+    public Long length;
+
+    @Field(name = "span_count")
+    public Integer spanCount;
+
+    @Field(name = "user_id")
+    public String userId;
+
+    @Field(name = "model")
+    public String model;
+
+    @Field(name = "started_at")
+    public ZonedDateTime startedAt;
+
+    @Field(name = "archived_at")
+    public ZonedDateTime archivedAt;
+}
@@ -0,0 +1,73 @@
+package ai.core.server.trace.domain;
+
+import core.framework.mongo.Collection;
+import core.framework.mongo.Field;
+import core.framework.mongo.Id;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Token/cost usage rolled up per minute and per UTC day at ingest time, grouped by (user_id, agent_id, source, model).
+ * Read by cost alerts and realtime analytics instead of scanning traces; expired by the TTL index on expires_at.
+ *
+ * @author stephen
+ */
+@Collection(name = "usage_rollups")
+public class UsageRollup {
+    public static final String MINUTE = "minute";
+    public static final String DAY = "day";
+
+    @Id
+    public String id;           // "{granularity}::{bucket}::{userId}::{agentId}::{source}::{model}"
+
+    @Field(name = "granularity")
+    public String granularity;
+
+    @Field(name = "bucket")
+    public ZonedDateTime bucket;
+
+    @Field(name = "user_id")
+    public String userId;
+
+    @Field(name = "agent_id")
+    public String agentId;
+
+    @Field(name = "agent_name")
+    public String agentName;
+
+    @Field(name = "source")
+    public String source;
+
+    @Field(name = "model")
+    public String model;
+
+    @Field(name = "input_tokens")
+    public Long inputTokens;
+
+    @Field(name = "output_tokens")
+    public Long outputTokens;
+
+    @Field(name = "total_tokens")
+    public Long totalTokens;
+
+    @Field(name = "cached_tokens")
+    public Long cachedTokens;
+
+    @Field(name = "cost_usd")
+    public Double costUsd;
+
+    @Field(name = "call_count")
+    public Long callCount;      // traces started in the bucket
+
+    @Field(name = "max_total_tokens")
+    public Long maxTotalTokens; // largest single span (LLM call)
+
+    @Field(name = "max_cost_usd")
+    public Double maxCostUsd;
+
+    @Field(name = "updated_at")
+    public ZonedDateTime updatedAt;
+
+    @Field(name = "expires_at")
+    public ZonedDateTime expiresAt;
+}
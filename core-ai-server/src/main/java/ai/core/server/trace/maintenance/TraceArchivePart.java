@@ -0,0 +1,191 @@
+package ai.core.server.trace.maintenance;
+
+import ai.core.server.trace.domain.ArchivedTraceSegment;
+import ai.core.server.trace.domain.Span;
+import ai.core.server.trace.domain.Trace;
+import ai.core.utils.JsonUtil;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One archive part spooled to a local file. Every trace is written as its own gzip member (trace line, then its
+ * spans), so the part stays a plain concatenated .json.gz for bulk readers while a single trace can be fetched by
+ * a range read of its member. The per-trace offsets become the part index.
+ *
+ * @author stephen
+ */
+class TraceArchivePart implements AutoCloseable {
+    static final String TYPE_TRACE = "trace";
+    static final String TYPE_SPAN = "span";
+
+    static void writeLine(BufferedWriter writer, String type, Object obj) throws IOException {
+        var json = JsonUtil.toJson(obj);
+        writer.write("{\"_type\":\"");
+        writer.write(type);
+        writer.write("\",");
+        writer.write(json, 1, json.length() - 1);
+        writer.newLine();
+    }
+
+    final String blobName;
+    final String indexBlobName;
+    final Path file;
+    private final String archive;
+    private final String container;
+    private final CountingOutputStream out;
+    private final List<ArchivedTraceSegment> segments = new ArrayList<>();
+    private BufferedWriter member;
+    private ArchivedTraceSegment current;
+    private int spanCount;
+
+    TraceArchivePart(String archive, String container, int part) throws IOException {
+        this.archive = archive;
+        this.container = container;
+        this.blobName = String.format("%s/part-%04d.json.gz", archive, part);
+        this.indexBlobName = String.format("%s/part-%04d.index.json", archive, part);
+        this.file = Files.createTempFile("traces-archive-part-", ".json.gz");
+        this.out = new CountingOutputStream(Files.newOutputStream(file));
+    }
+
+    void beginTrace(Trace trace) throws IOException {
+        endTrace();
+        current = new ArchivedTraceSegment();
+        current.traceId = trace.traceId;
+        current.archive = archive;
+        current.container = container;
+        current.blobName = blobName;
+        current.offset = out.count;
+        current.spanCount = 0;
+        current.userId = trace.userId;
+        current.model = trace.model;
+        current.startedAt = trace.startedAt;
+        member = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new NonClosingOutputStream(out)), StandardCharsets.UTF_8));
+        writeLine(member, TYPE_TRACE, trace);
+    }
+
+    void span(Span span) throws IOException {
+        writeLine(member, TYPE_SPAN, span);
+        current.spanCount++;
+        spanCount++;
+    }
+
+    void endTrace() throws IOException {
+        if (member == null) return;
+        member.close();     // finishes the gzip member, the underlying file stays open
+        member = null;
+        current.length = out.count - current.offset;
+        current.id = blobName + "#" + current.offset;
+        segments.add(current);
+        current = null;
+    }
+
+    int spanCount() {
+        return spanCount;
+    }
+
+    int traceCount() {
+        return segments.size() + (current != null ? 1 : 0);
+    }
+
+    // compressed bytes so far; the open member is only counted up to its last deflate flush
+    long size() {
+        return out.count;
+    }
+
+    List<ArchivedTraceSegment> segments() {
+        return segments;
+    }
+
+    // header line with the part time range, then one line per trace member
+    Path writeIndex(ZonedDateTime archivedAt) throws IOException {
+        Path indexFile = Files.createTempFile("traces-archive-index-", ".json");
+        ZonedDateTime from = null;
+        ZonedDateTime to = null;
+        for (var segment : segments) {
+            segment.archivedAt = archivedAt;
+            if (segment.startedAt == null) continue;
+            if (from == null || segment.startedAt.isBefore(from)) from = segment.startedAt;
+            if (to == null || segment.startedAt.isAfter(to)) to = segment.startedAt;
+        }
+        try (var writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("blob_name", blobName);
+            header.put("traces", segments.size());
+            header.put("spans", spanCount);
+            header.put("started_from", from);
+            header.put("started_to", to);
+            writer.write(JsonUtil.toJson(header));
+            writer.newLine();
+            for (var segment : segments) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("trace_id", segment.traceId);
+                entry.put("started_at", segment.startedAt);
+                entry.put("user_id", segment.userId);
+                entry.put("model", segment.model);
+                entry.put("offset", segment.offset);
+                entry.put("length", segment.length);
+                writer.write(JsonUtil.toJson(entry));
+                writer.newLine();
+            }
+        }
+        return indexFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            endTrace();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ai.core.server.trace.maintenance;
+
+import ai.core.server.blob.ObjectStorageService;
+import ai.core.server.blob.ObjectStorageServiceResolver;
+import ai.core.server.trace.domain.ArchivedTraceSegment;
+import ai.core.server.trace.domain.Span;
+import ai.core.server.trace.domain.Trace;
+import ai.core.utils.JsonUtil;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import core.framework.inject.Inject;
+import core.framework.mongo.MongoCollection;
+import core.framework.mongo.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads archived traces back through the per-trace segment index: one indexed lookup by trace_id, then a range read
+ * of each segment's gzip member from object storage.
+ *
+ * @author stephen
+ */
+public class TraceArchiveReader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TraceArchiveReader.class);
+    private static final String TRACE_PREFIX = "{\"_type\":\"" + TraceArchivePart.TYPE_TRACE + "\"";
+    private static final String SPAN_PREFIX = "{\"_type\":\"" + TraceArchivePart.TYPE_SPAN + "\"";
+
+    static void decode(byte[] member, List<Trace> traces, List<Span> spans) {
+        try (var reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(member)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SPAN_PREFIX)) {
+                    if (spans != null) spans.add(JsonUtil.fromJson(Span.class, line));
+                } else if (line.startsWith(TRACE_PREFIX) && traces != null) {
+                    traces.add(JsonUtil.fromJson(Trace.class, line));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Inject
+    MongoCollection<ArchivedTraceSegment> segmentCollection;
+
+    private final ObjectStorageServiceResolver objectStorageResolver;
+
+    public TraceArchiveReader(ObjectStorageServiceResolver objectStorageResolver) {
+        this.objectStorageResolver = objectStorageResolver;
+    }
+
+    // traces are archived once older than the retention window, a newer trace can only be in Mongo
+    public boolean mayContain(ZonedDateTime startedAt) {
+        return startedAt == null || startedAt.isBefore(ZonedDateTime.now(ZoneId.of("UTC")).minusDays(TraceArchiveService.RETENTION_DAYS));
+    }
+
+    public Trace trace(String traceId) {
+        var segments = segments(traceId);
+        if (segments.isEmpty()) return null;
+        var traces = new ArrayList<Trace>(1);
+        read(segments.getFirst(), traces, null);    // every segment repeats the trace line
+        return traces.isEmpty() ? null : traces.getFirst();
+    }
+
+    public List<Span> spans(String traceId) {
+        var spans = new ArrayList<Span>();
+        for (var segment : segments(traceId)) {
+            read(segment, null, spans);
+        }
+        return spans;
+    }
+
+    private List<ArchivedTraceSegment> segments(String traceId) {
+        if (traceId == null) return List.of();
+        var query = new Query();
+        query.filter = Filters.eq("trace_id", traceId);
+        query.sort = Sorts.ascending("_id");
+        return segmentCollection.find(query);
+    }
+
+    private void read(ArchivedTraceSegment segment, List<Trace> traces, List<Span> spans) {
+        ObjectStorageService storage = objectStorageResolver.resolve();
+        if (storage == null) {
+            LOGGER.warn("archived trace not readable: object storage not configured, traceId={}", segment.traceId);
+            return;
+        }
+        var member = storage.downloadObjectRange(segment.container, segment.blobName, segment.offset, segment.length);
+        decode(member, traces, spans);
+    }
+}
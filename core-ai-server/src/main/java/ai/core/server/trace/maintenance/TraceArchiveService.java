@@ -2,41 +2,43 @@ package ai.core.server.trace.maintenance;
 
 import ai.core.server.blob.ObjectStorageService;
 import ai.core.server.blob.ObjectStorageServiceResolver;
+import ai.core.server.trace.domain.ArchivedTraceSegment;
 import ai.core.server.trace.domain.Span;
 import ai.core.server.trace.domain.Trace;
 import ai.core.server.trace.domain.TraceDailyStats;
-import ai.core.utils.JsonUtil;
-import com.mongodb.client.model.Accumulators;
-import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
 import core.framework.inject.Inject;
-import core.framework.mongo.Aggregate;
 import core.framework.mongo.MongoCollection;
 import core.framework.mongo.Query;
-import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPOutputStream;
+import java.util.Set;
 
 /**
  * Archives traces older than the retention window to object storage,
  * then deletes the archived traces and their spans from MongoDB.
+ * <p>
+ * Traces are paged with a (started_at, _id) keyset and their spans streamed into gzip parts, one gzip member per
+ * trace. Each part gets an index blob next to it and per-trace segments in {@code archived_trace_segments}, which
+ * {@link TraceArchiveReader} uses to range-read single traces back.
  *
  * @author stephen
  */
@@ -44,6 +46,7 @@ public class TraceArchiveService {
     private static final Logger LOGGER = LoggerFactory.getLogger(TraceArchiveService.class);
     private static final ZoneId UTC = ZoneId.of("UTC");
     private static final DateTimeFormatter YEAR_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final DateTimeFormatter RUN = DateTimeFormatter.ofPattern("'run-'yyyyMMdd'T'HHmmss");
     private static final int ARCHIVE_BATCH_SIZE = 300;
     // Azure single PUT Blob limit is 256MB. With typical ~50KB serialized span size,
     // 2000 spans produce ~100MB. Even with outliers (200KB/span) we stay under 256MB.
@@ -58,11 +61,13 @@ public class TraceArchiveService {
     MongoCollection<Trace> traceCollection;
     @Inject
     MongoCollection<Span> spanCollection;
+    @Inject
+    MongoCollection<ArchivedTraceSegment> segmentCollection;
 
     private final ObjectStorageServiceResolver objectStorageResolver;
     private final String configuredContainer;
     private final String archivePrefix;
-    int retentionDays = 30;
+    static final int RETENTION_DAYS = 30;
 
     public TraceArchiveService(ObjectStorageServiceResolver objectStorageResolver, String configuredContainer, String archivePrefix) {
         this.objectStorageResolver = objectStorageResolver;
@@ -85,8 +90,9 @@ public class TraceArchiveService {
         if (totalCount <= 0) return totalCount;
 
         LocalDate cutoffDate = cutoff.toLocalDate();
+        // every run writes under its own prefix, a rerun for the same cutoff never overwrites parts of an earlier run
         String blobPrefix = (archivePrefix != null ? archivePrefix + "/" : "")
-                + String.format("traces-archive/%s/%s", cutoffDate.format(YEAR_MONTH), cutoffDate);
+                + String.format("traces-archive/%s/%s/%s", cutoffDate.format(YEAR_MONTH), cutoffDate, ZonedDateTime.now(UTC).format(RUN));
 
         return archiveAllTraces(cutoff, blobPrefix, totalCount);
     }
@@ -115,237 +121,229 @@ public class TraceArchiveService {
     }
 
     private int archiveAllTraces(ZonedDateTime cutoff, String blobPrefix, int totalCount) {
-        var state = new ArchiveState();
-
-        try {
+        try (var state = new ArchiveState(blobPrefix, archiveContainer())) {
+            var cursor = new TraceCursor();
             while (true) {
-                var batchQuery = new Query();
-                batchQuery.filter = Filters.lt("started_at", cutoff);
-                batchQuery.sort = Sorts.ascending("started_at");
-                batchQuery.skip = state.offset;
-                batchQuery.limit = ARCHIVE_BATCH_SIZE;
-                var batch = traceCollection.find(batchQuery);
+                var batch = traceCollection.find(cursor.next(cutoff, ARCHIVE_BATCH_SIZE));
                 if (batch.isEmpty()) break;
-
-                var traceIds = TraceMaintenanceHelper.extractTraceIds(batch);
-                var spanCounts = getSpanCountsByTraceId(traceIds);
-
-                processBatchWithSpanBounding(batch, spanCounts, blobPrefix, state);
-                batch.clear();
+                cursor.advance(batch.getLast());
+                for (int i = 0; i < batch.size(); i += MAX_TRACE_IDS_PER_SPAN_QUERY) {
+                    archiveTraces(batch.subList(i, Math.min(i + MAX_TRACE_IDS_PER_SPAN_QUERY, batch.size())), state);
+                    uploadCompletedParts(state);
+                }
             }
+            state.completePart();
+            uploadCompletedParts(state);
 
             LOGGER.info("archived {} traces + {} spans in {} parts to {}, cutoff={}",
-                    totalCount, state.totalSpanCount, state.part - 1, blobPrefix, cutoff);
+                    totalCount, state.totalSpanCount, state.nextPart - 1, blobPrefix, cutoff);
         } catch (Exception e) {
             throw new RuntimeException("archive upload failed: " + e.getMessage(), e);
         }
         return totalCount;
     }
 
-    // Process traces in a batch split into span-bounded sub-batches so per-part
-    // memory stays under control even for span-heavy traces
-    private void processBatchWithSpanBounding(List<Trace> batch, Map<String, Integer> spanCounts,
-                                               String blobPrefix, ArchiveState state) throws IOException {
-        int start = 0;
-        while (start < batch.size()) {
-            int sc = spanCounts.getOrDefault(batch.get(start).traceId, 0);
-
-            if (sc > MAX_SPANS_PER_PART) {
-                handleOversizedTrace(batch.get(start), blobPrefix, state);
-                start++;
-                continue;
-            }
-
-            start = uploadSubBatch(batch, spanCounts, start, blobPrefix, state);
+    // streams the spans of a few traces straight into the current part, grouped by trace so each trace is one gzip member
+    private void archiveTraces(List<Trace> traces, ArchiveState state) throws IOException {
+        Map<String, Trace> pending = new LinkedHashMap<>();
+        for (var trace : traces) {
+            if (trace.traceId != null && !trace.traceId.isEmpty()) pending.put(trace.traceId, trace);
         }
-    }
-
-    private void handleOversizedTrace(Trace trace, String blobPrefix, ArchiveState state) throws IOException {
-        var allSpans = loadSpansForTraces(List.of(trace.traceId))
-                .getOrDefault(trace.traceId, List.of());
-        int chunks = (allSpans.size() + MAX_SPANS_PER_PART - 1) / MAX_SPANS_PER_PART;
-        for (int c = 0; c < allSpans.size(); c += MAX_SPANS_PER_PART) {
-            int chunkEnd = Math.min(c + MAX_SPANS_PER_PART, allSpans.size());
-            int chunkSpanCount = uploadSingleTracePart(blobPrefix, state.part, trace,
-                    allSpans.subList(c, chunkEnd));
-            state.totalSpanCount += chunkSpanCount;
-            LOGGER.info("archive part {}: 1 trace + {} spans uploaded (oversized {}/{})",
-                    state.part, chunkSpanCount, c / MAX_SPANS_PER_PART + 1, chunks);
-            state.part++;
+        if (pending.isEmpty()) return;
+        var spanQuery = new Query();
+        spanQuery.filter = Filters.in("trace_id", pending.keySet());
+        spanQuery.sort = Sorts.ascending("trace_id");
+        try {
+            spanCollection.forEach(spanQuery, span -> {
+                try {
+                    if (state.current == null || !state.current.traceId.equals(span.traceId)) {
+                        var trace = pending.remove(span.traceId);
+                        if (trace == null) return;
+                        state.beginTrace(trace);
+                    }
+                    state.span(span);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (var trace : pending.values()) {   // traces without spans
+            state.beginTrace(trace);
         }
-        allSpans.clear();
-        state.offset++;
+        state.endTrace();
     }
 
-    private int uploadSubBatch(List<Trace> batch, Map<String, Integer> spanCounts,
-                                int start, String blobPrefix, ArchiveState state) throws IOException {
-        int end = start;
-        int accumulatedSpans = 0;
-        while (end < batch.size()) {
-            int sc2 = spanCounts.getOrDefault(batch.get(end).traceId, 0);
-            if (sc2 > MAX_SPANS_PER_PART) break;
-            if (accumulatedSpans > 0 && accumulatedSpans + sc2 > MAX_SPANS_PER_PART) break;
-            accumulatedSpans += sc2;
-            end++;
+    // parts are uploaded between span queries, never while a Mongo cursor is open
+    private void uploadCompletedParts(ArchiveState state) throws IOException {
+        while (!state.completed.isEmpty()) {
+            var part = state.completed.getFirst();
+            Path indexFile = null;
+            try {
+                long size = Files.size(part.file);
+                if (size > MAX_PART_SIZE_BYTES) {
+                    LOGGER.warn("archive part {} exceeds {} bytes (actual={}), upload may fail with 413", part.blobName, MAX_PART_SIZE_BYTES, size);
+                }
+                storageService().uploadObject(state.container, part.blobName, part.file);
+                indexFile = part.writeIndex(ZonedDateTime.now());
+                storageService().uploadObject(state.container, part.indexBlobName, indexFile, "application/x-ndjson");
+                if (!part.segments().isEmpty()) {
+                    // traces still in Mongo were not deleted by an earlier run, its segments of them are replaced by ours
+                    var traceIds = part.segments().stream().map(segment -> segment.traceId).distinct().toList();
+                    segmentCollection.delete(Filters.and(Filters.in("trace_id", traceIds), Filters.ne("archive", state.archive)));
+                    segmentCollection.bulkInsert(part.segments());
+                }
+                state.totalSpanCount += part.spanCount();
+                LOGGER.info("archive part {}: {} traces + {} spans uploaded, size={}", part.blobName, part.segments().size(), part.spanCount(), size);
+            } finally {
+                deleteTempFileQuietly(indexFile);
+                deleteTempFileQuietly(part.file);
+            }
+            state.completed.removeFirst();
         }
-
-        var subBatch = new ArrayList<>(batch.subList(start, end));
-        var subTraceIds = TraceMaintenanceHelper.extractTraceIds(subBatch);
-        var spansByTraceId = loadSpansForTraces(subTraceIds);
-
-        int spanCount = writeAndUploadPart(blobPrefix, state.part, subBatch, spansByTraceId);
-        state.totalSpanCount += spanCount;
-
-        spansByTraceId.clear();
-
-        LOGGER.info("archive part {}: {} traces + {} spans uploaded",
-                state.part, subBatch.size(), spanCount);
-        state.offset += subBatch.size();
-        state.part++;
-        return end;
     }
 
     public void deleteArchivedTraces(ZonedDateTime cutoff) {
-        int offset = 0;
+        var cursor = new TraceCursor();
         long totalSpansDeleted = 0;
+        long totalTracesDeleted = 0;
+        long skipped = 0;
         while (true) {
-            var batchQuery = new Query();
-            batchQuery.filter = Filters.lt("started_at", cutoff);
-            batchQuery.sort = Sorts.ascending("_id");
-            batchQuery.skip = offset;
-            batchQuery.limit = SPAN_DELETE_BATCH_SIZE;
-            var batch = traceCollection.find(batchQuery);
+            var batch = traceCollection.find(cursor.next(cutoff, SPAN_DELETE_BATCH_SIZE));
             if (batch.isEmpty()) break;
+            cursor.advance(batch.getLast());
 
-            var traceIds = TraceMaintenanceHelper.extractTraceIds(batch);
-            long deleted = spanCollection.delete(Filters.in("trace_id", traceIds));
-            totalSpansDeleted += deleted;
-            offset += batch.size();
+            // only traces that made it into the archive index; late arrivals wait for the next archive run
+            var archived = archivedTraceIds(TraceMaintenanceHelper.extractTraceIds(batch));
+            var traceIds = new ArrayList<String>(archived.size());
+            var ids = new ArrayList<String>(archived.size());
+            for (var trace : batch) {
+                if (trace.traceId != null && archived.contains(trace.traceId)) {
+                    traceIds.add(trace.traceId);
+                    ids.add(trace.id);
+                }
+            }
+            skipped += batch.size() - ids.size();
+            if (ids.isEmpty()) continue;
+            totalSpansDeleted += spanCollection.delete(Filters.in("trace_id", traceIds));
+            totalTracesDeleted += traceCollection.delete(Filters.in("_id", ids));
         }
-        LOGGER.info("deleted {} spans total for traces with started_at < {}", totalSpansDeleted, cutoff);
-
-        long deleted = traceCollection.delete(Filters.lt("started_at", cutoff));
-        LOGGER.info("deleted {} traces with started_at < {}", deleted, cutoff);
+        LOGGER.info("deleted {} traces + {} spans with started_at < {}, skipped {} traces not in archive index",
+                totalTracesDeleted, totalSpansDeleted, cutoff, skipped);
     }
 
-    private int writeAndUploadPart(String blobPrefix, int part, List<Trace> batch,
-                                    Map<String, List<Span>> spansByTraceId) throws IOException {
-        Path tempFile = null;
-        try {
-            tempFile = Files.createTempFile("traces-archive-part-", ".json.gz");
-            int spanCount = writeBatchToFile(tempFile, batch, spansByTraceId);
-            long fileSize = Files.size(tempFile);
-            if (fileSize > MAX_PART_SIZE_BYTES) {
-                LOGGER.warn("archive part {} exceeds {} bytes (actual={}), upload may fail with 413",
-                        part, MAX_PART_SIZE_BYTES, fileSize);
-            }
-            String blobName = String.format("%s/part-%04d.json.gz", blobPrefix, part);
-            storageService().uploadObject(archiveContainer(), blobName, tempFile);
-            return spanCount;
-        } finally {
-            deleteTempFileQuietly(tempFile);
+    private Set<String> archivedTraceIds(List<String> traceIds) {
+        if (traceIds.isEmpty()) return Set.of();
+        var query = new Query();
+        query.filter = Filters.in("trace_id", traceIds);
+        query.projection = Projections.include("trace_id");
+        var archived = new HashSet<String>();
+        for (var segment : segmentCollection.find(query)) {
+            archived.add(segment.traceId);
         }
+        return archived;
     }
 
-    private int uploadSingleTracePart(String blobPrefix, int part, Trace trace,
-                                       List<Span> spanChunk) throws IOException {
-        Path tempFile = null;
+    private void deleteTempFileQuietly(Path tempFile) {
+        if (tempFile == null) return;
         try {
-            tempFile = Files.createTempFile("traces-archive-part-", ".json.gz");
-            writePartToTempFile(tempFile, trace, spanChunk);
-            String blobName = String.format("%s/part-%04d.json.gz", blobPrefix, part);
-            storageService().uploadObject(archiveContainer(), blobName, tempFile);
-            return spanChunk.size();
-        } finally {
-            deleteTempFileQuietly(tempFile);
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            LOGGER.warn("failed to delete temp file: {}", tempFile, e);
         }
     }
 
-    private void writePartToTempFile(Path tempFile, Trace trace, List<Span> spanChunk) throws IOException {
-        try (var gzipOut = new GZIPOutputStream(Files.newOutputStream(tempFile));
-             var writer = new BufferedWriter(new OutputStreamWriter(gzipOut, StandardCharsets.UTF_8))) {
-            writeArchiveLine(writer, "trace", trace);
-            for (var span : spanChunk) {
-                writeArchiveLine(writer, "span", span);
-            }
-        }
+    private long countStatsForDate(LocalDate date) {
+        return statsCollection.count(Filters.eq("date", date.atStartOfDay(UTC)));
     }
 
-    private int writeBatchToFile(Path file, List<Trace> batch, Map<String, List<Span>> spansByTraceId) throws IOException {
-        int spanCount = 0;
-        try (var gzipOut = new GZIPOutputStream(Files.newOutputStream(file));
-             var writer = new BufferedWriter(new OutputStreamWriter(gzipOut, StandardCharsets.UTF_8))) {
-            for (var trace : batch) {
-                writeArchiveLine(writer, "trace", trace);
-                var spans = spansByTraceId.getOrDefault(trace.traceId, List.of());
-                for (var span : spans) {
-                    writeArchiveLine(writer, "span", span);
-                }
-                spanCount += spans.size();
-            }
+    // keyset over (started_at, _id): each page seeks the index instead of skipping everything archived so far
+    private static final class TraceCursor {
+        private ZonedDateTime startedAt;
+        private String id;
+
+        Query next(ZonedDateTime cutoff, int limit) {
+            var query = new Query();
+            query.filter = startedAt == null ? Filters.lt("started_at", cutoff)
+                    : Filters.and(Filters.lt("started_at", cutoff), Filters.or(
+                            Filters.gt("started_at", startedAt),
+                            Filters.and(Filters.eq("started_at", startedAt), Filters.gt("_id", id))));
+            query.sort = Sorts.ascending("started_at", "_id");
+            query.limit = limit;
+            return query;
         }
-        return spanCount;
-    }
 
-    private void writeArchiveLine(BufferedWriter writer, String type, Object obj) throws IOException {
-        var json = JsonUtil.toJson(obj);
-        writer.write("{\"_type\":\"");
-        writer.write(type);
-        writer.write("\",");
-        writer.write(json, 1, json.length() - 1);
-        writer.newLine();
+        void advance(Trace last) {
+            startedAt = last.startedAt;
+            id = last.id;
+        }
     }
 
-    private Map<String, Integer> getSpanCountsByTraceId(List<String> traceIds) {
-        if (traceIds.isEmpty()) return Map.of();
-        var aggregate = new Aggregate<Document>();
-        aggregate.resultClass = Document.class;
-        aggregate.pipeline = List.of(
-                Aggregates.match(Filters.in("trace_id", traceIds)),
-                Aggregates.group("$trace_id", Accumulators.sum("count", 1))
-        );
-        Map<String, Integer> counts = new LinkedHashMap<>();
-        for (var doc : spanCollection.aggregate(aggregate)) {
-            String traceId = doc.getString("_id");
-            if (traceId != null) {
-                int count = doc.getInteger("count", 0);
-                counts.put(traceId, count);
+    // rolls over to a new part by span count or compressed size, also in the middle of a trace
+    private final class ArchiveState implements AutoCloseable {
+        final String archive;
+        final String container;
+        final Deque<TraceArchivePart> completed = new ArrayDeque<>();
+        TraceArchivePart part;
+        Trace current;
+        int nextPart = 1;
+        int totalSpanCount;
+
+        ArchiveState(String archive, String container) {
+            this.archive = archive;
+            this.container = container;
+        }
+
+        void beginTrace(Trace trace) throws IOException {
+            if (part == null || full()) rollOver();
+            part.beginTrace(trace);
+            current = trace;
+        }
+
+        void span(Span span) throws IOException {
+            if (full()) {
+                rollOver();
+                part.beginTrace(current);   // continuation segment repeats the trace line
             }
+            part.span(span);
         }
-        return counts;
-    }
 
-    private Map<String, List<Span>> loadSpansForTraces(List<String> traceIds) {
-        if (traceIds.isEmpty()) return Map.of();
-        Map<String, List<Span>> result = new LinkedHashMap<>();
-        for (int i = 0; i < traceIds.size(); i += MAX_TRACE_IDS_PER_SPAN_QUERY) {
-            int end = Math.min(i + MAX_TRACE_IDS_PER_SPAN_QUERY, traceIds.size());
-            var subIds = traceIds.subList(i, end);
-            var spanQuery = new Query();
-            spanQuery.filter = Filters.in("trace_id", subIds);
-            spanCollection.find(spanQuery).stream()
-                    .filter(s -> s.traceId != null)
-                    .forEach(s -> result.computeIfAbsent(s.traceId, k -> new ArrayList<>()).add(s));
+        void endTrace() throws IOException {
+            if (part != null) part.endTrace();
+            current = null;
         }
-        return result;
-    }
 
-    private void deleteTempFileQuietly(Path tempFile) {
-        if (tempFile == null) return;
-        try {
-            Files.deleteIfExists(tempFile);
-        } catch (IOException e) {
-            LOGGER.warn("failed to delete temp file: {}", tempFile, e);
+        void completePart() throws IOException {
+            if (part == null) return;
+            part.close();
+            if (part.traceCount() > 0) {
+                completed.addLast(part);
+            } else {
+                deleteTempFileQuietly(part.file);
+                nextPart--;
+            }
+            part = null;
         }
-    }
 
-    private long countStatsForDate(LocalDate date) {
-        return statsCollection.count(Filters.eq("date", date.atStartOfDay(UTC)));
-    }
+        private boolean full() {
+            return part.spanCount() >= MAX_SPANS_PER_PART || part.size() >= MAX_PART_SIZE_BYTES;
+        }
 
-    private static final class ArchiveState {
-        int part = 1;
-        int offset;
-        int totalSpanCount;
+        private void rollOver() throws IOException {
+            completePart();
+            part = new TraceArchivePart(archive, container, nextPart++);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (part != null) {
+                part.close();
+                deleteTempFileQuietly(part.file);
+            }
+            for (var pending : completed) {
+                deleteTempFileQuietly(pending.file);
+            }
+        }
     }
 }
@@ -11,7 +11,7 @@ import java.time.ZoneId;
  * Archives traces older than the retention window to object storage
  * and deletes them from MongoDB.
  *
- * <p>Cutoff date = today - retentionDays. The taskId date suffix is used
+ * <p>Cutoff date = today - RETENTION_DAYS. The taskId date suffix is used
  * for deduplication (one execution per day).</p>
  *
  * @author cyril
@@ -31,7 +31,7 @@ public class TraceArchivingTask extends AbstractTask {
     @Override
     public void execute(TaskContext ctx) {
         LocalDate today = LocalDate.now(UTC);
-        LocalDate cutoff = today.minusDays(archiveService.retentionDays);
+        LocalDate cutoff = today.minusDays(TraceArchiveService.RETENTION_DAYS);
         var cutoffInstant = cutoff.atStartOfDay(UTC);
 
         String state = ctx.state();
@@ -1,5 +1,6 @@
 package ai.core.server.trace.service;
 
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoWriteException;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Updates;
@@ -23,6 +24,7 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -67,6 +69,8 @@ public class IngestService {
     MongoCollection<Span> spanCollection;
     @Inject
     ModelPricingService modelPricingService;
+    @Inject
+    UsageRollupService usageRollupService;
 
     public void ingest(IngestRequest request) {
         ingest(request, null, null);
@@ -78,36 +82,69 @@ public class IngestService {
         if (request.spans == null || request.spans.isEmpty()) return;
 
         // Prefer root spans for trace metadata initialization (parentSpanId == null).
-        Map<String, IngestSpanRequest> rootByTrace = new LinkedHashMap<>();
+        Map<String, IngestSpanRequest> representativeByTrace = new LinkedHashMap<>();
         for (var spanReq : request.spans) {
             if (spanReq.parentSpanId == null) {
-                rootByTrace.put(spanReq.traceId, spanReq);
+                representativeByTrace.put(spanReq.traceId, spanReq);
+            } else {
+                representativeByTrace.putIfAbsent(spanReq.traceId, spanReq);
             }
         }
 
-        // Ensure trace doc exists BEFORE saving any spans so $inc has a target.
-        Set<String> ensuredTraces = HashSet.newHashSet(request.spans.size());
-        for (var spanReq : request.spans) {
-            if (ensuredTraces.add(spanReq.traceId)) {
-                var representative = rootByTrace.getOrDefault(spanReq.traceId, spanReq);
-                ensureTrace(spanReq.traceId, representative, request, authUserId, source);
+        // Ensure trace docs exist BEFORE saving any spans so $inc has a target.
+        ensureTraces(representativeByTrace, request, authUserId, source);
+        var inserted = saveSpans(request.spans, authUserId);
+        rollUpTraces(inserted);
+
+        LOGGER.debug("ingested {} spans for {} traces", inserted.size(), representativeByTrace.size());
+    }
+
+    // One find for all traces of the batch, one bulk insert for the missing ones; existing traces get the $set path.
+    private void ensureTraces(Map<String, IngestSpanRequest> representativeByTrace, IngestRequest request, String authUserId, String source) {
+        Set<String> existing = HashSet.newHashSet(representativeByTrace.size());
+        for (var trace : traceCollection.find(Filters.in("trace_id", representativeByTrace.keySet()))) {
+            existing.add(trace.traceId);
+        }
+        List<Trace> newTraces = new ArrayList<>();
+        for (var entry : representativeByTrace.entrySet()) {
+            if (existing.contains(entry.getKey())) {
+                updateTrace(entry.getKey(), entry.getValue());
+            } else {
+                newTraces.add(newTrace(entry.getKey(), entry.getValue(), request, authUserId, source));
             }
         }
-
-        for (var spanReq : request.spans) {
-            saveSpan(spanReq, authUserId);
+        if (newTraces.isEmpty()) return;
+        try {
+            traceCollection.bulkInsert(newTraces);
+            newTraces.forEach(usageRollupService::recordTrace);
+        } catch (MongoBulkWriteException e) {
+            if (!duplicateKeyOnly(e)) throw e;
+            settleInsertedTraces(newTraces, representativeByTrace);
         }
-
-        LOGGER.debug("ingested {} spans for {} traces", request.spans.size(), ensuredTraces.size());
     }
 
-    private void ensureTrace(String traceId, IngestSpanRequest rootSpan, IngestRequest request, String authUserId, String source) {
-        var existing = traceCollection.find(Filters.eq("trace_id", traceId));
-        if (!existing.isEmpty()) {
-            updateTrace(traceId, rootSpan);
-            return;
+    // A concurrent ingest created some of these traces. Like settleInsertedSpans, a trace counts as ours only if the
+    // stored doc carries our generated _id; traces created by the other ingest fall through to $set, trace ids the
+    // bulk never reached are inserted one by one.
+    private void settleInsertedTraces(List<Trace> newTraces, Map<String, IngestSpanRequest> representativeByTrace) {
+        Map<String, String> storedIds = HashMap.newHashMap(newTraces.size());
+        for (var stored : traceCollection.find(Filters.in("trace_id", newTraces.stream().map(trace -> trace.traceId).toList()))) {
+            storedIds.put(stored.traceId, stored.id);
+        }
+        for (var trace : newTraces) {
+            var storedId = storedIds.get(trace.traceId);
+            var rootSpan = representativeByTrace.get(trace.traceId);
+            if (storedId == null) {
+                if (insertTrace(trace, rootSpan)) usageRollupService.recordTrace(trace);
+            } else if (storedId.equals(trace.id)) {
+                usageRollupService.recordTrace(trace);
+            } else {
+                updateTrace(trace.traceId, rootSpan);
+            }
         }
+    }
 
+    private Trace newTrace(String traceId, IngestSpanRequest rootSpan, IngestRequest request, String authUserId, String source) {
         var trace = new Trace();
         trace.id = UUID.randomUUID().toString();
         trace.traceId = traceId;
@@ -146,15 +183,19 @@ public class IngestService {
         // ("Cannot apply $inc to a value of non-numeric type"), which would 400 every ingest carrying a
         // priced LLM span. $inc treats a MISSING field as 0, but the codec writes null as a present field.
         trace.costUsd = 0.0;
+        return trace;
+    }
 
+    private boolean insertTrace(Trace trace, IngestSpanRequest rootSpan) {
         // Race-safe: rely on the unique index on traces.trace_id. If another ingest created
         // the trace concurrently, fall through to the $set update path.
         try {
             traceCollection.insert(trace);
+            return true;
         } catch (MongoWriteException e) {
             if (e.getCode() == 11000) {
-                updateTrace(traceId, rootSpan);
-                return;
+                updateTrace(trace.traceId, rootSpan);
+                return false;
             }
             throw e;
         }
@@ -190,7 +231,61 @@ public class IngestService {
         if (agentName != null) backfillTraceName(traceId, rootSpan.name, agentName);
     }
 
-    private void saveSpan(IngestSpanRequest spanReq, String authUserId) {
+    // Returns the spans this call actually inserted; already-ingested span ids (OTLP retries, multi-instance ingest)
+    // are skipped so their tokens/cost are never rolled up twice.
+    private List<Span> saveSpans(List<IngestSpanRequest> spanRequests, String authUserId) {
+        Map<String, Span> spansById = LinkedHashMap.newLinkedHashMap(spanRequests.size());
+        for (var spanReq : spanRequests) {
+            if (!spansById.containsKey(spanReq.spanId)) spansById.put(spanReq.spanId, span(spanReq, authUserId));
+        }
+        for (var existing : spanCollection.find(Filters.in("span_id", spansById.keySet()))) {
+            if (spansById.remove(existing.spanId) != null) LOGGER.debug("span {} already ingested, skipping", existing.spanId);
+        }
+        List<Span> spans = new ArrayList<>(spansById.values());
+        if (spans.isEmpty()) return spans;
+        try {
+            spanCollection.bulkInsert(spans);
+            return spans;
+        } catch (MongoBulkWriteException e) {
+            if (!duplicateKeyOnly(e)) throw e;
+            return settleInsertedSpans(spans);
+        }
+    }
+
+    // Race-free dedup: rely on the unique index on spans.span_id (see SchemaMigrationVTraceIndexes).
+    // After a duplicate-key bulk failure, a span counts as ours only if the stored doc carries our generated _id;
+    // span ids the bulk never reached are inserted one by one.
+    private List<Span> settleInsertedSpans(List<Span> spans) {
+        Map<String, String> storedIds = HashMap.newHashMap(spans.size());
+        for (var stored : spanCollection.find(Filters.in("span_id", spans.stream().map(span -> span.spanId).toList()))) {
+            storedIds.put(stored.spanId, stored.id);
+        }
+        List<Span> inserted = new ArrayList<>(spans.size());
+        for (var span : spans) {
+            var storedId = storedIds.get(span.spanId);
+            if (storedId == null ? insertSpan(span) : storedId.equals(span.id)) {
+                inserted.add(span);
+            } else {
+                LOGGER.debug("span {} already ingested, skipping", span.spanId);
+            }
+        }
+        return inserted;
+    }
+
+    private boolean insertSpan(Span span) {
+        try {
+            spanCollection.insert(span);
+            return true;
+        } catch (MongoWriteException e) {
+            if (e.getCode() == 11000) {
+                LOGGER.debug("span {} already ingested, skipping", span.spanId);
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private Span span(IngestSpanRequest spanReq, String authUserId) {
         var span = new Span();
         span.id = UUID.randomUUID().toString();
         span.traceId = spanReq.traceId;
@@ -220,35 +315,30 @@ public class IngestService {
         span.startedAt = toZonedDateTime(spanReq.startedAtEpochMs);
         span.completedAt = toZonedDateTime(spanReq.completedAtEpochMs);
         span.createdAt = ZonedDateTime.now();
+        return span;
+    }
 
-        // Race-free dedup: rely on the unique index on spans.span_id (see SchemaMigrationVTraceIndexes).
-        // Only the first concurrent inserter succeeds; the rest catch duplicate-key and skip the $inc,
-        // so trace counters cannot be double-counted under OTLP retries or multi-instance ingest.
-        try {
-            spanCollection.insert(span);
-        } catch (MongoWriteException e) {
-            if (e.getCode() == 11000) {
-                LOGGER.debug("span {} already ingested, skipping", spanReq.spanId);
-                return;
-            }
-            throw e;
+    // Pre-aggregates the inserted spans per trace so each trace gets one $inc and at most one backfill of
+    // model / agent identity, instead of several updates per span.
+    // NOTE: quota accounting no longer happens here. Span-level user attribution is unreliable
+    // (LLM spans carry the tokens but no user.id), so usage is metered synchronously via the
+    // ExecutionContext tokenCostCallback wired in SessionContextBuilder / AgentRunBuilder instead.
+    private void rollUpTraces(List<Span> spans) {
+        Map<String, TraceRollup> rollups = new LinkedHashMap<>();
+        for (var span : spans) {
+            rollups.computeIfAbsent(span.traceId, key -> new TraceRollup()).add(span);
+            usageRollupService.recordSpan(span);
         }
-
-        if (spanReq.model != null && !spanReq.model.isEmpty()) {
-            backfillTraceModel(spanReq.traceId, spanReq.model);
+        for (var entry : rollups.entrySet()) {
+            var traceId = entry.getKey();
+            var rollup = entry.getValue();
+            if (rollup.model != null) backfillTraceModel(traceId, rollup.model);
+            backfillTraceIdentity(traceId, rollup.agentSpanName, rollup.agentName, rollup.agentId);
+            incrementTraceTotals(traceId, rollup);
         }
-        backfillTraceIdentity(spanReq.traceId, spanReq.name, spanReq.attributes);
-
-        // Incrementally roll up this span's tokens/cost onto the parent trace doc.
-        // Replaces the previous full re-aggregation pass for O(1) per span instead of O(N).
-        incrementTraceTotals(spanReq.traceId, span);
-        // NOTE: quota accounting no longer happens here. Span-level user attribution is unreliable
-        // (LLM spans carry the tokens but no user.id), so usage is metered synchronously via the
-        // ExecutionContext tokenCostCallback wired in SessionContextBuilder / AgentRunBuilder instead.
     }
 
-    private void backfillTraceIdentity(String traceId, String spanName, Map<String, String> attributes) {
-        var agentName = attr(attributes, GEN_AI_AGENT_NAME);
+    private void backfillTraceIdentity(String traceId, String spanName, String agentName, String agentId) {
         if (agentName != null) {
             traceCollection.update(
                 Filters.and(
@@ -259,7 +349,6 @@ public class IngestService {
             );
             backfillTraceName(traceId, spanName, agentName);
         }
-        var agentId = attr(attributes, GEN_AI_AGENT_ID);
         if (agentId != null) {
             traceCollection.update(
                 Filters.and(
@@ -299,11 +388,11 @@ public class IngestService {
         ));
     }
 
-    private void incrementTraceTotals(String traceId, Span span) {
-        long inputDelta = safeLong(span.inputTokens);
-        long outputDelta = safeLong(span.outputTokens);
-        long cachedDelta = safeLong(span.cachedTokens);
-        double costDelta = span.costUsd != null ? span.costUsd : 0.0;
+    private void incrementTraceTotals(String traceId, TraceRollup rollup) {
+        long inputDelta = rollup.inputTokens;
+        long outputDelta = rollup.outputTokens;
+        long cachedDelta = rollup.cachedTokens;
+        double costDelta = rollup.costUsd;
         long totalDelta = inputDelta + outputDelta;
 
         List<Bson> updates = new ArrayList<>();
@@ -374,8 +463,12 @@ public class IngestService {
         return null;
     }
 
-    private long safeLong(Long value) {
-        return value != null ? value : 0L;
+    private boolean duplicateKeyOnly(MongoBulkWriteException e) {
+        if (e.getWriteConcernError() != null || e.getWriteErrors().isEmpty()) return false;
+        for (var error : e.getWriteErrors()) {
+            if (error.getCode() != 11000) return false;
+        }
+        return true;
     }
 
     private SpanStatus mapSpanStatus(String status, Map<String, String> attributes) {
@@ -418,4 +511,32 @@ public class IngestService {
         if (epochMs <= 0) return null;
         return ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
     }
+
+    private static final class TraceRollup {
+        long inputTokens;
+        long outputTokens;
+        long cachedTokens;
+        double costUsd;
+        String model;
+        String agentName;
+        String agentSpanName;
+        String agentId;
+
+        void add(Span span) {
+            inputTokens += safeLong(span.inputTokens);
+            outputTokens += safeLong(span.outputTokens);
+            cachedTokens += safeLong(span.cachedTokens);
+            costUsd += span.costUsd != null ? span.costUsd : 0.0;
+            if (model == null && span.model != null && !span.model.isEmpty()) model = span.model;
+            if (agentName == null) {
+                agentName = attr(span.attributes, GEN_AI_AGENT_NAME);
+                agentSpanName = span.name;
+            }
+            if (agentId == null) agentId = attr(span.attributes, GEN_AI_AGENT_ID);
+        }
+
+        private long safeLong(Long value) {
+            return value != null ? value : 0L;
+        }
+    }
 }
@@ -57,6 +57,8 @@ public class OTLPIngestService {
     MongoCollection<Span> spanCollection;
     @Inject
     ModelPricingService modelPricingService;
+    @Inject
+    UsageRollupService usageRollupService;
 
     public void ingest(ExportTraceServiceRequest request) {
         int spanCount = 0;
@@ -136,6 +138,7 @@ public class OTLPIngestService {
         // another request of the same merged gateway session) already created the trace
         try {
             traceCollection.insert(trace);
+            usageRollupService.recordTrace(trace);
         } catch (MongoWriteException e) {
             if (e.getCode() != 11000) throw e;
         }
@@ -188,6 +191,7 @@ public class OTLPIngestService {
 
         // Increment trace token/cost totals atomically instead of reloading all spans
         incrementTraceTokens(traceId, span);
+        usageRollupService.recordSpan(span);
         // NOTE: quota accounting no longer happens here. Span-level user attribution is unreliable
         // (LLM spans carry the tokens but no user.id), so usage is metered synchronously via the
         // ExecutionContext tokenCostCallback wired in SessionContextBuilder / AgentRunBuilder instead.
@@ -289,6 +293,7 @@ public class OTLPIngestService {
         trace.cachedTokens = 0L;
         trace.costUsd = 0.0;
         traceCollection.insert(trace);
+        usageRollupService.recordTrace(trace);
     }
 
     private void backfillTraceModel(String traceId, String model) {
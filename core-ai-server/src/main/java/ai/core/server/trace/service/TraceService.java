@@ -16,10 +16,12 @@ import ai.core.server.trace.domain.SpanType;
 import ai.core.server.trace.domain.Trace;
 import ai.core.server.trace.domain.TraceFacetRow;
 import ai.core.server.trace.domain.TraceStatus;
+import ai.core.server.trace.maintenance.TraceArchiveReader;
 
 import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -51,6 +53,8 @@ public class TraceService {
     MongoCollection<Span> spanCollection;
     @Inject
     MongoCollection<User> userCollection;
+    @Inject
+    TraceArchiveReader archiveReader;
 
     public List<Trace> list(TraceListFilter filter) {
         if (requiresSearch(filter)) {
@@ -294,21 +298,38 @@ public class TraceService {
     }
 
     public Trace get(String traceId) {
-        Trace trace = traceCollection.get(traceId).orElse(null);
-        if (trace == null) {
-            var query = new Query();
-            query.filter = Filters.eq("trace_id", traceId);
-            query.limit = 1;
-            var results = traceCollection.find(query);
-            trace = results.isEmpty() ? null : results.getFirst();
-        }
+        Trace trace = storedTrace(traceId);
+        if (trace == null) trace = archiveReader.trace(traceId);
         if (trace != null && TraceServiceHelper.needsEnrichment(trace)) {
-            TraceServiceHelper.enrichMetrics(trace, spans(trace.traceId));
+            TraceServiceHelper.enrichMetrics(trace, spans(trace));
         }
         return trace;
     }
 
+    public List<Span> spans(Trace trace) {
+        var spans = storedSpans(trace.traceId);
+        return spans.isEmpty() && archiveReader.mayContain(trace.startedAt) ? archivedSpanSummaries(trace.traceId) : spans;
+    }
+
+    // archiving deletes the trace from Mongo, so a trace still stored there is only archived once past retention
     public List<Span> spans(String traceId) {
+        var spans = storedSpans(traceId);
+        if (!spans.isEmpty()) return spans;
+        var trace = storedTrace(traceId);
+        return trace == null || archiveReader.mayContain(trace.startedAt) ? archivedSpanSummaries(traceId) : spans;
+    }
+
+    private Trace storedTrace(String traceId) {
+        Trace trace = traceCollection.get(traceId).orElse(null);
+        if (trace != null) return trace;
+        var query = new Query();
+        query.filter = Filters.eq("trace_id", traceId);
+        query.limit = 1;
+        var results = traceCollection.find(query);
+        return results.isEmpty() ? null : results.getFirst();
+    }
+
+    private List<Span> storedSpans(String traceId) {
         var query = new Query();
         query.filter = Filters.eq("trace_id", traceId);
         query.sort = Sorts.ascending("started_at");
@@ -319,13 +340,34 @@ public class TraceService {
         return spanCollection.find(query);
     }
 
-    public Span span(String traceId, String spanId) {
+    private List<Span> archivedSpanSummaries(String traceId) {
+        var archived = archivedSpans(traceId);
+        for (var span : archived) {     // same shape as the summary projection
+            span.input = null;
+            span.output = null;
+        }
+        return archived.size() > TraceServiceHelper.MAX_SPANS_PER_TRACE ? archived.subList(0, TraceServiceHelper.MAX_SPANS_PER_TRACE) : archived;
+    }
+
+    // archived traces are read back through the per-trace archive index once they have left Mongo
+    private List<Span> archivedSpans(String traceId) {
+        var spans = new ArrayList<>(archiveReader.spans(traceId));
+        spans.sort(Comparator.comparing(span -> span.startedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return spans;
+    }
+
+    public Span span(Trace trace, String spanId) {
         var query = new Query();
-        query.filter = Filters.and(Filters.eq("trace_id", traceId), Filters.eq("span_id", spanId));
+        query.filter = Filters.and(Filters.eq("trace_id", trace.traceId), Filters.eq("span_id", spanId));
         query.limit = 1;
         var results = spanCollection.find(query);
-        if (results.isEmpty()) return null;
-        var span = results.getFirst();
+        Span span = null;
+        if (!results.isEmpty()) {
+            span = results.getFirst();
+        } else if (archiveReader.mayContain(trace.startedAt)) {
+            span = archivedSpans(trace.traceId).stream().filter(archived -> spanId.equals(archived.spanId)).findFirst().orElse(null);
+        }
+        if (span == null) return null;
         TraceServiceHelper.stripDuplicatedPayloadAttributes(span);
         return span;
     }
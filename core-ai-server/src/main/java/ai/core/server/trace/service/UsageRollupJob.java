@@ -0,0 +1,20 @@
+package ai.core.server.trace.service;
+
+import core.framework.inject.Inject;
+import core.framework.scheduler.Job;
+import core.framework.scheduler.JobContext;
+
+/**
+ * Writes the usage recorded by {@link UsageRollupService} to the usage rollups.
+ *
+ * @author stephen
+ */
+public class UsageRollupJob implements Job {
+    @Inject
+    UsageRollupService usageRollupService;
+
+    @Override
+    public void execute(JobContext context) {
+        usageRollupService.flush();
+    }
+}
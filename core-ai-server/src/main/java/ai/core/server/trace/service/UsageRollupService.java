@@ -0,0 +1,264 @@
+package ai.core.server.trace.service;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+
+import core.framework.inject.Inject;
+import core.framework.mongo.MongoCollection;
+
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ai.core.server.trace.domain.Span;
+import ai.core.server.trace.domain.Trace;
+import ai.core.server.trace.domain.TraceStatus;
+import ai.core.server.trace.domain.UsageRollup;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the minute and day {@link UsageRollup} buckets from ingested spans and traces.
+ * <p>
+ * Ingest only records usage per trace in memory; {@link UsageRollupJob} flushes it with one trace lookup and one
+ * $inc per bucket. Attribution uses the user/agent/source of the trace at flush time, because LLM spans carry no
+ * identity and an OTLP trace only gets it when its root span ends, so usage of a running trace without a user is
+ * held back for up to {@link #attributionHold}.
+ *
+ * @author stephen
+ */
+public class UsageRollupService {
+    static final Duration MINUTE_RETENTION = Duration.ofDays(3);
+    static final Duration DAY_RETENTION = Duration.ofDays(45);
+    private static final Logger LOGGER = LoggerFactory.getLogger(UsageRollupService.class);
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    static String id(String granularity, ZonedDateTime bucket, Trace trace, String model) {
+        return granularity + "::" + bucket.toInstant() + "::" + key(trace.userId) + "::" + key(trace.agentId)
+            + "::" + key(trace.source) + "::" + key(model);
+    }
+
+    static Bson increment(UsageRollup delta, ZonedDateTime now) {
+        List<Bson> updates = new ArrayList<>();
+        if (delta.inputTokens != 0) updates.add(Updates.inc("input_tokens", delta.inputTokens));
+        if (delta.outputTokens != 0) updates.add(Updates.inc("output_tokens", delta.outputTokens));
+        if (delta.totalTokens != 0) updates.add(Updates.inc("total_tokens", delta.totalTokens));
+        if (delta.cachedTokens != 0) updates.add(Updates.inc("cached_tokens", delta.cachedTokens));
+        if (delta.costUsd != 0.0) updates.add(Updates.inc("cost_usd", delta.costUsd));
+        if (delta.callCount != 0) updates.add(Updates.inc("call_count", delta.callCount));
+        if (delta.maxTotalTokens != 0) updates.add(Updates.max("max_total_tokens", delta.maxTotalTokens));
+        if (delta.maxCostUsd != 0.0) updates.add(Updates.max("max_cost_usd", delta.maxCostUsd));
+        if (delta.agentName != null) updates.add(Updates.set("agent_name", delta.agentName));
+        // always modifies the document, so a matched bucket never reads as missing
+        updates.add(Updates.set("updated_at", now));
+        return Updates.combine(updates);
+    }
+
+    private static String key(String value) {
+        return value != null ? value : "";
+    }
+
+    private static long value(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    @Inject
+    MongoCollection<UsageRollup> usageRollupCollection;
+    @Inject
+    MongoCollection<Trace> traceCollection;
+
+    public Duration attributionHold = Duration.ofMinutes(15);
+
+    private final ConcurrentHashMap<String, TraceUsage> pending = new ConcurrentHashMap<>();
+
+    public void recordSpan(Span span) {
+        long input = value(span.inputTokens);
+        long output = value(span.outputTokens);
+        long cached = value(span.cachedTokens);
+        double cost = span.costUsd != null ? span.costUsd : 0.0;
+        if (input == 0 && output == 0 && cached == 0 && cost == 0.0) return;
+        var minute = (span.startedAt != null ? span.startedAt : ZonedDateTime.now()).withZoneSameInstant(UTC).truncatedTo(ChronoUnit.MINUTES);
+        pending.compute(span.traceId, (traceId, usage) -> {
+            var current = usage != null ? usage : new TraceUsage();
+            current.add(new UsageKey(minute, span.model), input, output, cached, cost);
+            return current;
+        });
+    }
+
+    // a call is a trace, counted once by the ingest that created it, matching the trace count of the daily stats
+    public void recordTrace(Trace trace) {
+        pending.compute(trace.traceId, (traceId, usage) -> {
+            var current = usage != null ? usage : new TraceUsage();
+            current.calls++;
+            return current;
+        });
+    }
+
+    public void flush() {
+        flush(false);
+    }
+
+    // on shutdown held usage is written with the identity known so far rather than lost
+    public void flushAll() {
+        flush(true);
+    }
+
+    int pendingTraces() {
+        return pending.size();
+    }
+
+    private void flush(boolean force) {
+        List<String> traceIds = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < traceIds.size(); from += LOOKUP_BATCH_SIZE) {
+            flush(traceIds.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, traceIds.size())), force);
+        }
+    }
+
+    private void flush(List<String> traceIds, boolean force) {
+        Map<String, Trace> traces = HashMap.newHashMap(traceIds.size());
+        for (var trace : traceCollection.find(Filters.in("trace_id", traceIds))) {
+            traces.put(trace.traceId, trace);
+        }
+        long now = System.nanoTime();
+        Map<String, UsageRollup> rollups = new LinkedHashMap<>();
+        Map<String, TraceUsage> applied = new HashMap<>();
+        for (var traceId : traceIds) {
+            var trace = traces.get(traceId);
+            var usage = pending.get(traceId);
+            if (usage == null) continue;
+            if (!force && !attributable(trace) && now - usage.recordedAt < attributionHold.toNanos()) continue;
+            if (pending.remove(traceId, usage)) {
+                applied.put(traceId, usage);
+                rollUp(rollups, trace != null ? trace : unknownTrace(traceId), usage);
+            }
+        }
+        int failed = 0;
+        var updatedAt = ZonedDateTime.now();
+        for (var rollup : rollups.values()) {
+            try {
+                upsert(rollup, updatedAt);
+            } catch (RuntimeException e) {
+                failed++;
+                LOGGER.warn("failed to update usage rollup, id={}", rollup.id, e);
+            }
+        }
+        // rollups are derived data, a failed bucket is not retried so a partial $inc is never applied twice
+        if (failed > 0) LOGGER.warn("usage rollups not applied, failed={}, total={}, traces={}", failed, rollups.size(), applied.size());
+    }
+
+    private boolean attributable(Trace trace) {
+        return trace != null && (trace.userId != null || trace.status != TraceStatus.RUNNING);
+    }
+
+    private Trace unknownTrace(String traceId) {
+        var trace = new Trace();
+        trace.traceId = traceId;
+        return trace;
+    }
+
+    private void rollUp(Map<String, UsageRollup> rollups, Trace trace, TraceUsage usage) {
+        for (var entry : usage.tokens.entrySet()) {
+            var key = entry.getKey();
+            var tokens = entry.getValue();
+            var model = key.model != null && !key.model.isEmpty() ? key.model : trace.model;
+            for (var rollup : buckets(rollups, trace, model, key.minute)) {
+                rollup.inputTokens += tokens.inputTokens;
+                rollup.outputTokens += tokens.outputTokens;
+                rollup.totalTokens += tokens.inputTokens + tokens.outputTokens;
+                rollup.cachedTokens += tokens.cachedTokens;
+                rollup.costUsd += tokens.costUsd;
+                rollup.maxTotalTokens = Math.max(rollup.maxTotalTokens, tokens.maxTotalTokens);
+                rollup.maxCostUsd = Math.max(rollup.maxCostUsd, tokens.maxCostUsd);
+            }
+        }
+        if (usage.calls > 0) {
+            var startedAt = (trace.startedAt != null ? trace.startedAt : ZonedDateTime.now()).withZoneSameInstant(UTC);
+            for (var rollup : buckets(rollups, trace, trace.model, startedAt.truncatedTo(ChronoUnit.MINUTES))) {
+                rollup.callCount += usage.calls;
+            }
+        }
+    }
+
+    private List<UsageRollup> buckets(Map<String, UsageRollup> rollups, Trace trace, String model, ZonedDateTime minute) {
+        return List.of(
+            bucket(rollups, UsageRollup.MINUTE, minute, trace, model, MINUTE_RETENTION),
+            bucket(rollups, UsageRollup.DAY, minute.truncatedTo(ChronoUnit.DAYS), trace, model, DAY_RETENTION));
+    }
+
+    private UsageRollup bucket(Map<String, UsageRollup> rollups, String granularity, ZonedDateTime bucket, Trace trace, String model, Duration retention) {
+        return rollups.computeIfAbsent(id(granularity, bucket, trace, model), id -> {
+            var rollup = new UsageRollup();
+            rollup.id = id;
+            rollup.granularity = granularity;
+            rollup.bucket = bucket;
+            rollup.userId = trace.userId;
+            rollup.agentId = trace.agentId;
+            rollup.agentName = trace.agentName;
+            rollup.source = trace.source;
+            rollup.model = model;
+            rollup.inputTokens = 0L;
+            rollup.outputTokens = 0L;
+            rollup.totalTokens = 0L;
+            rollup.cachedTokens = 0L;
+            rollup.costUsd = 0.0;
+            rollup.callCount = 0L;
+            rollup.maxTotalTokens = 0L;
+            rollup.maxCostUsd = 0.0;
+            rollup.expiresAt = bucket.plus(retention);
+            return rollup;
+        });
+    }
+
+    // core-ng update has no upsert: $inc the existing bucket, insert the first one, and on a concurrent insert $inc again
+    private void upsert(UsageRollup delta, ZonedDateTime now) {
+        var update = increment(delta, now);
+        if (usageRollupCollection.update(Filters.eq("_id", delta.id), update) > 0) return;
+        delta.updatedAt = now;
+        try {
+            usageRollupCollection.insert(delta);
+        } catch (MongoWriteException e) {
+            if (e.getCode() != 11000) throw e;
+            usageRollupCollection.update(Filters.eq("_id", delta.id), update);
+        }
+    }
+
+    private record UsageKey(ZonedDateTime minute, String model) {
+    }
+
+    private static final class Tokens {
+        long inputTokens;
+        long outputTokens;
+        long cachedTokens;
+        double costUsd;
+        long maxTotalTokens;
+        double maxCostUsd;
+    }
+
+    // mutated only inside pending.compute, and read after it was removed from pending
+    private static final class TraceUsage {
+        final long recordedAt = System.nanoTime();
+        final Map<UsageKey, Tokens> tokens = new HashMap<>();
+        long calls;
+
+        void add(UsageKey key, long input, long output, long cached, double cost) {
+            var current = tokens.computeIfAbsent(key, k -> new Tokens());
+            current.inputTokens += input;
+            current.outputTokens += output;
+            current.cachedTokens += cached;
+            current.costUsd += cost;
+            current.maxTotalTokens = Math.max(current.maxTotalTokens, input + output);
+            current.maxCostUsd = Math.max(current.maxCostUsd, cost);
+        }
+    }
+}
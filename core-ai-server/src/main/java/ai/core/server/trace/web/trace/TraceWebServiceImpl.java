@@ -186,7 +186,7 @@ public class TraceWebServiceImpl implements TraceWebService {
         if (scope.userId == null) throw new UnauthorizedException("unauthorized");
         var trace = traceService.get(traceId);
         if (!canRead(trace, scope)) throw new NotFoundException("trace not found");
-        var spans = traceService.spans(trace.traceId);
+        var spans = traceService.spans(trace);
         var response = new ListSpansResponse();
         response.spans = spans.stream().map(TraceWebServiceImpl::toSpanView).toList();
         return response;
@@ -198,7 +198,7 @@ public class TraceWebServiceImpl implements TraceWebService {
         if (scope.userId == null) throw new UnauthorizedException("unauthorized");
         var trace = traceService.get(traceId);
         if (!canRead(trace, scope)) throw new NotFoundException("trace not found");
-        var span = traceService.span(trace.traceId, spanId);
+        var span = traceService.span(trace, spanId);
         if (span == null) throw new NotFoundException("span not found");
         return toSpanView(span);
     }
@@ -17,6 +17,7 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -30,6 +31,15 @@ public class SessionChannelService {
     ChannelService channelService;
 
     private final Map<String, SessionChannelState> stateMap = new ConcurrentHashMap<>();
+    private volatile SessionSubscriptionListener subscriptionListener;
+
+    public void subscriptionListener(SessionSubscriptionListener listener) {
+        this.subscriptionListener = listener;
+    }
+
+    public Set<String> sessionIds() {
+        return Set.copyOf(stateMap.keySet());
+    }
 
     /**
      * Returns true if a local session state exists for the given session ID.
@@ -41,7 +51,16 @@ public class SessionChannelService {
     }
 
     public void connect(Channel<SseBaseEvent> channel, String sessionId) {
-        var state = stateMap.computeIfAbsent(sessionId, k -> new SessionChannelState());
+        var state = stateMap.get(sessionId);
+        if (state == null) {
+            var created = new SessionChannelState();
+            state = stateMap.putIfAbsent(sessionId, created);
+            if (state == null) {
+                state = created;
+                var listener = subscriptionListener;
+                if (listener != null) listener.opened(sessionId);
+            }
+        }
 
         synchronized (state) {
             channelService.connect(channel, sessionId);
@@ -90,7 +109,10 @@ public class SessionChannelService {
             // Merge consecutive text/reasoning chunks to conserve buffer space.
             // This preserves total content while avoiding buffer slots being consumed
             // by many small streaming chunks during long agent turns.
-            if (!state.eventBuffer.isEmpty() && mergeConsecutiveChunk(state.eventBuffer.peekLast(), sseEvent)) {
+            var merged = state.eventBuffer.isEmpty() ? null : mergeConsecutiveChunk(state.eventBuffer.peekLast(), sseEvent);
+            if (merged != null) {
+                state.eventBuffer.removeLast();
+                state.eventBuffer.addLast(merged);
                 channelService.send(sessionId, sseEvent);
                 return;
             }
@@ -111,26 +133,35 @@ public class SessionChannelService {
     }
 
     /**
-     * Merge a streaming chunk event into the previous event of the same type when they are
+     * Merge a streaming chunk event with the previous event of the same type when they are
      * consecutive in the buffer. This prevents a rapid stream of small text/reasoning chunks
-     * from consuming an excessive number of buffer slots.
+     * from consuming an excessive number of buffer slots. The buffered event is not mutated,
+     * it may still sit in a slow client's send queue where it is coalesced again.
      *
-     * @return true if the new event was merged into the last event (caller should skip adding)
+     * @return a new event replacing the last one, or null if the events can't be merged
      */
-    private boolean mergeConsecutiveChunk(SseBaseEvent last, SseBaseEvent incoming) {
+    private SseBaseEvent mergeConsecutiveChunk(SseBaseEvent last, SseBaseEvent incoming) {
         if (last instanceof SseTextChunkEvent lastText && incoming instanceof SseTextChunkEvent incomingText) {
-            lastText.content += incomingText.content;
-            lastText.isFinalChunk = incomingText.isFinalChunk;
-            lastText.timestamp = incomingText.timestamp;
-            return true;
+            var merged = new SseTextChunkEvent();
+            copy(incomingText, merged);
+            merged.content = lastText.content + incomingText.content;
+            merged.isFinalChunk = incomingText.isFinalChunk;
+            return merged;
         }
         if (last instanceof SseReasoningChunkEvent lastReasoning && incoming instanceof SseReasoningChunkEvent incomingReasoning) {
-            lastReasoning.content += incomingReasoning.content;
-            lastReasoning.isFinalChunk = incomingReasoning.isFinalChunk;
-            lastReasoning.timestamp = incomingReasoning.timestamp;
-            return true;
+            var merged = new SseReasoningChunkEvent();
+            copy(incomingReasoning, merged);
+            merged.content = lastReasoning.content + incomingReasoning.content;
+            merged.isFinalChunk = incomingReasoning.isFinalChunk;
+            return merged;
         }
-        return false;
+        return null;
+    }
+
+    private void copy(SseBaseEvent from, SseBaseEvent to) {
+        to.type = from.type;
+        to.sessionId = from.sessionId;
+        to.timestamp = from.timestamp;
     }
 
     private void setEventType(SseBaseEvent sseEvent) {
@@ -190,7 +221,10 @@ public class SessionChannelService {
     }
 
     public void close(String sessionId) {
-        stateMap.remove(sessionId);
+        if (stateMap.remove(sessionId) != null) {
+            var listener = subscriptionListener;
+            if (listener != null) listener.closed(sessionId);
+        }
         channelService.close(sessionId);
     }
 
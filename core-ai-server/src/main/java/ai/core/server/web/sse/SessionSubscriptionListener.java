@@ -0,0 +1,13 @@
+package ai.core.server.web.sse;
+
+/**
+ * Notified when this pod starts or stops holding state for a session, so cross-pod event delivery can subscribe
+ * only to the sessions that have a local SSE channel.
+ *
+ * @author stephen
+ */
+public interface SessionSubscriptionListener {
+    void opened(String sessionId);
+
+    void closed(String sessionId);
+}
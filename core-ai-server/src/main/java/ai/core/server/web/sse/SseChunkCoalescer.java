@@ -0,0 +1,48 @@
+package ai.core.server.web.sse;
+
+import ai.core.api.server.session.sse.SseBaseEvent;
+import ai.core.api.server.session.sse.SseReasoningChunkEvent;
+import ai.core.api.server.session.sse.SseTextChunkEvent;
+import ai.core.sse.SseEventCoalescer;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Merges consecutive non-final text or reasoning chunks queued for a slow client into a new chunk; the queued
+ * events are shared with the session replay buffer and other channels, so they are never mutated.
+ *
+ * @author stephen
+ */
+public class SseChunkCoalescer implements SseEventCoalescer<SseBaseEvent> {
+    private static String concat(String left, String right) {
+        if (left == null) return right;
+        return right == null ? left : left + right;
+    }
+
+    @Override
+    @Nullable
+    public SseBaseEvent merge(SseBaseEvent queued, SseBaseEvent next) {
+        if (queued instanceof SseTextChunkEvent queuedText && next instanceof SseTextChunkEvent nextText
+                && !Boolean.TRUE.equals(queuedText.isFinalChunk) && queuedText.sessionId != null && queuedText.sessionId.equals(nextText.sessionId)) {
+            var merged = new SseTextChunkEvent();
+            copy(nextText, merged);
+            merged.content = concat(queuedText.content, nextText.content);
+            merged.isFinalChunk = nextText.isFinalChunk;
+            return merged;
+        }
+        if (queued instanceof SseReasoningChunkEvent queuedReasoning && next instanceof SseReasoningChunkEvent nextReasoning
+                && !Boolean.TRUE.equals(queuedReasoning.isFinalChunk) && queuedReasoning.sessionId != null && queuedReasoning.sessionId.equals(nextReasoning.sessionId)) {
+            var merged = new SseReasoningChunkEvent();
+            copy(nextReasoning, merged);
+            merged.content = concat(queuedReasoning.content, nextReasoning.content);
+            merged.isFinalChunk = nextReasoning.isFinalChunk;
+            return merged;
+        }
+        return null;
+    }
+
+    private void copy(SseBaseEvent from, SseBaseEvent to) {
+        to.type = from.type;
+        to.sessionId = from.sessionId;
+        to.timestamp = from.timestamp;
+    }
+}
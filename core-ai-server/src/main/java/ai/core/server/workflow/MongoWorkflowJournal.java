@@ -55,6 +55,12 @@ public class MongoWorkflowJournal implements WorkflowJournal {
         return collection.find(Filters.eq("run_id", runId));
     }
 
+    @Override
+    public List<WorkflowNodeRun> nodeRunsSince(String runId, ZonedDateTime since) {
+        return collection.find(Filters.and(Filters.eq("run_id", runId),
+            Filters.or(Filters.gte("started_at", since), Filters.gte("completed_at", since))));
+    }
+
     @Override
     public boolean appendRunning(WorkflowRun run, WorkflowNode node, List<ScopeFrame> scopePath) {
         WorkflowNodeRun nodeRun = newNodeRun(run, node, scopePath, NodeRunStatus.RUNNING);
@@ -0,0 +1,77 @@
+package ai.core.server.workflow;
+
+import ai.core.server.domain.NodeRunStatus;
+import ai.core.server.domain.WorkflowNodeRun;
+import ai.core.server.workflow.engine.IncrementalPlanner;
+import ai.core.server.workflow.engine.WorkflowGraph;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The drive loop's in-memory copy of one scope's durable facts, kept current from journal deltas instead of a
+ * full node-run rescan per step, and folded into an {@link IncrementalPlanner}. The journal stays the source of
+ * truth: {@link #rescan} rebuilds the view from a full read, which the advancer does before finalizing a run.
+ *
+ * @author Xander
+ */
+final class RunFactView {
+    // Each delta read overlaps the previous one, so a write stamped slightly behind this replica's clock (a human
+    // resume or sub-workflow wake from another pod) is still folded. Re-applied unchanged facts are no-ops.
+    private static final Duration DELTA_OVERLAP = Duration.ofSeconds(2);
+
+    private final WorkflowGraph graph;
+    private final String runId;
+    private final WorkflowJournal journal;
+    private final String scopePathKey;
+    private final Set<String> waitingNodeIds = new HashSet<>();
+    private IncrementalPlanner planner;
+    private ZonedDateTime cursor;
+
+    RunFactView(WorkflowGraph graph, String runId, WorkflowJournal journal, String scopePathKey) {
+        this.graph = graph;
+        this.runId = runId;
+        this.journal = journal;
+        this.scopePathKey = scopePathKey;
+        this.planner = new IncrementalPlanner(graph);
+    }
+
+    /** Fold the node-runs changed since the last read; the first call reads the whole run. */
+    void refresh() {
+        ZonedDateTime readAt = ZonedDateTime.now();
+        List<WorkflowNodeRun> nodeRuns = cursor == null ? journal.nodeRuns(runId) : journal.nodeRunsSince(runId, cursor);
+        for (WorkflowNodeRun nodeRun : nodeRuns) {
+            if (Objects.equals(scopePathKey, nodeRun.scopePathKey)) {
+                planner.apply(nodeRun.nodeId, RunStateAssembler.toFact(nodeRun));
+                if (nodeRun.status == NodeRunStatus.WAITING) {
+                    waitingNodeIds.add(nodeRun.nodeId);
+                } else {
+                    waitingNodeIds.remove(nodeRun.nodeId);
+                }
+            }
+        }
+        cursor = readAt.minus(DELTA_OVERLAP);
+    }
+
+    /** Rebuild from a full read: catches anything a skewed clock kept out of the deltas. */
+    void rescan() {
+        planner = new IncrementalPlanner(graph);
+        waitingNodeIds.clear();
+        cursor = null;
+        refresh();
+    }
+
+    IncrementalPlanner planner() {
+        return planner;
+    }
+
+    // A WAITING node-run means the run is parked on human input, not stuck. WAITING projects to a RUNNING fact for
+    // edge purposes, so the planner alone can't distinguish it.
+    boolean hasWaitingNode() {
+        return !waitingNodeIds.isEmpty();
+    }
+}
@@ -1,13 +1,8 @@
 package ai.core.server.workflow;
 
-import ai.core.server.domain.NodeRunStatus;
 import ai.core.server.domain.RunStatus;
-import ai.core.server.domain.WorkflowNodeRun;
 import ai.core.server.domain.WorkflowRun;
-import ai.core.server.workflow.engine.Frontier;
-import ai.core.server.workflow.engine.NodeFactStatus;
-import ai.core.server.workflow.engine.Planner;
-import ai.core.server.workflow.engine.RunState;
+import ai.core.server.workflow.engine.IncrementalPlanner;
 import ai.core.server.workflow.engine.WorkflowGraph;
 import ai.core.server.workflow.engine.WorkflowNode;
 import org.slf4j.Logger;
@@ -33,6 +28,10 @@ import java.util.function.BooleanSupplier;
  * flight; the final status is classified from the last frontier + facts. P0 drives the root scope only;
  * container scopes (P3) extend this with a scope key.
  *
+ * <p>Planning is incremental: a {@link RunFactView} folds only the node-runs changed since its last read into an
+ * {@link IncrementalPlanner}, so a step costs the delta rather than a full journal read plus a whole-graph fold.
+ * Finalization re-reads the full journal before classifying.
+ *
  * @author Xander
  */
 public final class WorkflowAdvancer {
@@ -61,6 +60,7 @@ public final class WorkflowAdvancer {
         NodeExecutor executor = exec.executor();
         Executor pool = exec.pool();
         var inflight = new ConcurrentHashMap<String, CompletableFuture<Void>>();
+        var view = new RunFactView(graph, run.id, journal, ROOT_SCOPE_KEY);
         try {
             while (true) {
                 if (!leaseHeld.getAsBoolean()) {
@@ -69,16 +69,15 @@ public final class WorkflowAdvancer {
                 if (cancelled.getAsBoolean()) {
                     return RunStatus.CANCELLED;
                 }
-                List<WorkflowNodeRun> nodeRuns = journal.nodeRuns(run.id);
-                RunState state = RunStateAssembler.toRunState(nodeRuns, ROOT_SCOPE_KEY);
-                Frontier frontier = Planner.plan(graph, state);
+                view.refresh();
+                IncrementalPlanner planner = view.planner();
 
                 boolean progressed = false;
-                for (String skipId : frontier.skipNodeIds()) {
+                for (String skipId : planner.skipNodeIds()) {
                     journal.appendSkipped(run, graph.node(skipId), List.of());
                     progressed = true;
                 }
-                for (String readyId : frontier.readyNodeIds()) {
+                for (String readyId : planner.readyNodeIds()) {
                     WorkflowNode node = graph.node(readyId);
                     if (!journal.appendRunning(run, node, List.of())) {
                         continue;   // a concurrent dispatch already owns it (unique index)
@@ -92,14 +91,14 @@ public final class WorkflowAdvancer {
                 if (!inflight.isEmpty()) {
                     // a parked human node + in-flight siblings -> bound the wait so an out-of-band resume is re-folded
                     // promptly (concurrent approve); otherwise block until an in-flight node completes, then re-plan
-                    if (hasWaitingNode(nodeRuns)) {
+                    if (view.hasWaitingNode()) {
                         awaitAny(inflight, PARKED_HUMAN_POLL_MILLIS);
                     } else {
                         awaitAny(inflight);
                     }
                     continue;
                 }
-                RunStatus finalStatus = finalizeRun(graph, run, journal);
+                RunStatus finalStatus = finalizeRun(view);
                 if (finalStatus != null) {
                     return finalStatus;
                 }
@@ -111,14 +110,13 @@ public final class WorkflowAdvancer {
 
     // Returns null if replanning is needed (just-missed completion opened new work),
     // otherwise the final run status from classify().
-    private static RunStatus finalizeRun(WorkflowGraph graph, WorkflowRun run, WorkflowJournal journal) {
-        List<WorkflowNodeRun> finalRuns = journal.nodeRuns(run.id);
-        RunState finalState = RunStateAssembler.toRunState(finalRuns, ROOT_SCOPE_KEY);
-        Frontier finalFrontier = Planner.plan(graph, finalState);
-        if (finalFrontier.hasProgress()) {
+    private static RunStatus finalizeRun(RunFactView view) {
+        view.rescan();
+        IncrementalPlanner planner = view.planner();
+        if (planner.hasProgress()) {
             return null;   // a just-missed completion opened new work
         }
-        return classify(finalState, finalFrontier, hasWaitingNode(finalRuns));
+        return classify(planner, view.hasWaitingNode());
     }
 
     private static void dispatch(DispatchCtx dctx) {
@@ -197,32 +195,19 @@ public final class WorkflowAdvancer {
     // Terminal classification. A still-WAITING root-scope HUMAN_INPUT node wins first: the run must stay PAUSED and
     // resumable even if a sibling branch failed, so a parallel failure can never strand a pending human approval.
     // Then the original order: a real failure -> FAILED; else output reached -> COMPLETED; else genuinely stuck -> FAILED.
-    private static RunStatus classify(RunState state, Frontier frontier, boolean hasWaiting) {
+    private static RunStatus classify(IncrementalPlanner planner, boolean hasWaiting) {
         if (hasWaiting) {
             return RunStatus.PAUSED;
         }
-        boolean anyFailed = state.facts().values().stream().anyMatch(fact -> fact.status() == NodeFactStatus.FAILED);
-        if (anyFailed) {
+        if (planner.anyFailed()) {
             return RunStatus.FAILED;
         }
-        if (frontier.outputReached()) {
+        if (planner.outputReached()) {
             return RunStatus.COMPLETED;
         }
         return RunStatus.FAILED;
     }
 
-    // A WAITING node-run at the root scope means the run is parked on human input, not stuck. Derived from the same
-    // node-run snapshot the caller classified from: WAITING projects to a RUNNING fact for edge purposes, so the
-    // planner can't distinguish it, and a separate read could disagree with finalState under a concurrent settle.
-    private static boolean hasWaitingNode(List<WorkflowNodeRun> nodeRuns) {
-        for (WorkflowNodeRun nodeRun : nodeRuns) {
-            if (nodeRun.status == NodeRunStatus.WAITING && ROOT_SCOPE_KEY.equals(nodeRun.scopePathKey)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private static void awaitAny(Map<String, CompletableFuture<Void>> inflight) {
         CompletableFuture<?>[] futures = inflight.values().toArray(CompletableFuture[]::new);
         if (futures.length > 0) {
@@ -5,6 +5,7 @@ import ai.core.server.domain.WorkflowNodeRun;
 import ai.core.server.domain.WorkflowRun;
 import ai.core.server.workflow.engine.WorkflowNode;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 /**
@@ -16,6 +17,14 @@ import java.util.List;
 public interface WorkflowJournal {
     List<WorkflowNodeRun> nodeRuns(String runId);
 
+    /**
+     * Node-runs started or settled at/after {@code since}: the delta the advance loop folds into its in-memory view.
+     * Every fact-changing write stamps started_at or completed_at. Defaults to the full read, which is always correct.
+     */
+    default List<WorkflowNodeRun> nodeRunsSince(String runId, ZonedDateTime since) {
+        return nodeRuns(runId);
+    }
+
     /** Insert a RUNNING node-run; false if one already exists at this (run, node, scope) — race-safe. */
     boolean appendRunning(WorkflowRun run, WorkflowNode node, List<ScopeFrame> scopePath);
 
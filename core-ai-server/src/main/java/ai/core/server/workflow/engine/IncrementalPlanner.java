@@ -0,0 +1,130 @@
+package ai.core.server.workflow.engine;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The {@link Planner} fold kept live across fact changes. Applying a node's fact re-derives only that node's
+ * out-edge verdicts and re-evaluates only the targets whose in-edge verdict moved, so a pass costs
+ * O(out-degree + in-degree of the changed node) instead of O(nodes + edges). After any sequence of
+ * {@link #apply} calls the frontier equals {@code Planner.plan(graph, state)} over the same facts, including
+ * non-monotone changes such as an orphan RUNNING node reset to FAILED or a fact removed by a resume.
+ *
+ * <p>Not thread-safe: owned by the single drive thread of one run.
+ *
+ * @author Xander
+ */
+public final class IncrementalPlanner {
+    private final WorkflowGraph graph;
+    private final Map<String, NodeFact> facts = new HashMap<>();
+    private final Map<String, EdgeVerdict> verdicts;
+    private final Set<String> ready = new LinkedHashSet<>();
+    private final Set<String> skip = new LinkedHashSet<>();
+    private final Set<String> completedSinks = new HashSet<>();
+
+    public IncrementalPlanner(WorkflowGraph graph) {
+        this.graph = graph;
+        this.verdicts = HashMap.newHashMap(graph.edges().size());
+        for (WorkflowEdge edge : graph.edges()) {
+            verdicts.put(edge.id(), EdgeVerdict.PENDING);
+        }
+        for (WorkflowNode node : graph.nodes()) {
+            evaluate(node.id());
+        }
+    }
+
+    /**
+     * Record the current fact of a node ({@code null} = the node has no node-run). Returns false when the fact
+     * is unchanged, so re-applying an overlapping journal delta is a no-op.
+     */
+    public boolean apply(String nodeId, NodeFact fact) {
+        NodeFact previous = fact == null ? facts.remove(nodeId) : facts.put(nodeId, fact);
+        if (Objects.equals(previous, fact)) {
+            return false;
+        }
+        evaluate(nodeId);
+        for (WorkflowEdge edge : graph.outEdges(nodeId)) {
+            EdgeVerdict verdict = Planner.deriveVerdict(fact, edge);
+            if (verdicts.put(edge.id(), verdict) != verdict) {
+                evaluate(edge.target());
+            }
+        }
+        return true;
+    }
+
+    public NodeFact factOf(String nodeId) {
+        return facts.get(nodeId);
+    }
+
+    public boolean anyFailed() {
+        for (NodeFact fact : facts.values()) {
+            if (fact.status() == NodeFactStatus.FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> readyNodeIds() {
+        return List.copyOf(ready);
+    }
+
+    public List<String> skipNodeIds() {
+        return List.copyOf(skip);
+    }
+
+    public boolean outputReached() {
+        return !completedSinks.isEmpty();
+    }
+
+    public boolean hasProgress() {
+        return !ready.isEmpty() || !skip.isEmpty();
+    }
+
+    /** The full frontier, including a copy of every edge verdict; the advance loop uses the cheaper accessors. */
+    public Frontier frontier() {
+        return new Frontier(ready, skip, verdicts, outputReached());
+    }
+
+    // Same per-node predicate as Planner.plan, over the maintained verdicts.
+    private void evaluate(String nodeId) {
+        ready.remove(nodeId);
+        skip.remove(nodeId);
+        completedSinks.remove(nodeId);
+        if (graph.node(nodeId) == null) {
+            return;   // facts of nodes outside this graph feed their out-edges only, as in the full fold
+        }
+        NodeFact fact = facts.get(nodeId);
+        if (fact != null) {
+            if (fact.status() == NodeFactStatus.COMPLETED && graph.outEdges(nodeId).isEmpty()) {
+                completedSinks.add(nodeId);
+            }
+            return;
+        }
+        List<WorkflowEdge> ins = graph.inEdges(nodeId);
+        if (ins.isEmpty()) {
+            ready.add(nodeId);
+            return;
+        }
+        boolean anyActive = false;
+        for (WorkflowEdge edge : ins) {
+            EdgeVerdict verdict = verdicts.get(edge.id());
+            if (verdict == EdgeVerdict.PENDING) {
+                return;
+            }
+            if (verdict == EdgeVerdict.ACTIVE) {
+                anyActive = true;
+            }
+        }
+        if (anyActive) {
+            ready.add(nodeId);
+        } else {
+            skip.add(nodeId);
+        }
+    }
+}
@@ -15,6 +15,9 @@ import java.util.Set;
  * makes parallel fan-out, branch, join and skip-propagation a single deadlock-free mechanism (the lattice
  * is monotone: an edge moves PENDING to ACTIVE/SKIPPED exactly once, never back).
  *
+ * <p>{@link IncrementalPlanner} maintains the same frontier across fact changes for the advance loop; this full
+ * fold stays the reference it must agree with.
+ *
  * @author Xander
  */
 public final class Planner {
@@ -67,7 +70,7 @@ public final class Planner {
         return new Frontier(ready, skip, verdicts, outputReached);
     }
 
-    private static EdgeVerdict deriveVerdict(NodeFact source, WorkflowEdge edge) {
+    static EdgeVerdict deriveVerdict(NodeFact source, WorkflowEdge edge) {
         if (source == null) {
             return EdgeVerdict.PENDING;
         }
@@ -16,8 +16,14 @@ import ai.core.tool.ToolCallResult;
 import core.framework.inject.Inject;
 import core.framework.json.JSON;
 import core.framework.mongo.MongoCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.LinkedHashMap;
@@ -45,6 +51,7 @@ import java.util.Map;
  * @author Xander
  */
 public class CodeExecutor implements NodeExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CodeExecutor.class);
     private static final String PYTHON_TOOL = "run_python_script";
     static final String RESULT_SENTINEL = "__WORKFLOW_CODE_NODE_RESULT__";
     // The \\n inside the text block reaches Python as the two-char escape, so print emits a real leading
@@ -169,7 +176,7 @@ public class CodeExecutor implements NodeExecutor {
         }
         for (StagedFile file : stagedFiles) {
             try {
-                sandbox.uploadFile(file.targetPath(), fileService.getBytes(fileService.get(file.fileId())));
+                stageFile(sandbox, file);
             } catch (RuntimeException e) {
                 // deterministic, retryable: failing fast beats running the script against a missing input file
                 return new NodeOutcome.Fail("failed to stage input file " + file.fileName() + ": " + e.getMessage(), true);
@@ -180,4 +187,24 @@ public class CodeExecutor implements NodeExecutor {
         ToolCallResult result = sandbox.execute(PYTHON_TOOL, JSON.toJSON(Map.of("code", script)), exec);
         return toOutcome(result);
     }
+
+    // streamed through a temp file so a large input never sits on heap
+    private void stageFile(Sandbox sandbox, StagedFile file) {
+        Path temp;
+        try {
+            temp = Files.createTempFile("workflow-stage-", ".bin");
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to create temp file", e);
+        }
+        try {
+            fileService.downloadToFile(fileService.get(file.fileId()), temp);
+            sandbox.uploadFile(file.targetPath(), temp);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                LOGGER.warn("failed to delete temp file, path={}", temp, e);
+            }
+        }
+    }
 }
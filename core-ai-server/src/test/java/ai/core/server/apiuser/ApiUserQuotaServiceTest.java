@@ -0,0 +1,125 @@
+package ai.core.server.apiuser;
+
+import ai.core.server.domain.User;
+import core.framework.mongo.MongoCollection;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author stephen
+ */
+class ApiUserQuotaServiceTest {
+    private final MongoCollection<User> userCollection;
+    private final ApiUserQuotaService service;
+
+    ApiUserQuotaServiceTest() {
+        @SuppressWarnings("unchecked")
+        MongoCollection<User> collection = mock(MongoCollection.class);
+        userCollection = collection;
+        service = new ApiUserQuotaService();
+        service.userCollection = userCollection;
+        service.leaseTtl = Duration.ofMinutes(1);
+        service.overshootTolerance = 100;
+    }
+
+    private User user(Long inputQuota, long consumedInput) {
+        var user = new User();
+        user.id = "user-1";
+        user.quotaInputTokens = inputQuota;
+        user.quotaConsumedInputTokens = consumedInput;
+        user.quotaConsumedOutputTokens = 0L;
+        user.quotaWindowStart = ZonedDateTime.now();
+        return user;
+    }
+
+    @Test
+    void checkFromLeaseWithoutReadingMongoAgain() {
+        when(userCollection.get("user-1")).thenReturn(Optional.of(user(10_000L, 0)));
+
+        service.checkQuota("user-1");
+        service.recordUsage("user-1", 500, 20);
+        service.checkQuota("user-1");
+        service.checkQuota("user-1");
+
+        verify(userCollection, times(1)).get("user-1");
+        verify(userCollection, never()).update(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    void flushAggregatedUsageAsOneIncrementPerCounter() {
+        when(userCollection.get("user-1")).thenReturn(Optional.of(user(10_000L, 0)));
+        service.checkQuota("user-1");
+        for (int i = 0; i < 5; i++) service.recordUsage("user-1", 100, 10);
+
+        service.flush();
+        service.flush();
+
+        verify(userCollection, times(2)).update(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    void retryOnlyTheCounterThatFailedToFlush() {
+        when(userCollection.get("user-1")).thenReturn(Optional.of(user(10_000L, 0)));
+        service.checkQuota("user-1");
+        service.recordUsage("user-1", 500, 50);
+        when(userCollection.update(any(Bson.class), argThat(update -> update.toString().contains("quota_consumed_output_tokens"))))
+            .thenThrow(new IllegalStateException("socket timeout"))
+            .thenReturn(1L);
+
+        service.flush();
+        service.flush();
+
+        var updates = ArgumentCaptor.forClass(Bson.class);
+        verify(userCollection, times(3)).update(any(Bson.class), updates.capture());
+        assertEquals(List.of("quota_consumed_input_tokens=500", "quota_consumed_output_tokens=50", "quota_consumed_output_tokens=50"),
+            updates.getAllValues().stream().map(this::increment).toList());
+    }
+
+    @Test
+    void rejectOnceLocalUsageReachesLimit() {
+        when(userCollection.get("user-1")).thenReturn(Optional.of(user(1_000L, 0)));
+        service.checkQuota("user-1");
+
+        service.recordUsage("user-1", 1_000, 0);
+        when(userCollection.get("user-1")).thenReturn(Optional.of(user(1_000L, 1_000)));
+
+        assertThrows(QuotaExceededException.class, () -> service.checkQuota("user-1"));
+        // near the limit the check flushed the pending usage and read mongo again
+        verify(userCollection, times(2)).get("user-1");
+        verify(userCollection, times(1)).update(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    void skipUsageOfUnconfiguredUsers() {
+        when(userCollection.get("user-1")).thenReturn(Optional.of(user(null, 0)));
+
+        assertDoesNotThrow(() -> service.checkQuota("user-1"));
+        service.recordUsage("user-1", 1_000_000, 1_000_000);
+        service.flush();
+
+        verify(userCollection, never()).update(any(Bson.class), any(Bson.class));
+    }
+
+    private String increment(Bson update) {
+        var inc = update.toBsonDocument().getDocument("$inc");
+        var field = inc.getFirstKey();
+        return field + "=" + inc.getNumber(field).longValue();
+    }
+}
@@ -7,13 +7,12 @@ import ai.core.server.channel.ChannelRegistry;
 import ai.core.server.domain.NotificationCategory;
 import ai.core.server.domain.NotificationType;
 import ai.core.server.notification.NotificationService;
-import ai.core.server.trace.domain.Trace;
+import ai.core.server.trace.domain.UsageRollup;
 import com.mongodb.DuplicateKeyException;
 import core.framework.json.JSON;
-import core.framework.mongo.Aggregate;
 import core.framework.mongo.MongoCollection;
 import core.framework.mongo.Query;
-import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
@@ -38,42 +37,26 @@ import static org.mockito.Mockito.when;
  * @author stephen
  */
 class CostAlertServiceTest {
-    private static final org.bson.codecs.configuration.CodecRegistry CODEC_REGISTRY =
-        org.bson.codecs.configuration.CodecRegistries.fromRegistries(
-            org.bson.codecs.configuration.CodecRegistries.fromCodecs(
-                new core.framework.mongo.impl.ZonedDateTimeCodec(),
-                new core.framework.mongo.impl.LocalDateCodec(),
-                new core.framework.mongo.impl.LocalDateTimeCodec()),
-            com.mongodb.MongoClientSettings.getDefaultCodecRegistry());
-
     private static String notificationTargets() {
         return JSON.toJSON(List.of(Map.of("type", "notification", "userId", "user-1")));
     }
 
-    private static Document row(double costUsd) {
-        return new Document("cost_usd", costUsd)
-            .append("total_tokens", 2000L)
-            .append("input_tokens", 1500L)
-            .append("output_tokens", 500L)
-            .append("call_count", 7L);
-    }
-
-    private static boolean filtersBy(Aggregate<?> aggregate, String field, String value) {
-        var doc = aggregate.pipeline.get(0).toBsonDocument(org.bson.BsonDocument.class, CODEC_REGISTRY);
-        var match = (org.bson.BsonDocument) doc.get("$match");
-        if (match.containsKey("$and")) {
-            var merged = new org.bson.BsonDocument();
-            for (var clause : match.getArray("$and")) {
-                merged.putAll((org.bson.BsonDocument) clause);
-            }
-            match = merged;
-        }
-        return match.containsKey(field) && value.equals(match.getString(field).getValue());
+    private static UsageRollup rollup(String userId, String agentId, double costUsd, long totalTokens) {
+        var rollup = new UsageRollup();
+        rollup.granularity = UsageRollup.DAY;
+        rollup.userId = userId;
+        rollup.agentId = agentId;
+        rollup.costUsd = costUsd;
+        rollup.totalTokens = totalTokens;
+        rollup.inputTokens = totalTokens * 3 / 4;
+        rollup.outputTokens = totalTokens / 4;
+        rollup.callCount = 7L;
+        return rollup;
     }
 
     private final MongoCollection<CostAlertRule> ruleCollection;
     private final MongoCollection<CostAlertEvent> eventCollection;
-    private final MongoCollection<Trace> traceCollection;
+    private final MongoCollection<UsageRollup> usageRollupCollection;
     private final ChannelConfigStore channelConfigStore;
     private final ChannelRegistry channelRegistry;
     private final NotificationService notificationService;
@@ -88,8 +71,8 @@ class CostAlertServiceTest {
         MongoCollection<CostAlertEvent> events = mock(MongoCollection.class);
         eventCollection = events;
         @SuppressWarnings("unchecked")
-        MongoCollection<Trace> traces = mock(MongoCollection.class);
-        traceCollection = traces;
+        MongoCollection<UsageRollup> rollups = mock(MongoCollection.class);
+        usageRollupCollection = rollups;
         channelConfigStore = mock(ChannelConfigStore.class);
         channelRegistry = mock(ChannelRegistry.class);
         notificationService = mock(NotificationService.class);
@@ -98,7 +81,7 @@ class CostAlertServiceTest {
         service = new CostAlertService();
         service.ruleCollection = ruleCollection;
         service.eventCollection = eventCollection;
-        service.traceCollection = traceCollection;
+        service.usageRollupCollection = usageRollupCollection;
         service.channelConfigStore = channelConfigStore;
         service.channelRegistry = channelRegistry;
         service.notificationService = notificationService;
@@ -109,7 +92,7 @@ class CostAlertServiceTest {
     @Test
     void belowThresholdDoesNotFire() {
         rule(CostAlertMetric.COST_USD, CostAlertScope.GLOBAL, "", 100.0, notificationTargets());
-        when(traceCollection.aggregate(any())).thenReturn(List.of(row(50.0)));
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(rollup("u-1", "agent-1", 50.0, 2000L)));
 
         service.check(LocalDate.of(2026, 8, 12));
 
@@ -120,7 +103,7 @@ class CostAlertServiceTest {
     @Test
     void costExceedsThresholdFiresForYesterdayAndToday() {
         rule(CostAlertMetric.COST_USD, CostAlertScope.GLOBAL, "", 100.0, notificationTargets());
-        when(traceCollection.aggregate(any())).thenReturn(List.of(row(150.0)));
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(rollup("u-1", "agent-1", 100.0, 2000L), rollup("u-2", "agent-1", 50.0, 1000L)));
 
         service.check(LocalDate.of(2026, 8, 12));
 
@@ -133,7 +116,7 @@ class CostAlertServiceTest {
     @Test
     void duplicateEventSkipsResend() {
         rule(CostAlertMetric.COST_USD, CostAlertScope.GLOBAL, "", 100.0, notificationTargets());
-        when(traceCollection.aggregate(any())).thenReturn(List.of(row(150.0)));
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(rollup("u-1", "agent-1", 100.0, 2000L), rollup("u-2", "agent-1", 50.0, 1000L)));
         doThrow(mock(DuplicateKeyException.class)).when(eventCollection).insert(any(CostAlertEvent.class));
 
         service.check(LocalDate.of(2026, 8, 12));
@@ -144,20 +127,30 @@ class CostAlertServiceTest {
     @Test
     void userScopeAggregatesByUserId() {
         rule(CostAlertMetric.COST_USD, CostAlertScope.USER, "u-1", 100.0, notificationTargets());
-        // aggregate result depends on the user filter: only a user-scoped match returns an over-threshold row
-        when(traceCollection.aggregate(any())).thenAnswer(inv ->
-            filtersBy(inv.getArgument(0), "user_id", "u-1") ? List.of(row(150.0)) : List.of(row(50.0)));
+        // only u-1 is over the threshold, the global total of both users must not count for it
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(
+            rollup("u-1", "agent-1", 80.0, 2000L), rollup("u-1", "agent-2", 70.0, 2000L), rollup("u-2", "agent-1", 50.0, 2000L)));
 
         service.check(LocalDate.of(2026, 8, 12));
 
         verify(notificationService, times(2)).create(any(), any(), any(), any(), any(), any());
     }
 
+    @Test
+    void userScopeWithoutUsageDoesNotFire() {
+        rule(CostAlertMetric.COST_USD, CostAlertScope.USER, "u-3", 100.0, notificationTargets());
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(rollup("u-1", "agent-1", 150.0, 2000L)));
+
+        service.check(LocalDate.of(2026, 8, 12));
+
+        verify(eventCollection, never()).insert(any(CostAlertEvent.class));
+    }
+
     @Test
     void agentScopeAggregatesByAgentId() {
         rule(CostAlertMetric.TOTAL_TOKENS, CostAlertScope.AGENT, "agent-1", 1000.0, notificationTargets());
-        when(traceCollection.aggregate(any())).thenAnswer(inv ->
-            filtersBy(inv.getArgument(0), "agent_id", "agent-1") ? List.of(row(2000.0)) : List.of(row(500.0)));
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(
+            rollup("u-1", "agent-1", 1.0, 1200L), rollup("u-2", "agent-1", 1.0, 800L), rollup("u-1", "agent-2", 1.0, 500L)));
 
         service.check(LocalDate.of(2026, 8, 12));
 
@@ -176,7 +169,7 @@ class CostAlertServiceTest {
 
         rule(CostAlertMetric.COST_USD, CostAlertScope.GLOBAL, "", 100.0,
             JSON.toJSON(List.of(Map.of("type", "channel", "channelId", "c1", "recipient", "C123"))));
-        when(traceCollection.aggregate(any())).thenReturn(List.of(row(150.0)));
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(rollup("u-1", "agent-1", 100.0, 2000L), rollup("u-2", "agent-1", 50.0, 1000L)));
 
         service.check(LocalDate.of(2026, 8, 12));
 
@@ -195,7 +188,7 @@ class CostAlertServiceTest {
 
         rule(CostAlertMetric.COST_USD, CostAlertScope.GLOBAL, "", 100.0,
             JSON.toJSON(List.of(Map.of("type", "channel", "channelId", "c1", "recipient", "C123"))));
-        when(traceCollection.aggregate(any())).thenReturn(List.of(row(150.0)));
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(rollup("u-1", "agent-1", 100.0, 2000L), rollup("u-2", "agent-1", 50.0, 1000L)));
 
         service.check(LocalDate.of(2026, 8, 12));
 
@@ -205,7 +198,7 @@ class CostAlertServiceTest {
     @Test
     void invalidTargetsJsonDoesNotBreakCheck() {
         rule(CostAlertMetric.COST_USD, CostAlertScope.GLOBAL, "", 100.0, "{not-json");
-        when(traceCollection.aggregate(any())).thenReturn(List.of(row(150.0)));
+        when(usageRollupCollection.find(any(Bson.class))).thenReturn(List.of(rollup("u-1", "agent-1", 100.0, 2000L), rollup("u-2", "agent-1", 50.0, 1000L)));
 
         service.check(LocalDate.of(2026, 8, 12));
 
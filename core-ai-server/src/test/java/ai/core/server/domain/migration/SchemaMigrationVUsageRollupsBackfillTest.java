@@ -0,0 +1,45 @@
+package ai.core.server.domain.migration;
+
+import core.framework.mongo.Mongo;
+
+import org.bson.Document;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SchemaMigrationVUsageRollupsBackfillTest {
+    @Test
+    void mergesDayAndMinuteBucketsOfYesterdayAndTodayFromTraces() {
+        var mongo = mock(Mongo.class);
+
+        new SchemaMigrationVUsageRollupsBackfill().migrate(mongo);
+
+        var commands = ArgumentCaptor.forClass(Document.class);
+        verify(mongo, times(2)).runCommand(commands.capture());
+        var yesterday = Date.from(ZonedDateTime.now(ZoneId.of("UTC")).truncatedTo(ChronoUnit.DAYS).minusDays(1).toInstant());
+        for (var command : commands.getAllValues()) {
+            assertEquals("traces", command.getString("aggregate"));
+            var pipeline = command.getList("pipeline", Document.class);
+            var startedAt = pipeline.getFirst().get("$match", Document.class).get("started_at", Document.class);
+            assertEquals(yesterday, startedAt.get("$gte"));
+            var merge = pipeline.getLast().get("$merge", Document.class);
+            assertEquals("usage_rollups", merge.getString("into"));
+            assertEquals("keepExisting", merge.getString("whenMatched"));
+        }
+        var granularities = commands.getAllValues().stream()
+            .map(command -> command.getList("pipeline", Document.class).get(2).get("$project", Document.class).get("granularity", Document.class).getString("$literal"))
+            .toList();
+        assertEquals(List.of("day", "minute"), granularities);
+    }
+}
@@ -49,20 +49,45 @@ class GatewayRoutingEngineTest {
         assertNull(engine.defaultChatModelId());
     }
 
+    @Test
+    void routeSpreadsSamePriorityDuplicatesByOutstandingRequests() {
+        var engine = engine(List.of(model("shared", "provider-1", 100), model("shared", "provider-2", 100)));
+
+        var first = engine.route("shared", GatewayEndpointType.CHAT_COMPLETIONS);
+        assertEquals("provider-1", first.provider().id);
+        try (var call = engine.routeStats.start(first.provider(), first.upstreamModel())) {
+            call.responded(200);
+            assertEquals("provider-2", engine.route("shared", GatewayEndpointType.CHAT_COMPLETIONS).provider().id);
+        }
+    }
+
+    @Test
+    void routeSkipsThrottledDuplicateAndFailsOverToLowerPriority() {
+        var engine = engine(List.of(model("shared", "provider-1", 10), model("shared", "provider-2", 50)));
+
+        var primary = engine.route("shared", GatewayEndpointType.CHAT_COMPLETIONS);
+        assertEquals("provider-1", primary.provider().id);
+        try (var call = engine.routeStats.start(primary.provider(), primary.upstreamModel())) {
+            call.failed(new RuntimeException("invalid sse response, statusCode=429"));
+        }
+
+        assertEquals("provider-2", engine.route("shared", GatewayEndpointType.CHAT_COMPLETIONS).provider().id);
+    }
+
     @SuppressWarnings("unchecked")
     private GatewayRoutingEngine engine(List<GatewayModelConfig> models) {
         var engine = new GatewayRoutingEngine();
         engine.gatewayProviderCollection = (MongoCollection<GatewayProviderConfig>) mock(MongoCollection.class);
         engine.gatewayModelCollection = (MongoCollection<GatewayModelConfig>) mock(MongoCollection.class);
-        when(engine.gatewayProviderCollection.find(any(Query.class))).thenReturn(List.of(provider()));
+        when(engine.gatewayProviderCollection.find(any(Query.class))).thenReturn(List.of(provider("provider-1"), provider("provider-2")));
         when(engine.gatewayModelCollection.find(any(Query.class))).thenReturn(models);
         return engine;
     }
 
-    private GatewayProviderConfig provider() {
+    private GatewayProviderConfig provider(String id) {
         var provider = new GatewayProviderConfig();
-        provider.id = "provider-1";
-        provider.name = "provider-1";
+        provider.id = id;
+        provider.name = id;
         provider.type = "litellm";
         provider.enabled = Boolean.TRUE;
         return provider;
@@ -80,4 +105,11 @@ class GatewayRoutingEngineTest {
         model.priority = priority;
         return model;
     }
+
+    private GatewayModelConfig model(String modelId, String providerId, long priority) {
+        var model = model(modelId, false, priority);
+        model.id = modelId + "@" + providerId;
+        model.providerId = providerId;
+        return model;
+    }
 }
@@ -0,0 +1,84 @@
+package ai.core.server.memory;
+
+import ai.core.server.memory.experiment.MemoryLayer;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author stephen
+ */
+class MemorySearchIndexTest {
+    private static AgentMemory memory(String id, MemoryLayer layer, String content, int ageDays) {
+        var memory = new AgentMemory();
+        memory.id = id;
+        memory.agentId = "agent-1";
+        memory.layer = layer;
+        memory.content = content;
+        memory.createdAt = ZonedDateTime.now().minusDays(ageDays);
+        return memory;
+    }
+
+    private static List<String> ids(List<AgentMemory> memories) {
+        return memories.stream().map(memory -> memory.id).toList();
+    }
+
+    @Test
+    void tokenizeWordsAndCJKBigrams() {
+        assertThat(MemorySearchIndex.tokenize("OAuth2 token-refresh, API!")).containsExactly("oauth2", "token", "refresh", "api");
+        assertThat(MemorySearchIndex.tokenize("餐厅SEO关键词")).containsExactly("餐厅", "seo", "关键", "键词");
+        assertThat(MemorySearchIndex.tokenize("?? !!")).isEmpty();
+    }
+
+    @Test
+    void rankByRelevanceAndFilterLayer() {
+        var stored = List.of(
+                memory("m1", MemoryLayer.METHODS, "use the search tool before writing the report", 1),
+                memory("m2", MemoryLayer.METHODS, "refresh the api token before calling the api, api tokens expire hourly", 3),
+                memory("t1", MemoryLayer.TRAJECTORIES, "session fixed an expired api token and retried", 2),
+                memory("k1", MemoryLayer.KNOWLEDGE, "api token knowledge is injected, never searched", 0));
+        var index = new MemorySearchIndex(agentId -> stored, 10);
+
+        assertThat(ids(index.search("agent-1", MemorySearchIndex.tokenize("api token"), null, 5))).containsExactly("m2", "t1");
+        assertThat(ids(index.search("agent-1", MemorySearchIndex.tokenize("api token"), MemoryLayer.TRAJECTORIES, 5))).containsExactly("t1");
+        assertThat(index.search("agent-1", MemorySearchIndex.tokenize("unrelated"), null, 5)).isEmpty();
+    }
+
+    @Test
+    void applyWritesWithoutReloading() {
+        var loads = new AtomicInteger();
+        var stored = new ArrayList<AgentMemory>();
+        stored.add(memory("m1", MemoryLayer.METHODS, "deploy with the blue green workflow", 1));
+        var index = new MemorySearchIndex(agentId -> {
+            loads.incrementAndGet();
+            return List.copyOf(stored);
+        }, 10);
+
+        assertThat(ids(index.search("agent-1", List.of("deploy"), null, 5))).containsExactly("m1");
+        index.add("agent-1", memory("m2", MemoryLayer.TRAJECTORIES, "deploy failed on missing secret", 0));
+        index.remove("m1");
+
+        assertThat(ids(index.search("agent-1", List.of("deploy"), null, 5))).containsExactly("m2");
+        assertThat(loads.get()).isEqualTo(1);
+
+        index.invalidate("agent-1");
+        assertThat(ids(index.search("agent-1", List.of("deploy"), null, 5))).containsExactly("m1");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void keepMostRecentlySearchedAgents() {
+        var index = new MemorySearchIndex(agentId -> List.of(), 2);
+        index.search("a", List.of("x"), null, 5);
+        index.search("b", List.of("x"), null, 5);
+        index.search("a", List.of("x"), null, 5);
+        index.search("c", List.of("x"), null, 5);
+
+        assertThat(index.indexedAgents()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,128 @@
+package ai.core.server.messaging;
+
+import ai.core.api.server.session.sse.SseErrorEvent;
+import ai.core.api.server.session.sse.SseStatusChangeEvent;
+import ai.core.api.server.session.sse.SseTextChunkEvent;
+import ai.core.api.server.session.sse.SseToolStartEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventPublisherTest {
+    private final Connection client = mock(Connection.class);
+
+    @Test
+    void coalescesChunksAndFlushesThemAheadOfOtherEvents() {
+        var publisher = new EventPublisher(jedisPool(), Duration.ofHours(1), Integer.MAX_VALUE);
+        publisher.start();
+        try {
+            publisher.publish("s-1", chunk("Hel"));
+            publisher.publish("s-1", chunk("lo"));
+            publisher.publish("s-1", new SseToolStartEvent());
+
+            verify(client, timeout(5000).times(2)).getOne();
+            var channels = ArgumentCaptor.forClass(String.class);
+            var messages = ArgumentCaptor.forClass(String.class);
+            verify(client, times(2)).sendCommand(eq(Protocol.Command.PUBLISH), channels.capture(), messages.capture());
+            assertEquals(List.of("coreai:sse:s-1", "coreai:sse:s-1"), channels.getAllValues());
+            assertTrue(messages.getAllValues().get(0).startsWith("SseTextChunkEvent\n"));
+            assertTrue(messages.getAllValues().get(0).contains("\"Hello\""));
+            assertTrue(messages.getAllValues().get(1).startsWith("SseToolStartEvent\n"));
+        } finally {
+            publisher.stop();
+        }
+    }
+
+    @Test
+    void flushesChunksWhenPendingBytesExceedLimit() {
+        var publisher = new EventPublisher(jedisPool(), Duration.ofHours(1), 4);
+        publisher.start();
+        try {
+            publisher.publish("s-1", chunk("ab"));
+            publisher.publish("s-1", chunk("cd"));
+
+            verify(client, timeout(5000)).sendCommand(eq(Protocol.Command.PUBLISH), anyString(), anyString());
+        } finally {
+            publisher.stop();
+        }
+    }
+
+    @Test
+    void publishesSynchronouslyWhenNotStarted() {
+        var publisher = new EventPublisher(jedisPool());
+
+        publisher.publish("s-1", chunk("a"));
+        publisher.publish("s-1", chunk("b"));
+
+        verify(client, times(2)).sendCommand(eq(Protocol.Command.PUBLISH), anyString(), anyString());
+    }
+
+    @Test
+    void retriesOnlyUnacknowledgedEvents() {
+        when(client.getOne()).thenReturn(1L).thenThrow(new JedisConnectionException("connection reset")).thenReturn(1L);
+        var publisher = new EventPublisher(jedisPool(), Duration.ofHours(1), Integer.MAX_VALUE);
+        publisher.start();
+        publisher.publish("s-1", chunk("a"));
+        publisher.publish("s-2", chunk("b"));
+
+        publisher.stop();
+
+        verify(client, times(1)).sendCommand(eq(Protocol.Command.PUBLISH), eq("coreai:sse:s-1"), anyString());
+        verify(client, times(2)).sendCommand(eq(Protocol.Command.PUBLISH), eq("coreai:sse:s-2"), anyString());
+    }
+
+    @Test
+    void requeuesUndeliveredEventsAheadOfNewerOnes() {
+        var failure = new JedisConnectionException("connection refused");
+        when(client.getOne()).thenThrow(failure, failure).thenReturn(1L);
+        var publisher = new EventPublisher(jedisPool());
+
+        assertThrows(IllegalStateException.class, () -> publisher.publish("s-1", new SseErrorEvent()));
+        publisher.publish("s-1", new SseStatusChangeEvent());
+
+        var messages = ArgumentCaptor.forClass(String.class);
+        verify(client, times(4)).sendCommand(eq(Protocol.Command.PUBLISH), eq("coreai:sse:s-1"), messages.capture());
+        assertEquals(List.of("SseErrorEvent", "SseErrorEvent", "SseErrorEvent", "SseStatusChangeEvent"),
+                messages.getAllValues().stream().map(message -> message.substring(0, message.indexOf('\n'))).toList());
+    }
+
+    @Test
+    void utf8Length() {
+        assertEquals(0, EventPublisher.utf8Length(null));
+        assertEquals(3, EventPublisher.utf8Length("abc"));
+        assertEquals(2 + 3 + 4, EventPublisher.utf8Length("é中😀"));
+    }
+
+    private JedisPool jedisPool() {
+        var jedis = mock(Jedis.class);
+        when(jedis.getConnection()).thenReturn(client);
+        var jedisPool = mock(JedisPool.class);
+        when(jedisPool.getResource()).thenReturn(jedis);
+        return jedisPool;
+    }
+
+    private SseTextChunkEvent chunk(String content) {
+        var event = new SseTextChunkEvent();
+        event.content = content;
+        event.isFinalChunk = Boolean.FALSE;
+        return event;
+    }
+}
@@ -0,0 +1,32 @@
+package ai.core.server.messaging;
+
+import ai.core.server.web.sse.SessionChannelService;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventSubscriberTest {
+    @Test
+    void lateCloseNotificationKeepsReconnectedSessionSubscribed() {
+        var service = mock(SessionChannelService.class);
+        var subscriber = new EventSubscriber(mock(JedisPool.class), service);
+        var pubSub = mock(JedisPubSub.class);
+
+        // the session was closed and reconnected before the close notification arrives
+        when(service.hasSession("s-1")).thenReturn(true);
+        subscriber.sync(pubSub, "s-1");
+
+        verify(pubSub).subscribe("coreai:sse:s-1");
+        verify(pubSub, never()).unsubscribe("coreai:sse:s-1");
+
+        when(service.hasSession("s-1")).thenReturn(false);
+        subscriber.sync(pubSub, "s-1");
+
+        verify(pubSub).unsubscribe("coreai:sse:s-1");
+    }
+}
@@ -0,0 +1,135 @@
+package ai.core.server.sandbox;
+
+import ai.core.agent.ExecutionContext;
+import ai.core.llm.streaming.StreamingCallback;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author stephen
+ */
+class SandboxExecutionStreamTest {
+    private HttpServer server;
+    private HttpClient httpClient;
+    private SandboxExecutionStream stream;
+    private StreamingCallback callback;
+    private ExecutionContext context;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        stream = new SandboxExecutionStream("http://127.0.0.1:" + server.getAddress().getPort(), Duration.ofSeconds(10), httpClient);
+        callback = mock(StreamingCallback.class);
+        context = mock(ExecutionContext.class);
+        when(context.getStreamingCallback()).thenReturn(callback);
+        when(context.getCurrentToolCallId()).thenReturn("call-1");
+    }
+
+    @AfterEach
+    void stopServer() {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void forwardsOutputAndReturnsPushedResult() {
+        server.createContext("/execute/stream", exchange -> respond(exchange, 200, """
+                {"type":"output","stream":"stdout","data":"> Task :compileJava\\n"}
+                {"type":"heartbeat"}
+                {"type":"output","stream":"stderr","data":"warning: unchecked\\n"}
+                {"type":"result","status":"completed","result":"BUILD SUCCESSFUL","duration_ms":1200}
+                """));
+
+        var response = stream.execute("run_bash_command", "{}", context);
+
+        assertEquals("completed", response.status);
+        assertEquals("BUILD SUCCESSFUL", response.result);
+        assertEquals(1200L, response.durationMs);
+        var order = inOrder(callback);
+        order.verify(callback).onOutput("bash", "call-1", "> Task :compileJava\n");
+        order.verify(callback).onOutput("bash", "call-1", "warning: unchecked\n");
+    }
+
+    @Test
+    void fallsBackWhenRuntimeDoesNotStream() {
+        server.createContext("/execute/stream", exchange -> respond(exchange, 404, "404 page not found"));
+
+        assertNull(stream.execute("run_python_script", "{}", context));
+        assertNull(stream.execute("read_file", "{}", context));
+    }
+
+    @Test
+    void failsWhenStreamEndsWithoutResult() {
+        server.createContext("/execute/stream", exchange -> respond(exchange, 200, """
+                {"type":"output","stream":"stdout","data":"partial"}
+                """));
+
+        assertThrows(UncheckedIOException.class, () -> stream.execute("run_bash_command", "{}", context));
+    }
+
+    @Test
+    void timesOutWhenRuntimeStopsWriting() {
+        var stalled = new CountDownLatch(1);
+        server.createContext("/execute/stream", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("{\"type\":\"output\",\"stream\":\"stdout\",\"data\":\"started\\n\"}\n".getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseBody().flush();
+            try {
+                stalled.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        var idleStream = new SandboxExecutionStream("http://127.0.0.1:" + server.getAddress().getPort(), Duration.ofSeconds(10), Duration.ofMillis(200), httpClient);
+
+        try {
+            var response = idleStream.execute("run_bash_command", "{}", context);
+
+            assertEquals("timeout", response.status);
+            assertEquals("no data from sandbox for 200ms", response.result);
+        } finally {
+            stalled.countDown();
+        }
+    }
+
+    @Test
+    void async() {
+        assertTrue(SandboxExecutionStream.async("{\"code\":\"train()\",\"async\":true}"));
+        assertFalse(SandboxExecutionStream.async("{\"code\":\"train()\",\"async\":\"true\"}"));
+        assertFalse(SandboxExecutionStream.async("{\"command\":\"gradle build\"}"));
+        assertFalse(SandboxExecutionStream.async("not json"));
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
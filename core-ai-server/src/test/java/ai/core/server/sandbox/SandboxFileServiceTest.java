@@ -15,13 +15,22 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
 import java.time.ZonedDateTime;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -42,13 +51,13 @@ class SandboxFileServiceTest {
         when(fixture.storage.headObject("sandbox", "uploads/object.xlsx"))
                 .thenReturn(new ObjectStorageService.ObjectMetadata(
                         5L, "etag-1", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "now"));
-        when(fixture.storage.downloadObject("sandbox", "uploads/object.xlsx")).thenReturn(bytes);
+        stored(fixture, "uploads/object.xlsx", bytes);
 
         service.uploadFiles("session-1", "user-1", List.of(new PendingFile(
                 "metrics.xlsx", "sandbox", "uploads/object.xlsx",
                 "application/octet-stream")));
 
-        verify(fixture.sandbox).uploadFile("/tmp/metrics.xlsx", bytes);
+        assertArrayEquals(bytes, fixture.uploads.get("/tmp/metrics.xlsx"));
         var captor = ArgumentCaptor.forClass(SessionAttachmentRef.class);
         verify(fixture.repository).insert(captor.capture());
         var reference = captor.getValue();
@@ -68,8 +77,8 @@ class SandboxFileServiceTest {
         var fixture = fixture();
         when(fixture.storage.headObject("sandbox", "uploads/missing.xlsx"))
                 .thenReturn(new ObjectStorageService.ObjectMetadata(5L, "etag-1", "application/octet-stream", "now"));
-        when(fixture.storage.downloadObject("sandbox", "uploads/missing.xlsx"))
-                .thenThrow(new IllegalStateException("missing"));
+        doThrow(new IllegalStateException("missing"))
+                .when(fixture.storage).downloadObjectToFile(eq("sandbox"), eq("uploads/missing.xlsx"), any());
 
         assertThrows(IllegalStateException.class, () -> service.uploadFiles(
                 "session-1", "user-1",
@@ -107,15 +116,15 @@ class SandboxFileServiceTest {
                 .thenReturn(new ObjectStorageService.ObjectMetadata(3L, "etag-new", "application/octet-stream", "now"));
         when(fixture.storage.headObject("sandbox", "uploads/missing.csv"))
                 .thenReturn(new ObjectStorageService.ObjectMetadata(3L, "etag-missing", "text/csv", "now"));
-        when(fixture.storage.downloadObject("sandbox", "uploads/new.xlsx")).thenReturn(bytes);
-        when(fixture.storage.downloadObject("sandbox", "uploads/missing.csv"))
-                .thenThrow(new IllegalStateException("gone"));
+        stored(fixture, "uploads/new.xlsx", bytes);
+        doThrow(new IllegalStateException("gone"))
+                .when(fixture.storage).downloadObjectToFile(eq("sandbox"), eq("uploads/missing.csv"), any());
 
         service.ensureSandboxReady("session-1");
 
-        verify(fixture.sandbox).uploadFile("/tmp/report.xlsx", bytes);
-        verify(fixture.storage, never()).downloadObject("sandbox", "uploads/old.xlsx");
-        verify(fixture.storage).downloadObject("sandbox", "uploads/missing.csv");
+        assertArrayEquals(bytes, fixture.uploads.get("/tmp/report.xlsx"));
+        verify(fixture.storage, never()).downloadObjectToFile(eq("sandbox"), eq("uploads/old.xlsx"), any());
+        verify(fixture.storage).downloadObjectToFile(eq("sandbox"), eq("uploads/missing.csv"), any());
     }
 
     @Test
@@ -134,13 +143,13 @@ class SandboxFileServiceTest {
                 .thenReturn(List.of(newer, covered));
         when(fixture.storage.headObject("sandbox", "uploads/newer.xlsx"))
                 .thenReturn(new ObjectStorageService.ObjectMetadata(3L, "etag-newer", "application/octet-stream", "now"));
-        when(fixture.storage.downloadObject("sandbox", "uploads/newer.xlsx"))
-                .thenReturn("new".getBytes(StandardCharsets.UTF_8));
+        stored(fixture, "uploads/newer.xlsx", "new".getBytes(StandardCharsets.UTF_8));
 
         service.ensureSandboxReady("session-1");
 
-        verify(fixture.storage, never()).downloadObject("sandbox", "uploads/covered.xlsx");
-        verify(fixture.sandbox).uploadFile("/tmp/newer.xlsx", "new".getBytes(StandardCharsets.UTF_8));
+        verify(fixture.storage, never()).downloadObjectToFile(eq("sandbox"), eq("uploads/covered.xlsx"), any());
+        assertArrayEquals("new".getBytes(StandardCharsets.UTF_8), fixture.uploads.get("/tmp/newer.xlsx"));
+        assertFalse(fixture.uploads.containsKey("/tmp/covered.xlsx"));
     }
 
     @Test
@@ -153,8 +162,8 @@ class SandboxFileServiceTest {
 
         service.ensureSandboxReady("session-1");
 
-        verify(fixture.storage, never()).downloadObject("sandbox", "uploads/report.xlsx");
-        verify(fixture.sandbox, never()).uploadFile(eq("/tmp/report.xlsx"), any());
+        verify(fixture.storage, never()).downloadObjectToFile(eq("sandbox"), eq("uploads/report.xlsx"), any());
+        verify(fixture.sandbox, never()).uploadFile(eq("/tmp/report.xlsx"), any(Path.class));
     }
 
     private Fixture fixture() {
@@ -167,6 +176,12 @@ class SandboxFileServiceTest {
         when(sandbox.getId()).thenReturn("sandbox-1");
         when(sandbox.getStatus()).thenReturn(SandboxStatus.READY);
         when(provider.acquire(any(), eq("session-1"), eq("user-1"))).thenReturn(sandbox);
+        Map<String, byte[]> uploads = new HashMap<>();
+        doAnswer(invocation -> {
+            // the temp file is deleted once the upload returns, so read it here
+            uploads.put(invocation.getArgument(0), Files.readAllBytes(invocation.<Path>getArgument(1)));
+            return null;
+        }).when(sandbox).uploadFile(anyString(), any(Path.class));
         var storage = mock(ObjectStorageService.class);
         var resolver = mock(ObjectStorageServiceResolver.class);
         when(resolver.resolve()).thenReturn(storage);
@@ -178,7 +193,12 @@ class SandboxFileServiceTest {
         service = new SandboxService(provider, config, null,
                 new SandboxServiceDependencies(null, snapshotService, resolver, null, repository));
         service.createSessionSandbox(config, "session-1", "user-1", null);
-        return new Fixture(provider, sandbox, storage, repository);
+        return new Fixture(provider, sandbox, storage, repository, uploads);
+    }
+
+    private void stored(Fixture fixture, String blobName, byte[] bytes) {
+        doAnswer(invocation -> Files.write(invocation.<Path>getArgument(2), bytes))
+                .when(fixture.storage).downloadObjectToFile(eq("sandbox"), eq(blobName), any());
     }
 
     private SessionAttachmentRef reference(String id, String fileName, String targetPath, String blobName, int age) {
@@ -198,6 +218,6 @@ class SandboxFileServiceTest {
     }
 
     private record Fixture(SandboxProvider provider, Sandbox sandbox, ObjectStorageService storage,
-                           SessionAttachmentRefRepository repository) {
+                           SessionAttachmentRefRepository repository, Map<String, byte[]> uploads) {
     }
 }
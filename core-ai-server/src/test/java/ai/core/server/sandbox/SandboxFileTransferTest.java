@@ -0,0 +1,246 @@
+package ai.core.server.sandbox;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author stephen
+ */
+class SandboxFileTransferTest {
+    private HttpServer server;
+    private SandboxFileTransfer transfer;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // a stalled response must not hold up the resumed request
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        transfer = new SandboxFileTransfer("http://127.0.0.1:" + server.getAddress().getPort(), Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void stopServer() {
+        transfer.close();
+        server.stop(0);
+    }
+
+    @Test
+    void resumesInterruptedDownloadWithRange() throws IOException {
+        var content = content(200_000);
+        List<String> ranges = new ArrayList<>();
+        server.createContext("/files/content", exchange -> {
+            var range = exchange.getRequestHeaders().getFirst("Range");
+            ranges.add(range);
+            exchange.getResponseHeaders().add("X-File-Name", "data.bin");
+            exchange.getResponseHeaders().add("X-File-Size", String.valueOf(content.length));
+            if (range == null) {
+                // the connection drops half way, the body ends short of X-File-Size
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().write(content, 0, content.length / 2);
+            } else {
+                var from = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                exchange.sendResponseHeaders(206, content.length - from);
+                exchange.getResponseBody().write(content, from, content.length - from);
+            }
+            exchange.close();
+        });
+
+        var file = transfer.download("/workspace/data.bin");
+        try {
+            assertEquals("data.bin", file.fileName());
+            assertEquals(content.length, file.size());
+            assertArrayEquals(content, Files.readAllBytes(file.path()));
+            assertEquals(Arrays.asList(null, "bytes=" + content.length / 2 + "-"), ranges);
+        } finally {
+            Files.deleteIfExists(file.path());
+        }
+    }
+
+    @Test
+    void resumesStalledDownload() throws IOException {
+        var content = content(200_000);
+        List<String> ranges = new CopyOnWriteArrayList<>();
+        var resumed = new CountDownLatch(1);
+        server.createContext("/files/content", exchange -> {
+            var range = exchange.getRequestHeaders().getFirst("Range");
+            ranges.add(range);
+            exchange.getResponseHeaders().add("X-File-Size", String.valueOf(content.length));
+            if (range == null) {
+                // the sandbox stops sending without closing the connection
+                exchange.sendResponseHeaders(200, content.length);
+                exchange.getResponseBody().write(content, 0, content.length / 2);
+                exchange.getResponseBody().flush();
+                await(resumed);
+            } else {
+                resumed.countDown();
+                var from = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                exchange.sendResponseHeaders(206, content.length - from);
+                exchange.getResponseBody().write(content, from, content.length - from);
+            }
+            exchange.close();
+        });
+        var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        var stalling = new SandboxFileTransfer("http://127.0.0.1:" + server.getAddress().getPort(), Duration.ofSeconds(10), Duration.ofMillis(300), client);
+
+        try {
+            var file = stalling.download("/workspace/data.bin");
+            try {
+                assertArrayEquals(content, Files.readAllBytes(file.path()));
+                assertEquals(Arrays.asList(null, "bytes=" + content.length / 2 + "-"), ranges);
+            } finally {
+                Files.deleteIfExists(file.path());
+            }
+        } finally {
+            stalling.close();
+        }
+    }
+
+    @Test
+    void resumesUploadFromConflictSize() throws IOException {
+        var content = content(1_000_000);
+        var kept = 100_001;
+        var stored = new byte[content.length];
+        List<String> offsets = new CopyOnWriteArrayList<>();
+        server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"ok\"}"));
+        server.createContext("/files/upload", exchange -> {
+            var query = exchange.getRequestURI().getQuery();
+            var offset = query.contains("offset=") ? Integer.parseInt(query.substring(query.indexOf("offset=") + "offset=".length())) : 0;
+            offsets.add(String.valueOf(offset));
+            if (offsets.size() == 1) {
+                // the connection drops after part of the body reached the partial file
+                exchange.getRequestBody().readNBytes(stored, 0, kept);
+                throw new IOException("connection reset");
+            }
+            if (offset != kept) {
+                // the client only knows how much it sent, the runtime answers with what it kept
+                exchange.getRequestBody().readAllBytes();
+                respond(exchange, 409, "{\"status\":\"conflict\",\"size\":" + kept + "}");
+                return;
+            }
+            exchange.getRequestBody().readNBytes(stored, offset, content.length - offset);
+            respond(exchange, 200, "{\"status\":\"ok\"}");
+        });
+        var source = Files.createTempFile("upload-", ".bin");
+        try {
+            Files.write(source, content);
+            transfer.upload("/tmp/data.bin", source);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+
+        assertEquals(3, offsets.size());
+        assertEquals("0", offsets.getFirst());
+        assertEquals(String.valueOf(kept), offsets.getLast());
+        assertArrayEquals(content, stored);
+    }
+
+    @Test
+    void uploadsUncompressedWhenRuntimeDoesNotAdvertiseDeflate() throws IOException {
+        var content = content(SandboxFileTransfer.COMPRESS_MIN_SIZE * 2);
+        var encoding = new AtomicReference<String>("unset");
+        var received = new AtomicReference<byte[]>();
+        // runtimes before 1.0.36 answer /health without features and would store the deflated bytes as the file
+        server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"ok\",\"version\":\"1.0.35\"}"));
+        server.createContext("/files/upload", exchange -> {
+            encoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            received.set(exchange.getRequestBody().readAllBytes());
+            respond(exchange, 200, "{\"status\":\"ok\"}");
+        });
+
+        upload("/tmp/data.csv", content);
+
+        assertNull(encoding.get());
+        assertArrayEquals(content, received.get());
+    }
+
+    @Test
+    void deflatesCompressibleUpload() throws IOException {
+        var content = content(SandboxFileTransfer.COMPRESS_MIN_SIZE * 2);
+        var encoding = new AtomicReference<String>();
+        var received = new AtomicReference<byte[]>();
+        server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"ok\",\"features\":[\"deflate-upload\"]}"));
+        server.createContext("/files/upload", exchange -> {
+            encoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            try (var body = new InflaterInputStream(exchange.getRequestBody())) {
+                received.set(body.readAllBytes());
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        upload("/tmp/data.csv", content);
+
+        assertEquals("deflate", encoding.get());
+        assertArrayEquals(content, received.get());
+    }
+
+    @Test
+    void compressible() {
+        var size = SandboxFileTransfer.COMPRESS_MIN_SIZE;
+        assertTrue(SandboxFileTransfer.compressible("/tmp/data.csv", size));
+        assertTrue(SandboxFileTransfer.compressible("/tmp/Makefile", size));
+        assertFalse(SandboxFileTransfer.compressible("/tmp/data.csv", size - 1));
+        assertFalse(SandboxFileTransfer.compressible("/tmp/report.XLSX", size));
+        assertFalse(SandboxFileTransfer.compressible(Path.of("/tmp", "archive.tar.gz").toString(), size));
+    }
+
+    private void upload(String path, byte[] content) throws IOException {
+        var source = Files.createTempFile("upload-", ".csv");
+        try {
+            Files.write(source, content);
+            transfer.upload(path, source);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] content(long size) {
+        var content = new byte[(int) size];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,156 @@
+package ai.core.server.sandbox;
+
+import ai.core.sandbox.Sandbox;
+import ai.core.sandbox.SandboxConfig;
+import ai.core.sandbox.SandboxConstants;
+import ai.core.sandbox.SandboxProvider;
+import ai.core.sandbox.SandboxStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author stephen
+ */
+class SandboxWarmPoolTest {
+    private SandboxProvider provider;
+    private ExecutorService provisioner;
+    private SandboxWarmPoolConfig poolConfig;
+    private SandboxConfig config;
+
+    @BeforeEach
+    void createPool() {
+        provider = mock(SandboxProvider.class);
+        provisioner = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(provisioner).execute(any());
+        poolConfig = new SandboxWarmPoolConfig();
+        poolConfig.maxIdle = 4;
+        config = SandboxConfig.enabled();
+    }
+
+    @Test
+    void leasesWarmSandboxOnAcquire() {
+        var warm = sandbox("warm-1");
+        when(provider.acquire(any(), eq(SandboxWarmPool.WARM_SESSION_ID), any())).thenReturn(warm);
+        var pool = new SandboxWarmPool(provider, poolConfig, config, provisioner);
+
+        pool.onSessionCreated(config);
+        assertEquals(1, pool.idleCount(config));
+
+        assertSame(warm, pool.acquire(config, "session-1", "user-1"));
+        verify(provider, never()).acquire(any(), eq("session-1"), any());
+        verify(provider).renew(warm, SandboxConstants.DEFAULT_TIMEOUT_SECONDS);
+        verify(provider).assign(warm, "session-1", "user-1");
+        assertEquals(1L, pool.getStats().get("hits"));
+        assertEquals(0L, pool.getStats().get("misses"));
+    }
+
+    @Test
+    void disabledByDefault() {
+        assertFalse(new SandboxWarmPoolConfig().enabled());
+    }
+
+    @Test
+    void releasesMemberThatCannotBeAssigned() {
+        var warm = sandbox("warm-1");
+        var cold = sandbox("cold-1");
+        when(provider.acquire(any(), eq(SandboxWarmPool.WARM_SESSION_ID), any())).thenReturn(warm);
+        when(provider.acquire(any(), eq("session-1"), any())).thenReturn(cold);
+        doThrow(new IllegalStateException("sandbox gone")).when(provider).assign(warm, "session-1", "user-1");
+        var pool = new SandboxWarmPool(provider, poolConfig, config, provisioner);
+
+        pool.onSessionCreated(config);
+
+        assertSame(cold, pool.acquire(config, "session-1", "user-1"));
+        verify(provider).release(warm);
+        assertEquals(0L, pool.getStats().get("hits"));
+        assertEquals(1L, pool.getStats().get("misses"));
+    }
+
+    @Test
+    void provisionsMembersWithIdleTtlOnTopOfTimeout() {
+        var warm = sandbox("warm-1");
+        var provisioned = ArgumentCaptor.forClass(SandboxConfig.class);
+        when(provider.acquire(provisioned.capture(), eq(SandboxWarmPool.WARM_SESSION_ID), any())).thenReturn(warm);
+        var pool = new SandboxWarmPool(provider, poolConfig, config, provisioner);
+
+        pool.maintain();
+
+        // a member leased just before idleTtl still has the full session timeout left
+        assertEquals(SandboxConstants.DEFAULT_TIMEOUT_SECONDS + (int) poolConfig.idleTtl.toSeconds(), provisioned.getValue().timeoutSeconds);
+        assertEquals(SandboxConstants.DEFAULT_TIMEOUT_SECONDS, config.timeoutSeconds);
+        assertEquals(SandboxWarmPool.key(config), SandboxWarmPool.key(SandboxWarmPool.warmConfig(config, Duration.ZERO)));
+    }
+
+    @Test
+    void fallsBackToProviderOnMiss() {
+        when(provider.acquire(any(), eq(SandboxWarmPool.WARM_SESSION_ID), any())).thenThrow(new IllegalStateException("no capacity"));
+        var cold = sandbox("cold-1");
+        when(provider.acquire(any(), eq("session-1"), any())).thenReturn(cold);
+        var pool = new SandboxWarmPool(provider, poolConfig, config, provisioner);
+
+        pool.onSessionCreated(config);
+
+        assertSame(cold, pool.acquire(config, "session-1", "user-1"));
+        assertEquals(1L, pool.getStats().get("misses"));
+    }
+
+    @Test
+    void recyclesExpiredMembers() {
+        var first = sandbox("warm-1");
+        var second = sandbox("warm-2");
+        when(provider.acquire(any(), eq(SandboxWarmPool.WARM_SESSION_ID), any())).thenReturn(first, second);
+        poolConfig.idleTtl = Duration.ofNanos(1);
+        var pool = new SandboxWarmPool(provider, poolConfig, config, provisioner);
+
+        pool.maintain();
+        pool.maintain();
+
+        verify(provider).release(first);
+        assertEquals(1, pool.idleCount(config));
+    }
+
+    @Test
+    void otherConfigsPassThroughUntilDemanded() {
+        var other = SandboxConfig.enabled();
+        other.image = "custom-image";
+        var sandbox = sandbox("custom-1");
+        var warm = sandbox("warm-1");
+        when(provider.acquire(any(), eq("session-1"), any())).thenReturn(sandbox);
+        when(provider.acquire(any(), eq(SandboxWarmPool.WARM_SESSION_ID), any())).thenReturn(warm);
+        var pool = new SandboxWarmPool(provider, poolConfig, config, provisioner);
+
+        pool.maintain();
+        assertSame(sandbox, pool.acquire(other, "session-1", "user-1"));
+
+        verify(provider, never()).renew(any(), anyInt());
+        assertEquals(0L, pool.getStats().get("misses"));
+        assertEquals(0, pool.idleCount(other));
+    }
+
+    private Sandbox sandbox(String id) {
+        var sandbox = mock(Sandbox.class);
+        when(sandbox.getId()).thenReturn(id);
+        when(sandbox.getStatus()).thenReturn(SandboxStatus.READY);
+        return sandbox;
+    }
+}
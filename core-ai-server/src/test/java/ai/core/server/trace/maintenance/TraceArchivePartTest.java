@@ -0,0 +1,95 @@
+package ai.core.server.trace.maintenance;
+
+import ai.core.server.trace.domain.ArchivedTraceSegment;
+import ai.core.server.trace.domain.Span;
+import ai.core.server.trace.domain.Trace;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author stephen
+ */
+class TraceArchivePartTest {
+    private static Trace trace(String traceId, int minutesAgo) {
+        var trace = new Trace();
+        trace.id = traceId;
+        trace.traceId = traceId;
+        trace.userId = "user-" + traceId;
+        trace.model = "gpt-4o";
+        trace.startedAt = ZonedDateTime.now().minusMinutes(minutesAgo);
+        return trace;
+    }
+
+    private static Span span(String traceId, String spanId) {
+        var span = new Span();
+        span.id = spanId;
+        span.traceId = traceId;
+        span.spanId = spanId;
+        span.input = "input of " + spanId;
+        return span;
+    }
+
+    @Test
+    void segmentRangeDecodesSingleTrace() throws IOException {
+        byte[] bytes;
+        List<ArchivedTraceSegment> segments;
+        try (var part = new TraceArchivePart("archive/2026-01/2026-01-01", "traces-archive", 1)) {
+            part.beginTrace(trace("t1", 10));
+            part.span(span("t1", "s1"));
+            part.span(span("t1", "s2"));
+            part.beginTrace(trace("t2", 5));
+            part.span(span("t2", "s3"));
+            part.beginTrace(trace("t3", 1));
+            part.close();
+            bytes = Files.readAllBytes(part.file);
+            segments = part.segments();
+            assertEquals("archive/2026-01/2026-01-01/part-0001.json.gz", part.blobName);
+            assertEquals(3, part.spanCount());
+            Files.delete(part.file);
+        }
+
+        assertEquals(3, segments.size());
+        assertEquals(bytes.length, segments.getLast().offset + segments.getLast().length);
+
+        var second = segments.get(1);
+        var traces = new ArrayList<Trace>();
+        var spans = new ArrayList<Span>();
+        TraceArchiveReader.decode(Arrays.copyOfRange(bytes, second.offset.intValue(), (int) (second.offset + second.length)), traces, spans);
+        assertEquals("t2", traces.getFirst().traceId);
+        assertEquals("user-t2", traces.getFirst().userId);
+        assertEquals(List.of("s3"), spans.stream().map(span -> span.spanId).toList());
+        assertEquals(1, second.spanCount);
+    }
+
+    @Test
+    void partStaysOneConcatenatedGzipStream() throws IOException {
+        try (var part = new TraceArchivePart("archive", "traces-archive", 2)) {
+            part.beginTrace(trace("t1", 10));
+            part.span(span("t1", "s1"));
+            part.beginTrace(trace("t2", 5));
+            part.close();
+            String content;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(part.file))) {
+                content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            Files.delete(part.file);
+            var lines = content.lines().toList();
+            assertEquals(3, lines.size());
+            assertTrue(lines.get(0).startsWith("{\"_type\":\"trace\""), lines.get(0));
+            assertTrue(lines.get(1).startsWith("{\"_type\":\"span\""), lines.get(1));
+            assertTrue(lines.get(2).startsWith("{\"_type\":\"trace\""), lines.get(2));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ai.core.server.trace.maintenance;
+
+import ai.core.server.blob.ObjectStorageService;
+import ai.core.server.blob.ObjectStorageServiceResolver;
+import ai.core.server.trace.domain.ArchivedTraceSegment;
+import ai.core.server.trace.domain.Trace;
+import core.framework.mongo.MongoCollection;
+import core.framework.mongo.Query;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author stephen
+ */
+class TraceArchiveServiceTest {
+    private static final ZonedDateTime CUTOFF = ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+
+    private static Trace trace(String traceId, int minutesBeforeCutoff) {
+        var trace = new Trace();
+        trace.id = "id-" + traceId;
+        trace.traceId = traceId;
+        trace.startedAt = CUTOFF.minusMinutes(minutesBeforeCutoff);
+        return trace;
+    }
+
+    private static ArchivedTraceSegment segment(String traceId) {
+        var segment = new ArchivedTraceSegment();
+        segment.traceId = traceId;
+        return segment;
+    }
+
+    private static String json(Bson filter) {
+        return filter.toBsonDocument().toJson();
+    }
+
+    private ObjectStorageService storage;
+    private TraceArchiveService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void createService() {
+        storage = mock(ObjectStorageService.class);
+        var resolver = mock(ObjectStorageServiceResolver.class);
+        when(resolver.resolve()).thenReturn(storage);
+        service = new TraceArchiveService(resolver, "traces-archive", null);
+        service.statsCollection = mock(MongoCollection.class);
+        service.traceCollection = mock(MongoCollection.class);
+        service.spanCollection = mock(MongoCollection.class);
+        service.segmentCollection = mock(MongoCollection.class);
+        when(service.statsCollection.count(any(Bson.class))).thenReturn(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pagesTracesByStartedAtAndId() {
+        when(service.traceCollection.count(any(Bson.class))).thenReturn(3L);
+        when(service.traceCollection.find(any(Query.class))).thenReturn(List.of(trace("t1", 30), trace("t2", 20)), List.of(trace("t3", 10)), List.of());
+
+        assertEquals(3, service.uploadArchive(CUTOFF));
+
+        var queries = ArgumentCaptor.forClass(Query.class);
+        verify(service.traceCollection, times(3)).find(queries.capture());
+        var first = queries.getAllValues().getFirst();
+        // ZonedDateTime values have no codec outside core-ng, so the keyset filters are checked by their description
+        assertFalse(first.filter.toString().contains("Or Filter"));
+        assertEquals("{\"started_at\": 1, \"_id\": 1}", json(first.sort));
+        // each page seeks past the last trace of the previous one
+        assertTrue(queries.getAllValues().get(1).filter.toString().contains("fieldName='_id', operator='$gt', value=id-t2"));
+        assertTrue(queries.getAllValues().get(2).filter.toString().contains("fieldName='_id', operator='$gt', value=id-t3"));
+        ArgumentCaptor<List<ArchivedTraceSegment>> segments = ArgumentCaptor.forClass(List.class);
+        verify(service.segmentCollection).bulkInsert(segments.capture());
+        assertEquals(List.of("t1", "t2", "t3"), segments.getValue().stream().map(segment -> segment.traceId).toList());
+        verify(storage).uploadObject(any(), anyString(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rerunReplacesOnlySegmentsOfRewrittenTraces() {
+        when(service.traceCollection.count(any(Bson.class))).thenReturn(1L);
+        when(service.traceCollection.find(any(Query.class))).thenReturn(List.of(trace("t1", 10)), List.of());
+
+        service.uploadArchive(CUTOFF);
+
+        ArgumentCaptor<List<ArchivedTraceSegment>> segments = ArgumentCaptor.forClass(List.class);
+        verify(service.segmentCollection).bulkInsert(segments.capture());
+        var archive = segments.getValue().getFirst().archive;
+        assertTrue(archive.startsWith("traces-archive/2026-01/2026-01-01/run-"), archive);
+        var deleted = ArgumentCaptor.forClass(Bson.class);
+        verify(service.segmentCollection).delete(deleted.capture());
+        assertEquals("{\"$and\": [{\"trace_id\": {\"$in\": [\"t1\"]}}, {\"archive\": {\"$ne\": \"" + archive + "\"}}]}", json(deleted.getValue()));
+    }
+
+    @Test
+    void deleteArchivedTracesSkipsTracesNotInArchiveIndex() {
+        when(service.traceCollection.find(any(Query.class))).thenReturn(List.of(trace("t1", 20), trace("t2", 10)), List.of());
+        when(service.segmentCollection.find(any(Query.class))).thenReturn(List.of(segment("t1")));
+
+        service.deleteArchivedTraces(CUTOFF);
+
+        var spanFilter = ArgumentCaptor.forClass(Bson.class);
+        verify(service.spanCollection).delete(spanFilter.capture());
+        assertEquals("{\"trace_id\": {\"$in\": [\"t1\"]}}", json(spanFilter.getValue()));
+        var traceFilter = ArgumentCaptor.forClass(Bson.class);
+        verify(service.traceCollection).delete(traceFilter.capture());
+        assertEquals("{\"_id\": {\"$in\": [\"id-t1\"]}}", json(traceFilter.getValue()));
+    }
+}
@@ -1,11 +1,34 @@
 package ai.core.server.trace.service;
 
+import ai.core.server.domain.GatewayModelConfig;
+import ai.core.server.trace.domain.Span;
+import ai.core.server.trace.domain.Trace;
+import ai.core.server.trace.web.ingest.IngestRequest;
+import ai.core.server.trace.web.ingest.IngestSpanRequest;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import core.framework.mongo.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class IngestServiceTest {
     @Test
@@ -40,4 +63,103 @@ class IngestServiceTest {
     void friendlyTraceNameKeepsSpecificSpanName() {
         assertEquals("classify_ticket", IngestService.friendlyTraceName("classify_ticket", "Support Summarizer"));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestBulkInsertsNewSpansAndRollsUpOncePerTrace() {
+        var service = service();
+        var existing = new Span();
+        existing.spanId = "s3";
+        when(service.traceCollection.find(any(Bson.class))).thenReturn(List.of());
+        when(service.spanCollection.find(any(Bson.class))).thenReturn(List.of(existing));
+
+        service.ingest(request(span("t1", "s1", null, 10L), span("t1", "s2", "s1", 20L), span("t1", "s2", "s1", 20L), span("t1", "s3", "s1", 40L)));
+
+        ArgumentCaptor<List<Trace>> traces = ArgumentCaptor.forClass(List.class);
+        verify(service.traceCollection).bulkInsert(traces.capture());
+        assertEquals(1, traces.getValue().size());
+        ArgumentCaptor<List<Span>> spans = ArgumentCaptor.forClass(List.class);
+        verify(service.spanCollection).bulkInsert(spans.capture());
+        assertEquals(List.of("s1", "s2"), spans.getValue().stream().map(span -> span.spanId).toList());
+        verify(service.spanCollection, never()).insert(any(Span.class));
+        // one $inc for the trace, not one per span
+        verify(service.traceCollection, times(1)).update(any(Bson.class), any(Bson.class));
+        verify(service.usageRollupService, times(2)).recordSpan(any(Span.class));
+        verify(service.usageRollupService).recordTrace(any(Trace.class));
+    }
+
+    @Test
+    void ingestSkipsBulkInsertWhenAllSpansAlreadyIngested() {
+        var service = service();
+        var existing = new Span();
+        existing.spanId = "s1";
+        var trace = new Trace();
+        trace.traceId = "t1";
+        when(service.traceCollection.find(any(Bson.class))).thenReturn(List.of(trace));
+        when(service.spanCollection.find(any(Bson.class))).thenReturn(List.of(existing));
+
+        service.ingest(request(span("t1", "s1", null, 10L)));
+
+        verify(service.spanCollection, never()).bulkInsert(anyList());
+        verify(service.traceCollection, never()).bulkInsert(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestRollsUpTracesInsertedBeforeBulkFailure() {
+        var service = service();
+        var concurrent = trace("t2", "other-id");
+        // t1 made it into the bulk before t2 hit the trace created by a concurrent ingest
+        doAnswer(invocation -> {
+            List<Trace> traces = invocation.getArgument(0);
+            when(service.traceCollection.find(any(Bson.class))).thenReturn(List.of(trace("t1", traces.getFirst().id), concurrent));
+            throw new MongoBulkWriteException(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)), null, new ServerAddress(), Set.of());
+        }).when(service.traceCollection).bulkInsert(anyList());
+        when(service.traceCollection.find(any(Bson.class))).thenReturn(List.of());
+        when(service.spanCollection.find(any(Bson.class))).thenReturn(List.of());
+
+        service.ingest(request(span("t1", "s1", null, 10L), span("t2", "s2", null, 20L)));
+
+        ArgumentCaptor<Trace> recorded = ArgumentCaptor.forClass(Trace.class);
+        verify(service.usageRollupService).recordTrace(recorded.capture());
+        assertEquals("t1", recorded.getValue().traceId);
+        verify(service.traceCollection, never()).insert(any(Trace.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private IngestService service() {
+        var service = new IngestService();
+        service.traceCollection = mock(MongoCollection.class);
+        service.spanCollection = mock(MongoCollection.class);
+        service.modelPricingService = new ModelPricingService();
+        service.modelPricingService.gatewayModelCollection = (MongoCollection<GatewayModelConfig>) mock(MongoCollection.class);
+        service.usageRollupService = mock(UsageRollupService.class);
+        return service;
+    }
+
+    private IngestRequest request(IngestSpanRequest... spans) {
+        var request = new IngestRequest();
+        request.spans = List.of(spans);
+        return request;
+    }
+
+    private Trace trace(String traceId, String id) {
+        var trace = new Trace();
+        trace.id = id;
+        trace.traceId = traceId;
+        return trace;
+    }
+
+    private IngestSpanRequest span(String traceId, String spanId, String parentSpanId, Long inputTokens) {
+        var span = new IngestSpanRequest();
+        span.traceId = traceId;
+        span.spanId = spanId;
+        span.parentSpanId = parentSpanId;
+        span.name = "chat";
+        span.inputTokens = inputTokens;
+        span.outputTokens = 1L;
+        span.durationMs = 5L;
+        return span;
+    }
 }
@@ -234,6 +234,7 @@ class OTLPIngestServiceTest {
         service.chatSessionCollection = chatSessionCollection();
         service.modelPricingService = new ModelPricingService();
         service.modelPricingService.gatewayModelCollection = gatewayModelCollection();
+        service.usageRollupService = mock(UsageRollupService.class);
         return service;
     }
 
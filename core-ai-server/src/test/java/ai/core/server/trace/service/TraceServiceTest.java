@@ -3,6 +3,7 @@ package ai.core.server.trace.service;
 import ai.core.server.domain.User;
 import ai.core.server.trace.domain.Span;
 import ai.core.server.trace.domain.Trace;
+import ai.core.server.trace.maintenance.TraceArchiveReader;
 import core.framework.mongo.MongoCollection;
 import core.framework.mongo.Query;
 import org.junit.jupiter.api.Test;
@@ -110,11 +111,30 @@ class TraceServiceTest {
         verify(service.userCollection, never()).find(any(Query.class));
     }
 
+    @Test
+    void spansReadArchiveOnlyForTracesPastRetention() {
+        var service = service();
+        when(service.spanCollection.find(any(Query.class))).thenReturn(List.of());
+        when(service.archiveReader.mayContain(any())).thenCallRealMethod();
+        when(service.archiveReader.spans("old")).thenReturn(List.of());
+        var recent = trace("recent", "alice@example.com", "chat", "support-agent", "gpt-4o", 0);
+        recent.startedAt = ZonedDateTime.now().minusDays(1);
+        var old = trace("old", "alice@example.com", "chat", "support-agent", "gpt-4o", 0);
+        old.startedAt = ZonedDateTime.now().minusDays(60);
+
+        assertEquals(List.of(), service.spans(recent));
+        assertEquals(List.of(), service.spans(old));
+
+        verify(service.archiveReader, never()).spans("recent");
+        verify(service.archiveReader).spans("old");
+    }
+
     private TraceService service() {
         var service = new TraceService();
         service.traceCollection = traceCollection();
         service.spanCollection = spanCollection();
         service.userCollection = userCollection();
+        service.archiveReader = mock(TraceArchiveReader.class);
         return service;
     }
 }
@@ -0,0 +1,118 @@
+package ai.core.server.trace.service;
+
+import ai.core.server.trace.domain.Span;
+import ai.core.server.trace.domain.Trace;
+import ai.core.server.trace.domain.TraceStatus;
+import ai.core.server.trace.domain.UsageRollup;
+import core.framework.mongo.MongoCollection;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author stephen
+ */
+class UsageRollupServiceTest {
+    private static final ZonedDateTime STARTED_AT = ZonedDateTime.of(2026, 8, 23, 10, 15, 30, 0, ZoneId.of("UTC"));
+
+    @Test
+    void flushSumsSpansPerBucketWithTraceIdentity() {
+        var service = service();
+        when(service.traceCollection.find(any(Bson.class))).thenReturn(List.of(trace("u-1", TraceStatus.COMPLETED)));
+
+        service.recordTrace(trace(null, TraceStatus.RUNNING));
+        service.recordSpan(span(100L, 0.5));
+        service.recordSpan(span(300L, 1.5));
+        service.flush();
+
+        var rollups = ArgumentCaptor.forClass(UsageRollup.class);
+        verify(service.usageRollupCollection, times(2)).insert(rollups.capture());
+        var minute = rollups.getAllValues().getFirst();
+        assertEquals(UsageRollup.MINUTE, minute.granularity);
+        assertEquals(STARTED_AT.withSecond(0), minute.bucket);
+        assertEquals("u-1", minute.userId);
+        assertEquals("gpt-5", minute.model);
+        assertEquals(400L, minute.inputTokens);
+        assertEquals(410L, minute.totalTokens);
+        assertEquals(2.0, minute.costUsd);
+        assertEquals(1L, minute.callCount);
+        assertEquals(305L, minute.maxTotalTokens);
+        var day = rollups.getAllValues().get(1);
+        assertEquals(UsageRollup.DAY, day.granularity);
+        assertEquals(STARTED_AT.toLocalDate().atStartOfDay(ZoneId.of("UTC")), day.bucket);
+        assertEquals(0, service.pendingTraces());
+    }
+
+    @Test
+    void flushIncrementsExistingBucket() {
+        var service = service();
+        when(service.traceCollection.find(any(Bson.class))).thenReturn(List.of(trace("u-1", TraceStatus.COMPLETED)));
+        when(service.usageRollupCollection.update(any(Bson.class), any(Bson.class))).thenReturn(1L);
+
+        service.recordSpan(span(100L, 0.5));
+        service.flush();
+
+        verify(service.usageRollupCollection, times(2)).update(any(Bson.class), any(Bson.class));
+        verify(service.usageRollupCollection, never()).insert(any(UsageRollup.class));
+    }
+
+    @Test
+    void holdsRunningTraceWithoutUserUntilShutdown() {
+        var service = service();
+        when(service.traceCollection.find(any(Bson.class))).thenReturn(List.of(trace(null, TraceStatus.RUNNING)));
+
+        service.recordSpan(span(100L, 0.5));
+        service.flush();
+
+        verify(service.usageRollupCollection, never()).insert(any(UsageRollup.class));
+        assertEquals(1, service.pendingTraces());
+
+        service.flushAll();
+
+        verify(service.usageRollupCollection, times(2)).insert(any(UsageRollup.class));
+        assertEquals(0, service.pendingTraces());
+    }
+
+    @SuppressWarnings("unchecked")
+    private UsageRollupService service() {
+        var service = new UsageRollupService();
+        service.usageRollupCollection = mock(MongoCollection.class);
+        service.traceCollection = mock(MongoCollection.class);
+        return service;
+    }
+
+    private Trace trace(String userId, TraceStatus status) {
+        var trace = new Trace();
+        trace.traceId = "t1";
+        trace.userId = userId;
+        trace.agentId = "agent-1";
+        trace.source = "chat";
+        trace.model = "gpt-5";
+        trace.status = status;
+        trace.startedAt = STARTED_AT;
+        return trace;
+    }
+
+    private Span span(long inputTokens, double costUsd) {
+        var span = new Span();
+        span.traceId = "t1";
+        span.model = "gpt-5";
+        span.inputTokens = inputTokens;
+        span.outputTokens = 5L;
+        span.costUsd = costUsd;
+        span.startedAt = STARTED_AT;
+        return span;
+    }
+}
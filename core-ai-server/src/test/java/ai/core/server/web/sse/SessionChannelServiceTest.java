@@ -10,11 +10,17 @@ import ai.core.api.server.session.sse.SseStatusChangeEvent;
 import ai.core.api.server.session.sse.SseTextChunkEvent;
 import core.framework.web.sse.Channel;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 class SessionChannelServiceTest {
     @Test
@@ -104,4 +110,51 @@ class SessionChannelServiceTest {
         assertEquals(SessionStatus.ERROR, service.status("s-1"));
         assertEquals(List.of(error, errorStatus), service.getEventBuffer("s-1"));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mergesReplayChunksWithoutMutatingQueuedEvents() {
+        var service = new SessionChannelService();
+        service.channelService = mock(ChannelService.class);
+        service.connect((Channel<SseBaseEvent>) mock(Channel.class), "s-1");
+
+        service.send("s-1", chunk("A"));
+        service.send("s-1", chunk("B"));
+
+        var sent = ArgumentCaptor.forClass(SseBaseEvent.class);
+        verify(service.channelService, times(2)).send(eq("s-1"), sent.capture());
+        // over maxQueuedBytes the send queue coalesces the next chunk into the event it still holds
+        var queued = sent.getAllValues().get(0);
+        var coalesced = (SseTextChunkEvent) new SseChunkCoalescer().merge(queued, sent.getAllValues().get(1));
+        assertEquals("AB", coalesced.content);
+        assertEquals("AB", ((SseTextChunkEvent) service.getEventBuffer("s-1").getLast()).content);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void notifiesSubscriptionListenerOncePerSessionLifetime() {
+        var service = new SessionChannelService();
+        service.channelService = mock(ChannelService.class);
+        var listener = mock(SessionSubscriptionListener.class);
+        service.subscriptionListener(listener);
+
+        service.connect((Channel<SseBaseEvent>) mock(Channel.class), "s-1");
+        service.connect((Channel<SseBaseEvent>) mock(Channel.class), "s-1");
+        assertEquals(Set.of("s-1"), service.sessionIds());
+
+        service.close("s-1");
+        service.close("s-1");
+
+        verify(listener, times(1)).opened("s-1");
+        verify(listener, times(1)).closed("s-1");
+        verifyNoMoreInteractions(listener);
+    }
+
+    private SseTextChunkEvent chunk(String content) {
+        var chunk = new SseTextChunkEvent();
+        chunk.sessionId = "s-1";
+        chunk.content = content;
+        chunk.isFinalChunk = Boolean.FALSE;
+        return chunk;
+    }
 }
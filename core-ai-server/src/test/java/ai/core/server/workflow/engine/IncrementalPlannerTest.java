@@ -0,0 +1,128 @@
+package ai.core.server.workflow.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalPlannerTest {
+    private static WorkflowNode node(String id) {
+        return new WorkflowNode(id, id);
+    }
+
+    private static WorkflowEdge edge(String id, String source, String target) {
+        return new WorkflowEdge(id, source, target);
+    }
+
+    // layered DAG: every node of layer i feeds 1..3 random nodes of layer i+1, so joins, fan-out and branches mix
+    private static WorkflowGraph layered(Random random, int layers, int width) {
+        List<WorkflowNode> nodes = new ArrayList<>();
+        List<WorkflowEdge> edges = new ArrayList<>();
+        nodes.add(node("start"));
+        List<String> previous = List.of("start");
+        for (int layer = 0; layer < layers; layer++) {
+            List<String> current = new ArrayList<>();
+            for (int i = 0; i < width; i++) {
+                String id = "n" + layer + "_" + i;
+                nodes.add(node(id));
+                current.add(id);
+            }
+            for (String source : previous) {
+                int fanOut = 1 + random.nextInt(3);
+                for (int i = 0; i < fanOut; i++) {
+                    String target = current.get(random.nextInt(width));
+                    edges.add(edge(source + "->" + target + "#" + i, source, target));
+                }
+            }
+            for (String target : current) {
+                if (edges.stream().noneMatch(edge -> edge.target().equals(target))) {
+                    edges.add(edge(previous.getFirst() + "->" + target, previous.getFirst(), target));
+                }
+            }
+            previous = current;
+        }
+        return new WorkflowGraph(nodes, edges);
+    }
+
+    private static void assertSameFrontier(WorkflowGraph graph, Map<String, NodeFact> facts, IncrementalPlanner planner) {
+        Frontier expected = Planner.plan(graph, new RunState(facts));
+        Frontier actual = planner.frontier();
+        assertEquals(expected.readyNodeIds(), actual.readyNodeIds());
+        assertEquals(expected.skipNodeIds(), actual.skipNodeIds());
+        assertEquals(expected.edgeVerdicts(), actual.edgeVerdicts());
+        assertEquals(expected.outputReached(), actual.outputReached());
+    }
+
+    @Test
+    void matchesFullFoldWhileDrivingRandomGraphsToCompletion() {
+        var random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            WorkflowGraph graph = layered(random, 6, 8);
+            var planner = new IncrementalPlanner(graph);
+            Map<String, NodeFact> facts = new LinkedHashMap<>();
+            assertSameFrontier(graph, facts, planner);
+            while (planner.hasProgress()) {
+                for (String skipped : planner.skipNodeIds()) {
+                    facts.put(skipped, NodeFact.skipped(skipped));
+                    planner.apply(skipped, NodeFact.skipped(skipped));
+                    assertSameFrontier(graph, facts, planner);
+                }
+                for (String ready : planner.readyNodeIds()) {
+                    planner.apply(ready, NodeFact.running(ready));
+                    facts.put(ready, NodeFact.running(ready));
+                    assertSameFrontier(graph, facts, planner);
+                    List<WorkflowEdge> outs = graph.outEdges(ready);
+                    NodeFact done = outs.isEmpty() || random.nextBoolean()
+                        ? NodeFact.completedNormal(ready)
+                        : NodeFact.completedBranch(ready, Set.of(outs.get(random.nextInt(outs.size())).id()));
+                    facts.put(ready, done);
+                    planner.apply(ready, done);
+                    assertSameFrontier(graph, facts, planner);
+                }
+            }
+        }
+    }
+
+    @Test
+    void handlesNonMonotoneFactChanges() {
+        var graph = new WorkflowGraph(
+            List.of(node("start"), node("a"), node("end")),
+            List.of(edge("e1", "start", "a"), edge("e2", "a", "end")));
+        var planner = new IncrementalPlanner(graph);
+        planner.apply("start", NodeFact.completedNormal("start"));
+        planner.apply("a", NodeFact.running("a"));
+        assertFalse(planner.hasProgress());
+
+        // orphan reset: RUNNING -> FAILED keeps the branch halted
+        planner.apply("a", NodeFact.failed("a"));
+        assertFalse(planner.hasProgress());
+        assertTrue(planner.anyFailed());
+
+        // fact removed (node cleared for re-run) -> the node is ready again
+        planner.apply("a", null);
+        assertEquals(List.of("a"), planner.readyNodeIds());
+        assertFalse(planner.anyFailed());
+
+        planner.apply("a", NodeFact.completedNormal("a"));
+        planner.apply("end", NodeFact.completedNormal("end"));
+        assertFalse(planner.hasProgress());
+        assertTrue(planner.outputReached());
+    }
+
+    @Test
+    void reapplyingSameFactIsNoOp() {
+        var graph = new WorkflowGraph(List.of(node("start")), List.of());
+        var planner = new IncrementalPlanner(graph);
+
+        assertTrue(planner.apply("start", NodeFact.completedNormal("start")));
+        assertFalse(planner.apply("start", NodeFact.completedNormal("start")));
+    }
+}
@@ -2,6 +2,8 @@ package ai.core;
 
 import ai.core.bootstrap.AgentBootstrap;
 import ai.core.bootstrap.BootstrapResult;
+import ai.core.document.TokenCountCache;
+import ai.core.llm.embedding.EmbeddingCache;
 import ai.core.llm.providers.LiteLLMProvider;
 import ai.core.telemetry.TracerBundle;
 import core.framework.module.Module;
@@ -15,6 +17,8 @@ public class MultiAgentModule extends Module {
         var bootstrap = new AgentBootstrap(this::property);
         var result = bootstrap.initialize();
         bindResult(result);
+        context.collector.metrics.add(TokenCountCache.getInstance());
+        context.collector.metrics.add(EmbeddingCache.getInstance());
     }
 
     private void bindResult(BootstrapResult r) {
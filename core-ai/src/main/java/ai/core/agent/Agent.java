@@ -258,7 +258,7 @@ public class Agent extends Node<Agent> {
     }
 
     private void rag(String query, Map<String, Object> variables) {
-        RagPipeline.execute(ragConfig, query, variables, this::addTokenCost);
+        RagPipeline.execute(ragConfig, query, variables, this::addTokenCost, getTracer());
     }
 
     public Boolean isUseGroupContext() {
@@ -0,0 +1,165 @@
+package ai.core.agent;
+
+import ai.core.defaultagents.DefaultRagHypotheticalDocumentAgent;
+import ai.core.defaultagents.DefaultRagMultiQueryAgent;
+import ai.core.defaultagents.DefaultRagQueryRewriteAgent;
+import ai.core.document.Document;
+import ai.core.llm.domain.EmbeddingRequest;
+import ai.core.llm.domain.Usage;
+import ai.core.rag.RagConfig;
+import ai.core.telemetry.Tracer;
+import io.opentelemetry.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retrieval of one {@link RagConfig#pipelined()} turn. The original query is embedded and searched right away while
+ * the rewritten query, the multi-query variants and the hypothetical document are generated, each variant is searched
+ * as soon as its text exists, all on virtual threads. Concurrent embeddings coalesce in the provider's batcher. With a
+ * retrieval deadline the caller continues with the ranked lists that arrived in time and unfinished stages are
+ * interrupted.
+ *
+ * @author stephen
+ */
+final class PipelinedRetrieval {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedRetrieval.class);
+    // fixed variant order, so fusion ties do not depend on which search finished first
+    private static final int ORDER_ORIGINAL = 0;
+    private static final int ORDER_REWRITE = 1;
+    private static final int ORDER_HYPOTHETICAL = 2;
+    private static final int ORDER_VARIANTS = 3;
+
+    static List<String> parseVariants(String output, String query, int limit) {
+        if (output == null) return List.of();
+        var variants = new LinkedHashSet<String>();
+        for (var line : output.split("\n")) {
+            var variant = line.strip().replaceFirst("^(\\d+[.)]|[-*])\\s*", "").strip();
+            if (!variant.isEmpty() && !variant.equals(query)) variants.add(variant);
+            if (variants.size() == limit) break;
+        }
+        return List.copyOf(variants);
+    }
+
+    private final RagConfig config;
+    private final Tracer tracer;
+    private final Queue<Ranking> rankings = new ConcurrentLinkedQueue<>();
+    private final Queue<Usage> usages = new ConcurrentLinkedQueue<>();
+    private final Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+    private final Phaser pending = new Phaser(1);
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rag-retrieval-", 0).factory());
+    private volatile String rewrittenQuery;
+    private volatile boolean abandoned;
+
+    PipelinedRetrieval(RagConfig config, Tracer tracer) {
+        this.config = config;
+        this.tracer = tracer;
+    }
+
+    Result retrieve(String query) {
+        var deadline = config.retrievalDeadline();
+        long deadlineNanos = deadline == null ? 0 : System.nanoTime() + deadline.toNanos();
+        try {
+            submit("search.original", () -> search(ORDER_ORIGINAL, List.of(query)));
+            if (config.enableQueryRewriting()) {
+                submit("rewrite", () -> {
+                    var rewritten = DefaultRagQueryRewriteAgent.of(config.llmProvider()).run(query);
+                    rewrittenQuery = rewritten;
+                    if (rewritten != null && !rewritten.isBlank() && !rewritten.equals(query)) search(ORDER_REWRITE, List.of(rewritten));
+                });
+            }
+            if (config.hypotheticalDocument()) {
+                submit("hyde", () -> search(ORDER_HYPOTHETICAL, List.of(DefaultRagHypotheticalDocumentAgent.of(config.llmProvider()).run(query))));
+            }
+            if (config.queryVariants() > 0) {
+                submit("multi_query", () -> {
+                    var output = DefaultRagMultiQueryAgent.of(config.llmProvider(), config.queryVariants()).run(query);
+                    search(ORDER_VARIANTS, parseVariants(output, query, config.queryVariants()));
+                });
+            }
+            boolean complete = await(deadlineNanos);
+            if (!complete) {
+                abandoned = true;
+                LOGGER.warn("rag retrieval passed deadline, continue with partial results, deadline={}, rankings={}", deadline, rankings.size());
+            }
+            var results = new ArrayList<>(rankings);
+            if (results.isEmpty() && complete && !failures.isEmpty()) throw failures.peek();
+            results.sort(Comparator.comparingInt(Ranking::order));
+            var rerankQuery = rewrittenQuery;
+            return new Result(results.stream().map(Ranking::documents).toList(), List.copyOf(usages), rerankQuery == null || rerankQuery.isBlank() ? query : rerankQuery, complete);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void search(int order, List<String> texts) {
+        var queries = texts.stream().filter(text -> text != null && !text.isBlank()).toList();
+        if (queries.isEmpty()) return;
+        // one embeddings call for all variants, the searches then run in parallel
+        var response = RagPipeline.stage(tracer, "embed", () -> config.llmProvider().cachedEmbeddings(new EmbeddingRequest(queries)));
+        if (response.usage != null) usages.add(response.usage);
+        for (int i = 0; i < queries.size(); i++) {
+            var embedding = response.embeddings.get(i).embedding;
+            int rankingOrder = order + i;
+            submit("search", () -> rankings.add(new Ranking(rankingOrder, RagPipeline.search(config, embedding))));
+        }
+    }
+
+    private void submit(String stage, Runnable task) {
+        pending.register();
+        Runnable traced = Context.current().wrap(() -> {
+            try {
+                RagPipeline.stage(tracer, stage, () -> {
+                    task.run();
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                failures.add(e);
+                if (!abandoned) LOGGER.warn("rag retrieval stage failed, stage={}", stage, e);
+            } finally {
+                pending.arriveAndDeregister();
+            }
+        });
+        try {
+            executor.execute(traced);
+        } catch (RejectedExecutionException e) {
+            // retrieval already returned after its deadline
+            pending.arriveAndDeregister();
+        }
+    }
+
+    private boolean await(long deadlineNanos) {
+        int phase = pending.arrive();
+        try {
+            if (deadlineNanos == 0) {
+                pending.awaitAdvanceInterruptibly(phase);
+            } else {
+                pending.awaitAdvanceInterruptibly(phase, Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    record Result(List<List<Document>> rankings, List<Usage> usages, String rerankQuery, boolean complete) {
+    }
+
+    private record Ranking(int order, List<Document> documents) {
+    }
+}
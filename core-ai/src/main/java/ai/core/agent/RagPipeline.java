@@ -1,37 +1,79 @@
 package ai.core.agent;
 
 import ai.core.defaultagents.DefaultRagQueryRewriteAgent;
+import ai.core.document.Document;
+import ai.core.document.Embedding;
 import ai.core.llm.domain.EmbeddingRequest;
 import ai.core.llm.domain.RerankingRequest;
 import ai.core.llm.domain.Usage;
 import ai.core.rag.RagConfig;
+import ai.core.rag.ReciprocalRankFusion;
 import ai.core.rag.SimilaritySearchRequest;
+import ai.core.telemetry.Tracer;
+import io.opentelemetry.api.trace.StatusCode;
 
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * @author stephen
  */
 final class RagPipeline {
 
-    static void execute(RagConfig ragConfig, String query, Map<String, Object> variables, Consumer<Usage> tokenCostTracker) {
+    static void execute(RagConfig ragConfig, String query, Map<String, Object> variables, Consumer<Usage> tokenCostTracker, Tracer tracer) {
         if (ragConfig.vectorStore() == null || ragConfig.llmProvider() == null)
             throw new RuntimeException("vectorStore/llmProvider cannot be null if useRag flag is enabled");
-        var ragQuery = query;
-        if (ragConfig.enableQueryRewriting()) {
-            ragQuery = DefaultRagQueryRewriteAgent.of(ragConfig.llmProvider()).run(query);
-        }
-        var rsp = ragConfig.llmProvider().embeddings(new EmbeddingRequest(List.of(ragQuery)));
-        tokenCostTracker.accept(rsp.usage);
-        var embedding = rsp.embeddings.getFirst().embedding;
-        var docs = ragConfig.vectorStore().similaritySearch(SimilaritySearchRequest.builder()
+        var context = stage(tracer, "rag", () -> ragConfig.pipelined()
+                ? pipelined(ragConfig, query, tokenCostTracker, tracer)
+                : sequential(ragConfig, query, tokenCostTracker, tracer));
+        variables.put(RagConfig.AGENT_RAG_CONTEXT_PLACEHOLDER, context);
+    }
+
+    static List<Document> search(RagConfig ragConfig, Embedding embedding) {
+        return ragConfig.vectorStore().similaritySearch(SimilaritySearchRequest.builder()
                 .embedding(embedding)
                 .threshold(ragConfig.threshold())
                 .topK(ragConfig.topK()).build());
-        var context = ragConfig.llmProvider().rerankings(RerankingRequest.of(ragQuery, docs.stream().map(v -> v.content).toList())).rerankedDocuments.getFirst();
-        variables.put(RagConfig.AGENT_RAG_CONTEXT_PLACEHOLDER, context);
+    }
+
+    @SuppressWarnings("try")
+    static <T> T stage(Tracer tracer, String name, Supplier<T> operation) {
+        if (tracer == null || !tracer.isEnabled()) return operation.get();
+        var span = tracer.startSpan("rag." + name);
+        try (var ignored = span.makeCurrent()) {
+            return operation.get();
+        } catch (RuntimeException e) {
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private static String sequential(RagConfig ragConfig, String query, Consumer<Usage> tokenCostTracker, Tracer tracer) {
+        var ragQuery = ragConfig.enableQueryRewriting()
+                ? stage(tracer, "rewrite", () -> DefaultRagQueryRewriteAgent.of(ragConfig.llmProvider()).run(query))
+                : query;
+        var rsp = stage(tracer, "embed", () -> ragConfig.llmProvider().cachedEmbeddings(new EmbeddingRequest(List.of(ragQuery))));
+        tokenCostTracker.accept(rsp.usage);
+        var embedding = rsp.embeddings.getFirst().embedding;
+        var docs = stage(tracer, "search", () -> search(ragConfig, embedding));
+        return stage(tracer, "rerank", () -> ragConfig.llmProvider().rerankings(RerankingRequest.of(ragQuery, docs.stream().map(v -> v.content).toList())).rerankedDocuments.getFirst());
+    }
+
+    private static String pipelined(RagConfig ragConfig, String query, Consumer<Usage> tokenCostTracker, Tracer tracer) {
+        var result = new PipelinedRetrieval(ragConfig, tracer).retrieve(query);
+        result.usages().forEach(tokenCostTracker);
+        var docs = stage(tracer, "fuse", () -> ReciprocalRankFusion.fuse(result.rankings(), ragConfig.topK()));
+        if (docs.isEmpty()) return "";
+        // past the deadline the turn should not wait for a rerank call as well
+        if (!result.complete()) return docs.getFirst().content;
+        var reranked = stage(tracer, "rerank", () -> ragConfig.llmProvider().rerankings(RerankingRequest.of(result.rerankQuery(), docs.stream().map(v -> v.content).toList())));
+        if (reranked == null || reranked.rerankedDocuments == null || reranked.rerankedDocuments.isEmpty()) return docs.getFirst().content;
+        return reranked.rerankedDocuments.getFirst();
     }
 
     private RagPipeline() {
@@ -1,10 +1,12 @@
 package ai.core.bootstrap;
 
+import ai.core.document.TokenCountCache;
 import ai.core.document.Tokenizer;
 import ai.core.llm.LLMProvider;
 import ai.core.llm.LLMProviderConfig;
 import ai.core.llm.LLMProviderType;
 import ai.core.llm.LLMProviders;
+import ai.core.llm.embedding.EmbeddingCache;
 import ai.core.llm.providers.LiteLLMProvider;
 import ai.core.mcp.client.McpClientManager;
 import ai.core.mcp.client.McpClientManagerRegistry;
@@ -35,6 +37,7 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -52,6 +55,7 @@ public class AgentBootstrap {
     public BootstrapResult initialize() {
         var result = new BootstrapResult();
         configurePersistenceProviders(result);
+        configureEmbeddingCache(result);
         configureVectorStores(result);
         configureTelemetry(result);
         configureLangfusePrompts(result);
@@ -62,6 +66,7 @@ public class AgentBootstrap {
     }
 
     private void warmup() {
+        props.property("sys.tokenizer.countCache.maxBytes").ifPresent(maxBytes -> TokenCountCache.getInstance().maxBytes(Long.parseLong(maxBytes)));
         logger.debug("Warming up tokenizer...");
         Tokenizer.warmup();
         logger.debug("Tokenizer warmup completed");
@@ -88,6 +93,15 @@ public class AgentBootstrap {
         });
     }
 
+    private void configureEmbeddingCache(BootstrapResult result) {
+        props.property("sys.embedding.cache.maxBytes").ifPresent(maxBytes -> EmbeddingCache.getInstance().maxBytes(Long.parseLong(maxBytes)));
+        props.property("sys.embedding.cache.persistence").ifPresent(type -> {
+            var provider = result.persistenceProviders.getPersistenceProvider(PersistenceProviderType.fromName(type));
+            if (provider == null) throw new IllegalStateException("embedding cache persistence provider is not configured, type=" + type);
+            EmbeddingCache.getInstance().persistenceProvider(provider);
+        });
+    }
+
     private void configureVectorStores(BootstrapResult result) {
         var vectorStores = new VectorStores();
         result.vectorStores = vectorStores;
@@ -207,6 +221,7 @@ public class AgentBootstrap {
         props.property("litellm.api.base").ifPresent(base -> {
             var providerConfig = createProviderConfig(config, "litellm");
             var provider = new LiteLLMProvider(providerConfig, props.requiredProperty("litellm.api.base"), props.property("litellm.api.key").orElse(""));
+            props.property("litellm.api.fallback.bases").ifPresent(bases -> provider.fallbackUrls(List.of(bases.split(","))));
             injectTracerIfAvailable(provider);
             result.liteLLMProvider = provider;
             providers.addProvider(LLMProviderType.LITELLM, provider);
@@ -297,6 +312,7 @@ public class AgentBootstrap {
         props.property(prefix + ".model.multimodal").ifPresent(config::setMultiModalModel);
         props.property(prefix + ".temperature").ifPresent(v -> config.setTemperature(Double.parseDouble(v)));
         props.property(prefix + ".embeddings.model").ifPresent(config::setEmbeddingModel);
+        props.property(prefix + ".embeddings.batch.size").ifPresent(v -> config.setEmbeddingBatchSize(Integer.parseInt(v)));
         props.property(prefix + ".request.extra_body").ifPresent(config::setRequestExtraBody);
         props.property(prefix + ".timeout.seconds").ifPresent(v -> config.setTimeout(Long.valueOf(v)));
         props.property(prefix + ".connect.timeout.seconds").ifPresent(v -> config.setConnectTimeout(Long.valueOf(v)));
@@ -8,7 +8,6 @@ import ai.core.llm.domain.FunctionCall;
 import ai.core.llm.domain.Message;
 import ai.core.llm.domain.RoleType;
 import ai.core.prompt.Prompts;
-import ai.core.utils.MessageTokenCounterUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +45,8 @@ public class Compression {
     private final LLMProvider llmProvider;
     private final String summaryModel;
     private final List<CompressionListener> listeners = new ArrayList<>();
+    private final MessageTokenLedger historyLedger = new MessageTokenLedger();
+    private final MessageTokenLedger conversationLedger = new MessageTokenLedger();
 
     public Compression(LLMProvider llmProvider, String agentModel) {
         this(DEFAULT_TRIGGER_THRESHOLD, DEFAULT_KEEP_RECENT_TURNS, DEFAULT_KEEP_TOKENS, llmProvider, agentModel, agentModel);
@@ -88,7 +89,8 @@ public class Compression {
             return messages;
         }
 
-        int currentTokens = MessageTokenCounterUtil.count(messages);
+        historyLedger.sync(messages);
+        int currentTokens = historyLedger.total();
         if (!shouldCompress(currentTokens)) {
             return messages;
         }
@@ -110,17 +112,7 @@ public class Compression {
             return messages;
         }
 
-        int lastUserIndex = findLastUserIndex(conversationMsgs);
-        if (lastUserIndex < 0) {
-            return messages;
-        }
-
-        int keepFromIndex;
-        if (force) {
-            keepFromIndex = calculateForceKeepFromIndex(conversationMsgs);
-        } else {
-            keepFromIndex = calculateKeepFromIndex(conversationMsgs, lastUserIndex);
-        }
+        int keepFromIndex = keepFromIndex(conversationMsgs, force);
         if (keepFromIndex <= 0) {
             return messages;
         }
@@ -158,6 +150,15 @@ public class Compression {
         LOGGER.debug("Compression complete: {} -> {} messages", messages.size(), result.size());
         return result;
     }
+    // first conversation message kept verbatim, <= 0 when there is nothing to compress
+    int keepFromIndex(List<Message> conversationMsgs, boolean force) {
+        int lastUserIndex = findLastUserIndex(conversationMsgs);
+        if (lastUserIndex < 0) {
+            return -1;
+        }
+        conversationLedger.sync(conversationMsgs);
+        return force ? calculateForceKeepFromIndex(conversationMsgs) : calculateKeepFromIndex(conversationMsgs, lastUserIndex);
+    }
     private Message findPreservedUserMessage(List<Message> toCompress, List<Message> toKeep) {
         boolean hasUserInKeep = toKeep.stream().anyMatch(m -> m.role == RoleType.USER);
         if (hasUserInKeep) {
@@ -172,7 +173,7 @@ public class Compression {
         int accumulatedTokens = 0;
         int keepFromIndex = conversationMsgs.size() - 1;
         for (int i = conversationMsgs.size() - 1; i >= 0; i--) {
-            accumulatedTokens += MessageTokenCounterUtil.count(conversationMsgs.get(i));
+            accumulatedTokens += conversationLedger.count(i);
             if (accumulatedTokens > keepTokens) {
                 keepFromIndex = adjustToToolSegmentBoundary(conversationMsgs, i);
                 break;
@@ -232,7 +233,7 @@ public class Compression {
     }
     private int calculateKeepFromIndex(List<Message> conversationMsgs, int lastUserIndex) {
         var keepFromIndex = findKeepFromIndexByTurnsAndTokens(conversationMsgs, lastUserIndex);
-        var tokensFromKeep = MessageTokenCounterUtil.countFrom(conversationMsgs, keepFromIndex);
+        var tokensFromKeep = conversationLedger.countFrom(keepFromIndex);
         var threshold = (int) (maxContextTokens * triggerThreshold);
         if (tokensFromKeep >= threshold) {
             return Math.max(keepFromIndex, conversationMsgs.size() - 1);
@@ -261,7 +262,7 @@ public class Compression {
                 && msg.toolCalls != null && !msg.toolCalls.isEmpty();
 
             if (!tokenBudgetExceeded) {
-                accumulatedTokens += MessageTokenCounterUtil.count(msg);
+                accumulatedTokens += conversationLedger.count(i);
             }
             if (!tokenBudgetExceeded && accumulatedTokens > keepTokens) {
                 pendingTokenSplit = msg.role == RoleType.TOOL;
@@ -342,11 +343,10 @@ public class Compression {
             return result;
         }
 
-        int tokenCount = Tokenizer.tokenCount(result);
-
-        if (tokenCount <= maxToolResultTokens) {
+        if (!Tokenizer.exceeds(result, maxToolResultTokens)) {
             return result;
         }
+        int tokenCount = Tokenizer.tokenCount(result);
 
         try {
             Path filePath = writeToolResultToFile(toolName, result, sessionId);
@@ -365,8 +365,7 @@ public class Compression {
         if (result == null || result.isEmpty()) {
             return false;
         }
-        int tokenCount = Tokenizer.tokenCount(result);
-        return tokenCount > maxToolResultTokens;
+        return Tokenizer.exceeds(result, maxToolResultTokens);
     }
     private Path writeToolResultToFile(String toolName, String content, String sessionId) throws IOException {
         String sid = sessionId != null ? sessionId : "default";
@@ -383,8 +382,8 @@ public class Compression {
         return filePath;
     }
     private String buildToolResultSummary(String toolName, String content, int tokenCount, Path filePath) {
-        String headContent = truncateToTokens(content);
-        String tailContent = extractTailTokens(content);
+        String headContent = Tokenizer.head(content, HEAD_TOKENS);
+        String tailContent = Tokenizer.tail(content, TAIL_TOKENS);
 
         return String.format("[Tool result truncated - full content saved to file]%n"
             + "Tool: %s%n"
@@ -403,21 +402,6 @@ public class Compression {
             TAIL_TOKENS, tailContent,
             filePath);
     }
-    private String truncateToTokens(String content) {
-        List<Integer> tokens = Tokenizer.encode(content);
-        if (tokens.size() <= HEAD_TOKENS) {
-            return content;
-        }
-        return Tokenizer.decode(tokens.subList(0, HEAD_TOKENS));
-    }
-    private String extractTailTokens(String content) {
-        List<Integer> tokens = Tokenizer.encode(content);
-        if (tokens.size() <= TAIL_TOKENS) {
-            return content;
-        }
-        int startIndex = tokens.size() - TAIL_TOKENS;
-        return Tokenizer.decode(tokens.subList(startIndex, tokens.size()));
-    }
     private String sanitizeFileName(String name) {
         return name.replaceAll("[^a-zA-Z0-9_-]", "_");
     }
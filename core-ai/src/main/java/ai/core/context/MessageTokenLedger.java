@@ -0,0 +1,81 @@
+package ai.core.context;
+
+import ai.core.llm.domain.Message;
+import ai.core.utils.MessageTokenCounterUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Running token prefix sums over a message history. {@link #sync} only re-counts from the first message whose
+ * identity or cached count changed, so appending a turn costs one tokenization and {@link #countFrom} is O(1).
+ * <p>
+ * {@link #sync} itself is still O(n) in the history length: messages are edited in place (e.g. doom-loop warnings
+ * appended to a tool result), so every message is re-fingerprinted. That is a few cached String hashes per message,
+ * not a tokenization.
+ *
+ * @author xander
+ */
+public final class MessageTokenLedger {
+    private Message[] messages = new Message[16];
+    private int[] counts = new int[16];
+    private long[] prefix = new long[17];
+    private int size;
+
+    // compares every known message by identity and content fingerprint, edits anywhere in the history re-count from there
+    public synchronized void sync(List<Message> history) {
+        int common = 0;
+        int limit = Math.min(size, history.size());
+        while (common < limit) {
+            var message = history.get(common);
+            if (messages[common] != message || counts[common] != MessageTokenCounterUtil.count(message)) break;
+            common++;
+        }
+        Arrays.fill(messages, common, size, null);
+        size = common;
+        for (int i = common; i < history.size(); i++) {
+            append(history.get(i));
+        }
+    }
+
+    public synchronized void append(Message message) {
+        ensureCapacity(size + 1);
+        int tokens = MessageTokenCounterUtil.count(message);
+        messages[size] = message;
+        counts[size] = tokens;
+        prefix[size + 1] = prefix[size] + tokens;
+        size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int total() {
+        return (int) prefix[size];
+    }
+
+    public synchronized int countFrom(int fromIndex) {
+        if (fromIndex <= 0) return (int) prefix[size];
+        if (fromIndex >= size) return 0;
+        return (int) (prefix[size] - prefix[fromIndex]);
+    }
+
+    public synchronized int countRange(int fromIndex, int toIndex) {
+        int from = Math.max(0, fromIndex);
+        int to = Math.min(size, toIndex);
+        return from >= to ? 0 : (int) (prefix[to] - prefix[from]);
+    }
+
+    public synchronized int count(int index) {
+        return counts[index];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= messages.length) return;
+        int newCapacity = Math.max(capacity, messages.length * 2);
+        messages = Arrays.copyOf(messages, newCapacity);
+        counts = Arrays.copyOf(counts, newCapacity);
+        prefix = Arrays.copyOf(prefix, newCapacity + 1);
+    }
+}
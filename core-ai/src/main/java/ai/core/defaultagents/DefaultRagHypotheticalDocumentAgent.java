@@ -0,0 +1,26 @@
+package ai.core.defaultagents;
+
+import ai.core.agent.Agent;
+import ai.core.llm.LLMProvider;
+
+/**
+ * @author stephen
+ */
+public class DefaultRagHypotheticalDocumentAgent {
+    public static Agent of(LLMProvider llmProvider) {
+        return Agent.builder()
+                .name("rag-hypothetical-document-agent")
+                .description("A default agent for writing hypothetical answer passages (HyDE) for RAG queries using LLMs.")
+                .systemPrompt("""
+                        Write a short passage that answers the question below, as it would appear in a document of the knowledge base.
+                        
+                        The passage should be in the same language as the question, and contain only the passage.
+                        
+                        ---
+                        
+                        **Question:**
+                        {{{input}}}
+                        """)
+                .llmProvider(llmProvider).build();
+    }
+}
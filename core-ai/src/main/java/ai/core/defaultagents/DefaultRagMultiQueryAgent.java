@@ -0,0 +1,29 @@
+package ai.core.defaultagents;
+
+import ai.core.agent.Agent;
+import ai.core.llm.LLMProvider;
+import core.framework.util.Strings;
+
+/**
+ * @author stephen
+ */
+public class DefaultRagMultiQueryAgent {
+    public static Agent of(LLMProvider llmProvider, int variants) {
+        return Agent.builder()
+                .name("rag-multi-query-agent")
+                .description("A default agent for generating alternative phrasings of RAG queries using LLMs.")
+                .systemPrompt(Strings.format("""
+                        Generate {} different versions of the question below to retrieve relevant documents from a vector database.
+                        
+                        Each version should look at the question from a different angle or use different keywords, in the same language as the question.
+                        
+                        Output one version per line without numbering or any other text.
+                        
+                        ---
+                        
+                        **Question:**
+                        {{{input}}}
+                        """, variants))
+                .llmProvider(llmProvider).build();
+    }
+}
@@ -1,33 +1,100 @@
 package ai.core.document;
 
-import java.util.ArrayList;
+import core.framework.api.json.Property;
+
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
+ * Embedding vector backed by a primitive float array, copied in and out so instances are immutable and can be
+ * shared by caches. {@link #vectors()} is a read-only boxed compatibility view over the same storage.
+ *
  * @author stephen
  */
-public record Embedding(List<Double> vectors) {
+public record Embedding(@Property(name = "vectors") float[] values) {
     public static Embedding of(float[] vectors) {
-        var list = new ArrayList<Double>();
-        for (var vector : vectors) {
-            list.add((double) vector);
-        }
-        return new Embedding(list);
+        return new Embedding(vectors);
     }
 
     public static Embedding of(List<Float> vectors) {
-        var list = new ArrayList<Double>();
-        for (var vector : vectors) {
-            list.add((double) vector);
+        var array = new float[vectors.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = vectors.get(i);
         }
-        return new Embedding(list);
+        return new Embedding(array);
     }
 
-    public float[] toFloatArray() {
+    public static Embedding ofDoubles(List<Double> vectors) {
+        return new Embedding(vectors);
+    }
+
+    private static float[] floats(List<Double> vectors) {
         var array = new float[vectors.size()];
-        for (int i = 0; i < vectors.size(); i++) {
+        for (int i = 0; i < array.length; i++) {
             array[i] = vectors.get(i).floatValue();
         }
         return array;
     }
+
+    public Embedding {
+        if (values == null) throw new IllegalArgumentException("values must not be null");
+        values = values.clone();
+    }
+
+    public Embedding(List<Double> vectors) {
+        this(floats(vectors));
+    }
+
+    public int dimension() {
+        return values.length;
+    }
+
+    @Override
+    public float[] values() {
+        return values.clone();
+    }
+
+    public List<Double> vectors() {
+        return new DoubleView(values);
+    }
+
+    public float[] toFloatArray() {
+        return values.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof Embedding other && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "Embedding[dimension=" + values.length + "]";
+    }
+
+    private static final class DoubleView extends AbstractList<Double> implements RandomAccess {
+        private final float[] values;
+
+        DoubleView(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Double get(int index) {
+            return (double) values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
 }
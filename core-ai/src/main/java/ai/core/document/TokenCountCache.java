@@ -0,0 +1,110 @@
+package ai.core.document;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import core.framework.internal.stat.Metrics;
+import core.framework.internal.stat.Stats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * LRU cache of token counts for large texts such as system prompts, tool schemas and skill bodies, keyed by encoding
+ * type, text length and a 64-bit content hash so the texts themselves are not retained. The memory cap is converted
+ * to an entry budget using a fixed per-entry estimate.
+ *
+ * @author xander
+ */
+public final class TokenCountCache implements Metrics {
+    public static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+    static final int MIN_CACHEABLE_LENGTH = 1024;
+    static final int ENTRY_BYTES = 128;
+    private static final TokenCountCache INSTANCE = new TokenCountCache(DEFAULT_MAX_BYTES);
+
+    public static TokenCountCache getInstance() {
+        return INSTANCE;
+    }
+
+    static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LinkedHashMap<Key, Integer> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private volatile long maxBytes;
+    private int maxEntries;
+
+    public TokenCountCache(long maxBytes) {
+        maxBytes(maxBytes);
+    }
+
+    public synchronized void maxBytes(long maxBytes) {
+        if (maxBytes < 0) throw new IllegalArgumentException("maxBytes must not be negative, maxBytes=" + maxBytes);
+        this.maxBytes = maxBytes;
+        this.maxEntries = (int) Math.min(Integer.MAX_VALUE, maxBytes / ENTRY_BYTES);
+        var iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public int count(String text, EncodingType type, ToIntFunction<String> counter) {
+        if (text == null || text.length() < MIN_CACHEABLE_LENGTH || maxBytes == 0) {
+            return counter.applyAsInt(text);
+        }
+        var key = new Key(type, text.length(), hash(text));
+        Integer cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        int count = counter.applyAsInt(text);
+        synchronized (this) {
+            entries.put(key, count);
+        }
+        return count;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public void collect(Stats stats) {
+        stats.put("token_count_cache_hits", hits.sumThenReset());
+        stats.put("token_count_cache_misses", misses.sumThenReset());
+        stats.put("token_count_cache_size", size());
+    }
+
+    private record Key(EncodingType type, int length, long hash) {
+    }
+}
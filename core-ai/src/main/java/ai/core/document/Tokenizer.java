@@ -3,6 +3,7 @@ package ai.core.document;
 import com.knuddels.jtokkit.Encodings;
 import com.knuddels.jtokkit.api.Encoding;
 import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingResult;
 import com.knuddels.jtokkit.api.EncodingType;
 import com.knuddels.jtokkit.api.IntArrayList;
 
@@ -13,6 +14,9 @@ import java.util.concurrent.ConcurrentMap;
 
 public class Tokenizer {
     public static final EncodingType DEFAULT_ENCODING_TYPE = EncodingType.CL100K_BASE;
+    private static final int TAIL_WINDOW_CHARS_PER_TOKEN = 8;
+    private static final int TAIL_WINDOW_MIN_CHARS = 256;
+    private static final int TAIL_BOUNDARY_MARGIN_TOKENS = 16;
 
     // Lazy-loaded encoding registry - expensive to create, initialized during warmup
     private static volatile EncodingRegistry encodingRegistry;
@@ -36,7 +40,7 @@ public class Tokenizer {
     }
 
     public static int tokenCount(String text, EncodingType type) {
-        return getEncoding(type).countTokens(text);
+        return TokenCountCache.getInstance().count(text, type, getEncoding(type)::countTokens);
     }
 
     public static int tokenCount(String text) {
@@ -61,15 +65,100 @@ public class Tokenizer {
         return decode(encoded, DEFAULT_ENCODING_TYPE);
     }
 
+    public static IntArrayList encodeTokens(String text, EncodingType type) {
+        return getEncoding(type).encode(text);
+    }
+
+    public static IntArrayList encodeTokens(String text) {
+        return encodeTokens(text, DEFAULT_ENCODING_TYPE);
+    }
+
+    public static EncodingResult encodeTokens(String text, int maxTokens) {
+        return getEncoding(DEFAULT_ENCODING_TYPE).encode(text, maxTokens);
+    }
+
+    public static String decodeTokens(IntArrayList tokens) {
+        return getEncoding(DEFAULT_ENCODING_TYPE).decode(tokens);
+    }
+
     public static String truncate(String text, int maxTokens) {
-        if (text == null || text.isEmpty()) {
+        return head(text, maxTokens);
+    }
+
+    /**
+     * Every token decodes to at least one UTF-8 byte, so a text whose UTF-8 length is within maxTokens
+     * fits without encoding it.
+     */
+    public static boolean fitsWithoutEncoding(String text, int maxTokens) {
+        if (text.length() > maxTokens) return false;
+        if ((long) text.length() * 3 <= maxTokens) return true;
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+            if (bytes > maxTokens) return false;
+        }
+        return true;
+    }
+
+    public static String head(String text, int maxTokens) {
+        if (text == null || text.isEmpty() || fitsWithoutEncoding(text, maxTokens)) {
             return text;
         }
-        List<Integer> tokens = encode(text);
-        if (tokens.size() <= maxTokens) {
+        var result = encodeTokens(text, maxTokens);
+        if (!result.isTruncated()) {
             return text;
         }
-        return decode(tokens.subList(0, maxTokens));
+        return decodeTokens(result.getTokens());
+    }
+
+    /**
+     * Encodes a growing suffix window instead of the whole text, the first pre-token of the window may split
+     * differently from a full encode so a margin of tokens is dropped before taking the tail.
+     */
+    public static String tail(String text, int maxTokens) {
+        if (text == null || text.isEmpty() || fitsWithoutEncoding(text, maxTokens)) {
+            return text;
+        }
+        int window = Math.max(maxTokens * TAIL_WINDOW_CHARS_PER_TOKEN, TAIL_WINDOW_MIN_CHARS);
+        while (true) {
+            boolean wholeText = window >= text.length();
+            int start = wholeText ? 0 : windowStart(text, text.length() - window);
+            var tokens = encodeTokens(text.substring(start));
+            if (wholeText || tokens.size() > maxTokens + TAIL_BOUNDARY_MARGIN_TOKENS) {
+                if (tokens.size() <= maxTokens) return text;
+                return decodeTokens(slice(tokens, tokens.size() - maxTokens, tokens.size()));
+            }
+            window = window > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : window * 2;
+        }
+    }
+
+    public static boolean exceeds(String text, int maxTokens) {
+        if (text == null || text.isEmpty() || fitsWithoutEncoding(text, maxTokens)) {
+            return false;
+        }
+        return encodeTokens(text, maxTokens).isTruncated();
+    }
+
+    public static IntArrayList slice(IntArrayList tokens, int fromIndex, int toIndex) {
+        var slice = new IntArrayList(Math.max(0, toIndex - fromIndex));
+        for (int i = fromIndex; i < toIndex; i++) {
+            slice.add(tokens.get(i));
+        }
+        return slice;
+    }
+
+    private static int windowStart(String text, int index) {
+        return Character.isLowSurrogate(text.charAt(index)) ? index - 1 : index;
     }
 
     /**
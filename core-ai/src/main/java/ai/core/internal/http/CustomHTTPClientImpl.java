@@ -92,7 +92,8 @@ public final class CustomHTTPClientImpl implements HTTPClient {
                 byte[] body = body(httpResponse, statusCode);
                 logger.debug("[response] body={}", BodyLogParam.of(body, contentType == null ? null : ContentType.parse(contentType)));
                 String bodyText = new String(body, java.nio.charset.StandardCharsets.UTF_8);
-                throw new HTTPClientException(Strings.format("invalid sse response, statusCode={}, content-type={}, body={}", statusCode, contentType, bodyText), "HTTP_REQUEST_FAILED");
+                String retryAfter = headers.get("Retry-After");
+                throw new HTTPClientException(Strings.format("invalid sse response, statusCode={}, retry-after={}, content-type={}, body={}", statusCode, retryAfter, contentType, bodyText), "HTTP_REQUEST_FAILED");
             }
 
             long elapsed = watch.elapsed();
@@ -2,6 +2,8 @@ package ai.core.llm;
 
 import ai.core.agent.AttachedContent;
 import ai.core.agent.internal.AgentHelper;
+import ai.core.llm.embedding.EmbeddingBatcher;
+import ai.core.llm.embedding.EmbeddingCache;
 import ai.core.llm.streaming.AsyncStreamingCallback;
 import ai.core.llm.streaming.BufferedStreamingCallback;
 import ai.core.llm.streaming.DefaultStreamingCallback;
@@ -30,6 +32,7 @@ import org.slf4j.LoggerFactory;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
@@ -44,6 +47,8 @@ public abstract class LLMProvider {
     protected LLMTracer tracer;
     protected ModelModalityRegistry modalityRegistry = SeedModelModalityRegistry.INSTANCE;
     public LLMProviderConfig config;
+    private final ReentrantLock embeddingBatcherLock = new ReentrantLock();
+    private volatile EmbeddingBatcher embeddingBatcher;
 
     public LLMProvider(LLMProviderConfig config) {
         this.config = config;
@@ -225,6 +230,31 @@ public abstract class LLMProvider {
 
     public abstract EmbeddingResponse embeddings(EmbeddingRequest request);
 
+    /**
+     * Embeddings through the shared {@link EmbeddingCache}, cache misses of concurrent callers are batched into
+     * shared {@link #embeddings} calls. For query and chunk texts that repeat across runs.
+     */
+    public final EmbeddingResponse cachedEmbeddings(EmbeddingRequest request) {
+        var batcher = embeddingBatcher;
+        if (batcher == null) batcher = createEmbeddingBatcher();
+        return batcher.embeddings(request);
+    }
+
+    private EmbeddingBatcher createEmbeddingBatcher() {
+        embeddingBatcherLock.lock();
+        try {
+            var batcher = embeddingBatcher;
+            if (batcher == null) {
+                int batchSize = config == null ? 256 : config.getEmbeddingBatchSize();
+                batcher = new EmbeddingBatcher(this, EmbeddingCache.getInstance(), batchSize, EmbeddingBatcher.DEFAULT_MAX_CONCURRENT_REQUESTS);
+                embeddingBatcher = batcher;
+            }
+            return batcher;
+        } finally {
+            embeddingBatcherLock.unlock();
+        }
+    }
+
     public abstract RerankingResponse rerankings(RerankingRequest request);
 
     public abstract CaptionImageResponse captionImage(CaptionImageRequest request);
@@ -19,6 +19,7 @@ public class LLMProviderConfig {
     private Duration timeout = Duration.ofSeconds(300);
     private Duration connectTimeout = Duration.ofSeconds(3);
     private int streamBufferSize = 0;
+    private int embeddingBatchSize = 256;
 
     public LLMProviderConfig(String model, Double temperature, String embeddingModel) {
         this.model = model;
@@ -36,6 +37,7 @@ public class LLMProviderConfig {
         this.timeout = other.timeout;
         this.connectTimeout = other.connectTimeout;
         this.streamBufferSize = other.streamBufferSize;
+        this.embeddingBatchSize = other.embeddingBatchSize;
     }
 
     public Duration getConnectTimeout() {
@@ -126,4 +128,13 @@ public class LLMProviderConfig {
     public void setStreamBufferSize(int streamBufferSize) {
         this.streamBufferSize = streamBufferSize;
     }
+
+    public int getEmbeddingBatchSize() {
+        return embeddingBatchSize;
+    }
+
+    // max inputs per /embeddings call when cache misses are batched
+    public void setEmbeddingBatchSize(int embeddingBatchSize) {
+        this.embeddingBatchSize = embeddingBatchSize;
+    }
 }
@@ -77,6 +77,8 @@ public class Message {
     @Property(name = "tool_calls")
     public List<FunctionCall> toolCalls;
 
+    private transient volatile CachedTokenCount cachedTokenCount;
+
     public String getName() {
         return name;
     }
@@ -98,11 +100,23 @@ public class Message {
         return joined.isEmpty() ? null : joined;
     }
 
+    public int cachedTokenCount(long fingerprint) {
+        var cached = cachedTokenCount;
+        return cached != null && cached.fingerprint == fingerprint ? cached.tokens : -1;
+    }
+
+    public void cacheTokenCount(long fingerprint, int tokens) {
+        cachedTokenCount = new CachedTokenCount(fingerprint, tokens);
+    }
+
     @Override
     public String toString() {
         return JsonUtil.toJson(this);
     }
 
+    private record CachedTokenCount(long fingerprint, int tokens) {
+    }
+
     public record MessageRecord(RoleType role,
                                 List<Content> content,
                                 String reasoningContent,
@@ -0,0 +1,174 @@
+package ai.core.llm.embedding;
+
+import ai.core.document.Embedding;
+import ai.core.llm.LLMProvider;
+import ai.core.llm.domain.EmbeddingRequest;
+import ai.core.llm.domain.EmbeddingResponse;
+import ai.core.llm.domain.Usage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embeddings for one provider through the {@link EmbeddingCache}, with cache misses from all callers queued and sent
+ * as shared /embeddings calls of up to maxBatchSize inputs. Up to maxConcurrentRequests calls run at once on virtual
+ * worker threads; while they are in flight new misses queue up, so concurrent agents coalesce without a linger delay
+ * and an idle batcher sends a lone query immediately. Usage of a shared call is split by input length.
+ *
+ * @author stephen
+ */
+public final class EmbeddingBatcher {
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+    private static final long WORKER_IDLE_SECONDS = 30;
+
+    private final LLMProvider provider;
+    private final EmbeddingCache cache;
+    private final int maxBatchSize;
+    private final int maxConcurrentRequests;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String, Pending> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger workers = new AtomicInteger();
+
+    public EmbeddingBatcher(LLMProvider provider, EmbeddingCache cache, int maxBatchSize, int maxConcurrentRequests) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be positive, maxBatchSize=" + maxBatchSize);
+        if (maxConcurrentRequests < 1) throw new IllegalArgumentException("maxConcurrentRequests must be positive, maxConcurrentRequests=" + maxConcurrentRequests);
+        this.provider = provider;
+        this.cache = cache;
+        this.maxBatchSize = maxBatchSize;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public EmbeddingResponse embeddings(EmbeddingRequest request) {
+        var model = model();
+        var texts = request.query();
+        var embeddings = new Embedding[texts.size()];
+        Map<String, Pending> pending = new HashMap<>();
+        List<Pending> created = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            var text = texts.get(i);
+            embeddings[i] = cache.get(model, text);
+            if (embeddings[i] == null) {
+                // a text another caller already queued is waited for instead of embedded twice
+                pending.computeIfAbsent(text, key -> inFlight.computeIfAbsent(key, missing -> {
+                    var item = new Pending(missing);
+                    created.add(item);
+                    return item;
+                }));
+            }
+        }
+        if (!created.isEmpty()) {
+            queue.addAll(created);
+            startWorkers(created.size());
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            if (embeddings[i] == null) embeddings[i] = await(pending.get(texts.get(i))).embedding;
+        }
+        // usage is charged to the caller that queued the text
+        double promptTokens = 0;
+        for (var item : created) promptTokens += item.future.join().promptTokens;
+        var data = new ArrayList<EmbeddingResponse.EmbeddingData>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            data.add(EmbeddingResponse.EmbeddingData.of(texts.get(i), embeddings[i]));
+        }
+        int tokens = (int) Math.round(promptTokens);
+        return EmbeddingResponse.of(data, new Usage(tokens, 0, tokens));
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    private String model() {
+        var model = provider.config == null ? null : provider.config.getEmbeddingModel();
+        return model == null ? provider.name() : model;
+    }
+
+    private Result await(Pending item) {
+        try {
+            return item.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void startWorkers(int items) {
+        int wanted = Math.min(maxConcurrentRequests, (items + maxBatchSize - 1) / maxBatchSize + 1);
+        for (int i = 0; i < wanted; i++) {
+            int current = workers.get();
+            if (current >= maxConcurrentRequests) return;
+            if (workers.compareAndSet(current, current + 1)) {
+                Thread.ofVirtual().name("embedding-batcher").start(this::work);
+            }
+        }
+    }
+
+    private void work() {
+        var batch = new ArrayList<Pending>(maxBatchSize);
+        try {
+            while (true) {
+                var first = queue.poll(WORKER_IDLE_SECONDS, TimeUnit.SECONDS);
+                if (first == null) break;
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.decrementAndGet();
+            // an item queued while this worker was exiting found the pool full, pick it up
+            if (!queue.isEmpty()) startWorkers(queue.size());
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        try {
+            var texts = batch.stream().map(item -> item.text).toList();
+            var response = provider.embeddings(new EmbeddingRequest(texts));
+            if (response == null || response.embeddings == null || response.embeddings.size() != batch.size()) {
+                throw new IllegalStateException("embedding response does not match request, provider=" + provider.name() + ", inputs=" + batch.size());
+            }
+            var model = model();
+            long totalChars = 0;
+            for (var text : texts) totalChars += text.length();
+            int promptTokens = response.usage == null ? 0 : response.usage.getPromptTokens();
+            for (int i = 0; i < batch.size(); i++) {
+                var item = batch.get(i);
+                var embedding = response.embeddings.get(i).embedding;
+                cache.put(model, item.text, embedding);
+                double share = totalChars == 0 ? 1d / batch.size() : (double) item.text.length() / totalChars;
+                item.future.complete(new Result(embedding, promptTokens * share));
+            }
+        } catch (RuntimeException e) {
+            for (var item : batch) item.future.completeExceptionally(e);
+        } finally {
+            for (var item : batch) {
+                // an Error skips the catch, the callers waiting on the batch must still be released
+                if (!item.future.isDone()) item.future.completeExceptionally(new IllegalStateException("embedding batch failed, provider=" + provider.name()));
+                inFlight.remove(item.text, item);
+            }
+        }
+    }
+
+    private static final class Pending {
+        final String text;
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        Pending(String text) {
+            this.text = text;
+        }
+    }
+
+    private record Result(Embedding embedding, double promptTokens) {
+    }
+}
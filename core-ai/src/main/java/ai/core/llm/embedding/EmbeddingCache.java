@@ -0,0 +1,207 @@
+package ai.core.llm.embedding;
+
+import ai.core.document.Embedding;
+import ai.core.persistence.PersistenceProvider;
+import core.framework.internal.stat.Metrics;
+import core.framework.internal.stat.Stats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LRU cache of embedding vectors keyed by embedding model and the SHA-256 of the text, so the texts are not retained,
+ * vectors of different models never mix and a colliding text cannot be crafted to poison the shared tier. The memory cap counts vector bytes plus a fixed per-entry
+ * estimate. An optional {@link PersistenceProvider} is a second tier shared across processes and restarts, read on
+ * memory misses and written on every put. Vectors are copied on put and get through {@link Embedding}, so a caller
+ * changing its array never changes what other callers read.
+ *
+ * @author stephen
+ */
+public final class EmbeddingCache implements Metrics {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    static final int ENTRY_OVERHEAD_BYTES = 160;
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddingCache.class);
+    private static final EmbeddingCache INSTANCE = new EmbeddingCache(DEFAULT_MAX_BYTES);
+
+    public static EmbeddingCache getInstance() {
+        return INSTANCE;
+    }
+
+    static String digest(String text) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String encode(float[] values) {
+        var buffer = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(values);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    static float[] decode(String value) {
+        var buffer = ByteBuffer.wrap(Base64.getDecoder().decode(value)).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        var values = new float[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+    private static long entryBytes(float[] values) {
+        return (long) values.length * Float.BYTES + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LinkedHashMap<Key, float[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long maxBytes;
+    private long bytes;
+    private volatile PersistenceProvider persistenceProvider;
+
+    public EmbeddingCache(long maxBytes) {
+        maxBytes(maxBytes);
+    }
+
+    public void maxBytes(long maxBytes) {
+        if (maxBytes < 0) throw new IllegalArgumentException("maxBytes must not be negative, maxBytes=" + maxBytes);
+        lock.lock();
+        try {
+            this.maxBytes = maxBytes;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void persistenceProvider(PersistenceProvider persistenceProvider) {
+        this.persistenceProvider = persistenceProvider;
+    }
+
+    public Embedding get(String model, String text) {
+        var key = new Key(model, digest(text));
+        float[] cached;
+        lock.lock();
+        try {
+            cached = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (cached != null) {
+            hits.increment();
+            return Embedding.of(cached);
+        }
+        var persistence = persistenceProvider;
+        if (persistence != null) {
+            var persisted = loadPersisted(persistence, key);
+            if (persisted != null) {
+                persistentHits.increment();
+                putMemory(key, persisted);
+                return Embedding.of(persisted);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String model, String text, Embedding embedding) {
+        var key = new Key(model, digest(text));
+        var values = embedding.values();
+        putMemory(key, values);
+        var persistence = persistenceProvider;
+        if (persistence != null) {
+            try {
+                persistence.save(key.persistenceId(), encode(values));
+            } catch (RuntimeException e) {
+                LOGGER.warn("failed to persist embedding, model={}", model, e);
+            }
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hits() {
+        return hits.sum() + persistentHits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public void collect(Stats stats) {
+        stats.put("embedding_cache_hits", hits.sumThenReset());
+        stats.put("embedding_cache_persistent_hits", persistentHits.sumThenReset());
+        stats.put("embedding_cache_misses", misses.sumThenReset());
+        stats.put("embedding_cache_size", size());
+    }
+
+    private float[] loadPersisted(PersistenceProvider persistence, Key key) {
+        try {
+            return persistence.load(key.persistenceId()).map(EmbeddingCache::decode).orElse(null);
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to load persisted embedding, model={}", key.model, e);
+            return null;
+        }
+    }
+
+    private void putMemory(Key key, float[] values) {
+        lock.lock();
+        try {
+            if (entryBytes(values) > maxBytes) return;
+            var previous = entries.put(key, values);
+            if (previous != null) bytes -= entryBytes(previous);
+            bytes += entryBytes(values);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict() {
+        var iterator = entries.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Key, float[]> eldest = iterator.next();
+            bytes -= entryBytes(eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    private record Key(String model, String digest) {
+        // usable as a redis key and a file name, model names like azure/text-embedding-3-large contain slashes
+        String persistenceId() {
+            return "embedding-" + model.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + digest;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ai.core.llm.providers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Sibling upstream base urls for one provider, scored by an exponentially weighted success rate.
+ * The first endpoint is preferred while scores tie; a failure lowers its score so the next request goes to a
+ * healthier sibling, the score recovers over {@code RECOVERY_PERIOD} without traffic, and consecutive failures
+ * take the endpoint out of rotation with doubling ejection time.
+ *
+ * @author stephen
+ */
+public final class EndpointPool {
+    private static final double SCORE_WEIGHT = 0.3;
+    private static final int EJECT_AFTER_CONSECUTIVE_FAILURES = 3;
+    private static final Duration BASE_EJECTION = Duration.ofSeconds(10);
+    private static final Duration MAX_EJECTION = Duration.ofMinutes(5);
+    private static final Duration RECOVERY_PERIOD = Duration.ofSeconds(30);
+
+    private final List<Endpoint> endpoints;
+    private final LongSupplier nanoClock;
+
+    public EndpointPool(List<String> urls) {
+        this(urls, System::nanoTime);
+    }
+
+    EndpointPool(List<String> urls, LongSupplier nanoClock) {
+        if (urls.isEmpty()) throw new IllegalArgumentException("urls must not be empty");
+        long now = nanoClock.getAsLong();
+        var endpoints = new ArrayList<Endpoint>(urls.size());
+        for (var url : urls) {
+            endpoints.add(new Endpoint(url, now));
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.nanoClock = nanoClock;
+    }
+
+    public synchronized Endpoint select() {
+        long now = nanoClock.getAsLong();
+        Endpoint best = null;
+        double bestScore = -1;
+        Endpoint earliest = null;
+        for (var endpoint : endpoints) {
+            if (endpoint.ejectedUntil - now > 0) {
+                if (earliest == null || endpoint.ejectedUntil - earliest.ejectedUntil < 0) earliest = endpoint;
+                continue;
+            }
+            double score = endpoint.score(now);
+            if (score > bestScore) {
+                best = endpoint;
+                bestScore = score;
+            }
+        }
+        return best != null ? best : earliest;
+    }
+
+    public synchronized void recordSuccess(Endpoint endpoint) {
+        long now = nanoClock.getAsLong();
+        endpoint.score = endpoint.score(now) * (1 - SCORE_WEIGHT) + SCORE_WEIGHT;
+        endpoint.updatedAt = now;
+        endpoint.consecutiveFailures = 0;
+        endpoint.ejections = 0;
+    }
+
+    public synchronized void recordFailure(Endpoint endpoint) {
+        long now = nanoClock.getAsLong();
+        endpoint.score = endpoint.score(now) * (1 - SCORE_WEIGHT);
+        endpoint.updatedAt = now;
+        endpoint.consecutiveFailures++;
+        if (endpoint.consecutiveFailures >= EJECT_AFTER_CONSECUTIVE_FAILURES) {
+            long ejection = Math.min(MAX_EJECTION.toNanos(), BASE_EJECTION.toNanos() << Math.min(endpoint.ejections, 16));
+            endpoint.ejectedUntil = now + ejection;
+            endpoint.ejections++;
+            endpoint.consecutiveFailures = 0;
+        }
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    public static final class Endpoint {
+        public final String url;
+        private double score = 1;
+        private long updatedAt;
+        private long ejectedUntil;
+        private int consecutiveFailures;
+        private int ejections;
+
+        private Endpoint(String url, long now) {
+            this.url = url;
+            this.updatedAt = now;
+            this.ejectedUntil = now;
+        }
+
+        private double score(long now) {
+            if (score >= 1) return 1;
+            double recovered = (now - updatedAt) / (double) RECOVERY_PERIOD.toNanos();
+            return Math.min(1, score + recovered);
+        }
+    }
+}
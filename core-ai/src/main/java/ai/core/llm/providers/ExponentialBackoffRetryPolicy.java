@@ -0,0 +1,86 @@
+package ai.core.llm.providers;
+
+import ai.core.agent.CancellationException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Exponential backoff with equal jitter, so concurrent agents hitting the same brownout spread their retries.
+ * The status code and retry-after are read from the sse failure raised by the http client; timeouts, 429, 5xx and a
+ * 2xx that is not an event stream are retried, other 4xx fail immediately, and a retry-after hint replaces the
+ * computed delay up to maxDelay.
+ *
+ * @author stephen
+ */
+public final class ExponentialBackoffRetryPolicy implements RetryPolicy {
+    private static final Pattern STATUS_CODE = Pattern.compile("statusCode=(\\d{3})");
+    private static final Pattern RETRY_AFTER = Pattern.compile("retry-after=(\\d+|[A-Za-z]{3}, \\d{2} [A-Za-z]{3} \\d{4} \\d{2}:\\d{2}:\\d{2} GMT)");
+
+    static Integer statusCode(Throwable error) {
+        for (var current = error; current != null; current = current.getCause()) {
+            var message = current.getMessage();
+            if (message == null) continue;
+            var matcher = STATUS_CODE.matcher(message);
+            if (matcher.find()) return Integer.parseInt(matcher.group(1));
+        }
+        return null;
+    }
+
+    static Duration retryAfter(Throwable error) {
+        var message = error.getMessage();
+        if (message == null) return null;
+        var matcher = RETRY_AFTER.matcher(message);
+        if (!matcher.find()) return null;
+        var value = matcher.group(1);
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            try {
+                var delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private final int maxRetries;
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+
+    public ExponentialBackoffRetryPolicy(int maxRetries, Duration initialDelay, Duration maxDelay) {
+        this.maxRetries = maxRetries;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    @Override
+    public int maxRetries() {
+        return maxRetries;
+    }
+
+    @Override
+    public boolean retryable(Throwable error) {
+        if (error instanceof CancellationException) return false;
+        var statusCode = statusCode(error);
+        if (statusCode == null) return true;
+        // a 2xx that is not an event stream comes from a proxy or gateway hiccup in front of the model
+        return statusCode / 100 == 2 || statusCode == 408 || statusCode == 409 || statusCode == 425 || statusCode == 429 || statusCode >= 500;
+    }
+
+    @Override
+    public Duration backoff(int attempt, Throwable error) {
+        var retryAfter = retryAfter(error);
+        if (retryAfter != null) {
+            return retryAfter.compareTo(maxDelay) > 0 ? maxDelay : retryAfter;
+        }
+        long ceiling = Math.min(maxDelay.toMillis(), initialDelay.toMillis() << Math.min(attempt, 20));
+        long half = ceiling / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(ceiling - half + 1));
+    }
+}
@@ -0,0 +1,276 @@
+package ai.core.llm.providers;
+
+import ai.core.llm.domain.AssistantMessage;
+import ai.core.llm.domain.Choice;
+import ai.core.llm.domain.CompletionResponse;
+import ai.core.llm.domain.FinishReason;
+import ai.core.llm.domain.FunctionCall;
+import ai.core.llm.domain.RoleType;
+import ai.core.llm.domain.Usage;
+import ai.core.utils.JsonUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental decoder for chat/completions SSE chunks, one instance per stream.
+ * Reads delta content, reasoning, tool-call deltas, finish_reason and usage straight off a streaming parser into
+ * holder objects that are reused across events; the escape-repair + databind path is only taken when parsing fails.
+ * The returned chunk is overwritten by the next decode unless {@link #detach()} is called.
+ *
+ * @author stephen
+ */
+final class LiteLLMChatChunkDecoder {
+    static FinishReason finishReason(String value) {
+        if (value == null || value.isEmpty()) return null;
+        for (var reason : FinishReason.values()) {
+            if (reason.name().equalsIgnoreCase(value)) return reason;
+        }
+        return null;
+    }
+
+    static RoleType role(String value) {
+        if (value == null || value.isEmpty()) return null;
+        for (var role : RoleType.values()) {
+            if (role.name().equalsIgnoreCase(value)) return role;
+        }
+        return null;
+    }
+
+    private final JsonFactory factory = JsonUtil.OBJECT_MAPPER.getFactory();
+    private CompletionResponse chunk;
+    private List<Choice> choices;
+    private Choice choice;
+    private AssistantMessage delta;
+    private int fallbackCount;
+
+    CompletionResponse decode(String data) {
+        try {
+            return decodeStreaming(data);
+        } catch (IOException e) {
+            fallbackCount++;
+            chunk = null;
+            return JsonUtil.fromJson(CompletionResponse.class, LiteLLMProvider.repairInvalidJsonEscapes(data));
+        }
+    }
+
+    void detach() {
+        chunk = null;
+    }
+
+    int fallbackCount() {
+        return fallbackCount;
+    }
+
+    private CompletionResponse decodeStreaming(String data) throws IOException {
+        resetHolders();
+        try (var parser = factory.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new JsonParseException(parser, "chunk must be json object");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.currentName();
+                var token = parser.nextToken();
+                if ("choices".equals(field)) {
+                    readChoices(parser, token);
+                } else if ("usage".equals(field)) {
+                    chunk.usage = token == JsonToken.VALUE_NULL ? null : readUsage(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private void resetHolders() {
+        if (chunk == null) {
+            chunk = new CompletionResponse();
+            choices = new ArrayList<>(1);
+            choice = new Choice();
+            delta = new AssistantMessage();
+        }
+        chunk.choices = null;
+        chunk.usage = null;
+        choices.clear();
+        choice.delta = null;
+        choice.message = null;
+        choice.finishReason = null;
+        choice.index = null;
+        delta.role = RoleType.ASSISTANT;
+        delta.content = null;
+        delta.reasoningContent = null;
+        delta.name = null;
+        delta.toolCallId = null;
+        delta.toolCalls = null;
+    }
+
+    private void readChoices(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) return;
+        if (token != JsonToken.START_ARRAY) throw new JsonParseException(parser, "choices must be array");
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (choices.isEmpty()) {
+                readChoice(parser);
+                choices.add(choice);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        chunk.choices = choices;
+    }
+
+    private void readChoice(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) throw new JsonParseException(parser, "choice must be object");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            var token = parser.nextToken();
+            switch (field) {
+                case "delta" -> {
+                    if (token != JsonToken.VALUE_NULL) {
+                        readMessage(parser, delta);
+                        choice.delta = delta;
+                    }
+                }
+                case "message" -> {
+                    if (token != JsonToken.VALUE_NULL) {
+                        var message = new AssistantMessage();
+                        readMessage(parser, message);
+                        choice.message = message;
+                    }
+                }
+                case "finish_reason" -> choice.finishReason = requiredEnum(parser, finishReason(text(parser)));
+                case "index" -> choice.index = intValue(parser);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void readMessage(JsonParser parser, AssistantMessage message) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) throw new JsonParseException(parser, "message must be object");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            var token = parser.nextToken();
+            switch (field) {
+                case "content" -> message.content = text(parser);
+                case "reasoning_content" -> message.reasoningContent = text(parser);
+                case "role" -> message.role = token == JsonToken.VALUE_NULL ? null : requiredEnum(parser, role(text(parser)));
+                case "name" -> message.name = text(parser);
+                case "tool_call_id" -> message.toolCallId = text(parser);
+                case "tool_calls" -> message.toolCalls = token == JsonToken.VALUE_NULL ? null : readToolCalls(parser);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private List<FunctionCall> readToolCalls(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) throw new JsonParseException(parser, "tool_calls must be array");
+        var toolCalls = new ArrayList<FunctionCall>(1);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                toolCalls.add(null);
+                continue;
+            }
+            if (parser.currentToken() != JsonToken.START_OBJECT) throw new JsonParseException(parser, "tool_call must be object");
+            var toolCall = new FunctionCall();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.currentName();
+                var token = parser.nextToken();
+                switch (field) {
+                    case "index" -> toolCall.index = intValue(parser);
+                    case "id" -> toolCall.id = text(parser);
+                    case "type" -> toolCall.type = text(parser);
+                    case "function" -> toolCall.function = token == JsonToken.VALUE_NULL ? null : readFunction(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            toolCalls.add(toolCall);
+        }
+        return toolCalls;
+    }
+
+    private FunctionCall.Function readFunction(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) throw new JsonParseException(parser, "function must be object");
+        var function = new FunctionCall.Function();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "name" -> function.name = text(parser);
+                case "arguments" -> function.arguments = text(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return function;
+    }
+
+    private Usage readUsage(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) throw new JsonParseException(parser, "usage must be object");
+        var usage = new Usage();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            var token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) continue;
+            switch (field) {
+                case "prompt_tokens" -> usage.setPromptTokens(parser.getValueAsInt());
+                case "completion_tokens" -> usage.setCompletionTokens(parser.getValueAsInt());
+                case "total_tokens" -> usage.setTotalTokens(parser.getValueAsInt());
+                case "completion_tokens_details" -> usage.setCompletionTokensDetails(readCompletionTokensDetails(parser));
+                case "prompt_tokens_details" -> usage.setPromptTokensDetails(readPromptTokensDetails(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return usage;
+    }
+
+    private Usage.CompletionTokensDetails readCompletionTokensDetails(JsonParser parser) throws IOException {
+        var details = new Usage.CompletionTokensDetails();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            parser.nextToken();
+            if ("reasoning_tokens".equals(field)) {
+                details.reasoningTokens = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return details;
+    }
+
+    private Usage.PromptTokensDetails readPromptTokensDetails(JsonParser parser) throws IOException {
+        var details = new Usage.PromptTokensDetails();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            parser.nextToken();
+            if ("cached_tokens".equals(field)) {
+                details.cachedTokens = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return details;
+    }
+
+    private String text(JsonParser parser) throws IOException {
+        var token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) return null;
+        if (token == JsonToken.VALUE_STRING) return parser.getText();
+        throw new JsonParseException(parser, "expected string, token=" + token);
+    }
+
+    private Integer intValue(JsonParser parser) throws IOException {
+        var token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) return null;
+        if (token == JsonToken.VALUE_NUMBER_INT) return parser.getIntValue();
+        throw new JsonParseException(parser, "expected int, token=" + token);
+    }
+
+    private <T extends Enum<T>> T requiredEnum(JsonParser parser, T value) throws IOException {
+        if (value == null && parser.currentToken() == JsonToken.VALUE_STRING && !parser.getText().isEmpty()) {
+            throw new JsonParseException(parser, "unknown enum value: " + parser.getText());
+        }
+        return value;
+    }
+}
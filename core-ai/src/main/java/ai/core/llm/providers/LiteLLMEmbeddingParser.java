@@ -0,0 +1,100 @@
+package ai.core.llm.providers;
+
+import ai.core.document.Embedding;
+import ai.core.llm.domain.EmbeddingResponse;
+import ai.core.llm.domain.Usage;
+import ai.core.utils.JsonUtil;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses /embeddings responses with the streaming parser so vectors land directly in float arrays
+ * instead of boxed Double lists.
+ *
+ * @author stephen
+ */
+final class LiteLLMEmbeddingParser {
+    private static final int INITIAL_VECTOR_CAPACITY = 1536;
+
+    static EmbeddingResponse parse(List<String> queries, String responseText) {
+        try (var parser = JsonUtil.OBJECT_MAPPER.getFactory().createParser(responseText)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new IllegalStateException("invalid embedding response: " + abbreviate(responseText));
+            var embeddings = new ArrayList<EmbeddingResponse.EmbeddingData>(queries.size());
+            var usage = new Usage(0, 0, 0);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.currentName();
+                parser.nextToken();
+                if ("data".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        embeddings.add(parseData(parser, queries));
+                    }
+                } else if ("usage".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                    usage = parseUsage(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return EmbeddingResponse.of(embeddings, usage);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to parse embedding response", e);
+        }
+    }
+
+    private static EmbeddingResponse.EmbeddingData parseData(JsonParser parser, List<String> queries) throws IOException {
+        int index = -1;
+        float[] vector = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            parser.nextToken();
+            if ("index".equals(field)) {
+                index = parser.getValueAsInt(-1);
+            } else if ("embedding".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                vector = parseVector(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (index < 0 || index >= queries.size() || vector == null) throw new IllegalStateException("invalid embedding data, index=" + index);
+        return EmbeddingResponse.EmbeddingData.of(queries.get(index), Embedding.of(vector));
+    }
+
+    private static float[] parseVector(JsonParser parser) throws IOException {
+        var buffer = new float[INITIAL_VECTOR_CAPACITY];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            buffer[size++] = parser.getFloatValue();
+        }
+        return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    }
+
+    private static Usage parseUsage(JsonParser parser) throws IOException {
+        int promptTokens = 0;
+        int totalTokens = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            parser.nextToken();
+            if ("prompt_tokens".equals(field)) {
+                promptTokens = parser.getValueAsInt();
+            } else if ("total_tokens".equals(field)) {
+                totalTokens = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Usage(promptTokens, 0, totalTokens);
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= 200 ? text : text.substring(0, 200) + "...";
+    }
+
+    private LiteLLMEmbeddingParser() {
+    }
+}
@@ -4,7 +4,6 @@ import ai.core.agent.CancelReason;
 import ai.core.agent.CancellationException;
 import ai.core.llm.streaming.DefaultStreamingCallback;
 import ai.core.llm.streaming.StreamingCallback;
-import ai.core.document.Embedding;
 import ai.core.internal.http.PatchedHTTPClientBuilder;
 import ai.core.llm.LLMProvider;
 import ai.core.llm.LLMProviderConfig;
@@ -20,7 +19,6 @@ import ai.core.llm.domain.FinishReason;
 import ai.core.llm.domain.FunctionCall;
 import ai.core.llm.domain.RerankingRequest;
 import ai.core.llm.domain.RerankingResponse;
-import ai.core.llm.domain.Usage;
 import ai.core.utils.JsonUtil;
 import core.framework.http.ContentType;
 import core.framework.http.HTTPClient;
@@ -35,14 +33,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * @author stephen
  */
 public class LiteLLMProvider extends LLMProvider {
-    private static final int MAX_RETRIES = 3;
-    private static final Duration RETRY_WAIT_TIME = Duration.ofSeconds(3);
-
     /**
      * Whether this model name selects the /responses transport instead of /chat/completions.
      */
@@ -87,6 +83,9 @@ public class LiteLLMProvider extends LLMProvider {
     private volatile String authHeaderName = "Authorization";
     private volatile String authHeaderValuePrefix = "Bearer ";
     private final HTTPClient client;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.defaultPolicy();
+    private volatile EndpointPool endpointPool;
+    private volatile List<String> fallbackUrls = List.of();
 
     public LiteLLMProvider(LLMProviderConfig config, String url, String token) {
         super(config);
@@ -112,6 +111,29 @@ public class LiteLLMProvider extends LLMProvider {
     public void updateCredentials(String url, String token) {
         this.url = stripTrailingSlashes(url);
         this.token = token;
+        // the new url becomes the primary, the fallbacks stay and all endpoints start with a clean score
+        var fallbacks = fallbackUrls;
+        if (!fallbacks.isEmpty()) this.endpointPool = endpointPool(this.url, fallbacks);
+    }
+
+    public void retryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Sibling base urls that chat completions fail over to when the primary url is unhealthy.
+     */
+    public void fallbackUrls(List<String> urls) {
+        var fallbacks = urls.stream().map(fallbackUrl -> stripTrailingSlashes(fallbackUrl.strip())).toList();
+        this.fallbackUrls = fallbacks;
+        this.endpointPool = endpointPool(url, fallbacks);
+    }
+
+    private EndpointPool endpointPool(String primaryUrl, List<String> fallbacks) {
+        var endpoints = new ArrayList<String>(fallbacks.size() + 1);
+        endpoints.add(primaryUrl);
+        endpoints.addAll(fallbacks);
+        return new EndpointPool(endpoints);
     }
 
     @Override
@@ -155,33 +177,7 @@ public class LiteLLMProvider extends LLMProvider {
             throw new RuntimeException("Embedding request failed: " + rsp.text());
         }
 
-        return parseEmbeddingResponse(dto.query(), rsp.text());
-    }
-
-    @SuppressWarnings("unchecked")
-    private EmbeddingResponse parseEmbeddingResponse(List<String> queries, String responseText) {
-        var responseMap = (Map<String, Object>) JsonUtil.fromJson(Map.class, responseText);
-        var dataList = (List<Map<String, Object>>) responseMap.get("data");
-        var usageMap = (Map<String, Object>) responseMap.get("usage");
-
-        var embeddings = new ArrayList<EmbeddingResponse.EmbeddingData>();
-        for (var data : dataList) {
-            int index = ((Number) data.get("index")).intValue();
-            var embeddingList = (List<Number>) data.get("embedding");
-            var vectors = embeddingList.stream()
-                    .map(Number::doubleValue)
-                    .toList();
-            var embedding = new Embedding(vectors);
-            embeddings.add(EmbeddingResponse.EmbeddingData.of(queries.get(index), embedding));
-        }
-
-        var usage = new Usage(
-                ((Number) usageMap.get("prompt_tokens")).intValue(),
-                0,
-                ((Number) usageMap.get("total_tokens")).intValue()
-        );
-
-        return EmbeddingResponse.of(embeddings, usage);
+        return LiteLLMEmbeddingParser.parse(dto.query(), rsp.text());
     }
 
     @Override
@@ -202,16 +198,6 @@ public class LiteLLMProvider extends LLMProvider {
     @SuppressWarnings("unchecked")
     public CompletionResponse chatCompletionStream(CompletionRequest request, StreamingCallback callback) {
         var extraBody = request.getExtraBody() != null ? request.getExtraBody() : config.resolveExtraBody(request.model);
-        var reqUrl = url.contains("/chat/completions") ? url : url + "/chat/completions";
-        var req = new HTTPRequest(HTTPMethod.POST, reqUrl);
-        if (request.getTimeoutSeconds() != null) {
-            req.timeout = Duration.ofSeconds(request.getTimeoutSeconds());
-        }
-        req.headers.put("Content-Type", ContentType.APPLICATION_JSON.toString());
-        if (!Strings.isBlank(token)) {
-            req.headers.put(authHeaderName, authHeaderValuePrefix + token);
-        }
-
         var bodyMap = (Map<String, Object>) JsonUtil.toMap(request);
         if (request.getReasoningEffortValue() != null) {
             bodyMap.put("reasoning_effort", request.getReasoningEffortValue());
@@ -219,23 +205,49 @@ public class LiteLLMProvider extends LLMProvider {
         if (extraBody instanceof Map<?, ?> extraMap) {
             bodyMap.putAll((Map<String, Object>) extraMap);
         }
-        req.body(JsonUtil.toJson(bodyMap).getBytes(StandardCharsets.UTF_8), ContentType.APPLICATION_JSON);
+        var body = JsonUtil.toJson(bodyMap).getBytes(StandardCharsets.UTF_8);
 
-        return executeSSERequest(req, callback);
+        return executeSSERequest(request, baseUrl -> chatCompletionRequest(baseUrl, request, body), callback);
     }
 
-    private CompletionResponse executeSSERequest(HTTPRequest req, StreamingCallback callback) {
+    private HTTPRequest chatCompletionRequest(String baseUrl, CompletionRequest request, byte[] body) {
+        var reqUrl = baseUrl.contains("/chat/completions") ? baseUrl : baseUrl + "/chat/completions";
+        var req = new HTTPRequest(HTTPMethod.POST, reqUrl);
+        if (request.getTimeoutSeconds() != null) {
+            req.timeout = Duration.ofSeconds(request.getTimeoutSeconds());
+        }
+        req.headers.put("Content-Type", ContentType.APPLICATION_JSON.toString());
+        if (!Strings.isBlank(token)) {
+            req.headers.put(authHeaderName, authHeaderValuePrefix + token);
+        }
+        req.body(body, ContentType.APPLICATION_JSON);
+        return req;
+    }
+
+    private CompletionResponse executeSSERequest(CompletionRequest request, Function<String, HTTPRequest> requestFactory, StreamingCallback callback) {
+        var policy = retryPolicy;
+        var pool = endpointPool;
+        var endpoint = pool == null ? null : pool.select();
         CompletionResponse response = null;
         Exception lastError = null;
-        for (int attempt = 0; attempt <= MAX_RETRIES; attempt++) {
+        for (int attempt = 0; attempt <= policy.maxRetries(); attempt++) {
             if (callback.isCancelled()) break;
             try {
-                response = consumeSSEStream(req, callback);
+                response = consumeSSEStream(request, requestFactory.apply(endpoint == null ? url : endpoint.url), callback);
+                if (pool != null) pool.recordSuccess(endpoint);
                 break;
             } catch (Exception e) {
                 if (callback.isCancelled()) break;
                 lastError = e;
-                if (attempt < MAX_RETRIES && !retrySleep()) break;
+                if (!policy.retryable(e)) break;
+                boolean failover = false;
+                if (pool != null) {
+                    pool.recordFailure(endpoint);
+                    var next = pool.select();
+                    failover = next != endpoint;
+                    endpoint = next;
+                }
+                if (attempt < policy.maxRetries() && !failover && !retrySleep(policy.backoff(attempt, e))) break;
             }
         }
         if (callback.isCancelled() && !hasPartialContent(response)) {
@@ -272,8 +284,13 @@ public class LiteLLMProvider extends LLMProvider {
         return response;
     }
 
-    private CompletionResponse consumeSSEStream(HTTPRequest req, StreamingCallback callback) {
+    /**
+     * Reads one attempt of the chat completion stream into the accumulated response; retries, cancellation and
+     * the completion callbacks stay in the caller. Offline stand-ins override this to replay recorded streams.
+     */
+    protected CompletionResponse consumeSSEStream(CompletionRequest request, HTTPRequest req, StreamingCallback callback) {
         CompletionResponse response = null;
+        var decoder = new LiteLLMChatChunkDecoder();
         try (var eventSource = client.sse(req)) {
             callback.setActiveConnection(eventSource);
 
@@ -284,43 +301,54 @@ public class LiteLLMProvider extends LLMProvider {
                 if ("[DONE]".equals(data)) {
                     break;
                 }
-
-                var chunk = JsonUtil.fromJson(CompletionResponse.class, repairInvalidJsonEscapes(data));
-                if (chunk.usage != null && response != null) {
-                    response.usage = chunk.usage;
-                }
-                if (chunk.choices == null || chunk.choices.isEmpty()) {
-                    continue;
-                }
-
-                var choice = chunk.choices.getFirst();
-                if (Objects.nonNull(choice.delta) && StringUtils.isNotEmpty(choice.delta.reasoningContent)) {
-                    callback.onReasoningChunk(choice.delta.reasoningContent);
-                }
-                if (Objects.nonNull(choice.delta) && StringUtils.isNotEmpty(choice.delta.content)) {
-                    callback.onChunk(choice.delta.content);
-                }
-                if (response == null) {
-                    response = chunk;
-                    initializeFinalChoiceMessage(response);
-                }
-                mergeChunkIntoFinalResponse(response, chunk, callback);
+                response = accumulateChunk(decoder, response, data, callback);
             }
             return response;
         } finally {
-            // Sync builders to String fields so partial response is usable on error/cancel
-            if (response != null && response.choices != null && !response.choices.isEmpty()) {
-                var finalChoice = response.choices.getFirst();
-                if (finalChoice.message != null) {
-                    finalChoice.message.finalizeStreamingFields();
-                }
+            finishStream(response);
+        }
+    }
+
+    // sync builders to String fields so partial response is usable on error/cancel
+    void finishStream(CompletionResponse response) {
+        if (response != null && response.choices != null && !response.choices.isEmpty()) {
+            var finalChoice = response.choices.getFirst();
+            if (finalChoice.message != null) {
+                finalChoice.message.finalizeStreamingFields();
             }
         }
     }
 
-    private boolean retrySleep() {
+    // folds one SSE data payload into the accumulated response, the first chunk with choices becomes the response
+    CompletionResponse accumulateChunk(LiteLLMChatChunkDecoder decoder, CompletionResponse response, String data, StreamingCallback callback) {
+        var chunk = decoder.decode(data);
+        if (chunk.usage != null && response != null) {
+            response.usage = chunk.usage;
+        }
+        if (chunk.choices == null || chunk.choices.isEmpty()) {
+            return response;
+        }
+
+        var choice = chunk.choices.getFirst();
+        if (Objects.nonNull(choice.delta) && StringUtils.isNotEmpty(choice.delta.reasoningContent)) {
+            callback.onReasoningChunk(choice.delta.reasoningContent);
+        }
+        if (Objects.nonNull(choice.delta) && StringUtils.isNotEmpty(choice.delta.content)) {
+            callback.onChunk(choice.delta.content);
+        }
+        var accumulated = response;
+        if (accumulated == null) {
+            accumulated = chunk;
+            decoder.detach();
+            initializeFinalChoiceMessage(accumulated);
+        }
+        mergeChunkIntoFinalResponse(accumulated, chunk, callback);
+        return accumulated;
+    }
+
+    private boolean retrySleep(Duration delay) {
         try {
-            Thread.sleep(RETRY_WAIT_TIME.toMillis());
+            Thread.sleep(delay.toMillis());
             return true;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -0,0 +1,23 @@
+package ai.core.llm.providers;
+
+import java.time.Duration;
+
+/**
+ * Decides whether a failed LLM request is retried and how long to wait before the next attempt.
+ *
+ * @author stephen
+ */
+public interface RetryPolicy {
+    static RetryPolicy defaultPolicy() {
+        return new ExponentialBackoffRetryPolicy(3, Duration.ofMillis(500), Duration.ofSeconds(10));
+    }
+
+    int maxRetries();
+
+    boolean retryable(Throwable error);
+
+    /**
+     * @param attempt zero-based index of the attempt that just failed
+     */
+    Duration backoff(int attempt, Throwable error);
+}
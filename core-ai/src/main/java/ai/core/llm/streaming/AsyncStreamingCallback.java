@@ -4,62 +4,58 @@ import ai.core.llm.domain.FunctionCall;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 /**
+ * Forwards streaming events to the delegate in order on a serial mailbox of the shared {@link StreamingCallbackDispatcher}.
+ *
  * @author lim chen
  */
 public class AsyncStreamingCallback implements StreamingCallback {
     private static final Logger LOGGER = LoggerFactory.getLogger(AsyncStreamingCallback.class);
-    private static final long DRAIN_TIMEOUT_SECONDS = 30;
-
-    private static ExecutorService newExecutor() {
-        return Executors.newSingleThreadExecutor(r -> {
-            var thread = new Thread(r, "async-streaming-callback");
-            thread.setDaemon(true);
-            return thread;
-        });
-    }
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
 
     private final StreamingCallback delegate;
-    private volatile ExecutorService executor;
+    private final StreamingCallbackDispatcher.Mailbox mailbox;
 
     public AsyncStreamingCallback(StreamingCallback delegate) {
+        this(delegate, StreamingCallbackDispatcher.getInstance());
+    }
+
+    public AsyncStreamingCallback(StreamingCallback delegate, StreamingCallbackDispatcher dispatcher) {
         this.delegate = delegate;
-        this.executor = newExecutor();
+        this.mailbox = dispatcher.newMailbox();
     }
 
     @Override
     public void onRawData(String sseData) {
-        executor.execute(() -> delegate.onRawData(sseData));
+        mailbox.submit(() -> delegate.onRawData(sseData));
     }
 
     @Override
     public void onChunk(String chunk) {
-        executor.execute(() -> delegate.onChunk(chunk));
+        mailbox.submit(() -> delegate.onChunk(chunk));
     }
 
     @Override
     public void onReasoningChunk(String chunk) {
-        executor.execute(() -> delegate.onReasoningChunk(chunk));
+        mailbox.submit(() -> delegate.onReasoningChunk(chunk));
     }
 
     @Override
     public void onTool(List<FunctionCall> functionCalls) {
-        executor.execute(() -> delegate.onTool(functionCalls));
+        mailbox.submit(() -> delegate.onTool(functionCalls));
     }
 
     @Override
     public void onToolComplete(List<FunctionCall> functionCalls) {
-        executor.execute(() -> delegate.onToolComplete(functionCalls));
+        mailbox.submit(() -> delegate.onToolComplete(functionCalls));
     }
 
     @Override
     public void onReasoningComplete(String reasoning) {
-        executor.execute(() -> delegate.onReasoningComplete(reasoning));
+        mailbox.submit(() -> delegate.onReasoningComplete(reasoning));
     }
 
     @Override
@@ -80,7 +76,7 @@ public class AsyncStreamingCallback implements StreamingCallback {
     @Override
     public void cancelConnection() {
         delegate.cancelConnection();
-        shutdownExecutor();
+        mailbox.close();
     }
 
     @Override
@@ -90,26 +86,15 @@ public class AsyncStreamingCallback implements StreamingCallback {
 
     @Override
     public void reset() {
-        shutdownExecutor();
-        executor = newExecutor();
+        mailbox.reopen();
         delegate.reset();
     }
 
     private void drainAndRun(Runnable finalAction) {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                LOGGER.warn("async streaming callback drain timed out");
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            executor.shutdownNow();
+        if (!mailbox.drain(DRAIN_TIMEOUT)) {
+            LOGGER.warn("async streaming callback drain timed out");
+            mailbox.close();
         }
         finalAction.run();
     }
-
-    private void shutdownExecutor() {
-        executor.shutdownNow();
-    }
 }
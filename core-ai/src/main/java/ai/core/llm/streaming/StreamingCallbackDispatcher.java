@@ -0,0 +1,173 @@
+package ai.core.llm.streaming;
+
+import core.framework.internal.stat.Metrics;
+import core.framework.internal.stat.Stats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared dispatcher for {@link AsyncStreamingCallback}, each callback owns a serial {@link Mailbox} so events keep
+ * per-stream order while all streams share virtual threads, with at most {@code maxConcurrentDrains} mailboxes
+ * draining at once.
+ *
+ * @author lim chen
+ */
+public final class StreamingCallbackDispatcher implements Metrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingCallbackDispatcher.class);
+    private static final int DEFAULT_MAX_CONCURRENT_DRAINS = 1024;
+    private static final int MAX_EVENTS_PER_DRAIN = 256;
+    private static final StreamingCallbackDispatcher INSTANCE = new StreamingCallbackDispatcher(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("streaming-callback-", 0).factory()), DEFAULT_MAX_CONCURRENT_DRAINS);
+
+    public static StreamingCallbackDispatcher getInstance() {
+        return INSTANCE;
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore drainPermits;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public StreamingCallbackDispatcher(ExecutorService executor, int maxConcurrentDrains) {
+        this.executor = executor;
+        this.drainPermits = new Semaphore(maxConcurrentDrains);
+    }
+
+    public Mailbox newMailbox() {
+        return new Mailbox();
+    }
+
+    public long queueDepth() {
+        return queueDepth.get();
+    }
+
+    public long dispatchedCount() {
+        return dispatched.sum();
+    }
+
+    public double averageLatencyMillis() {
+        long count = dispatched.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / (double) count / 1_000_000;
+    }
+
+    @Override
+    public void collect(Stats stats) {
+        stats.put("streaming_callback_queue_depth", queueDepth.get());
+        stats.put("streaming_callback_max_queue_depth", maxQueueDepth.getAndSet(queueDepth.get()));
+        stats.put("streaming_callback_max_drain_latency", maxLatencyNanos.getAndSet(0) / 1_000_000.0);
+    }
+
+    private void recordEnqueued() {
+        long depth = queueDepth.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    private void recordDispatched(long enqueuedAt) {
+        long latency = System.nanoTime() - enqueuedAt;
+        queueDepth.decrementAndGet();
+        dispatched.increment();
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
+
+    private record Event(Runnable action, long enqueuedAt, boolean barrier) {
+    }
+
+    public final class Mailbox {
+        private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile Thread worker;
+
+        private Mailbox() {
+        }
+
+        public void submit(Runnable action) {
+            if (closed) return;
+            enqueue(new Event(action, System.nanoTime(), false));
+        }
+
+        public boolean drain(Duration timeout) {
+            if (closed) return true;
+            var latch = new CountDownLatch(1);
+            enqueue(new Event(latch::countDown, System.nanoTime(), true));
+            try {
+                return latch.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        public void close() {
+            closed = true;
+            discardPending();
+            var current = worker;
+            if (current != null) current.interrupt();
+        }
+
+        public void reopen() {
+            discardPending();
+            closed = false;
+        }
+
+        private void enqueue(Event event) {
+            events.add(event);
+            recordEnqueued();
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::run);
+            }
+        }
+
+        private void run() {
+            drainPermits.acquireUninterruptibly();
+            worker = Thread.currentThread();
+            try {
+                int processed = 0;
+                Event event;
+                while (processed < MAX_EVENTS_PER_DRAIN && (event = events.poll()) != null) {
+                    recordDispatched(event.enqueuedAt());
+                    processed++;
+                    if (closed && !event.barrier()) continue;
+                    try {
+                        event.action().run();
+                    } catch (Throwable e) {
+                        LOGGER.warn("streaming callback event failed", e);
+                    }
+                }
+            } finally {
+                worker = null;
+                drainPermits.release();
+                scheduled.set(false);
+                if (!events.isEmpty()) schedule();
+            }
+        }
+
+        private void discardPending() {
+            Event event;
+            while ((event = events.poll()) != null) {
+                queueDepth.decrementAndGet();
+                if (event.barrier()) event.action().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ai.core.memory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embeddings of one user as rows of a single float array with the row norms precomputed, so a search is one linear
+ * pass over contiguous memory instead of a float[] and map entry per record. Deletes only clear the row id; rows are
+ * compacted once more than half of them are deleted. The dimension is taken from the first row and reset once the
+ * matrix is empty.
+ *
+ * @author xander
+ */
+final class EmbeddingMatrix {
+    private static final int INITIAL_ROWS = 16;
+    private static final int MIN_COMPACT_ROWS = 64;
+
+    // four independent sums keep the loop free of a serial dependency on one accumulator
+    static float dot(float[] query, float[] data, int offset, int dimension) {
+        float sum0 = 0;
+        float sum1 = 0;
+        float sum2 = 0;
+        float sum3 = 0;
+        int i = 0;
+        for (; i + 3 < dimension; i += 4) {
+            sum0 += query[i] * data[offset + i];
+            sum1 += query[i + 1] * data[offset + i + 1];
+            sum2 += query[i + 2] * data[offset + i + 2];
+            sum3 += query[i + 3] * data[offset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            sum0 += query[i] * data[offset + i];
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    static float norm(float[] values) {
+        return (float) Math.sqrt(dot(values, values, 0, values.length));
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowById = new HashMap<>();
+    private int dimension = -1;
+    private float[] data = new float[0];
+    private float[] norms = new float[0];
+    private String[] ids = new String[0];
+    private int rows;
+
+    void put(String id, float[] values) {
+        lock.writeLock().lock();
+        try {
+            int rowDimension = dimension < 0 ? values.length : dimension;
+            if (values.length != rowDimension) throw new IllegalArgumentException("embedding dimension mismatch, expected=" + rowDimension + ", actual=" + values.length);
+            var row = rowById.get(id);
+            if (row == null) {
+                ensureCapacity(rows + 1, rowDimension);
+                dimension = rowDimension;
+                row = rows++;
+                ids[row] = id;
+                rowById.put(id, row);
+            }
+            System.arraycopy(values, 0, data, row * dimension, dimension);
+            norms[row] = norm(values);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            var row = rowById.remove(id);
+            if (row == null) return;
+            ids[row] = null;
+            if (rowById.isEmpty()) {
+                clear();
+            } else if (rows >= MIN_COMPACT_ROWS && rowById.size() < rows / 2) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return rowById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int rows() {
+        lock.readLock().lock();
+        try {
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // calls the visitor with the cosine similarity of every live row, a query of another dimension matches nothing
+    void scan(float[] query, RowVisitor visitor) {
+        float queryNorm = norm(query);
+        lock.readLock().lock();
+        try {
+            if (query.length != dimension) return;
+            for (int row = 0; row < rows; row++) {
+                var id = ids[row];
+                if (id == null) continue;
+                float norm = norms[row];
+                double similarity = queryNorm == 0 || norm == 0 ? 0 : dot(query, data, row * dimension, dimension) / (queryNorm * norm);
+                visitor.visit(id, similarity);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // rows * dimension must fit one array, growing past that throws before anything is changed
+    private void ensureCapacity(int required, int rowDimension) {
+        if (required <= ids.length) return;
+        int capacity = Math.max(INITIAL_ROWS, Math.multiplyExact(ids.length, 2));
+        while (capacity < required) capacity = Math.multiplyExact(capacity, 2);
+        data = Arrays.copyOf(data, Math.multiplyExact(capacity, rowDimension));
+        norms = Arrays.copyOf(norms, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+    }
+
+    private void clear() {
+        dimension = -1;
+        rows = 0;
+        data = new float[0];
+        norms = new float[0];
+        ids = new String[0];
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            var id = ids[row];
+            if (id == null) continue;
+            if (row != live) {
+                System.arraycopy(data, row * dimension, data, live * dimension, dimension);
+                norms[live] = norms[row];
+                ids[live] = id;
+                rowById.put(id, live);
+            }
+            live++;
+        }
+        Arrays.fill(ids, live, rows, null);
+        rows = live;
+        // give memory back once the matrix shrank well below its capacity
+        if (ids.length > INITIAL_ROWS && rows < ids.length / 4) {
+            int capacity = Math.max(INITIAL_ROWS, rows * 2);
+            data = Arrays.copyOf(data, Math.multiplyExact(capacity, dimension));
+            norms = Arrays.copyOf(norms, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+    }
+
+    interface RowVisitor {
+        void visit(String id, double similarity);
+    }
+}
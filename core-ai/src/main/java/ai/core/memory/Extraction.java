@@ -1,5 +1,6 @@
 package ai.core.memory;
 
+import ai.core.document.Embedding;
 import ai.core.document.Tokenizer;
 import ai.core.llm.LLMProvider;
 import ai.core.llm.domain.CompletionRequest;
@@ -98,14 +99,14 @@ public class Extraction {
                 return;
             }
 
-            List<List<Double>> embeddings = generateEmbeddings(memoryRecords);
+            List<Embedding> embeddings = generateEmbeddings(memoryRecords);
             if (embeddings.size() != memoryRecords.size()) {
                 LOGGER.error("Embedding count mismatch: {} records, {} embeddings",
                     memoryRecords.size(), embeddings.size());
                 return;
             }
 
-            memoryStore.saveAll(userId, memoryRecords, embeddings);
+            memoryStore.saveAllWithEmbeddings(userId, memoryRecords, embeddings);
             success = true;
 
             LOGGER.debug("Extracted and saved {} memories from {} messages",
@@ -183,7 +184,7 @@ public class Extraction {
     }
 
     private ChatRecord truncateIfNeeded(ChatRecord record) {
-        if (record.content() == null || Tokenizer.tokenCount(record.content()) <= MAX_TOKENS_PER_MESSAGE) {
+        if (record.content() == null || !Tokenizer.exceeds(record.content(), MAX_TOKENS_PER_MESSAGE)) {
             return record;
         }
         String truncated = Tokenizer.truncate(record.content(), MAX_TOKENS_PER_MESSAGE);
@@ -252,7 +253,7 @@ public class Extraction {
         }
     }
 
-    private List<List<Double>> generateEmbeddings(List<MemoryRecord> records) {
+    private List<Embedding> generateEmbeddings(List<MemoryRecord> records) {
         List<String> contents = records.stream()
             .map(MemoryRecord::getContent)
             .toList();
@@ -260,11 +261,11 @@ public class Extraction {
         try {
             EmbeddingResponse response = llmProvider.embeddings(new EmbeddingRequest(contents));
 
-            List<List<Double>> embeddings = new ArrayList<>();
+            List<Embedding> embeddings = new ArrayList<>();
             if (response != null && response.embeddings != null) {
                 for (var embeddingData : response.embeddings) {
                     if (embeddingData.embedding != null) {
-                        embeddings.add(embeddingData.embedding.vectors());
+                        embeddings.add(embeddingData.embedding);
                     }
                 }
             }
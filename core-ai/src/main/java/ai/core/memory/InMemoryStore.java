@@ -1,10 +1,13 @@
 package ai.core.memory;
 
+import ai.core.document.Embedding;
+
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
@@ -14,7 +17,7 @@ import java.util.regex.Pattern;
 public class InMemoryStore implements MemoryStore {
 
     private final Map<String, Map<String, MemoryRecord>> userRecords = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, List<Double>>> userEmbeddings = new ConcurrentHashMap<>();
+    private final Map<String, EmbeddingMatrix> userEmbeddings = new ConcurrentHashMap<>();
 
     @Override
     public void save(String userId, MemoryRecord record) {
@@ -22,15 +25,16 @@ public class InMemoryStore implements MemoryStore {
     }
 
     @Override
-    public void save(String userId, MemoryRecord record, List<Double> embedding) {
-        save(userId, record);
+    public void save(String userId, MemoryRecord record, Embedding embedding) {
+        // the matrix rejects a mismatched dimension, store the record only once its embedding is in
         if (embedding != null) {
-            getEmbeddingsForUser(userId).put(record.getId(), embedding);
+            getEmbeddingsForUser(userId).put(record.getId(), embedding.values());
         }
+        save(userId, record);
     }
 
     @Override
-    public void saveAll(String userId, List<MemoryRecord> recordList, List<List<Double>> embeddingList) {
+    public void saveAllWithEmbeddings(String userId, List<MemoryRecord> recordList, List<Embedding> embeddingList) {
         if (recordList.size() != embeddingList.size()) {
             throw new IllegalArgumentException("Records and embeddings must have same size");
         }
@@ -50,21 +54,14 @@ public class InMemoryStore implements MemoryStore {
     }
 
     @Override
-    public List<MemoryRecord> searchByVector(String userId, List<Double> queryEmbedding, int topK) {
+    public List<MemoryRecord> searchByVector(String userId, Embedding queryEmbedding, int topK) {
         Map<String, MemoryRecord> records = getRecordsForUser(userId);
-        List<ScoredRecord> scored = new ArrayList<>(records.size());
-        Map<String, List<Double>> embeddings = getEmbeddingsForUser(userId);
-
-        for (MemoryRecord record : records.values()) {
-            List<Double> embedding = embeddings.get(record.getId());
-            if (embedding == null) continue;
-
-            double similarity = cosineSimilarity(queryEmbedding, embedding);
-            double effectiveScore = record.calculateEffectiveScore(similarity);
-            scored.add(new ScoredRecord(record, effectiveScore));
-        }
-
-        return extractTopK(userId, scored, topK);
+        var top = new TopK(topK);
+        getEmbeddingsForUser(userId).scan(queryEmbedding.values(), (id, similarity) -> {
+            MemoryRecord record = records.get(id);
+            if (record != null) top.offer(record, record.calculateEffectiveScore(similarity));
+        });
+        return extractTopK(userId, top);
     }
 
     @Override
@@ -74,18 +71,21 @@ public class InMemoryStore implements MemoryStore {
         }
 
         String[] keywords = keyword.toLowerCase(java.util.Locale.ROOT).split("\\s+");
-        List<ScoredRecord> scored = new ArrayList<>();
+        Pattern[] wordPatterns = new Pattern[keywords.length];
+        for (int i = 0; i < keywords.length; i++) {
+            wordPatterns[i] = Pattern.compile("\\b" + Pattern.quote(keywords[i]) + "\\b");
+        }
+        var top = new TopK(topK);
         Map<String, MemoryRecord> records = getRecordsForUser(userId);
 
         for (MemoryRecord record : records.values()) {
-            double keywordScore = calculateKeywordScore(record.getContent(), keywords);
+            double keywordScore = calculateKeywordScore(record.getContent(), keywords, wordPatterns);
             if (keywordScore > 0) {
-                double effectiveScore = record.calculateEffectiveScore(keywordScore);
-                scored.add(new ScoredRecord(record, effectiveScore));
+                top.offer(record, record.calculateEffectiveScore(keywordScore));
             }
         }
 
-        return extractTopK(userId, scored, topK);
+        return extractTopK(userId, top);
     }
 
     @Override
@@ -145,11 +145,11 @@ public class InMemoryStore implements MemoryStore {
         return userRecords.computeIfAbsent(userId, k -> new ConcurrentHashMap<>());
     }
 
-    private Map<String, List<Double>> getEmbeddingsForUser(String userId) {
-        return userEmbeddings.computeIfAbsent(userId, k -> new ConcurrentHashMap<>());
+    private EmbeddingMatrix getEmbeddingsForUser(String userId) {
+        return userEmbeddings.computeIfAbsent(userId, k -> new EmbeddingMatrix());
     }
 
-    private double calculateKeywordScore(String content, String[] keywords) {
+    private double calculateKeywordScore(String content, String[] keywords, Pattern[] wordPatterns) {
         if (content == null || content.isEmpty() || keywords.length == 0) {
             return 0.0;
         }
@@ -158,12 +158,12 @@ public class InMemoryStore implements MemoryStore {
         int matchCount = 0;
         int totalWeight = 0;
 
-        for (String kw : keywords) {
+        for (int i = 0; i < keywords.length; i++) {
+            String kw = keywords[i];
             if (kw.isEmpty()) continue;
             totalWeight++;
 
-            Pattern wordPattern = Pattern.compile("\\b" + Pattern.quote(kw) + "\\b");
-            if (wordPattern.matcher(lowerContent).find()) {
+            if (wordPatterns[i].matcher(lowerContent).find()) {
                 matchCount += 2;
             } else if (lowerContent.contains(kw)) {
                 matchCount += 1;
@@ -174,31 +174,8 @@ public class InMemoryStore implements MemoryStore {
         return (double) matchCount / (totalWeight * 2);
     }
 
-    private double cosineSimilarity(List<Double> a, List<Double> b) {
-        if (a == null || b == null || a.size() != b.size()) return 0.0;
-
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
-
-        for (int i = 0; i < a.size(); i++) {
-            double valA = a.get(i);
-            double valB = b.get(i);
-            dotProduct += valA * valB;
-            normA += valA * valA;
-            normB += valB * valB;
-        }
-
-        if (normA == 0.0 || normB == 0.0) return 0.0;
-        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
-    }
-
-    private List<MemoryRecord> extractTopK(String userId, List<ScoredRecord> scored, int topK) {
-        List<MemoryRecord> results = scored.stream()
-            .sorted(Comparator.comparingDouble(ScoredRecord::score).reversed())
-            .limit(topK)
-            .map(ScoredRecord::record)
-            .toList();
+    private List<MemoryRecord> extractTopK(String userId, TopK top) {
+        List<MemoryRecord> results = top.sorted();
 
         if (!results.isEmpty()) {
             recordAccess(userId, results.stream().map(MemoryRecord::getId).toList());
@@ -208,4 +185,31 @@ public class InMemoryStore implements MemoryStore {
     }
 
     private record ScoredRecord(MemoryRecord record, double score) { }
+
+    // min-heap of the best topK scores, instead of sorting every scored record
+    private static final class TopK {
+        private final int limit;
+        private final PriorityQueue<ScoredRecord> heap;
+
+        TopK(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(limit, 1024)), Comparator.comparingDouble(ScoredRecord::score));
+        }
+
+        void offer(MemoryRecord record, double score) {
+            if (limit <= 0) return;
+            if (heap.size() < limit) {
+                heap.add(new ScoredRecord(record, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new ScoredRecord(record, score));
+            }
+        }
+
+        List<MemoryRecord> sorted() {
+            List<ScoredRecord> scored = new ArrayList<>(heap);
+            scored.sort(Comparator.comparingDouble(ScoredRecord::score).reversed());
+            return scored.stream().map(ScoredRecord::record).toList();
+        }
+    }
 }
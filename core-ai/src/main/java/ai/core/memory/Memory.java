@@ -1,5 +1,6 @@
 package ai.core.memory;
 
+import ai.core.document.Embedding;
 import ai.core.llm.LLMProvider;
 import ai.core.llm.domain.EmbeddingRequest;
 import ai.core.llm.domain.EmbeddingResponse;
@@ -34,7 +35,7 @@ public class Memory {
     }
 
     public List<MemoryRecord> retrieve(String userId, String query, int topK) {
-        List<Double> queryEmbedding = generateEmbedding(query);
+        Embedding queryEmbedding = generateEmbedding(query);
         if (queryEmbedding == null) {
             return List.of();
         }
@@ -70,7 +71,7 @@ public class Memory {
         return memoryStore;
     }
 
-    private List<Double> generateEmbedding(String text) {
+    private Embedding generateEmbedding(String text) {
         if (llmProvider == null || text == null || text.isBlank()) {
             return null;
         }
@@ -80,7 +81,7 @@ public class Memory {
             if (response != null && response.embeddings != null && !response.embeddings.isEmpty()) {
                 var embeddingData = response.embeddings.getFirst();
                 if (embeddingData.embedding != null) {
-                    return embeddingData.embedding.vectors();
+                    return embeddingData.embedding;
                 }
             }
             LOGGER.warn("Failed to generate embedding: empty or invalid response, textLength={}", text.length());
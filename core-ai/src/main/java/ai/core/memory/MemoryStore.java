@@ -1,5 +1,7 @@
 package ai.core.memory;
 
+import ai.core.document.Embedding;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -10,15 +12,27 @@ public interface MemoryStore {
 
     void save(String userId, MemoryRecord record);
 
-    void save(String userId, MemoryRecord record, List<Double> embedding);
+    void save(String userId, MemoryRecord record, Embedding embedding);
+
+    default void save(String userId, MemoryRecord record, List<Double> embedding) {
+        save(userId, record, embedding == null ? null : Embedding.ofDoubles(embedding));
+    }
 
-    void saveAll(String userId, List<MemoryRecord> records, List<List<Double>> embeddings);
+    void saveAllWithEmbeddings(String userId, List<MemoryRecord> records, List<Embedding> embeddings);
+
+    default void saveAll(String userId, List<MemoryRecord> records, List<List<Double>> embeddings) {
+        saveAllWithEmbeddings(userId, records, embeddings.stream().map(Embedding::ofDoubles).toList());
+    }
 
     Optional<MemoryRecord> findById(String userId, String id);
 
     List<MemoryRecord> findAll(String userId);
 
-    List<MemoryRecord> searchByVector(String userId, List<Double> queryEmbedding, int topK);
+    List<MemoryRecord> searchByVector(String userId, Embedding queryEmbedding, int topK);
+
+    default List<MemoryRecord> searchByVector(String userId, List<Double> queryEmbedding, int topK) {
+        return searchByVector(userId, Embedding.ofDoubles(queryEmbedding), topK);
+    }
 
     List<MemoryRecord> searchByKeyword(String userId, String keyword, int topK);
 
@@ -68,12 +68,12 @@ public class LongQueryHandler {
         embeddingTexts.removeAll(documents.stream().map(v -> v.content).toList());
         var usage = new Usage();
         if (!embeddingTexts.isEmpty()) {
-            var rsp = llmProvider.embeddings(new EmbeddingRequest(embeddingTexts));
+            var rsp = llmProvider.cachedEmbeddings(new EmbeddingRequest(embeddingTexts));
             var missingDocuments = rsp.embeddings.stream().map(v -> new Document(v.text, v.embedding, null)).toList();
             vectorStore.add(missingDocuments);
             usage.add(rsp.usage);
         }
-        var rsp = llmProvider.embeddings(new EmbeddingRequest(List.of(question)));
+        var rsp = llmProvider.cachedEmbeddings(new EmbeddingRequest(List.of(question)));
         var text = vectorStore.similaritySearchText(SimilaritySearchRequest.builder().topK(1).embedding(rsp.embeddings.getFirst().embedding).build());
         usage.add(rsp.usage);
         return new LongQueryHandlerResult(text, rsp.usage);
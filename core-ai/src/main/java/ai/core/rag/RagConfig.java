@@ -4,6 +4,8 @@ import ai.core.llm.LLMProvider;
 import ai.core.vectorstore.VectorStore;
 import core.framework.util.Strings;
 
+import java.time.Duration;
+
 /**
  * @author stephen
  */
@@ -21,7 +23,10 @@ public class RagConfig {
     VectorStore vectorStore;
     LLMProvider llmProvider;
     boolean enableQueryRewriting = true;  // Default enabled for backward compatibility
-
+    boolean pipelined = false;
+    int queryVariants = 0;
+    boolean hypotheticalDocument = false;
+    Duration retrievalDeadline;
 
     public boolean useRag() {
         return useRag;
@@ -47,6 +52,23 @@ public class RagConfig {
         return enableQueryRewriting;
     }
 
+    // run rewriting, variants and searches in parallel and fuse the ranked lists, see RagPipeline
+    public boolean pipelined() {
+        return pipelined;
+    }
+
+    public int queryVariants() {
+        return queryVariants;
+    }
+
+    public boolean hypotheticalDocument() {
+        return hypotheticalDocument;
+    }
+
+    public Duration retrievalDeadline() {
+        return retrievalDeadline;
+    }
+
     public static class Builder {
         private boolean useRag = false;
         private Integer topK = 5;
@@ -54,6 +76,10 @@ public class RagConfig {
         private VectorStore vectorStore;
         private LLMProvider llmProvider;
         private boolean enableQueryRewriting = true;  // Default enabled
+        private boolean pipelined = false;
+        private int queryVariants = 0;
+        private boolean hypotheticalDocument = false;
+        private Duration retrievalDeadline;
 
         public Builder useRag(Boolean useRag) {
             this.useRag = useRag;
@@ -88,6 +114,30 @@ public class RagConfig {
             return this;
         }
 
+        public Builder pipelined(boolean pipelined) {
+            this.pipelined = pipelined;
+            return this;
+        }
+
+        // number of alternative phrasings generated by the llm, each searched separately in pipelined mode
+        public Builder queryVariants(int queryVariants) {
+            if (queryVariants < 0) throw new IllegalArgumentException("queryVariants must not be negative, queryVariants=" + queryVariants);
+            this.queryVariants = queryVariants;
+            return this;
+        }
+
+        // HyDE, search with the embedding of a generated answer passage in pipelined mode
+        public Builder hypotheticalDocument(boolean hypotheticalDocument) {
+            this.hypotheticalDocument = hypotheticalDocument;
+            return this;
+        }
+
+        // in pipelined mode the turn continues with the results fused so far once the deadline passes
+        public Builder retrievalDeadline(Duration retrievalDeadline) {
+            this.retrievalDeadline = retrievalDeadline;
+            return this;
+        }
+
         public RagConfig build() {
             var conf = new RagConfig();
             conf.useRag = this.useRag;
@@ -96,6 +146,10 @@ public class RagConfig {
             conf.vectorStore = this.vectorStore;
             conf.llmProvider = this.llmProvider;
             conf.enableQueryRewriting = this.enableQueryRewriting;
+            conf.pipelined = this.pipelined;
+            conf.queryVariants = this.queryVariants;
+            conf.hypotheticalDocument = this.hypotheticalDocument;
+            conf.retrievalDeadline = this.retrievalDeadline;
             return conf;
         }
     }
@@ -0,0 +1,51 @@
+package ai.core.rag;
+
+import ai.core.document.Document;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reciprocal rank fusion, merges ranked document lists by summing 1 / (k + rank) per document. Only ranks are used,
+ * so lists from different query variants fuse without comparing their similarity scores. Documents are matched by id,
+ * or by content when the store returns no id; ties keep the order the documents were first seen in.
+ *
+ * @author stephen
+ */
+public final class ReciprocalRankFusion {
+    public static final int DEFAULT_K = 60;
+
+    public static List<Document> fuse(List<List<Document>> rankings, int topK) {
+        return fuse(rankings, DEFAULT_K, topK);
+    }
+
+    public static List<Document> fuse(List<List<Document>> rankings, int k, int topK) {
+        Map<String, Scored> scores = new LinkedHashMap<>();
+        for (var ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                var document = ranking.get(rank);
+                var key = document.id != null ? document.id : document.content;
+                scores.computeIfAbsent(key, ignored -> new Scored(document)).score += 1d / (k + rank + 1);
+            }
+        }
+        return scores.values().stream()
+                .sorted(Comparator.comparingDouble((Scored scored) -> scored.score).reversed())
+                .limit(topK)
+                .map(scored -> scored.document)
+                .toList();
+    }
+
+    private ReciprocalRankFusion() {
+    }
+
+    private static final class Scored {
+        final Document document;
+        double score;
+
+        Scored(Document document) {
+            this.document = document;
+        }
+    }
+}
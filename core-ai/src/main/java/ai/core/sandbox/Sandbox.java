@@ -3,6 +3,10 @@ package ai.core.sandbox;
 import ai.core.agent.ExecutionContext;
 import ai.core.tool.ToolCallResult;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -31,12 +35,22 @@ public interface Sandbox extends AutoCloseable {
     /** Materialize a skill archive into the sandbox filesystem. */
     void materializeSkill(String name, String version, byte[] tarBytes);
 
-    /** Download a file from the sandbox filesystem. */
+    /** Materialize a skill archive file; backends override to stream it instead of reading it on heap. */
+    default void materializeSkill(String name, String version, Path archive) {
+        materializeSkill(name, version, readAllBytes(archive));
+    }
+
+    /** Download a file from the sandbox filesystem into a local temp file. */
     SandboxFile downloadFile(String path);
 
     /** Upload file content to the sandbox at the specified path. */
     void uploadFile(String path, byte[] content);
 
+    /** Upload a local file to the sandbox; backends override to stream it instead of reading it on heap. */
+    default void uploadFile(String path, Path source) {
+        uploadFile(path, readAllBytes(source));
+    }
+
     String ip();
 
     int port();
@@ -57,4 +71,12 @@ public interface Sandbox extends AutoCloseable {
 
     @Override
     void close();
+
+    private static byte[] readAllBytes(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read file: " + file, e);
+        }
+    }
 }
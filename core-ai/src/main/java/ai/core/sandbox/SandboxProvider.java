@@ -18,5 +18,9 @@ public interface SandboxProvider {
     default void renew(Sandbox sandbox, int timeoutSeconds) {
     }
 
+    // hands a sandbox provisioned ahead of its session (warm pool) to the session, e.g. updates its labels
+    default void assign(Sandbox sandbox, String sessionId, String userId) {
+    }
+
     SandboxStatus getStatus(Sandbox sandbox);
 }
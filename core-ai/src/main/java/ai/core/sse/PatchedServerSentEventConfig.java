@@ -1,5 +1,6 @@
 package ai.core.sse;
 
+import ai.core.llm.streaming.StreamingCallbackDispatcher;
 import ai.core.sse.internal.PatchedServerSentEventContextImpl;
 import ai.core.sse.internal.PatchedServerSentEventHandler;
 import ai.core.sse.internal.PatchedServerSentEventMetrics;
@@ -21,6 +22,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class PatchedServerSentEventConfig extends Config {
+    public static final long DEFAULT_MAX_QUEUED_BYTES = 8L * 1024 * 1024;
+
     private final Logger logger = LoggerFactory.getLogger(PatchedServerSentEventConfig.class);
 
     ModuleContext context;
@@ -50,18 +53,20 @@ public class PatchedServerSentEventConfig extends Config {
         // context.beanClassValidator.validate(eventClass);
         context.apiController.beanClasses.add(eventClass);
 
-        @SuppressWarnings("unchecked")
-        var sseContext = (PatchedServerSentEventContextImpl<T>) contexts.get(eventClass);
-        if (sseContext == null) {
-            sseContext = new PatchedServerSentEventContextImpl<>();
-            contexts.put(eventClass, sseContext);
-            context.beanFactory.bind(Types.generic(ServerSentEventContext.class, eventClass), null, sseContext);
-            metrics.contexts.add(sseContext);
-            context.backgroundTask().scheduleWithFixedDelay(sseContext::keepAlive, Duration.ofSeconds(15));
-        }
+        var sseContext = sseContext(eventClass);
         patchedServerSentEventHandler.add(method, path, eventClass, listener, sseContext);
     }
 
+    /**
+     * Bound the bytes queued per channel of this event class while its client reads slower than events are sent,
+     * and choose what happens beyond the bound. Defaults to 8MB and {@link SlowConsumerPolicy#DISCONNECT}.
+     */
+    public <T> void slowConsumer(Class<T> eventClass, long maxQueuedBytes, SlowConsumerPolicy policy, @Nullable SseEventCoalescer<T> coalescer) {
+        ensureHandler();
+        logger.info("sse slow consumer, eventClass={}, maxQueuedBytes={}, policy={}", eventClass.getCanonicalName(), maxQueuedBytes, policy);
+        sseContext(eventClass).slowConsumer(maxQueuedBytes, policy, coalescer);
+    }
+
     /**
      * Gate an already-registered SSE route on Accept: text/event-stream, so requests without
      * that header fall through to a regular http route registered on the same path.
@@ -83,12 +88,26 @@ public class PatchedServerSentEventConfig extends Config {
         patchedServerSentEventHandler.addInterceptor(interceptor);
     }
 
+    private <T> PatchedServerSentEventContextImpl<T> sseContext(Class<T> eventClass) {
+        @SuppressWarnings("unchecked")
+        var sseContext = (PatchedServerSentEventContextImpl<T>) contexts.get(eventClass);
+        if (sseContext == null) {
+            sseContext = new PatchedServerSentEventContextImpl<>();
+            contexts.put(eventClass, sseContext);
+            context.beanFactory.bind(Types.generic(ServerSentEventContext.class, eventClass), null, sseContext);
+            metrics.contexts.add(sseContext);
+            context.backgroundTask().scheduleWithFixedDelay(sseContext::keepAlive, Duration.ofSeconds(15));
+        }
+        return sseContext;
+    }
+
     private void ensureHandler() {
         if (patchedServerSentEventHandler == null) {
             patchedServerSentEventHandler = new PatchedServerSentEventHandler(context.logManager, context.httpServer.siteManager.sessionManager, context.httpServer.handlerContext);
             context.httpServer.sseHandler = patchedServerSentEventHandler;
             metrics = new PatchedServerSentEventMetrics();
             context.collector.metrics.add(metrics);
+            context.collector.metrics.add(StreamingCallbackDispatcher.getInstance());
         }
     }
 }
@@ -0,0 +1,16 @@
+package ai.core.sse;
+
+/**
+ * What a channel does when its client reads slower than events are sent and the queued bytes would exceed the
+ * configured bound.
+ *
+ * @author stephen
+ */
+public enum SlowConsumerPolicy {
+    /** End the connection; clients that replay on reconnect lose nothing. */
+    DISCONNECT,
+    /** Drop the oldest queued events and put a {@code event: resync} marker ahead of what remains. */
+    DROP_OLDEST,
+    /** Merge the event into the last queued one via the {@link SseEventCoalescer}; falls back to DROP_OLDEST. */
+    COALESCE
+}
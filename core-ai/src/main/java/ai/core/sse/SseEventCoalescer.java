@@ -0,0 +1,18 @@
+package ai.core.sse;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Merges a new event into the last one still queued for a slow client, e.g. consecutive text chunks.
+ *
+ * @author stephen
+ */
+@FunctionalInterface
+public interface SseEventCoalescer<T> {
+    /**
+     * @return a new event equivalent to {@code queued} followed by {@code next}, or null if they can't be merged;
+     * must not mutate either argument, they may be shared with other channels or replay buffers
+     */
+    @Nullable
+    T merge(T queued, T next);
+}
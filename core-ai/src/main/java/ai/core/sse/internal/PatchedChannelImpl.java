@@ -15,14 +15,11 @@ import org.xnio.ChannelListener;
 import org.xnio.channels.StreamSinkChannel;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
 class PatchedChannelImpl<T> implements java.nio.channels.Channel, RawSseChannel<T>, Channel.Context {
@@ -36,7 +33,7 @@ class PatchedChannelImpl<T> implements java.nio.channels.Channel, RawSseChannel<
     final String clientIP;
 
     final WriteListener writeListener = new WriteListener();
-    final Deque<byte[]> queue = new ConcurrentLinkedDeque<>();
+    final SseSendQueue<T> queue;
 
     private final PatchedServerSentEventContextImpl<T> serverSentEventContext;
     private final PatchedServerSentEventWriter<T> builder;
@@ -45,6 +42,9 @@ class PatchedChannelImpl<T> implements java.nio.channels.Channel, RawSseChannel<
     private final HttpServerExchange exchange;
     private final StreamSinkChannel sink;
     private final Map<String, Object> context = new ConcurrentHashMap<>();
+    // at most one pending write task per channel on the io thread, instead of one per event
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean disconnecting = new AtomicBoolean();
 
     long lastSentTime = startTime;
     long eventCount;
@@ -61,12 +61,13 @@ class PatchedChannelImpl<T> implements java.nio.channels.Channel, RawSseChannel<
         this.refId = refId;
         this.path = request.path();
         this.clientIP = request.clientIP();
+        this.queue = serverSentEventContext.newQueue(builder);
     }
 
     @Override
     public boolean send(@Nullable String id, T event) {
         String message = builder.toMessage(id, event);
-        return sendBytes(Strings.bytes(message));
+        return sendBytes(Strings.bytes(message), id, event);
     }
 
     @Override
@@ -75,12 +76,34 @@ class PatchedChannelImpl<T> implements java.nio.channels.Channel, RawSseChannel<
     }
 
     boolean sendBytes(byte[] event) {
-        if (exchange.isResponseComplete()) return false;
+        return sendBytes(event, null, null);
+    }
+
+    private boolean sendBytes(byte[] event, @Nullable String eventId, @Nullable T value) {
+        if (exchange.isResponseComplete() || disconnecting.get()) return false;
 
         var watch = new StopWatch();
         try {
-            queue.add(event);
-            sink.getIoThread().execute(() -> writeListener.handleEvent(sink));
+            switch (queue.offer(event, eventId, value)) {
+                case REJECTED -> {
+                    if (disconnecting.compareAndSet(false, true)) {
+                        serverSentEventContext.slowConsumerDisconnects.incrementAndGet();
+                        LOGGER.warn("disconnect slow sse consumer, channel={}, queuedBytes={}", id, queue.bytes());
+                        sink.getIoThread().execute(this::shutdown);
+                    }
+                    return false;
+                }
+                case DROPPED -> serverSentEventContext.droppedEvents.incrementAndGet();
+                case COALESCED -> serverSentEventContext.coalescedEvents.incrementAndGet();
+                case QUEUED -> {
+                }
+            }
+            if (flushScheduled.compareAndSet(false, true)) {
+                sink.getIoThread().execute(() -> {
+                    flushScheduled.set(false);  // reset before draining, so an event queued meanwhile schedules another pass
+                    writeListener.handleEvent(sink);
+                });
+            }
 
             lastSentTime = System.nanoTime();
             eventCount++;
@@ -163,31 +186,10 @@ class PatchedChannelImpl<T> implements java.nio.channels.Channel, RawSseChannel<
         serverSentEventContext.leave(this, group);
     }
 
+    @Nullable
     ByteBuffer poll() {
-        List<byte[]> bytes = new ArrayList<>(queue.size());
-
-        while (true) {
-            var data = queue.poll();
-            if (data == null) break;
-            bytes.add(data);
-        }
-
-        if (bytes.size() == 1)
-            return ByteBuffer.wrap(bytes.getFirst());
-
-        int length = 0;
-        for (byte[] array : bytes) {
-            length += array.length;
-        }
-
-        byte[] result = new byte[length];
-        int index = 0;
-        for (byte[] array : bytes) {
-            System.arraycopy(array, 0, result, index, array.length);
-            index += array.length;
-        }
-
-        return ByteBuffer.wrap(result);
+        byte[] data = queue.pollAll();
+        return data == null ? null : ByteBuffer.wrap(data);
     }
 
     @Nullable
@@ -222,20 +224,19 @@ class PatchedChannelImpl<T> implements java.nio.channels.Channel, RawSseChannel<
                     buffer = poll();
                 }
 
-                while (true) {
+                while (buffer != null) {
                     channel.write(buffer);
                     boolean flushed = channel.flush();
 
                     if (!flushed) {
-                        channel.resumeWrites();
+                        channel.resumeWrites();     // the rest waits in the bounded queue until the client catches up
                         return;
                     }
                     if (!buffer.hasRemaining()) {
-                        buffer = null;
-                        channel.suspendWrites();
-                        return;
+                        buffer = poll();            // pick up events queued while writing
                     }
                 }
+                channel.suspendWrites();
             } catch (Throwable e) {
                 LOGGER.warn("failed to write sse message, error={}", e.getMessage(), e);
                 exchange.endExchange();
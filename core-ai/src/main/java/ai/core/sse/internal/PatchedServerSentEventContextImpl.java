@@ -1,8 +1,12 @@
 package ai.core.sse.internal;
 
+import ai.core.sse.PatchedServerSentEventConfig;
+import ai.core.sse.SlowConsumerPolicy;
+import ai.core.sse.SseEventCoalescer;
 import core.framework.util.Strings;
 import core.framework.web.sse.Channel;
 import core.framework.web.sse.ServerSentEventContext;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,13 +14,36 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PatchedServerSentEventContextImpl<T> implements ServerSentEventContext<T> {
+    final AtomicLong droppedEvents = new AtomicLong();
+    final AtomicLong coalescedEvents = new AtomicLong();
+    final AtomicLong slowConsumerDisconnects = new AtomicLong();
+
     private final Logger logger = LoggerFactory.getLogger(PatchedServerSentEventContextImpl.class);
 
     private final Map<String, Channel<T>> channels = new ConcurrentHashMap<>();
     private final Map<String, Map<String, Channel<T>>> groups = new ConcurrentHashMap<>();
 
+    private volatile long maxQueuedBytes = PatchedServerSentEventConfig.DEFAULT_MAX_QUEUED_BYTES;
+    private volatile SlowConsumerPolicy policy = SlowConsumerPolicy.DISCONNECT;
+    @Nullable
+    private volatile SseEventCoalescer<T> coalescer;
+
+    // applies to channels connected afterwards
+    public void slowConsumer(long maxQueuedBytes, SlowConsumerPolicy policy, @Nullable SseEventCoalescer<T> coalescer) {
+        if (maxQueuedBytes <= 0) throw new Error("maxQueuedBytes must be positive, maxQueuedBytes=" + maxQueuedBytes);
+        if (policy == SlowConsumerPolicy.COALESCE && coalescer == null) throw new Error("coalescer is required for COALESCE policy");
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.policy = policy;
+        this.coalescer = coalescer;
+    }
+
+    SseSendQueue<T> newQueue(PatchedServerSentEventWriter<T> writer) {
+        return new SseSendQueue<>(maxQueuedBytes, policy, coalescer, (id, event) -> Strings.bytes(writer.toMessage(id, event)));
+    }
+
     @Override
     public List<Channel<T>> all() {
         // "new ArrayList(Collection)" doesn't check null element, so it's faster than List.copyOf
@@ -77,4 +104,20 @@ public class PatchedServerSentEventContextImpl<T> implements ServerSentEventCont
     int size() {
         return channels.size();
     }
+
+    long queuedBytes() {
+        long bytes = 0;
+        for (Channel<T> channel : channels.values()) {
+            bytes += ((PatchedChannelImpl<T>) channel).queue.bytes();
+        }
+        return bytes;
+    }
+
+    long takeQueueHighWaterBytes() {
+        long highWater = 0;
+        for (Channel<T> channel : channels.values()) {
+            highWater = Math.max(highWater, ((PatchedChannelImpl<T>) channel).queue.takeHighWaterBytes());
+        }
+        return highWater;
+    }
 }
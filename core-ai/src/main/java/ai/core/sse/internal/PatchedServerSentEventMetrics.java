@@ -15,9 +15,24 @@ public class PatchedServerSentEventMetrics implements Metrics {
     @Override
     public void collect(Stats stats) {
         int count = 0;
+        long queuedBytes = 0;
+        long highWaterBytes = 0;
+        long dropped = 0;
+        long coalesced = 0;
+        long disconnects = 0;
         for (PatchedServerSentEventContextImpl<?> context : contexts) {
             count += context.size();
+            queuedBytes += context.queuedBytes();
+            highWaterBytes = Math.max(highWaterBytes, context.takeQueueHighWaterBytes());
+            dropped += context.droppedEvents.get();
+            coalesced += context.coalescedEvents.get();
+            disconnects += context.slowConsumerDisconnects.get();
         }
         stats.put("sse_active_channels", count);
+        stats.put("sse_queued_bytes", queuedBytes);
+        stats.put("sse_queue_high_water_bytes", highWaterBytes);   // largest single channel queue since last collect
+        stats.put("sse_dropped_events", dropped);
+        stats.put("sse_coalesced_events", coalesced);
+        stats.put("sse_slow_consumer_disconnects", disconnects);
     }
 }
@@ -0,0 +1,167 @@
+package ai.core.sse.internal;
+
+import ai.core.sse.SlowConsumerPolicy;
+import ai.core.sse.SseEventCoalescer;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Byte-bounded queue of encoded events waiting for the socket, one per channel. Bytes already handed to the
+ * sink are not counted. When an offer would exceed {@code maxBytes} the slow-consumer policy decides.
+ *
+ * @author stephen
+ */
+final class SseSendQueue<T> {
+    static final byte[] RESYNC = "event: resync\ndata: \n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Frame<T>> frames = new ArrayDeque<>();
+    private final long maxBytes;
+    private final SlowConsumerPolicy policy;
+    @Nullable
+    private final SseEventCoalescer<T> coalescer;
+    @Nullable
+    private final BiFunction<@Nullable String, T, byte[]> encoder;
+    private long bytes;
+    private long highWaterBytes;
+
+    SseSendQueue(long maxBytes, SlowConsumerPolicy policy, @Nullable SseEventCoalescer<T> coalescer, @Nullable BiFunction<@Nullable String, T, byte[]> encoder) {
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.coalescer = policy == SlowConsumerPolicy.COALESCE ? coalescer : null;
+        this.encoder = encoder;
+    }
+
+    /**
+     * @param event the decoded event, only kept when it may be coalesced later; null for raw data and keep-alives
+     */
+    Offer offer(byte[] data, @Nullable String id, @Nullable T event) {
+        lock.lock();
+        try {
+            // the bound is on the backlog, a frame larger than maxBytes still goes out when nothing is waiting
+            if (bytes + data.length <= maxBytes || frames.isEmpty()) {
+                add(new Frame<>(data, id, coalescer != null ? event : null));
+                return Offer.QUEUED;
+            }
+            if (policy == SlowConsumerPolicy.DISCONNECT) return Offer.REJECTED;
+            if (event != null && coalesce(id, event)) return Offer.COALESCED;
+            boolean resync = false;
+            if (!frames.isEmpty() && frames.peekFirst().data == RESYNC) {   // a marker from an earlier drop stays at the head
+                bytes -= frames.removeFirst().data.length;
+                resync = true;
+            }
+            int dropped = 0;
+            while (bytes + data.length + RESYNC.length > maxBytes && !frames.isEmpty()) {
+                bytes -= frames.removeFirst().data.length;
+                dropped++;
+            }
+            add(new Frame<>(data, id, coalescer != null ? event : null));
+            if (resync || dropped > 0) {
+                frames.addFirst(new Frame<>(RESYNC, null, null));
+                bytes += RESYNC.length;
+                if (bytes > highWaterBytes) highWaterBytes = bytes;
+            }
+            return dropped > 0 ? Offer.DROPPED : Offer.QUEUED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Everything queued as one buffer, or null if empty. */
+    byte @Nullable [] pollAll() {
+        lock.lock();
+        try {
+            if (frames.isEmpty()) return null;
+            if (frames.size() == 1) {
+                bytes = 0;
+                return frames.removeFirst().data;
+            }
+            byte[] result = new byte[(int) bytes];
+            int index = 0;
+            for (Frame<T> frame : frames) {
+                System.arraycopy(frame.data, 0, result, index, frame.data.length);
+                index += frame.data.length;
+            }
+            frames.clear();
+            bytes = 0;
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        lock.lock();
+        try {
+            return frames.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            frames.clear();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Peak queued bytes since the previous call. */
+    long takeHighWaterBytes() {
+        lock.lock();
+        try {
+            long highWater = highWaterBytes;
+            highWaterBytes = bytes;
+            return highWater;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(Frame<T> frame) {
+        frames.addLast(frame);
+        bytes += frame.data.length;
+        if (bytes > highWaterBytes) highWaterBytes = bytes;
+    }
+
+    private boolean coalesce(@Nullable String id, T event) {
+        if (coalescer == null || encoder == null) return false;
+        Frame<T> last = frames.peekLast();
+        if (last == null || last.event == null) return false;
+        T merged = coalescer.merge(last.event, event);
+        if (merged == null) return false;
+        byte[] data = encoder.apply(id != null ? id : last.id, merged);
+        if (bytes - last.data.length + data.length > maxBytes) return false;
+        frames.removeLast();
+        bytes -= last.data.length;
+        add(new Frame<>(data, id != null ? id : last.id, merged));
+        return true;
+    }
+
+    enum Offer {
+        QUEUED,
+        COALESCED,
+        DROPPED,
+        REJECTED
+    }
+
+    private record Frame<T>(byte[] data, @Nullable String id, @Nullable T event) {
+    }
+}
@@ -105,7 +105,7 @@ public class RagTool extends ToolCall {
         }
 
         // Step 2: Generate embedding for the query
-        var embeddingResponse = llmProvider.embeddings(new EmbeddingRequest(List.of(ragQuery)));
+        var embeddingResponse = llmProvider.cachedEmbeddings(new EmbeddingRequest(List.of(ragQuery)));
         var embedding = embeddingResponse.embeddings.getFirst().embedding;
 
         // Step 3: Similarity search in vector store
@@ -7,25 +7,19 @@ import ai.core.llm.domain.RoleType;
 import java.util.List;
 
 /**
+ * Token counts are cached on the message and keyed by a content fingerprint, so a message is only re-tokenized
+ * after its text, reasoning or tool-call arguments change.
+ *
  * @author xander
  */
 public final class MessageTokenCounterUtil {
 
     public static int count(Message message) {
-        int tokens = 0;
-        if (message.content != null) {
-            tokens += Tokenizer.tokenCount(message.getTextContent());
-        }
-        if (message.reasoningContent != null) {
-            tokens += Tokenizer.tokenCount(message.reasoningContent);
-        }
-        if (message.toolCalls != null) {
-            for (var call : message.toolCalls) {
-                if (call.function != null && call.function.arguments != null) {
-                    tokens += Tokenizer.tokenCount(call.function.arguments);
-                }
-            }
-        }
+        long fingerprint = fingerprint(message);
+        int cached = message.cachedTokenCount(fingerprint);
+        if (cached >= 0) return cached;
+        int tokens = tokenize(message);
+        message.cacheTokenCount(fingerprint, tokens);
         return tokens;
     }
 
@@ -49,6 +43,42 @@ public final class MessageTokenCounterUtil {
         return total;
     }
 
+    static long fingerprint(Message message) {
+        long hash = 1;
+        if (message.content != null) {
+            hash = 31 * hash + hash(message.getTextContent());
+        }
+        hash = 31 * hash + hash(message.reasoningContent);
+        if (message.toolCalls != null) {
+            for (var call : message.toolCalls) {
+                hash = 31 * hash + (call.function == null ? 0 : hash(call.function.arguments));
+            }
+        }
+        return hash;
+    }
+
+    private static long hash(String text) {
+        return text == null ? 0 : ((long) text.hashCode() << 32) ^ text.length();
+    }
+
+    private static int tokenize(Message message) {
+        int tokens = 0;
+        if (message.content != null) {
+            tokens += Tokenizer.tokenCount(message.getTextContent());
+        }
+        if (message.reasoningContent != null) {
+            tokens += Tokenizer.tokenCount(message.reasoningContent);
+        }
+        if (message.toolCalls != null) {
+            for (var call : message.toolCalls) {
+                if (call.function != null && call.function.arguments != null) {
+                    tokens += Tokenizer.tokenCount(call.function.arguments);
+                }
+            }
+        }
+        return tokens;
+    }
+
     private MessageTokenCounterUtil() {
     }
 }
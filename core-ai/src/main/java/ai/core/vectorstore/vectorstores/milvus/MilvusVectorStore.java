@@ -60,7 +60,7 @@ public class MilvusVectorStore implements VectorStore {
             outputFields = List.of(request.queryField);
         }
         var req = SearchReq.builder()
-                .data(List.of(new FloatVec(request.embedding.vectors().stream().map(Double::floatValue).toList())))
+                .data(List.of(new FloatVec(request.embedding.toFloatArray())))
                 .collectionName(config.collection)
                 .topK(request.topK)
                 .outputFields(outputFields)
@@ -149,7 +149,7 @@ public class MilvusVectorStore implements VectorStore {
         var gson = new Gson();
         var row = new JsonObject();
         row.addProperty("query", query);
-        row.add("vector", gson.toJsonTree(embedding.vectors()));
+        row.add("vector", gson.toJsonTree(embedding.toFloatArray()));
         var rsp = milvusClientV2.insert(InsertReq.builder()
                 .collectionName(collection)
                 .data(List.of(row)).build());
@@ -195,7 +195,7 @@ public class MilvusVectorStore implements VectorStore {
         var row = new JsonObject();
         row.addProperty("url", url);
         row.addProperty("query", query);
-        row.add("vector", gson.toJsonTree(embedding.vectors()));
+        row.add("vector", gson.toJsonTree(embedding.toFloatArray()));
         var rsp = milvusClientV2.insert(InsertReq.builder()
                 .collectionName(collection)
                 .data(List.of(row)).build());
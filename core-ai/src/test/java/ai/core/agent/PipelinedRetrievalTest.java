@@ -0,0 +1,133 @@
+package ai.core.agent;
+
+import ai.core.document.Document;
+import ai.core.document.Embedding;
+import ai.core.llm.domain.Choice;
+import ai.core.llm.domain.CompletionRequest;
+import ai.core.llm.domain.CompletionResponse;
+import ai.core.llm.domain.EmbeddingRequest;
+import ai.core.llm.domain.EmbeddingResponse;
+import ai.core.llm.domain.FinishReason;
+import ai.core.llm.domain.Message;
+import ai.core.llm.domain.RoleType;
+import ai.core.llm.domain.Usage;
+import ai.core.llm.providers.MockLLMProvider;
+import ai.core.rag.RagConfig;
+import ai.core.vectorstore.VectorStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author stephen
+ */
+class PipelinedRetrievalTest {
+    private static final Document DOCUMENT = new Document("refund-policy", null, "refunds are paid within 5 days", null);
+
+    @Test
+    void parseVariants() {
+        var output = """
+                1. refund policy
+                - how to get a refund
+
+                refund policy
+                how do refunds work
+                * refund time limit
+                """;
+        assertEquals(List.of("refund policy", "how to get a refund", "refund time limit"), PipelinedRetrieval.parseVariants(output, "how do refunds work", 5));
+        assertEquals(List.of("refund policy"), PipelinedRetrieval.parseVariants(output, "how do refunds work", 1));
+        assertEquals(List.of(), PipelinedRetrieval.parseVariants(null, "how do refunds work", 3));
+    }
+
+    @Test
+    void continueWithOriginalQueryWhenGenerationFails() {
+        var config = config(new Provider(system -> {
+            // the rewrite keeps the query, variants and the hypothetical document fail
+            if (system.contains("Standalone Question")) return "how long do refunds take";
+            throw new IllegalStateException("model unavailable");
+        }), null);
+
+        var result = new PipelinedRetrieval(config, null).retrieve("how long do refunds take");
+
+        assertTrue(result.complete());
+        assertEquals(List.of(List.of(DOCUMENT)), result.rankings());
+        assertEquals("how long do refunds take", result.rerankQuery());
+    }
+
+    @Test
+    void returnRankingsThatArrivedBeforeDeadline() {
+        var release = new CountDownLatch(1);
+        var config = config(new Provider(system -> {
+            await(release);
+            return "never searched";
+        }), Duration.ofMillis(500));
+
+        long start = System.nanoTime();
+        try {
+            var result = new PipelinedRetrieval(config, null).retrieve("what is the refund deadline");
+
+            assertFalse(result.complete());
+            assertEquals(List.of(List.of(DOCUMENT)), result.rankings());
+            assertEquals("what is the refund deadline", result.rerankQuery());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private RagConfig config(Provider provider, Duration retrievalDeadline) {
+        var vectorStore = mock(VectorStore.class);
+        when(vectorStore.similaritySearch(any())).thenReturn(List.of(DOCUMENT));
+        return RagConfig.builder()
+                .useRag(true)
+                .vectorStore(vectorStore)
+                .llmProvider(provider)
+                .pipelined(true)
+                .queryVariants(3)
+                .hypotheticalDocument(true)
+                .retrievalDeadline(retrievalDeadline)
+                .build();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // answers by the system prompt of the default rag agent, the stages run concurrently
+    private static final class Provider extends MockLLMProvider {
+        private final UnaryOperator<String> answer;
+
+        Provider(UnaryOperator<String> answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        protected CompletionResponse doCompletion(CompletionRequest request) {
+            var text = answer.apply(request.messages.getFirst().getTextContent());
+            return CompletionResponse.of(List.of(Choice.of(FinishReason.STOP, Message.of(RoleType.ASSISTANT, text))), new Usage(10, 5, 15));
+        }
+
+        @Override
+        public EmbeddingResponse embeddings(EmbeddingRequest request) {
+            var embeddings = request.query().stream()
+                    .map(text -> EmbeddingResponse.EmbeddingData.of(text, Embedding.of(new float[]{text.length(), 1f})))
+                    .toList();
+            return EmbeddingResponse.of(embeddings, new Usage(1, 0, 1));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ai.core.context;
+
+import ai.core.llm.domain.Content;
+import ai.core.llm.domain.Message;
+import ai.core.llm.domain.RoleType;
+import ai.core.utils.MessageTokenCounterUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author xander
+ */
+class MessageTokenLedgerTest {
+    @Test
+    void prefixSumsMatchFullCount() {
+        var messages = history(20);
+        var ledger = new MessageTokenLedger();
+
+        ledger.sync(messages);
+
+        assertEquals(MessageTokenCounterUtil.count(messages), ledger.total());
+        assertEquals(MessageTokenCounterUtil.countFrom(messages, 7), ledger.countFrom(7));
+        assertEquals(0, ledger.countFrom(20));
+        assertEquals(MessageTokenCounterUtil.count(messages.get(3)), ledger.countRange(3, 4));
+    }
+
+    @Test
+    void syncAppendsAndRecountsChangedSuffix() {
+        var messages = history(10);
+        var ledger = new MessageTokenLedger();
+        ledger.sync(messages);
+
+        messages.add(Message.of(RoleType.USER, "one more question about the ledger"));
+        ledger.sync(messages);
+        assertEquals(11, ledger.size());
+        assertEquals(MessageTokenCounterUtil.count(messages), ledger.total());
+
+        messages.get(4).content = List.of(Content.of("rewritten content that is noticeably longer than before, with extra words"));
+        ledger.sync(messages);
+        assertEquals(MessageTokenCounterUtil.count(messages), ledger.total());
+
+        var compressed = new ArrayList<>(messages.subList(6, messages.size()));
+        ledger.sync(compressed);
+        assertEquals(5, ledger.size());
+        assertEquals(MessageTokenCounterUtil.count(compressed), ledger.total());
+    }
+
+    @Test
+    void cachedCountInvalidatedWhenContentChanges() {
+        var message = Message.of(RoleType.ASSISTANT, "short");
+        int before = MessageTokenCounterUtil.count(message);
+
+        message.content = List.of(Content.of("a much longer answer that should produce more tokens than before"));
+
+        assertTrue(before < MessageTokenCounterUtil.count(message));
+    }
+
+    private List<Message> history(int size) {
+        var messages = new ArrayList<Message>();
+        for (int i = 0; i < size; i++) {
+            var role = i % 2 == 0 ? RoleType.USER : RoleType.ASSISTANT;
+            messages.add(Message.of(role, "message " + i + " with some words to tokenize ".repeat(i + 1)));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,36 @@
+package ai.core.document;
+
+import ai.core.utils.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author stephen
+ */
+class EmbeddingTest {
+    @Test
+    void copyValuesInAndOut() {
+        var values = new float[]{1f, 2f, 3f};
+        var embedding = Embedding.of(values);
+
+        values[0] = 9f;
+        embedding.values()[1] = 9f;
+        embedding.toFloatArray()[2] = 9f;
+
+        assertArrayEquals(new float[]{1f, 2f, 3f}, embedding.values());
+        assertEquals(List.of(1.0, 2.0, 3.0), embedding.vectors());
+    }
+
+    @Test
+    void serializeAsVectors() {
+        var json = JsonUtil.toJson(new Embedding(List.of(0.5, -1.0)));
+
+        assertTrue(json.contains("\"vectors\""), json);
+        assertEquals(Embedding.of(new float[]{0.5f, -1f}), JsonUtil.fromJson(Embedding.class, json));
+    }
+}
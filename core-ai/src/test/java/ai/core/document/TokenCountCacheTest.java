@@ -0,0 +1,57 @@
+package ai.core.document;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author xander
+ */
+class TokenCountCacheTest {
+    @Test
+    void countLargeTextOnce() {
+        var cache = new TokenCountCache(TokenCountCache.DEFAULT_MAX_BYTES);
+        var calls = new AtomicInteger();
+        String text = "x".repeat(TokenCountCache.MIN_CACHEABLE_LENGTH);
+
+        assertEquals(7, cache.count(text, EncodingType.CL100K_BASE, value -> 7 + calls.getAndIncrement()));
+        assertEquals(7, cache.count(text, EncodingType.CL100K_BASE, value -> 7 + calls.getAndIncrement()));
+        assertEquals(8, cache.count(text, EncodingType.O200K_BASE, value -> 7 + calls.getAndIncrement()));
+
+        assertEquals(2, calls.get());
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void skipShortText() {
+        var cache = new TokenCountCache(TokenCountCache.DEFAULT_MAX_BYTES);
+
+        cache.count("short", EncodingType.CL100K_BASE, String::length);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictLeastRecentlyUsedOverMemoryCap() {
+        var cache = new TokenCountCache(2L * TokenCountCache.ENTRY_BYTES);
+        String a = "a".repeat(TokenCountCache.MIN_CACHEABLE_LENGTH);
+        String b = "b".repeat(TokenCountCache.MIN_CACHEABLE_LENGTH);
+        String c = "c".repeat(TokenCountCache.MIN_CACHEABLE_LENGTH);
+
+        cache.count(a, EncodingType.CL100K_BASE, String::length);
+        cache.count(b, EncodingType.CL100K_BASE, String::length);
+        cache.count(a, EncodingType.CL100K_BASE, String::length);
+        cache.count(c, EncodingType.CL100K_BASE, String::length);
+        assertEquals(2, cache.size());
+
+        cache.count(a, EncodingType.CL100K_BASE, String::length);
+        assertEquals(2, cache.hits());
+
+        cache.maxBytes(TokenCountCache.ENTRY_BYTES);
+        assertEquals(1, cache.size());
+    }
+}
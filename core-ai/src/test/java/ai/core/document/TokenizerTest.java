@@ -0,0 +1,59 @@
+package ai.core.document;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author xander
+ */
+class TokenizerTest {
+    @Test
+    void headMatchesBoxedPrefix() {
+        String text = text(2000);
+        List<Integer> tokens = Tokenizer.encode(text);
+
+        assertEquals(Tokenizer.decode(tokens.subList(0, 500)), Tokenizer.head(text, 500));
+        assertEquals(Tokenizer.decode(tokens.subList(0, 500)), Tokenizer.truncate(text, 500));
+    }
+
+    @Test
+    void tailMatchesBoxedSuffix() {
+        String text = text(2000);
+        List<Integer> tokens = Tokenizer.encode(text);
+
+        assertEquals(Tokenizer.decode(tokens.subList(tokens.size() - 500, tokens.size())), Tokenizer.tail(text, 500));
+    }
+
+    @Test
+    void shortTextIsReturnedAsIs() {
+        String text = "hello world";
+
+        assertSame(text, Tokenizer.head(text, 500));
+        assertSame(text, Tokenizer.tail(text, 500));
+        assertTrue(Tokenizer.fitsWithoutEncoding(text, 500));
+        assertFalse(Tokenizer.exceeds(text, 2));
+    }
+
+    @Test
+    void exceedsStopsAtLimit() {
+        String text = text(2000);
+        int count = Tokenizer.tokenCount(text);
+
+        assertTrue(Tokenizer.exceeds(text, count - 1));
+        assertFalse(Tokenizer.exceeds(text, count));
+    }
+
+    private String text(int words) {
+        var builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            builder.append("word").append(i % 97).append(i % 13 == 0 ? ".\n" : " ");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package ai.core.llm.embedding;
+
+import ai.core.document.Embedding;
+import ai.core.llm.domain.EmbeddingRequest;
+import ai.core.llm.domain.EmbeddingResponse;
+import ai.core.llm.domain.Usage;
+import ai.core.llm.providers.MockLLMProvider;
+import ai.core.persistence.PersistenceProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author stephen
+ */
+class EmbeddingBatcherTest {
+    @Test
+    void embedRepeatedTextOnce() {
+        var provider = new CountingProvider();
+        var batcher = new EmbeddingBatcher(provider, new EmbeddingCache(EmbeddingCache.DEFAULT_MAX_BYTES), 16, 2);
+
+        var first = batcher.embeddings(new EmbeddingRequest(List.of("hello", "world", "hello")));
+        var second = batcher.embeddings(new EmbeddingRequest(List.of("world")));
+
+        assertEquals(List.of(List.of("hello", "world")), provider.calls);
+        assertArrayEquals(first.embeddings.get(0).embedding.values(), first.embeddings.get(2).embedding.values());
+        assertArrayEquals(first.embeddings.get(1).embedding.values(), second.embeddings.getFirst().embedding.values());
+        assertEquals(10, first.usage.getPromptTokens());
+        assertEquals(0, second.usage.getPromptTokens());
+    }
+
+    @Test
+    void coalesceConcurrentMissesIntoOneCall() throws Exception {
+        var provider = new CountingProvider();
+        var release = new CountDownLatch(1);
+        provider.blockFirstCall = release;
+        var batcher = new EmbeddingBatcher(provider, new EmbeddingCache(EmbeddingCache.DEFAULT_MAX_BYTES), 16, 1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var blocked = executor.submit(() -> batcher.embeddings(new EmbeddingRequest(List.of("q0"))));
+            assertTrue(provider.firstCallStarted.await(5, TimeUnit.SECONDS));
+            var futures = new ArrayList<Future<EmbeddingResponse>>();
+            for (int i = 1; i <= 5; i++) {
+                var text = "q" + i;
+                futures.add(executor.submit(() -> batcher.embeddings(new EmbeddingRequest(List.of(text)))));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (batcher.queued() < 5 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            blocked.get(5, TimeUnit.SECONDS);
+            for (var future : futures) future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, provider.calls.size());
+        assertEquals(5, provider.calls.get(1).size());
+    }
+
+    @Test
+    void splitLargeRequestsByBatchSize() {
+        var provider = new CountingProvider();
+        var batcher = new EmbeddingBatcher(provider, new EmbeddingCache(EmbeddingCache.DEFAULT_MAX_BYTES), 4, 2);
+        var texts = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) texts.add("chunk-" + i);
+
+        var response = batcher.embeddings(new EmbeddingRequest(texts));
+
+        assertEquals(10, response.embeddings.size());
+        assertEquals(10, provider.calls.stream().mapToInt(List::size).sum());
+        assertTrue(provider.calls.stream().allMatch(call -> call.size() <= 4));
+        for (int i = 0; i < 10; i++) {
+            assertEquals("chunk-" + i, response.embeddings.get(i).text);
+            assertEquals(("chunk-" + i).length(), response.embeddings.get(i).embedding.values()[0]);
+        }
+    }
+
+    @Test
+    void releaseCallersWhenProviderThrowsError() throws Exception {
+        var provider = new CountingProvider();
+        provider.error = new StackOverflowError("provider");
+        var batcher = new EmbeddingBatcher(provider, new EmbeddingCache(EmbeddingCache.DEFAULT_MAX_BYTES), 16, 1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var future = executor.submit(() -> batcher.embeddings(new EmbeddingRequest(List.of("q0"))));
+            var failure = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+        }
+
+        provider.error = null;
+        assertEquals(1, batcher.embeddings(new EmbeddingRequest(List.of("q0"))).embeddings.size());
+    }
+
+    @Test
+    void readThroughPersistentTier() {
+        var persistence = new MapPersistence();
+        var writer = new EmbeddingCache(EmbeddingCache.DEFAULT_MAX_BYTES);
+        writer.persistenceProvider(persistence);
+        writer.put("text-embedding-3-large", "hello", Embedding.of(new float[]{0.25f, -1f, 3f}));
+
+        var reader = new EmbeddingCache(EmbeddingCache.DEFAULT_MAX_BYTES);
+        assertNull(reader.get("text-embedding-3-large", "hello"));
+        reader.persistenceProvider(persistence);
+
+        assertArrayEquals(new float[]{0.25f, -1f, 3f}, reader.get("text-embedding-3-large", "hello").values());
+        assertNull(reader.get("text-embedding-3-small", "hello"));
+        assertEquals(1, reader.size());
+    }
+
+    @Test
+    void callersCannotChangeCachedVectors() {
+        var cache = new EmbeddingCache(EmbeddingCache.DEFAULT_MAX_BYTES);
+        var values = new float[]{1f, 2f};
+        cache.put("model", "a", Embedding.of(values));
+        values[0] = 9f;
+        cache.get("model", "a").values()[1] = 9f;
+
+        assertArrayEquals(new float[]{1f, 2f}, cache.get("model", "a").values());
+    }
+
+    @Test
+    void evictLeastRecentlyUsedOverMemoryCap() {
+        var cache = new EmbeddingCache(2L * (4 * Float.BYTES + EmbeddingCache.ENTRY_OVERHEAD_BYTES));
+        cache.put("model", "a", Embedding.of(new float[4]));
+        cache.put("model", "b", Embedding.of(new float[4]));
+        cache.get("model", "a");
+        cache.put("model", "c", Embedding.of(new float[4]));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("model", "b"));
+    }
+
+    static class CountingProvider extends MockLLMProvider {
+        final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch firstCallStarted = new CountDownLatch(1);
+        volatile CountDownLatch blockFirstCall;
+        volatile Error error;
+
+        @Override
+        public EmbeddingResponse embeddings(EmbeddingRequest request) {
+            calls.add(List.copyOf(request.query()));
+            firstCallStarted.countDown();
+            if (error != null) throw error;
+            var block = blockFirstCall;
+            if (block != null) {
+                blockFirstCall = null;
+                try {
+                    block.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            var data = new ArrayList<EmbeddingResponse.EmbeddingData>();
+            int tokens = 0;
+            for (var text : request.query()) {
+                data.add(EmbeddingResponse.EmbeddingData.of(text, Embedding.of(new float[]{text.length(), 1f})));
+                tokens += text.length();
+            }
+            return EmbeddingResponse.of(data, new Usage(tokens, 0, tokens));
+        }
+    }
+
+    static class MapPersistence implements PersistenceProvider {
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+
+        @Override
+        public void save(String id, String context) {
+            values.put(id, context);
+        }
+
+        @Override
+        public void clear() {
+            values.clear();
+        }
+
+        @Override
+        public void delete(List<String> ids) {
+            ids.forEach(values::remove);
+        }
+
+        @Override
+        public Optional<String> load(String id) {
+            return Optional.ofNullable(values.get(id));
+        }
+    }
+}
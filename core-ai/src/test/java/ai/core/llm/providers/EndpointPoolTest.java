@@ -0,0 +1,63 @@
+package ai.core.llm.providers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author stephen
+ */
+class EndpointPoolTest {
+    private long now;
+    private EndpointPool pool;
+
+    @BeforeEach
+    void createPool() {
+        now = -1_000_000;
+        pool = new EndpointPool(List.of("http://primary", "http://secondary"), () -> now);
+    }
+
+    @Test
+    void preferPrimaryWhileHealthy() {
+        var endpoint = pool.select();
+        pool.recordSuccess(endpoint);
+
+        assertEquals("http://primary", endpoint.url);
+        assertEquals("http://primary", pool.select().url);
+    }
+
+    @Test
+    void failOverAndRecover() {
+        var primary = pool.select();
+        pool.recordFailure(primary);
+        assertEquals("http://secondary", pool.select().url);
+
+        now += Duration.ofSeconds(30).toNanos();
+        assertEquals("http://primary", pool.select().url);
+    }
+
+    @Test
+    void ejectAfterConsecutiveFailures() {
+        var primary = pool.select();
+        pool.recordFailure(primary);
+        pool.recordFailure(primary);
+        pool.recordFailure(primary);
+        var secondary = pool.select();
+        assertEquals("http://secondary", secondary.url);
+
+        now += Duration.ofSeconds(1).toNanos();
+        pool.recordFailure(secondary);
+        pool.recordFailure(secondary);
+        assertEquals("http://secondary", pool.select().url);
+
+        pool.recordFailure(secondary);
+        assertEquals("http://primary", pool.select().url);
+
+        now += Duration.ofSeconds(10).toNanos();
+        assertEquals("http://primary", pool.select().url);
+    }
+}
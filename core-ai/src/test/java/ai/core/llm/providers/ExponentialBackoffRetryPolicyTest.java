@@ -0,0 +1,54 @@
+package ai.core.llm.providers;
+
+import ai.core.agent.CancelReason;
+import ai.core.agent.CancellationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author stephen
+ */
+class ExponentialBackoffRetryPolicyTest {
+    private final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(2));
+
+    @Test
+    void classifyStatusCodes() {
+        assertTrue(policy.retryable(sseFailure(429, null)));
+        assertTrue(policy.retryable(sseFailure(503, null)));
+        assertTrue(policy.retryable(sseFailure(200, null)));
+        assertTrue(policy.retryable(new UncheckedIOException(new IOException("connection reset"))));
+        assertFalse(policy.retryable(sseFailure(400, null)));
+        assertFalse(policy.retryable(sseFailure(401, null)));
+        assertFalse(policy.retryable(new CancellationException(CancelReason.USER_CANCELLED)));
+    }
+
+    @Test
+    void backoffGrowsWithJitterUpToMaxDelay() {
+        for (int i = 0; i < 20; i++) {
+            long first = policy.backoff(0, sseFailure(503, null)).toMillis();
+            long third = policy.backoff(2, sseFailure(503, null)).toMillis();
+            long capped = policy.backoff(10, sseFailure(503, null)).toMillis();
+            assertTrue(first >= 50 && first <= 100, "first=" + first);
+            assertTrue(third >= 200 && third <= 400, "third=" + third);
+            assertTrue(capped >= 1000 && capped <= 2000, "capped=" + capped);
+        }
+    }
+
+    @Test
+    void honorRetryAfter() {
+        assertEquals(Duration.ofSeconds(1), policy.backoff(0, sseFailure(429, "1")));
+        assertEquals(Duration.ofSeconds(2), policy.backoff(0, sseFailure(429, "120")));
+        assertEquals(Duration.ZERO, policy.backoff(0, sseFailure(503, "Wed, 21 Oct 2015 07:28:00 GMT")));
+    }
+
+    private RuntimeException sseFailure(int statusCode, String retryAfter) {
+        return new RuntimeException("invalid sse response, statusCode=" + statusCode + ", retry-after=" + retryAfter + ", content-type=application/json, body={}");
+    }
+}
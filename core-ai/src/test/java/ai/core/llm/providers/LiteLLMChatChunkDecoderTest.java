@@ -0,0 +1,84 @@
+package ai.core.llm.providers;
+
+import ai.core.llm.domain.FinishReason;
+import ai.core.llm.domain.RoleType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author stephen
+ */
+class LiteLLMChatChunkDecoderTest {
+    @Test
+    void decodeContentAndReasoningDelta() {
+        var decoder = new LiteLLMChatChunkDecoder();
+
+        var chunk = decoder.decode("{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"Hel\",\"reasoning_content\":\"think\"},\"finish_reason\":null}]}");
+
+        var choice = chunk.choices.getFirst();
+        assertEquals(RoleType.ASSISTANT, choice.delta.role);
+        assertEquals("Hel", choice.delta.content);
+        assertEquals("think", choice.delta.reasoningContent);
+        assertNull(choice.finishReason);
+        assertNull(chunk.usage);
+        assertEquals(0, decoder.fallbackCount());
+    }
+
+    @Test
+    void decodeToolCallDelta() {
+        var decoder = new LiteLLMChatChunkDecoder();
+
+        var chunk = decoder.decode("{\"choices\":[{\"delta\":{\"tool_calls\":[{\"index\":1,\"id\":\"call_1\",\"type\":\"function\",\"function\":{\"name\":\"search\",\"arguments\":\"{\\\"q\\\":\"}}]}}]}");
+
+        var toolCall = chunk.choices.getFirst().delta.toolCalls.getFirst();
+        assertEquals(1, toolCall.index);
+        assertEquals("call_1", toolCall.id);
+        assertEquals("function", toolCall.type);
+        assertEquals("search", toolCall.function.name);
+        assertEquals("{\"q\":", toolCall.function.arguments);
+    }
+
+    @Test
+    void decodeFinishReasonAndUsage() {
+        var decoder = new LiteLLMChatChunkDecoder();
+
+        var chunk = decoder.decode("{\"choices\":[{\"delta\":{},\"finish_reason\":\"tool_calls\"}],\"usage\":{\"prompt_tokens\":10,\"completion_tokens\":5,\"total_tokens\":15,\"completion_tokens_details\":{\"reasoning_tokens\":2},\"prompt_tokens_details\":{\"cached_tokens\":4}}}");
+
+        assertEquals(FinishReason.TOOL_CALLS, chunk.choices.getFirst().finishReason);
+        assertEquals(10, chunk.usage.getPromptTokens());
+        assertEquals(5, chunk.usage.getCompletionTokens());
+        assertEquals(15, chunk.usage.getTotalTokens());
+        assertEquals(2, chunk.usage.getCompletionTokensDetails().reasoningTokens);
+        assertEquals(4, chunk.usage.getPromptTokensDetails().cachedTokens);
+    }
+
+    @Test
+    void reuseHoldersUntilDetached() {
+        var decoder = new LiteLLMChatChunkDecoder();
+
+        var first = decoder.decode("{\"choices\":[{\"delta\":{\"content\":\"a\"}}]}");
+        var second = decoder.decode("{\"choices\":[{\"delta\":{\"content\":\"b\"}}]}");
+        assertSame(first, second);
+        assertEquals("b", second.choices.getFirst().delta.content);
+
+        decoder.detach();
+        var third = decoder.decode("{\"choices\":[{\"delta\":{\"content\":\"c\"}}]}");
+        assertNotSame(second, third);
+        assertEquals("b", second.choices.getFirst().delta.content);
+        assertEquals("c", third.choices.getFirst().delta.content);
+    }
+
+    @Test
+    void fallbackToEscapeRepairOnInvalidJson() {
+        var decoder = new LiteLLMChatChunkDecoder();
+
+        var chunk = decoder.decode("{\"choices\":[{\"delta\":{\"content\":\"path \\{value\\}\"}}]}");
+
+        assertEquals("path \\{value\\}", chunk.choices.getFirst().delta.content);
+        assertEquals(1, decoder.fallbackCount());
+    }
+}
@@ -2,17 +2,14 @@ package ai.core.llm.providers;
 
 import ai.core.llm.domain.AssistantMessage;
 import ai.core.llm.domain.Choice;
-import ai.core.llm.domain.EmbeddingResponse;
 import ai.core.llm.domain.FunctionCall;
-import ai.core.document.Embedding;
-import ai.core.llm.domain.Usage;
 import ai.core.utils.JsonUtil;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -37,49 +34,24 @@ class LiteLLMProviderTest {
                 }
                 """;
 
-        var response = parseEmbeddingResponse(queries, mockResponse);
+        var response = LiteLLMEmbeddingParser.parse(queries, mockResponse);
 
         assertNotNull(response);
         assertNotNull(response.embeddings);
         assertEquals(2, response.embeddings.size());
 
         assertEquals("Hello world", response.embeddings.get(0).text);
-        assertEquals(List.of(0.1, 0.2, 0.3), response.embeddings.get(0).embedding.vectors());
+        assertArrayEquals(new float[]{0.1f, 0.2f, 0.3f}, response.embeddings.get(0).embedding.toFloatArray());
 
         assertEquals("How are you", response.embeddings.get(1).text);
-        assertEquals(List.of(0.4, 0.5, 0.6), response.embeddings.get(1).embedding.vectors());
+        assertArrayEquals(new float[]{0.4f, 0.5f, 0.6f}, response.embeddings.get(1).embedding.toFloatArray());
+        assertEquals(3, response.embeddings.get(1).embedding.vectors().size());
 
         assertNotNull(response.usage);
         assertEquals(5, response.usage.getPromptTokens());
         assertEquals(5, response.usage.getTotalTokens());
     }
 
-    @SuppressWarnings("unchecked")
-    private EmbeddingResponse parseEmbeddingResponse(List<String> queries, String responseText) {
-        var responseMap = (Map<String, Object>) JsonUtil.fromJson(Map.class, responseText);
-        var dataList = (List<Map<String, Object>>) responseMap.get("data");
-        var usageMap = (Map<String, Object>) responseMap.get("usage");
-
-        var embeddings = new ArrayList<EmbeddingResponse.EmbeddingData>();
-        for (var data : dataList) {
-            int index = ((Number) data.get("index")).intValue();
-            var embeddingList = (List<Number>) data.get("embedding");
-            var vectors = embeddingList.stream()
-                    .map(Number::doubleValue)
-                    .toList();
-            var embedding = new Embedding(vectors);
-            embeddings.add(EmbeddingResponse.EmbeddingData.of(queries.get(index), embedding));
-        }
-
-        var usage = new Usage(
-                ((Number) usageMap.get("prompt_tokens")).intValue(),
-                0,
-                ((Number) usageMap.get("total_tokens")).intValue()
-        );
-
-        return EmbeddingResponse.of(embeddings, usage);
-    }
-
     @Test
     void repairsInvalidJsonEscapesInsideStringValues() {
         String invalidJson = "{\"choices\":[{\"delta\":{\"content\":\"path \\{value\\} and \\q\"}}]}";
@@ -0,0 +1,83 @@
+package ai.core.llm.streaming;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author lim chen
+ */
+class AsyncStreamingCallbackTest {
+    private final StreamingCallbackDispatcher dispatcher = new StreamingCallbackDispatcher(Executors.newVirtualThreadPerTaskExecutor(), 2);
+
+    @Test
+    void deliverChunksInOrderBeforeComplete() {
+        var events = new CopyOnWriteArrayList<String>();
+        var callback = new AsyncStreamingCallback(new RecordingCallback(events), dispatcher);
+
+        IntStream.range(0, 1000).forEach(i -> callback.onChunk(String.valueOf(i)));
+        callback.onComplete();
+
+        assertEquals(1001, events.size());
+        assertEquals(IntStream.range(0, 1000).mapToObj(String::valueOf).toList(), events.subList(0, 1000));
+        assertEquals("complete", events.getLast());
+        assertEquals(0, dispatcher.queueDepth());
+    }
+
+    @Test
+    void keepOrderPerStreamAcrossSharedDispatcher() throws InterruptedException {
+        int streams = 20;
+        var results = new ArrayList<List<String>>();
+        var done = new CountDownLatch(streams);
+        for (int s = 0; s < streams; s++) {
+            var events = new CopyOnWriteArrayList<String>();
+            results.add(events);
+            var callback = new AsyncStreamingCallback(new RecordingCallback(events), dispatcher);
+            Thread.ofVirtual().start(() -> {
+                IntStream.range(0, 500).forEach(i -> callback.onChunk(String.valueOf(i)));
+                callback.onComplete();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        for (var events : results) {
+            assertEquals(501, events.size());
+            assertEquals(IntStream.range(0, 500).mapToObj(String::valueOf).toList(), events.subList(0, 500));
+        }
+        assertEquals(0, dispatcher.queueDepth());
+    }
+
+    @Test
+    void dropPendingEventsAfterCancel() {
+        var events = new CopyOnWriteArrayList<String>();
+        var callback = new AsyncStreamingCallback(new RecordingCallback(events), dispatcher);
+
+        callback.cancelConnection();
+        callback.onChunk("late");
+        callback.onComplete();
+
+        assertEquals(List.of("complete"), events);
+    }
+
+    private record RecordingCallback(List<String> events) implements StreamingCallback {
+        @Override
+        public void onChunk(String chunk) {
+            events.add(chunk);
+        }
+
+        @Override
+        public void onComplete() {
+            events.add("complete");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ai.core.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author xander
+ */
+class EmbeddingMatrixTest {
+    private static Map<String, Double> scan(EmbeddingMatrix matrix, float[] query) {
+        Map<String, Double> similarities = new HashMap<>();
+        matrix.scan(query, similarities::put);
+        return similarities;
+    }
+
+    @Test
+    void scoreCosineSimilarityOfEveryRow() {
+        var matrix = new EmbeddingMatrix();
+        matrix.put("same", new float[]{1, 2, 3, 4, 5});
+        matrix.put("opposite", new float[]{-1, -2, -3, -4, -5});
+        matrix.put("orthogonal", new float[]{2, -1, 0, 0, 0});
+        matrix.put("zero", new float[5]);
+
+        var similarities = scan(matrix, new float[]{1, 2, 3, 4, 5});
+
+        assertEquals(1, similarities.get("same"), 1e-6);
+        assertEquals(-1, similarities.get("opposite"), 1e-6);
+        assertEquals(0, similarities.get("orthogonal"), 1e-6);
+        assertEquals(0, similarities.get("zero"));
+        assertTrue(scan(matrix, new float[]{1, 2, 3}).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> matrix.put("other", new float[3]));
+    }
+
+    @Test
+    void overwriteRowInPlace() {
+        var matrix = new EmbeddingMatrix();
+        matrix.put("a", new float[]{1, 0});
+        matrix.put("a", new float[]{0, 1});
+
+        assertEquals(1, matrix.rows());
+        assertEquals(1, scan(matrix, new float[]{0, 1}).get("a"), 1e-6);
+    }
+
+    @Test
+    void resetDimensionOnceEmpty() {
+        var matrix = new EmbeddingMatrix();
+        matrix.put("a", new float[]{1, 0});
+        assertThrows(IllegalArgumentException.class, () -> matrix.put("b", new float[]{1, 0, 0}));
+        assertEquals(1, matrix.size());
+
+        matrix.remove("a");
+        matrix.put("b", new float[]{0, 0, 1});
+
+        assertEquals(1, matrix.rows());
+        assertEquals(1, scan(matrix, new float[]{0, 0, 1}).get("b"), 1e-6);
+        assertTrue(scan(matrix, new float[]{1, 0}).isEmpty());
+    }
+
+    @Test
+    void compactDeletedRows() {
+        var matrix = new EmbeddingMatrix();
+        for (int i = 0; i < 100; i++) matrix.put("id-" + i, new float[]{i + 1, 1});
+        for (int i = 0; i < 60; i++) matrix.remove("id-" + i);
+
+        assertEquals(40, matrix.size());
+        assertTrue(matrix.rows() < 100);
+        var similarities = scan(matrix, new float[]{1, 0});
+        assertEquals(40, similarities.size());
+        assertFalse(similarities.containsKey("id-0"));
+        assertEquals(100 / Math.sqrt(100 * 100 + 1), similarities.get("id-99"), 1e-6);
+
+        matrix.put("id-0", new float[]{0, 1});
+        assertEquals(1, scan(matrix, new float[]{0, 1}).get("id-0"), 1e-6);
+    }
+}
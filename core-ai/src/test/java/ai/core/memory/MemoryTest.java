@@ -18,6 +18,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -256,6 +257,19 @@ class MemoryTest {
             assertEquals("Test content", found.get().getContent());
         }
 
+        @Test
+        @DisplayName("Should not save record whose embedding dimension mismatches")
+        void testSaveRejectsDimensionMismatch() {
+            MemoryStore memStore = new InMemoryStore();
+            memStore.save(USER_ID, MemoryRecord.builder().content("first").build(), Embedding.of(new float[]{1, 0}));
+
+            MemoryRecord record = MemoryRecord.builder().content("second").build();
+            assertThrows(IllegalArgumentException.class, () -> memStore.save(USER_ID, record, Embedding.of(new float[]{1, 0, 0})));
+
+            assertEquals(1, memStore.count(USER_ID));
+            assertFalse(memStore.findById(USER_ID, record.getId()).isPresent());
+        }
+
         @Test
         @DisplayName("Should delete records")
         void testDelete() {
@@ -0,0 +1,51 @@
+package ai.core.rag;
+
+import ai.core.document.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author stephen
+ */
+class ReciprocalRankFusionTest {
+    private static Document document(String id) {
+        return new Document(id, null, "content of " + id, null);
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(document -> document.id).toList();
+    }
+
+    @Test
+    void documentsFoundByManyVariantsRankFirst() {
+        var original = List.of(document("a"), document("b"), document("c"));
+        var rewritten = List.of(document("c"), document("d"));
+        var hypothetical = List.of(document("d"), document("c"), document("a"));
+
+        var fused = ReciprocalRankFusion.fuse(List.of(original, rewritten, hypothetical), 10);
+
+        assertEquals(List.of("c", "d", "a", "b"), ids(fused));
+    }
+
+    @Test
+    void limitToTopKAndKeepFirstSeenOrderOnTies() {
+        var first = List.of(document("a"), document("b"));
+        var second = List.of(document("c"), document("d"));
+
+        assertEquals(List.of("a", "c", "b"), ids(ReciprocalRankFusion.fuse(List.of(first, second), 3)));
+    }
+
+    @Test
+    void matchDocumentsWithoutIdByContent() {
+        var first = List.of(new Document(null, null, "same", null), new Document(null, null, "other", null));
+        var second = List.of(new Document(null, null, "same", null));
+
+        var fused = ReciprocalRankFusion.fuse(List.of(first, second), 5);
+
+        assertEquals(2, fused.size());
+        assertEquals("same", fused.getFirst().content);
+    }
+}
@@ -0,0 +1,88 @@
+package ai.core.sse.internal;
+
+import ai.core.sse.SlowConsumerPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author stephen
+ */
+class SseSendQueueTest {
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static String frame(String data) {
+        return "data: " + data + "\n\n";
+    }
+
+    @Test
+    void pollAllConcatenatesQueuedFrames() {
+        var queue = new SseSendQueue<String>(1024, SlowConsumerPolicy.DISCONNECT, null, null);
+        queue.offer(bytes(frame("a")), null, null);
+        queue.offer(bytes(frame("b")), null, null);
+
+        assertEquals(frame("a") + frame("b"), string(queue.pollAll()));
+        assertNull(queue.pollAll());
+        assertEquals(0, queue.bytes());
+    }
+
+    @Test
+    void disconnectRejectsBeyondBound() {
+        var queue = new SseSendQueue<String>(16, SlowConsumerPolicy.DISCONNECT, null, null);
+
+        assertEquals(SseSendQueue.Offer.QUEUED, queue.offer(bytes(frame("01234567")), null, null));
+        assertEquals(SseSendQueue.Offer.REJECTED, queue.offer(bytes(frame("x")), null, null));
+        assertEquals(16, queue.takeHighWaterBytes());
+    }
+
+    @Test
+    void disconnectQueuesOversizeFrameWhenEmpty() {
+        var queue = new SseSendQueue<String>(16, SlowConsumerPolicy.DISCONNECT, null, null);
+
+        assertEquals(SseSendQueue.Offer.QUEUED, queue.offer(bytes(frame("a large tool result")), null, null));
+        assertEquals(SseSendQueue.Offer.REJECTED, queue.offer(bytes(frame("x")), null, null));
+        assertEquals(frame("a large tool result"), string(queue.pollAll()));
+    }
+
+    @Test
+    void dropOldestKeepsNewestBehindResyncMarker() {
+        var queue = new SseSendQueue<String>(35, SlowConsumerPolicy.DROP_OLDEST, null, null);
+        queue.offer(bytes(frame("first")), null, null);
+        queue.offer(bytes(frame("second")), null, null);
+
+        assertEquals(SseSendQueue.Offer.DROPPED, queue.offer(bytes(frame("third")), null, null));
+        assertEquals(SseSendQueue.Offer.DROPPED, queue.offer(bytes(frame("fourth")), null, null));
+
+        assertEquals(string(SseSendQueue.RESYNC) + frame("fourth"), string(queue.pollAll()));
+    }
+
+    @Test
+    void coalesceMergesIntoLastQueuedEvent() {
+        var queue = new SseSendQueue<String>(24, SlowConsumerPolicy.COALESCE, (queued, next) -> queued + next, (id, event) -> bytes(frame(event)));
+        queue.offer(bytes(frame("abcdef")), null, "abcdef");
+
+        assertEquals(SseSendQueue.Offer.COALESCED, queue.offer(bytes(frame("ghijkl")), null, "ghijkl"));
+        assertEquals(SseSendQueue.Offer.COALESCED, queue.offer(bytes(frame("mn")), null, "mn"));
+        assertEquals(frame("abcdefghijklmn"), string(queue.pollAll()));
+    }
+
+    @Test
+    void coalesceFallsBackToDropOldest() {
+        var queue = new SseSendQueue<String>(24, SlowConsumerPolicy.COALESCE, (queued, next) -> null, (id, event) -> bytes(frame(event)));
+        queue.offer(bytes(frame("abcdef")), null, "abcdef");
+
+        assertEquals(SseSendQueue.Offer.DROPPED, queue.offer(bytes(frame("ghijkl")), null, "ghijkl"));
+        String polled = string(queue.pollAll());
+        assertTrue(polled.endsWith(frame("ghijkl")), polled);
+    }
+}